@@ -0,0 +1,53 @@
+#!/usr/bin/env python3
+"""
+jmh_compare.py — 对比两次 JMH JSON 结果（mvn -Pbenchmark ... 输出的 target/jmh-result.json）。
+
+用法:
+  python3 jmh_compare.py base.json head.json            # 打印耗时与每次调用分配字节的变化
+  python3 jmh_compare.py base.json head.json --fail 10  # 任一用例耗时变慢超过 10% 时退出码 1
+"""
+import json
+import sys
+
+ALLOC = 'gc.alloc.rate.norm'
+
+
+def load(path):
+    with open(path, encoding='utf-8') as f:
+        runs = json.load(f)
+    result = {}
+    for run in runs:
+        params = ','.join(f'{k}={v}' for k, v in sorted((run.get('params') or {}).items()))
+        key = run['benchmark'].rsplit('.', 2)[-2:]
+        key = '.'.join(key) + (f'[{params}]' if params else '')
+        primary = run['primaryMetric']
+        alloc = (run.get('secondaryMetrics') or {}).get(ALLOC)
+        result[key] = (primary['score'], primary['scoreUnit'], alloc['score'] if alloc else None)
+    return result
+
+
+def main(argv):
+    if len(argv) < 3:
+        sys.exit(__doc__)
+    base, head = load(argv[1]), load(argv[2])
+    threshold = float(argv[argv.index('--fail') + 1]) if '--fail' in argv else None
+    regressed = []
+    print(f"{'benchmark':<70} {'base':>12} {'head':>12} {'delta':>8} {'alloc B/op':>21}")
+    for key in sorted(set(base) | set(head)):
+        if key not in base or key not in head:
+            print(f"{key:<70} {'only in ' + ('head' if key in head else 'base'):>34}")
+            continue
+        (b, unit, ba), (h, _, ha) = base[key], head[key]
+        delta = (h - b) / b * 100 if b else 0.0
+        alloc = f'{ba:.1f} -> {ha:.1f}' if ba is not None and ha is not None else '-'
+        print(f'{key:<70} {b:>12.3f} {h:>12.3f} {delta:>+7.1f}% {alloc:>21}  {unit}')
+        # AverageTime 类指标越小越好
+        if threshold is not None and delta > threshold:
+            regressed.append(key)
+    if regressed:
+        print(f'\nregressed > {threshold}%: ' + ', '.join(regressed))
+        sys.exit(1)
+
+
+if __name__ == '__main__':
+    main(sys.argv)
@@ -27,8 +27,17 @@ fi
 
 echo "[backend] building jar (incremental)..."
 
-mvn -q package -DskipTests
+# VECTOR_KERNEL=1：带 SIMD 内核构建（-Pvector）并以 --add-modules jdk.incubator.vector 启动
+MVN_PROFILE_ARGS=()
+JAVA_MODULE_ARGS=()
+if [[ "${VECTOR_KERNEL:-0}" == "1" ]]; then
+  MVN_PROFILE_ARGS=(-Pvector)
+  JAVA_MODULE_ARGS=(--add-modules jdk.incubator.vector)
+  echo "[backend] vector kernel enabled (jdk.incubator.vector)"
+fi
+
+mvn -q package -DskipTests ${MVN_PROFILE_ARGS[@]+"${MVN_PROFILE_ARGS[@]}"}
 
 echo "[backend] starting Spring Boot (java -jar)..."
 
-exec java -jar target/stock-invest-1.0-SNAPSHOT.jar --spring.profiles.active=default
+exec java ${JAVA_MODULE_ARGS[@]+"${JAVA_MODULE_ARGS[@]}"} -jar target/stock-invest-1.0-SNAPSHOT.jar --spring.profiles.active=default
@@ -0,0 +1,121 @@
+package com.stock.invest.benchmark;
+
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.service.PatternEvaluateService;
+import com.stock.invest.service.impl.PatternEvaluateServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模式评估热路径基准：{@value #SYMBOLS} 个 symbol × 最近 7 个开盘日（{@link SyntheticMarket}），逐 symbol 评估。
+ * <p>配合 {@code -prof gc} 读取 gc.alloc.rate.norm（每次评估分配字节），期望 ≈ 0 B/op。
+ * {@link #main} 以 GC profiler 运行全部用例，任一用例超出 {@link #MAX_ALLOC_BYTES_PER_OP} 即非零退出。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class PatternEvaluateBenchmark {
+
+    private static final int SYMBOLS = 1024;
+
+    /** 零分配判定阈值：容许 JMH 自身计数误差 */
+    private static final double MAX_ALLOC_BYTES_PER_OP = 0.5;
+
+    @Param({"20261018"})
+    public long seed;
+
+    private final PatternEvaluateService service = new PatternEvaluateServiceImpl();
+    private List<List<StockDailyBar>> barsPerSymbol;
+    private int allWindows;
+
+    @Setup
+    public void setUp() {
+        SyntheticMarket market = SyntheticMarket.generate(SYMBOLS, WindowConstants.MAX_WINDOW_DAYS, seed);
+        barsPerSymbol = new ArrayList<>(SYMBOLS);
+        for (String symbol : market.symbols()) {
+            barsPerSymbol.add(market.tail(symbol, WindowConstants.MAX_WINDOW_DAYS));
+        }
+        for (int w = WindowConstants.MIN_WINDOW_DAYS; w <= WindowConstants.MAX_WINDOW_DAYS; w++) {
+            allWindows |= PatternEvaluateService.windowBit(w);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void evaluateWindows(Blackhole bh) {
+        for (int i = 0; i < SYMBOLS; i++) {
+            bh.consume(service.evaluateWindows(barsPerSymbol.get(i), allWindows));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void increasingVolume7d(Blackhole bh) {
+        for (int i = 0; i < SYMBOLS; i++) {
+            bh.consume(service.matchesIncreasingVolumePattern(barsPerSymbol.get(i), 7));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void volumeSpike5d(Blackhole bh) {
+        for (int i = 0; i < SYMBOLS; i++) {
+            bh.consume(service.matchesVolumeSpikePattern(barsPerSymbol.get(i), 5));
+        }
+    }
+
+    /**
+     * 零分配校验入口：gc.alloc.rate.norm 超出阈值的用例逐条打印并以退出码 1 结束。
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PatternEvaluateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        boolean failed = false;
+        for (RunResult run : results) {
+            String label = run.getParams().getBenchmark();
+            Result<?> alloc = run.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (alloc == null) {
+                System.err.println("[PatternEvaluateBenchmark] gc.alloc.rate.norm missing for " + label);
+                failed = true;
+                continue;
+            }
+            boolean ok = alloc.getScore() <= MAX_ALLOC_BYTES_PER_OP;
+            System.out.printf("[PatternEvaluateBenchmark] %s: %.3f B/op %s%n",
+                    label, alloc.getScore(), ok ? "OK" : "ALLOCATES");
+            failed |= !ok;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.stock.invest.benchmark;
+
+import com.stock.invest.config.BarStoreProperties;
+import com.stock.invest.config.ScreeningProperties;
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.service.DailyBarColumnStore;
+import com.stock.invest.service.SymbolDictionary;
+import com.stock.invest.service.impl.PatternEvaluateServiceImpl;
+import com.stock.invest.service.impl.ScreeningServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整次筛选（{@link ScreeningServiceImpl#runScreening}）基准：合成行情 + 内存仓库桩 + 规则日历桩，全程离线。
+ * <ul>
+ *   <li>source=db：列式缓存关闭，走只读投影流</li>
+ *   <li>source=store：启动式加载 {@link DailyBarColumnStore} 后走列式缓存路径</li>
+ *   <li>parallelism：1 = 串行，0 = CPU 核数</li>
+ * </ul>
+ * 结果写入走桩的 saveAll（不持久化），每次调用相互独立。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlogback.configurationFile=logback-jmh.xml"})
+public class ScreeningBenchmark {
+
+    /** 每个 symbol 生成的开盘日数（覆盖筛选区间 + 列式缓存容量） */
+    private static final int DAYS = 30;
+
+    @Param({"1000", "8000"})
+    public int symbols;
+
+    @Param({"db", "store"})
+    public String source;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    @Param({"20261018"})
+    public long seed;
+
+    private ScreeningServiceImpl service;
+    private LocalDate tradeDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticMarket market = SyntheticMarket.generate(symbols, DAYS, seed);
+        tradeDate = market.lastOpenDay();
+        StockDailyBarRepository dailyBars = StubRepositories.dailyBars(market);
+
+        BarStoreProperties storeProperties = new BarStoreProperties();
+        storeProperties.setEnabled("store".equals(source));
+        storeProperties.setTradingDays(DAYS);
+        DailyBarColumnStore store = new DailyBarColumnStore(dailyBars, storeProperties, new NoOpTransactionManager());
+        if (storeProperties.isEnabled()) {
+            store.load();
+            if (!store.covers(tradeDate.minusDays(WindowConstants.MAX_WINDOW_DAYS + 2))) {
+                throw new IllegalStateException("bar store does not cover screening range: " + store.stats());
+            }
+        }
+
+        ScreeningProperties screeningProperties = new ScreeningProperties();
+        screeningProperties.setParallelism(parallelism);
+        service = new ScreeningServiceImpl(dailyBars, StubRepositories.screeningMatches(),
+                new PatternEvaluateServiceImpl(), new StubTradingCalendarDbService(market),
+                screeningProperties, store, StubRepositories.unavailableBulkWriter(),
+                new SymbolDictionary(StubRepositories.symbols(), StubRepositories.unavailableSymbolUpsertWriter(),
+                        new NoOpTransactionManager()),
+                StubRepositories.noOpPayloadStore(), StubRepositories.noOpBatchStore(),
+                StubRepositories.noOpHitIndex(), StubRepositories.emptyLatestBars());
+    }
+
+    @Benchmark
+    public String runScreening() {
+        return service.runScreening(tradeDate, null, null);
+    }
+}
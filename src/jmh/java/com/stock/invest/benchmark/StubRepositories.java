@@ -0,0 +1,145 @@
+package com.stock.invest.benchmark;
+
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.ScreeningMatchBulkWriter;
+import com.stock.invest.repository.ScreeningMatchRepository;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.StockSymbolRepository;
+import com.stock.invest.repository.StockSymbolUpsertWriter;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.service.ScreeningBatchStore;
+import com.stock.invest.service.ScreeningHitIndex;
+import com.stock.invest.service.ScreeningPayloadStore;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 {@link SyntheticMarket} 的内存仓库桩（JDK 动态代理）：只实现基准路径实际调用的方法，
+ * 其余方法抛 {@link UnsupportedOperationException}，被测代码新增仓库调用时基准立即失败而不是静默读空。
+ * <p>区间查询结果按参数缓存：基准度量的是服务层组装与评估，不是桩的过滤开销。</p>
+ */
+public final class StubRepositories {
+
+    private StubRepositories() {
+    }
+
+    /** 日 K 仓库：筛选最新交易日 / 投影流 / 列式缓存加载流 */
+    public static StockDailyBarRepository dailyBars(SyntheticMarket market) {
+        Map<List<Object>, Object> memo = new ConcurrentHashMap<>();
+        return proxy(StockDailyBarRepository.class, (method, args) -> switch (method.getName()) {
+            case "findMaxTradeDateBetween" -> memo.computeIfAbsent(List.of(method.getName(), args[0], args[1]),
+                    k -> market.maxTradeDateBetween((LocalDate) args[0], (LocalDate) args[1]));
+            case "streamScreeningBars" -> ((List<?>) memo.computeIfAbsent(List.of(method.getName(), args[0], args[1]),
+                    k -> market.screeningBars((LocalDate) args[0], (LocalDate) args[1]))).stream();
+            case "streamColumnRowsSince" -> market.columnRowsSince((LocalDate) args[0]).stream();
+            default -> throw unsupported(method);
+        });
+    }
+
+    /** 筛选结果仓库：无既有行，saveAll 原样返回（不持久化，每次调用相互独立） */
+    public static ScreeningMatchRepository screeningMatches() {
+        return proxy(ScreeningMatchRepository.class, (method, args) -> switch (method.getName()) {
+            case "findByTradeDate" -> List.of();
+            case "saveAll" -> args[0];
+            default -> throw unsupported(method);
+        });
+    }
+
+    /** 集合式写入不可用（视同非 MySQL）：筛选结果走上面的 findByTradeDate / saveAll 桩 */
+    public static ScreeningMatchBulkWriter unavailableBulkWriter() {
+        return new ScreeningMatchBulkWriter(null) {
+            @Override
+            public boolean isAvailable() {
+                return false;
+            }
+        };
+    }
+
+    /** symbol 字典仓库：筛选写入路径不补名称，任何调用都视为基准路径变化 */
+    public static StockSymbolRepository symbols() {
+        return proxy(StockSymbolRepository.class, (method, args) -> {
+            throw unsupported(method);
+        });
+    }
+
+    /** symbol 表 upsert 不可用（视同非 MySQL）：筛选路径不写日 K，不会调用 */
+    public static StockSymbolUpsertWriter unavailableSymbolUpsertWriter() {
+        return new StockSymbolUpsertWriter(null) {
+            @Override
+            public boolean isAvailable() {
+                return false;
+            }
+        };
+    }
+
+    /** 最新 bar 快照：视为空表，读库路径按区间取最新交易日并读全部 symbol（与快照引入前的基准可比） */
+    public static SymbolLatestBarRepository emptyLatestBars() {
+        return proxy(SymbolLatestBarRepository.class, (method, args) -> switch (method.getName()) {
+            case "findMaxTradeDate" -> null;
+            default -> throw unsupported(method);
+        });
+    }
+
+    /** 预渲染存储：失效与预热为空操作（基准只度量筛选本身，不含筛选后的响应体渲染） */
+    public static ScreeningPayloadStore noOpPayloadStore() {
+        return new ScreeningPayloadStore(null, null, new NoOpTransactionManager()) {
+            @Override
+            public void evictTradeDates(Collection<LocalDate> tradeDates) {
+            }
+
+            @Override
+            public void warm(Runnable task) {
+            }
+        };
+    }
+
+    /** 批次摘要：写入为空操作（基准只度量筛选本身） */
+    public static ScreeningBatchStore noOpBatchStore() {
+        return new ScreeningBatchStore(null, null, null) {
+            @Override
+            public void recordRun(String batchId, LocalDate tradeDate, Instant startedAt) {
+            }
+
+            @Override
+            public void refreshTradeDates(Collection<LocalDate> tradeDates) {
+            }
+        };
+    }
+
+    /** 命中位图索引：刷新为空操作 */
+    public static ScreeningHitIndex noOpHitIndex() {
+        return new ScreeningHitIndex(null, null, new NoOpTransactionManager()) {
+            @Override
+            public void refreshTradeDates(Collection<LocalDate> tradeDates) {
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "toString" -> "Stub" + type.getSimpleName();
+                    default -> handler.invoke(method, args);
+                });
+        return type.cast(stub);
+    }
+
+    private static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException("benchmark stub does not implement "
+                + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    }
+}
@@ -0,0 +1,23 @@
+package com.stock.invest.benchmark;
+
+import com.stock.invest.model.TradingCalendarSnapshot;
+import com.stock.invest.service.TradingCalendarDbService;
+
+/**
+ * 交易日历桩：快照由 {@link SyntheticMarket#calendar()}（NYSE 规则日历）构建，
+ * 单日 / 区间查询走与线上相同的快照代码，不访问库表与外部数据源。
+ */
+public final class StubTradingCalendarDbService extends TradingCalendarDbService {
+
+    private final TradingCalendarSnapshot snapshot;
+
+    public StubTradingCalendarDbService(SyntheticMarket market) {
+        super(null, null, new NoOpTransactionManager());
+        this.snapshot = TradingCalendarSnapshot.of(SyntheticMarket.MARKET, market.calendar());
+    }
+
+    @Override
+    public TradingCalendarSnapshot getSnapshot(String market) {
+        return SyntheticMarket.MARKET.equals(market) ? snapshot : TradingCalendarSnapshot.empty(market);
+    }
+}
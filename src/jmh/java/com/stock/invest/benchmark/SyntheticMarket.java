@@ -0,0 +1,199 @@
+package com.stock.invest.benchmark;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.model.TradingCalendarResult;
+import com.stock.invest.service.impl.NyseHolidayCalendarService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准用合成行情：N 个 symbol × 最近 M 个 NYSE 开盘日（按规则日历推算，含节假日），同一 seed 结果确定。
+ *
+ * <p>成交量分布：</p>
+ * <ul>
+ *   <li>symbol 基准量对数正态（中位约 16 万，长尾到数亿），低流动性与大盘股并存</li>
+ *   <li>日内波动对数正态（σ=0.45），约 3% 的交易日放量 4~12 倍</li>
+ *   <li>约 5% 的 symbol 末尾 7 日逐日放大（递增量能候选）</li>
+ *   <li>约 1% 为停牌零成交，约 0.5% 的 bar 缺失（补缺扫描的缺口）</li>
+ * </ul>
+ * <p>价格为对数随机游走，约三成 symbol 为 1 美元以下低价股。</p>
+ * <p>最后一个开盘日锚定纽约时间今天（含）之前，使依赖"今天"的路径（列式缓存覆盖区间、补缺回看窗口）
+ * 与线上一致。</p>
+ */
+public final class SyntheticMarket {
+
+    public static final String MARKET = "US";
+    public static final String SOURCE = "synthetic";
+
+    private final List<LocalDate> openDays;
+    private final List<TradingCalendarResult> calendar;
+    private final Map<String, List<StockDailyBar>> barsBySymbol;
+
+    private SyntheticMarket(List<LocalDate> openDays, List<TradingCalendarResult> calendar,
+                            Map<String, List<StockDailyBar>> barsBySymbol) {
+        this.openDays = openDays;
+        this.calendar = calendar;
+        this.barsBySymbol = barsBySymbol;
+    }
+
+    /**
+     * @param symbols symbol 数
+     * @param days    每个 symbol 的开盘日数（缺失 bar 之前）
+     * @param seed    随机种子
+     */
+    public static SyntheticMarket generate(int symbols, int days, long seed) {
+        LocalDate today = ZonedDateTime.now(ZoneId.of("America/New_York")).toLocalDate();
+        NyseHolidayCalendarService rules = new NyseHolidayCalendarService();
+        List<LocalDate> open = new ArrayList<>(days);
+        LocalDate d = today;
+        while (open.size() < days) {
+            if (rules.isTradingDay(MARKET, d).isTradingDay()) {
+                open.add(d);
+            }
+            d = d.minusDays(1);
+        }
+        Collections.reverse(open);
+        // 日历多覆盖前后各一个月：筛选 / 补缺按自然日取区间
+        List<TradingCalendarResult> calendar = rules.getTradingCalendar(MARKET,
+                open.get(0).minusDays(31), today.plusDays(31));
+
+        Random random = new Random(seed);
+        Map<String, List<StockDailyBar>> bars = new LinkedHashMap<>();
+        int width = String.valueOf(Math.max(1, symbols - 1)).length();
+        for (int s = 0; s < symbols; s++) {
+            String symbol = "S" + String.format("%0" + width + "d", s);
+            bars.put(symbol, generateSymbol(symbol, open, random));
+        }
+        return new SyntheticMarket(List.copyOf(open), calendar, bars);
+    }
+
+    private static List<StockDailyBar> generateSymbol(String symbol, List<LocalDate> open, Random random) {
+        double baseVolume = clamp(Math.exp(12 + 1.6 * random.nextGaussian()), 1_000, 500_000_000);
+        double price = random.nextDouble() < 0.3
+                ? 0.05 + random.nextDouble() * 0.95
+                : Math.exp(3 + 1.2 * random.nextGaussian());
+        boolean accumulating = random.nextDouble() < 0.05;
+        int n = open.size();
+        List<StockDailyBar> bars = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double prevClose = price;
+            price = Math.max(0.01, price * Math.exp(0.03 * random.nextGaussian()));
+            if (random.nextDouble() < 0.005) {
+                continue;
+            }
+            double v = baseVolume * Math.exp(0.45 * random.nextGaussian() - 0.1);
+            if (random.nextDouble() < 0.03) {
+                v *= 4 + random.nextDouble() * 8;
+            }
+            if (accumulating && i >= n - 7) {
+                v = baseVolume * Math.pow(1.35, i - (n - 7) + 1);
+            }
+            long volume = random.nextDouble() < 0.01 ? 0L : Math.max(1L, Math.round(v));
+
+            StockDailyBar bar = new StockDailyBar();
+            bar.setSymbol(symbol);
+            bar.setTradeDate(open.get(i));
+            bar.setSource(SOURCE);
+            bar.setOpenPrice(scaled(prevClose));
+            bar.setClosePrice(scaled(price));
+            bar.setHighPrice(scaled(Math.max(prevClose, price) * (1 + 0.01 * random.nextDouble())));
+            bar.setLowPrice(scaled(Math.min(prevClose, price) * (1 - 0.01 * random.nextDouble())));
+            bar.setVolume(volume);
+            bars.add(bar);
+        }
+        return bars;
+    }
+
+    private static BigDecimal scaled(double value) {
+        return BigDecimal.valueOf(value).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    /** 开盘日（升序） */
+    public List<LocalDate> openDays() {
+        return openDays;
+    }
+
+    public LocalDate lastOpenDay() {
+        return openDays.get(openDays.size() - 1);
+    }
+
+    /** 规则日历逐日结果（含非开盘日），供桩日历构建快照 */
+    public List<TradingCalendarResult> calendar() {
+        return calendar;
+    }
+
+    /** symbol（升序） */
+    public List<String> symbols() {
+        return List.copyOf(barsBySymbol.keySet());
+    }
+
+    /** 单 symbol 的 bar（按日期升序，可能有缺失日） */
+    public List<StockDailyBar> bars(String symbol) {
+        return barsBySymbol.getOrDefault(symbol, List.of());
+    }
+
+    /** 单 symbol 末尾 count 根（不足则全部） */
+    public List<StockDailyBar> tail(String symbol, int count) {
+        List<StockDailyBar> all = bars(symbol);
+        return all.subList(Math.max(0, all.size() - count), all.size());
+    }
+
+    /** [start, end] 内最新交易日，无数据返回 null */
+    public LocalDate maxTradeDateBetween(LocalDate start, LocalDate end) {
+        LocalDate max = null;
+        for (List<StockDailyBar> bars : barsBySymbol.values()) {
+            for (int i = bars.size() - 1; i >= 0; i--) {
+                LocalDate date = bars.get(i).getTradeDate();
+                if (!date.isAfter(end)) {
+                    if (!date.isBefore(start) && (max == null || date.isAfter(max))) {
+                        max = date;
+                    }
+                    break;
+                }
+            }
+        }
+        return max;
+    }
+
+    /** 筛选投影行：[start, end] 内，按 (symbol, tradeDate) 升序 */
+    public List<ScreeningBar> screeningBars(LocalDate start, LocalDate end) {
+        List<ScreeningBar> rows = new ArrayList<>();
+        for (List<StockDailyBar> bars : barsBySymbol.values()) {
+            for (StockDailyBar bar : bars) {
+                if (!bar.getTradeDate().isBefore(start) && !bar.getTradeDate().isAfter(end)) {
+                    rows.add(ScreeningBar.of(bar));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /** 列式缓存加载行：[symbol, tradeDate, open, high, low, close, volume, source]，start（含）之后 */
+    public List<Object[]> columnRowsSince(LocalDate start) {
+        List<Object[]> rows = new ArrayList<>();
+        for (List<StockDailyBar> bars : barsBySymbol.values()) {
+            for (StockDailyBar b : bars) {
+                if (!b.getTradeDate().isBefore(start)) {
+                    rows.add(new Object[]{b.getSymbol(), b.getTradeDate(), b.getOpenPrice(), b.getHighPrice(),
+                            b.getLowPrice(), b.getClosePrice(), b.getVolume(), b.getSource(), b.getRunLength()});
+                }
+            }
+        }
+        return rows;
+    }
+}
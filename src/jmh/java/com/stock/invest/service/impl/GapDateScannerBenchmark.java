@@ -0,0 +1,66 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.benchmark.StubTradingCalendarDbService;
+import com.stock.invest.benchmark.SyntheticMarket;
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.service.TradingCalendarDbService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 补缺日期扫描（{@link GapDateScanner}，包内可见故基准同包）：每个 symbol 取最近 7 根、最新在前，
+ * 与 DataGapFillerServiceImpl 的调用方式一致；合成行情约 0.5% 的 bar 缺失构成缺口。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class GapDateScannerBenchmark {
+
+    private static final int SYMBOLS = 1024;
+    private static final int LOOKBACK_BARS = 7;
+
+    @Param({"20261018"})
+    public long seed;
+
+    private TradingCalendarDbService calendar;
+    private List<List<StockDailyBar>> barsPerSymbol;
+
+    @Setup
+    public void setUp() {
+        SyntheticMarket market = SyntheticMarket.generate(SYMBOLS, 20, seed);
+        calendar = new StubTradingCalendarDbService(market);
+        barsPerSymbol = new ArrayList<>(SYMBOLS);
+        for (String symbol : market.symbols()) {
+            List<StockDailyBar> newestFirst = new ArrayList<>(market.tail(symbol, LOOKBACK_BARS));
+            Collections.reverse(newestFirst);
+            barsPerSymbol.add(newestFirst);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void findMissingTradeDates(Blackhole bh) {
+        for (int i = 0; i < SYMBOLS; i++) {
+            bh.consume(GapDateScanner.findMissingTradeDates(barsPerSymbol.get(i), calendar));
+        }
+    }
+}
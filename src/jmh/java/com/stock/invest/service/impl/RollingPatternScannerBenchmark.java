@@ -0,0 +1,167 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.benchmark.SyntheticMarket;
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.TradingCalendarEntity;
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.service.PatternEvaluateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回测扫描基准：{@code symbols} 个 symbol × {@code days} 个开盘日的全部历史，求每个交易日作为筛选日时的命中位图。
+ * <ul>
+ *   <li>perDay：逐日截取回看区间，按单日筛选路径（末尾连续开盘日 + {@link PatternEvaluateServiceImpl#evaluateWindows}）评估</li>
+ *   <li>rolling：{@link RollingPatternScanner} 单遍滑动（回测实际路径）</li>
+ *   <li>gridPerCombination / grid：{@link #GRID} 组阈值逐组各扫一遍 vs {@link RollingPatternScanner#scanGrid} 同遍扫描（参数扫描路径）</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class RollingPatternScannerBenchmark {
+
+    private static final int ALL_WINDOWS = 0b1111_1100;
+
+    /** 参数扫描网格：放量倍数 3 / 4 / 5 / 6 × 递增步进 0 / 0.05 */
+    private static final PatternParams[] GRID = {
+            new PatternParams(3.0, 0.0), new PatternParams(3.0, 0.05),
+            new PatternParams(4.0, 0.0), new PatternParams(4.0, 0.05),
+            new PatternParams(5.0, 0.0), new PatternParams(5.0, 0.05),
+            new PatternParams(6.0, 0.0), new PatternParams(6.0, 0.05)};
+
+    @Param({"1000"})
+    public int symbols;
+
+    @Param({"250"})
+    public int days;
+
+    @Param({"20261018"})
+    public long seed;
+
+    private final PatternEvaluateService evaluator = new PatternEvaluateServiceImpl();
+    private List<List<StockDailyBar>> history;
+    private OpenDayIndex openDays;
+    private long[] epochDays;
+    private long[] volumes;
+    private long[] prefix;
+    private int[] hits;
+    private int[][] gridHits;
+
+    @Setup
+    public void setUp() {
+        SyntheticMarket market = SyntheticMarket.generate(symbols, days, seed);
+        history = new ArrayList<>(symbols);
+        for (String symbol : market.symbols()) {
+            history.add(market.bars(symbol));
+        }
+        List<TradingCalendarEntity> calendar = new ArrayList<>();
+        for (LocalDate d : market.openDays()) {
+            TradingCalendarEntity e = new TradingCalendarEntity();
+            e.setTradeDate(d);
+            e.setIsOpen(true);
+            calendar.add(e);
+        }
+        openDays = OpenDayIndex.of(calendar);
+        epochDays = new long[days];
+        volumes = new long[days];
+        prefix = new long[days + 1];
+        hits = new int[days];
+        gridHits = new int[GRID.length][days];
+    }
+
+    @Benchmark
+    public long perDay() {
+        long total = 0;
+        for (List<StockDailyBar> bars : history) {
+            int lo = 0;
+            for (int i = 0; i < bars.size(); i++) {
+                LocalDate start = bars.get(i).getTradeDate().minusDays(RollingPatternScanner.LOOKBACK_DAYS);
+                while (bars.get(lo).getTradeDate().isBefore(start)) {
+                    lo++;
+                }
+                List<StockDailyBar> range = bars.subList(lo, i + 1);
+                int run = openDays.trailingConsecutive(range);
+                int mask = 0;
+                for (int w = 2; w <= 7; w++) {
+                    if (range.size() >= w && run >= w) {
+                        mask |= PatternEvaluateService.windowBit(w);
+                    }
+                }
+                total += mask == 0 ? 0 : evaluator.evaluateWindows(range, mask & ALL_WINDOWS);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long rolling() {
+        long total = 0;
+        for (List<StockDailyBar> bars : history) {
+            int n = fill(bars);
+            RollingPatternScanner.scan(epochDays, volumes, n, openDays, ALL_WINDOWS, PatternParams.DEFAULT,
+                    prefix, hits);
+            for (int i = 0; i < n; i++) {
+                total += hits[i];
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long gridPerCombination() {
+        long total = 0;
+        for (List<StockDailyBar> bars : history) {
+            int n = fill(bars);
+            for (PatternParams params : GRID) {
+                RollingPatternScanner.scan(epochDays, volumes, n, openDays, ALL_WINDOWS, params, prefix, hits);
+                for (int i = 0; i < n; i++) {
+                    total += hits[i];
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long grid() {
+        long total = 0;
+        for (List<StockDailyBar> bars : history) {
+            int n = fill(bars);
+            RollingPatternScanner.scanGrid(epochDays, volumes, n, openDays, ALL_WINDOWS, GRID, prefix, gridHits);
+            for (int[] row : gridHits) {
+                for (int i = 0; i < n; i++) {
+                    total += row[i];
+                }
+            }
+        }
+        return total;
+    }
+
+    private int fill(List<StockDailyBar> bars) {
+        int n = bars.size();
+        for (int i = 0; i < n; i++) {
+            StockDailyBar bar = bars.get(i);
+            epochDays[i] = bar.getTradeDate().toEpochDay();
+            volumes[i] = bar.getVolume() == null ? 0L : bar.getVolume();
+        }
+        return n;
+    }
+}
@@ -0,0 +1,108 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.benchmark.SyntheticMarket;
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.service.PatternEvaluateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 横截面内核基准：{@code symbols} 个 symbol（默认 1 万）× 最近 7 个开盘日，一次评估全部窗口 × 两种算法。
+ * <ul>
+ *   <li>perSymbol：逐 symbol 调用 {@link PatternEvaluateServiceImpl#evaluateWindows}（现行路径）</li>
+ *   <li>scalarKernel / vectorKernel：按滞后期分行的同一输入，标量内核与 SIMD 内核</li>
+ *   <li>vectorKernelWithLayout：含由 bar 列表转为分行矩阵的开销（筛选实际路径）</li>
+ * </ul>
+ * SIMD 不可用（未以 -Pbenchmark,vector 构建）时 vector* 用例在 Setup 失败。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector",
+        "-Dlogback.configurationFile=logback-jmh.xml"})
+public class VolumePatternKernelBenchmark {
+
+    private static final int ALL_WINDOWS = 0b1111_1100;
+
+    @Param({"10000"})
+    public int symbols;
+
+    @Param({"20261018"})
+    public long seed;
+
+    private final PatternEvaluateService perSymbol = new PatternEvaluateServiceImpl();
+    private List<List<StockDailyBar>> barsPerSymbol;
+    private long[][] byLag;
+    private int[] hits;
+    private VolumePatternKernel vector;
+
+    @Setup
+    public void setUp() {
+        SyntheticMarket market = SyntheticMarket.generate(symbols, WindowConstants.MAX_WINDOW_DAYS, seed);
+        barsPerSymbol = new ArrayList<>(symbols);
+        for (String symbol : market.symbols()) {
+            barsPerSymbol.add(market.tail(symbol, VolumePatternKernel.DEPTH));
+        }
+        byLag = layout(barsPerSymbol);
+        hits = new int[symbols];
+        vector = VolumePatternKernels.vector();
+        if (vector == null) {
+            throw new IllegalStateException("jdk.incubator.vector not enabled");
+        }
+    }
+
+    private static long[][] layout(List<List<StockDailyBar>> barsPerSymbol) {
+        int n = barsPerSymbol.size();
+        long[][] matrix = new long[VolumePatternKernel.DEPTH][n];
+        for (int s = 0; s < n; s++) {
+            List<StockDailyBar> bars = barsPerSymbol.get(s);
+            for (int k = 0; k < Math.min(VolumePatternKernel.DEPTH, bars.size()); k++) {
+                Long v = bars.get(bars.size() - 1 - k).getVolume();
+                matrix[k][s] = v == null ? 0L : v;
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public int[] perSymbol() {
+        for (int s = 0; s < symbols; s++) {
+            hits[s] = perSymbol.evaluateWindows(barsPerSymbol.get(s), ALL_WINDOWS);
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int[] scalarKernel() {
+        VolumePatternKernels.scalar().evaluate(byLag, symbols, hits);
+        return hits;
+    }
+
+    @Benchmark
+    public int[] vectorKernel() {
+        vector.evaluate(byLag, symbols, hits);
+        return hits;
+    }
+
+    @Benchmark
+    public int[] vectorKernelWithLayout() {
+        vector.evaluate(layout(barsPerSymbol), symbols, hits);
+        return hits;
+    }
+}
@@ -15,6 +15,7 @@ import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -73,8 +74,23 @@ public class AlpacaRestClient {
      * @throws IOException 网络或认证错误
      */
     public boolean isTradingDay(LocalDate date) throws IOException {
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String url = BASE_URL + "/calendar?start=" + dateStr + "&end=" + dateStr;
+        boolean isTrading = getCalendar(date, date).containsKey(date);
+        log.debug("[alpaca] {} 查询结果: tradingDay={}", date, isTrading);
+        return isTrading;
+    }
+
+    /**
+     * 查询区间内的美股开盘日（一次请求，Alpaca 原生支持区间）。
+     * GET /v2/calendar?start=YYYY-MM-DD&end=YYYY-MM-DD
+     *
+     * @param start 起始日期（含）
+     * @param end   结束日期（含）
+     * @return 开盘日 → 收盘时间（如 "16:00"、提前收盘 "13:00"），按日期升序；区间内未列出即非交易日
+     * @throws IOException 网络或认证错误
+     */
+    public Map<LocalDate, String> getCalendar(LocalDate start, LocalDate end) throws IOException {
+        String url = BASE_URL + "/calendar?start=" + start.format(DateTimeFormatter.ISO_LOCAL_DATE)
+                + "&end=" + end.format(DateTimeFormatter.ISO_LOCAL_DATE);
 
         try {
             HttpRequest request = HttpRequest.newBuilder()
@@ -98,9 +114,20 @@ public class AlpacaRestClient {
 
             List<Map<String, Object>> items = objectMapper.readValue(
                     response.body(), new TypeReference<List<Map<String, Object>>>() {});
-            boolean isTrading = !items.isEmpty();
-            log.debug("[alpaca] {} 查询结果: tradingDay={}, items={}", dateStr, isTrading, items.size());
-            return isTrading;
+            Map<LocalDate, String> openDays = new LinkedHashMap<>();
+            for (Map<String, Object> item : items) {
+                Object date = item.get("date");
+                if (date == null) {
+                    continue;
+                }
+                LocalDate day = LocalDate.parse(String.valueOf(date));
+                if (!day.isBefore(start) && !day.isAfter(end)) {
+                    Object close = item.get("close");
+                    openDays.put(day, close == null ? "" : String.valueOf(close));
+                }
+            }
+            log.debug("[alpaca] {}~{} 查询结果: openDays={}", start, end, openDays.size());
+            return openDays;
         } catch (IOException e) {
             throw e;
         } catch (InterruptedException e) {
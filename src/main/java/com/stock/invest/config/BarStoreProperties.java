@@ -0,0 +1,29 @@
+package com.stock.invest.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程内列式日 K 缓存（{@link com.stock.invest.service.DailyBarColumnStore}）配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bar-store")
+public class BarStoreProperties {
+
+    /**
+     * 是否启用；关闭后筛选始终直接读库。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个 symbol 保留的最近交易日根数。
+     */
+    private int tradingDays = 260;
+
+    /**
+     * 堆占用上限（MB）；加载或写入超过上限时停止收录新数据并标记 truncated，筛选回退读库。
+     */
+    private int maxMemoryMb = 256;
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 
 /**
  * 数据补全相关可配置项。
@@ -24,4 +25,15 @@ public class GapFillProperties {
      * 默认开启；集成测试环境关闭以避免真实外部 API 调用拖慢测试。
      */
     private boolean fieldFillEnabled = true;
+
+    /**
+     * 字段增补单次运行时间预算：按 (symbol, source) 聚簇处理 PENDING，预算耗尽后停止领取新簇，
+     * 剩余簇留待下次运行。null 或非正值表示不限。
+     */
+    private Duration fieldFillTimeBudget = Duration.ofMinutes(10);
+
+    /**
+     * 字段增补单次运行外部数据源调用配额（与时间预算任一耗尽即停止领取新簇）。非正值表示不限。
+     */
+    private int fieldFillMaxSourceCalls = 500;
 }
@@ -0,0 +1,24 @@
+package com.stock.invest.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 技术指标增量维护（{@link com.stock.invest.service.IndicatorEngine}）配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "indicator")
+public class IndicatorProperties {
+
+    /**
+     * 是否在日 K 写入后增量更新 stock_daily_indicator；关闭后只能经管理端全量重建。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 变更事件合并间隔（毫秒）：间隔内同一 symbol 的多次写入只处理一次。
+     */
+    private long flushIntervalMs = 2000;
+}
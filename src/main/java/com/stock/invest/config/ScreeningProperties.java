@@ -0,0 +1,73 @@
+package com.stock.invest.config;
+
+import com.stock.invest.model.PatternParams;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模式筛选相关可配置项。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "screening")
+public class ScreeningProperties {
+
+    /**
+     * 按 symbol 分片并行评估的线程数：0 或负值 = CPU 核数，1 = 串行。
+     */
+    private int parallelism = 0;
+
+    /**
+     * 参评 symbol 数不足该阈值时串行评估（小批量并行收益低于调度开销）。
+     */
+    private int parallelThreshold = 256;
+
+    /**
+     * 横截面批量评估内核：true 时按分片一次评估全部 symbol，SIMD 需 {@code -Pvector} 构建并加 JVM 参数
+     * {@code --add-modules jdk.incubator.vector}，不可用时自动退回标量内核（结果一致）。
+     */
+    private boolean vectorKernel = false;
+
+    /**
+     * 诊断观察名单：筛选时仅对这些 symbol 以 INFO 输出 [PatternTrace] 逐窗口决策明细，空 = 关闭。
+     */
+    private List<String> diagnosticSymbols = new ArrayList<>();
+
+    /**
+     * 增量筛选：日 K 落库后只重评受影响的 symbol，并 upsert 其 screening_match 行。
+     */
+    private Incremental incremental = new Incremental();
+
+    /**
+     * 模式阈值（全量 / 增量筛选、横截面内核、回测共用），默认值即原硬编码判定。
+     */
+    private Pattern pattern = new Pattern();
+
+    @Data
+    public static class Incremental {
+
+        /** 是否开启；关闭时仍只有全量筛选 */
+        private boolean enabled = false;
+
+        /** 变更事件合并间隔（毫秒）：间隔内同一 (symbol, 交易日) 的多次写入只重评一次 */
+        private long flushIntervalMs = 2000;
+    }
+
+    @Data
+    public static class Pattern {
+
+        /** 放量突破倍数：窗口前 (w-1) 根均量 × 该倍数 &lt; 末根成交量 */
+        private double spikeMultiplier = 5.0;
+
+        /** 递增量能最小步进：较近窗口均量须超过较长窗口均量的比例，0 = 严格大于 */
+        private double increasingMinStep = 0.0;
+
+        public PatternParams toParams() {
+            return new PatternParams(spikeMultiplier, increasingMinStep);
+        }
+    }
+}
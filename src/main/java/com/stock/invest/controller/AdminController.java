@@ -3,9 +3,13 @@ package com.stock.invest.controller;
 import com.stock.invest.enums.dto.ApiResponse;
 import com.stock.invest.entity.DataFillTask;
 import com.stock.invest.entity.StockDataSourcePriority;
+import com.stock.invest.service.BarRunLengthMaintainer;
+import com.stock.invest.service.DailyBarColumnStore;
 import com.stock.invest.service.DataFillProgressService;
+import com.stock.invest.service.IndicatorEngine;
 import com.stock.invest.service.RetryProgressService;
 import com.stock.invest.service.StockDataSourcePriorityService;
+import com.stock.invest.service.SymbolLatestBarMaintainer;
 import com.stock.invest.service.DataGapFillerService;
 import com.stock.invest.service.ScreeningProgressService;
 import com.stock.invest.service.ScreeningProgressService.ScreeningProgress;
@@ -47,6 +51,10 @@ public class AdminController {
     private final StockDataSourcePriorityService stockDataSourcePriorityService;
     private final ScreeningProgressService screeningProgressService;
     private final RetryProgressService retryProgressService;
+    private final DailyBarColumnStore dailyBarColumnStore;
+    private final IndicatorEngine indicatorEngine;
+    private final BarRunLengthMaintainer barRunLengthMaintainer;
+    private final SymbolLatestBarMaintainer symbolLatestBarMaintainer;
     private final Executor scanExecutor;
 
     public AdminController(ScreeningService screeningService,
@@ -55,6 +63,10 @@ public class AdminController {
                            StockDataSourcePriorityService stockDataSourcePriorityService,
                            ScreeningProgressService screeningProgressService,
                            RetryProgressService retryProgressService,
+                           DailyBarColumnStore dailyBarColumnStore,
+                           IndicatorEngine indicatorEngine,
+                           BarRunLengthMaintainer barRunLengthMaintainer,
+                           SymbolLatestBarMaintainer symbolLatestBarMaintainer,
                            @Qualifier("scanExecutor") Executor scanExecutor) {
         this.screeningService = screeningService;
         this.dataGapFillerService = dataGapFillerService;
@@ -62,6 +74,10 @@ public class AdminController {
         this.stockDataSourcePriorityService = stockDataSourcePriorityService;
         this.screeningProgressService = screeningProgressService;
         this.retryProgressService = retryProgressService;
+        this.dailyBarColumnStore = dailyBarColumnStore;
+        this.indicatorEngine = indicatorEngine;
+        this.barRunLengthMaintainer = barRunLengthMaintainer;
+        this.symbolLatestBarMaintainer = symbolLatestBarMaintainer;
         this.scanExecutor = scanExecutor;
     }
 
@@ -458,6 +474,94 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.ok(result));
     }
 
+    /**
+     * GET /api/admin/bar-store-stats
+     * 列式日 K 缓存规模与内存占用（symbols / bars / memoryBytes / maxMemoryBytes / truncated）。
+     */
+    @GetMapping("/bar-store-stats")
+    public ResponseEntity<ApiResponse<?>> getBarStoreStats() {
+        return ResponseEntity.ok(ApiResponse.ok(dailyBarColumnStore.stats()));
+    }
+
+    /**
+     * POST /api/admin/indicators/rebuild
+     * 异步全量重建 stock_daily_indicator（一次流式读取全部日 K）；进度与结果见 indicator-stats。
+     */
+    @PostMapping("/indicators/rebuild")
+    public ResponseEntity<ApiResponse<?>> rebuildIndicators() {
+        log.info("[Admin] rebuildIndicators: manual trigger (async)");
+        if (indicatorEngine.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("指标重建已在运行中，请稍后再试"));
+        }
+        if (!submitOrBusy(() -> {
+            try {
+                if (indicatorEngine.rebuild() == null) {
+                    log.warn("[Admin] indicator rebuild skipped (engine busy)");
+                }
+            } catch (Exception e) {
+                log.error("[Admin] indicator rebuild failed", e);
+            }
+        })) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("任务队列已满，请稍后重试", "QUEUE_FULL"));
+        }
+        return ResponseEntity.ok(ApiResponse.ok(Map.of("message", "Indicator rebuild triggered")));
+    }
+
+    /**
+     * GET /api/admin/indicator-stats
+     * 技术指标引擎状态（enabled / rebuilding / trackedSymbols / pendingSymbols / lastRebuild）。
+     */
+    @GetMapping("/indicator-stats")
+    public ResponseEntity<ApiResponse<?>> getIndicatorStats() {
+        return ResponseEntity.ok(ApiResponse.ok(indicatorEngine.stats()));
+    }
+
+    /**
+     * POST /api/admin/run-length/rebuild
+     * 异步全量重算 stock_daily_bar.run_length（交易日历修订后使用）；结果见 run-length-stats。
+     */
+    @PostMapping("/run-length/rebuild")
+    public ResponseEntity<ApiResponse<?>> rebuildRunLength() {
+        log.info("[Admin] rebuildRunLength: manual trigger (async)");
+        if (barRunLengthMaintainer.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("连续开盘日计数重算已在运行中，请稍后再试"));
+        }
+        if (!submitOrBusy(() -> {
+            try {
+                if (barRunLengthMaintainer.rebuild() == null) {
+                    log.warn("[Admin] run-length rebuild skipped (maintainer busy)");
+                }
+            } catch (Exception e) {
+                log.error("[Admin] run-length rebuild failed", e);
+            }
+        })) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("任务队列已满，请稍后重试", "QUEUE_FULL"));
+        }
+        return ResponseEntity.ok(ApiResponse.ok(Map.of("message", "Run-length rebuild triggered")));
+    }
+
+    /**
+     * GET /api/admin/run-length-stats
+     * 连续开盘日计数维护状态（rebuilding / pendingSymbols / lastRebuild）。
+     */
+    @GetMapping("/run-length-stats")
+    public ResponseEntity<ApiResponse<?>> getRunLengthStats() {
+        return ResponseEntity.ok(ApiResponse.ok(barRunLengthMaintainer.stats()));
+    }
+
+    /**
+     * POST /api/admin/latest-bars/rebuild
+     * 按 stock_daily_bar 同步重建 symbol_latest_bar 快照（删除 bar 或手工改库后使用），返回 symbols / elapsedMs。
+     */
+    @PostMapping("/latest-bars/rebuild")
+    public ResponseEntity<ApiResponse<?>> rebuildLatestBars() {
+        return ResponseEntity.ok(ApiResponse.ok(symbolLatestBarMaintainer.rebuild()));
+    }
+
     /**
      * 从 JSON body 中安全解析正整数参数，兼容 Number 与数字字符串。
      */
@@ -0,0 +1,197 @@
+package com.stock.invest.controller;
+
+import com.stock.invest.enums.dto.ApiResponse;
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.service.BacktestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * 历史回测入口（/api/admin/** 受 AdminAuthInterceptor 保护）。
+ *
+ * POST /api/admin/backtest           body: {"from": "2024-01-01", "to": "2025-12-31", "windowDays": 3}
+ *                                    windowDays 可选，缺省为全部窗口 2~7 天；异步执行，立即返回 backtestId
+ * GET  /api/admin/backtest/{id}      回测汇总 + 分页明细（?page=0&size=200）
+ * POST /api/admin/backtest/sweep     body: {"from": ..., "to": ..., "windowDays": 3,
+ *                                           "spikeMultipliers": [3, 4, 5], "increasingMinSteps": [0, 0.05]}
+ *                                    两组阈值取笛卡尔积（缺省为 5.0 / 0.0），异步执行，立即返回 sweepId
+ * GET  /api/admin/backtest/sweep/{id} 扫描状态与各组合命中数 / 前瞻收益
+ */
+@RestController
+@RequestMapping("/api/admin/backtest")
+public class BacktestController {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestController.class);
+
+    private final BacktestService backtestService;
+    private final Executor scanExecutor;
+
+    public BacktestController(BacktestService backtestService,
+                              @Qualifier("scanExecutor") Executor scanExecutor) {
+        this.backtestService = backtestService;
+        this.scanExecutor = scanExecutor;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<?>> start(@RequestBody(required = false) Map<String, Object> body) {
+        LocalDate from;
+        LocalDate to;
+        Integer windowDays;
+        try {
+            from = parseDate(body, "from");
+            to = parseDate(body, "to");
+            windowDays = body == null || body.get("windowDays") == null
+                    ? null : Integer.valueOf(String.valueOf(body.get("windowDays")));
+            backtestService.validate(from, to, windowDays);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), "INVALID_ARGUMENT"));
+        }
+        if (backtestService.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("回测已在运行中，请稍后再试"));
+        }
+
+        String backtestId = UUID.randomUUID().toString();
+        try {
+            scanExecutor.execute(() -> {
+                try {
+                    if (backtestService.runBacktest(backtestId, from, to, windowDays) == null) {
+                        log.warn("[Backtest] skipped backtestId={} (another backtest is running)", backtestId);
+                    }
+                } catch (Exception e) {
+                    log.error("[Backtest] async backtest failed backtestId={}", backtestId, e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("[Backtest] scanExecutor rejected task (queue full): {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("任务队列已满，请稍后重试", "QUEUE_FULL"));
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("backtestId", backtestId);
+        data.put("from", from.toString());
+        data.put("to", to.toString());
+        data.put("windowDays", windowDays);
+        data.put("message", "Backtest triggered async");
+        return ResponseEntity.ok(ApiResponse.ok(data));
+    }
+
+    @PostMapping("/sweep")
+    public ResponseEntity<ApiResponse<?>> startSweep(@RequestBody(required = false) Map<String, Object> body) {
+        LocalDate from;
+        LocalDate to;
+        Integer windowDays;
+        List<PatternParams> grid;
+        try {
+            from = parseDate(body, "from");
+            to = parseDate(body, "to");
+            windowDays = body == null || body.get("windowDays") == null
+                    ? null : Integer.valueOf(String.valueOf(body.get("windowDays")));
+            backtestService.validate(from, to, windowDays);
+            List<Double> spikes = parseDoubles(body, "spikeMultipliers", PatternParams.DEFAULT.spikeMultiplier());
+            List<Double> steps = parseDoubles(body, "increasingMinSteps", PatternParams.DEFAULT.increasingMinStep());
+            if ((long) spikes.size() * steps.size() > BacktestService.MAX_SWEEP_COMBINATIONS) {
+                throw new IllegalArgumentException("parameter combinations must not exceed "
+                        + BacktestService.MAX_SWEEP_COMBINATIONS);
+            }
+            grid = new ArrayList<>();
+            for (double spike : spikes) {
+                for (double step : steps) {
+                    grid.add(new PatternParams(spike, step));
+                }
+            }
+            backtestService.validateGrid(grid);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), "INVALID_ARGUMENT"));
+        }
+        if (backtestService.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("回测已在运行中，请稍后再试"));
+        }
+
+        String sweepId = UUID.randomUUID().toString();
+        try {
+            scanExecutor.execute(() -> {
+                try {
+                    if (backtestService.runSweep(sweepId, from, to, windowDays, grid) == null) {
+                        log.warn("[Sweep] skipped sweepId={} (another backtest is running)", sweepId);
+                    }
+                } catch (Exception e) {
+                    log.error("[Sweep] async sweep failed sweepId={}", sweepId, e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("[Sweep] scanExecutor rejected task (queue full): {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("任务队列已满，请稍后重试", "QUEUE_FULL"));
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("sweepId", sweepId);
+        data.put("from", from.toString());
+        data.put("to", to.toString());
+        data.put("windowDays", windowDays);
+        data.put("combinations", grid.size());
+        data.put("message", "Sweep triggered async");
+        return ResponseEntity.ok(ApiResponse.ok(data));
+    }
+
+    @GetMapping("/sweep/{sweepId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> sweep(@PathVariable String sweepId) {
+        Map<String, Object> result = backtestService.getSweep(sweepId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("扫描不存在或已过期: " + sweepId, "NOT_FOUND"));
+        }
+        return ResponseEntity.ok(ApiResponse.ok(result));
+    }
+
+    @GetMapping("/{backtestId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> detail(
+            @PathVariable String backtestId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "200") int size) {
+        return ResponseEntity.ok(ApiResponse.ok(backtestService.getBacktest(backtestId, page, size)));
+    }
+
+    /** 数值或数值数组；缺省时取 defaultValue */
+    private static List<Double> parseDoubles(Map<String, Object> body, String key, double defaultValue) {
+        Object value = body == null ? null : body.get(key);
+        if (value == null) {
+            return List.of(defaultValue);
+        }
+        Collection<?> values = value instanceof Collection<?> c ? c : List.of(value);
+        List<Double> result = new ArrayList<>(values.size());
+        for (Object v : values) {
+            result.add(Double.valueOf(String.valueOf(v)));
+        }
+        return result;
+    }
+
+    private static LocalDate parseDate(Map<String, Object> body, String key) {
+        Object value = body == null ? null : body.get(key);
+        return value == null ? null : LocalDate.parse(String.valueOf(value));
+    }
+}
@@ -3,6 +3,8 @@ package com.stock.invest.controller;
 import com.stock.invest.enums.dto.ApiResponse;
 import com.stock.invest.enums.dto.StockDailyBarCandleDto;
 import com.stock.invest.enums.dto.StockDailyBarDto;
+import com.stock.invest.enums.dto.StockDailyIndicatorDto;
+import com.stock.invest.enums.dto.SymbolLatestBarDto;
 import com.stock.invest.service.StockDailyBarService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -57,8 +60,8 @@ public class BarsController {
     }
 
     /**
-     * 分页查询全量K线数据（支持按股票代码/交易日/数据源筛选）
-     * GET /api/bars/pages/query?page=0&pageSize=20&sortBy=tradeDate&sortDir=desc&symbol=AAPL&tradeDate=2026-06-01&source=yfinance
+     * 分页查询全量K线数据（支持按股票代码/交易日/数据源/连续开盘日数筛选）
+     * GET /api/bars/pages/query?page=0&pageSize=20&sortBy=tradeDate&sortDir=desc&symbol=AAPL&tradeDate=2026-06-01&source=yfinance&minRunLength=7
      */
     @GetMapping("/pages/query")
     public ResponseEntity<Map<String, Object>> queryBars(
@@ -68,13 +71,14 @@ public class BarsController {
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) String symbol,
             @RequestParam(required = false) String tradeDate,
-            @RequestParam(required = false) String source) {
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) Integer minRunLength) {
 
         // P2-9：sortBy 白名单，非法字段回退 tradeDate，避免 Sort.by 反射异常 500
         String sortField = switch (sortBy == null ? "" : sortBy) {
             case "symbol", "tradeDate", "source", "closePrice", "volume", "id",
                  "openPrice", "highPrice", "lowPrice", "changePercent", "afterHours",
-                 "afterHoursChangePercent" -> sortBy;
+                 "afterHoursChangePercent", "runLength" -> sortBy;
             default -> "tradeDate";
         };
         Sort sort = sortDir.equalsIgnoreCase("desc")
@@ -91,7 +95,9 @@ public class BarsController {
         int safePageSize = Math.min(Math.max(1, pageSize), 500);
 
         Pageable pageable = PageRequest.of(safePage, safePageSize, sort);
-        Page<StockDailyBarDto> barPage = stockDailyBarService.queryBars(pageable, sym, date, src);
+        // minRunLength ≤ 0 等同不限
+        Integer runFloor = (minRunLength != null && minRunLength > 0) ? minRunLength : null;
+        Page<StockDailyBarDto> barPage = stockDailyBarService.queryBars(pageable, sym, date, src, runFloor);
 
         Map<String, Object> result = new LinkedHashMap<>();
         result.put("total", barPage.getTotalElements());
@@ -102,6 +108,45 @@ public class BarsController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 按各股票最新一根 K 线过滤标的池（最新收盘价区间 / 最低成交量 / 最新交易日不早于 since）
+     * GET /api/bars/latest/query?minClose=1&maxClose=5&minVolume=100000&since=2026-06-01&sortBy=volume&sortDir=desc
+     */
+    @GetMapping("/latest/query")
+    public ResponseEntity<Map<String, Object>> queryLatestBars(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int pageSize,
+            @RequestParam(defaultValue = "symbol") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) BigDecimal minClose,
+            @RequestParam(required = false) BigDecimal maxClose,
+            @RequestParam(required = false) Long minVolume,
+            @RequestParam(required = false) String since) {
+
+        String sortField = switch (sortBy == null ? "" : sortBy) {
+            case "symbol", "tradeDate", "closePrice", "volume" -> sortBy;
+            default -> "symbol";
+        };
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortField).descending()
+                : Sort.by(sortField).ascending();
+        // 非法日期交给全局 handler 返回 400
+        LocalDate sinceDate = (since != null && !since.isBlank()) ? LocalDate.parse(since) : null;
+        int safePage = Math.max(0, page);
+        int safePageSize = Math.min(Math.max(1, pageSize), 500);
+
+        Page<SymbolLatestBarDto> rows = stockDailyBarService.queryLatestBars(
+                PageRequest.of(safePage, safePageSize, sort), minClose, maxClose, minVolume, sinceDate);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", rows.getTotalElements());
+        result.put("totalPages", rows.getTotalPages());
+        result.put("page", rows.getNumber());
+        result.put("pageSize", rows.getSize());
+        result.put("rows", rows.getContent());
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 获取所有数据源列表
      * GET /api/bars/sources
@@ -133,4 +178,50 @@ public class BarsController {
                     .body(ApiResponse.error("Failed to retrieve candle data"));
         }
     }
+
+    /**
+     * 获取技术指标（按交易日升序，预热期内部分指标为 null）
+     * GET /api/bars/{symbol}/indicators?days=30
+     */
+    @GetMapping("/{symbol}/indicators")
+    public ResponseEntity<ApiResponse<List<StockDailyIndicatorDto>>> getIndicators(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "30") int days) {
+        try {
+            int safeDays = Math.min(Math.max(1, days), 365);
+            List<StockDailyIndicatorDto> rows =
+                    stockDailyBarService.getRecentIndicators(symbol.trim().toUpperCase(), safeDays);
+            return ResponseEntity.ok(ApiResponse.ok(rows));
+        } catch (Exception e) {
+            log.error("getIndicators failed symbol={}", symbol, e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve indicator data"));
+        }
+    }
+
+    /**
+     * 分页查询某交易日全部股票的技术指标（按代码升序；不传 tradeDate 取最新交易日）
+     * GET /api/bars/indicators/query?tradeDate=2026-06-01&page=0&pageSize=100
+     */
+    @GetMapping("/indicators/query")
+    public ResponseEntity<Map<String, Object>> queryIndicators(
+            @RequestParam(required = false) String tradeDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int pageSize) {
+        // 非法日期交给全局 handler 返回 400
+        LocalDate date = (tradeDate != null && !tradeDate.isBlank()) ? LocalDate.parse(tradeDate) : null;
+        int safePage = Math.max(0, page);
+        int safePageSize = Math.min(Math.max(1, pageSize), 500);
+
+        Page<StockDailyIndicatorDto> rows = stockDailyBarService.getIndicatorsByDate(date, safePage, safePageSize);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tradeDate", rows.isEmpty() ? (date == null ? null : date.toString()) : rows.getContent().get(0).date());
+        result.put("total", rows.getTotalElements());
+        result.put("totalPages", rows.getTotalPages());
+        result.put("page", rows.getNumber());
+        result.put("pageSize", rows.getSize());
+        result.put("rows", rows.getContent());
+        return ResponseEntity.ok(result);
+    }
 }
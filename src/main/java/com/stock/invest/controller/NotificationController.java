@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.stock.invest.enums.dto.ApiResponse;
+import com.stock.invest.model.RenderedPayload;
 import com.stock.invest.service.ScreeningService;
 
 /**
@@ -32,15 +33,15 @@ public class NotificationController {
     }
 
     /**
-     * GET /api/notification/latest — 最新筛选结果通知（按 algorithm + windowDays 分组）
+     * GET /api/notification/latest — 最新筛选结果通知（按 algorithm + windowDays 分组；预渲染响应体 + ETag，
+     * If-None-Match 命中返回 304）
      */
     @GetMapping("/latest")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getLatestNotification(
+    public ResponseEntity<ApiResponse<RenderedPayload>> getLatestNotification(
             @RequestParam(value = "windows", required = false) String windows) {
         try {
-            // P3-3：两分支等价（均原样返回 result），删除死分支
-            Map<String, Object> result = screeningService.getLatestNotificationGrouped(windows);
-            return ResponseEntity.ok(ApiResponse.ok(result));
+            RenderedPayload result = screeningService.getLatestNotificationPayload(windows);
+            return ResponseEntity.ok().eTag(result.etag()).body(ApiResponse.ok(result));
         } catch (Exception e) {
             log.error("getLatestNotification failed", e);
             return ResponseEntity.internalServerError()
@@ -49,15 +50,15 @@ public class NotificationController {
     }
 
     /**
-     * GET /api/notification/by-date?tradeDate=2026-08-13 — 指定交易日的最新筛选结果通知
+     * GET /api/notification/by-date?tradeDate=2026-08-13 — 指定交易日的最新筛选结果通知（预渲染 + ETag）
      */
     @GetMapping("/by-date")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getNotificationByDate(
+    public ResponseEntity<ApiResponse<RenderedPayload>> getNotificationByDate(
             @RequestParam(defaultValue = "") String tradeDate,
             @RequestParam(value = "windows", required = false) String windows) {
         try {
-            Map<String, Object> result = screeningService.getNotificationGroupedByDate(tradeDate, windows);
-            return ResponseEntity.ok(ApiResponse.ok(result));
+            RenderedPayload result = screeningService.getNotificationByDatePayload(tradeDate, windows);
+            return ResponseEntity.ok().eTag(result.etag()).body(ApiResponse.ok(result));
         } catch (IllegalArgumentException e) {
             log.warn("getNotificationByDate invalid argument tradeDate={}: {}", tradeDate, e.getMessage());
             return ResponseEntity.badRequest()
@@ -71,13 +72,19 @@ public class NotificationController {
 
     /**
      * GET /api/notification/history — 历史通知批次列表
+     * <p>键集分页：下一页传入本页末项的 cursor。</p>
      */
     @GetMapping("/history")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> history(
-            @RequestParam(defaultValue = "50") int limit) {
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
         try {
-            List<Map<String, Object>> history = screeningService.getScreeningHistory(limit);
+            List<Map<String, Object>> history = screeningService.getScreeningHistory(limit, cursor);
             return ResponseEntity.ok(ApiResponse.ok(history));
+        } catch (IllegalArgumentException e) {
+            log.warn("notification history invalid cursor={}: {}", cursor, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage(), "INVALID_CURSOR"));
         } catch (Exception e) {
             log.error("notification history failed", e);
             return ResponseEntity.internalServerError()
@@ -1,9 +1,13 @@
 package com.stock.invest.controller;
 
 import com.stock.invest.enums.dto.ApiResponse;
+import com.stock.invest.model.RenderedPayload;
+import com.stock.invest.service.ForwardReturnService;
+import com.stock.invest.service.ScreeningHitIndex;
 import com.stock.invest.service.ScreeningService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,7 +15,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -21,19 +29,25 @@ public class ScreeningController {
     private static final Logger log = LoggerFactory.getLogger(ScreeningController.class);
 
     private final ScreeningService screeningService;
+    private final ForwardReturnService forwardReturnService;
+    private final ScreeningHitIndex screeningHitIndex;
 
-    public ScreeningController(ScreeningService screeningService) {
+    public ScreeningController(ScreeningService screeningService,
+                               ForwardReturnService forwardReturnService,
+                               ScreeningHitIndex screeningHitIndex) {
         this.screeningService = screeningService;
+        this.forwardReturnService = forwardReturnService;
+        this.screeningHitIndex = screeningHitIndex;
     }
 
     /**
-     * GET /api/screening/latest — 最新一次筛选结果
+     * GET /api/screening/latest — 最新一次筛选结果（预渲染响应体 + ETag，If-None-Match 命中返回 304）
      */
     @GetMapping("/latest")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> latest() {
+    public ResponseEntity<ApiResponse<RenderedPayload>> latest() {
         try {
-            Map<String, Object> result = screeningService.getLatestScreening();
-            return ResponseEntity.ok(ApiResponse.ok(result));
+            RenderedPayload result = screeningService.getLatestScreeningPayload();
+            return ResponseEntity.ok().eTag(result.etag()).body(ApiResponse.ok(result));
         } catch (Exception e) {
             log.error("screening latest failed", e);
             return ResponseEntity.internalServerError()
@@ -42,14 +56,14 @@ public class ScreeningController {
     }
 
     /**
-     * GET /api/screening/by-date?tradeDate=2026-08-13 — 指定交易日的最新一次筛选结果
+     * GET /api/screening/by-date?tradeDate=2026-08-13 — 指定交易日的最新一次筛选结果（预渲染 + ETag）
      */
     @GetMapping("/by-date")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> byDate(
+    public ResponseEntity<ApiResponse<RenderedPayload>> byDate(
             @RequestParam(defaultValue = "") String tradeDate) {
         try {
-            Map<String, Object> result = screeningService.getScreeningByDate(tradeDate);
-            return ResponseEntity.ok(ApiResponse.ok(result));
+            RenderedPayload result = screeningService.getScreeningByDatePayload(tradeDate);
+            return ResponseEntity.ok().eTag(result.etag()).body(ApiResponse.ok(result));
         } catch (IllegalArgumentException e) {
             log.warn("screening by-date invalid argument tradeDate={}: {}", tradeDate, e.getMessage());
             return ResponseEntity.badRequest()
@@ -63,13 +77,19 @@ public class ScreeningController {
 
     /**
      * GET /api/screening/history — 历史筛选批次列表
+     * <p>键集分页：下一页传入本页末项的 cursor。</p>
      */
     @GetMapping("/history")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> history(
-            @RequestParam(defaultValue = "50") int limit) {
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
         try {
-            List<Map<String, Object>> history = screeningService.getScreeningHistory(limit);
+            List<Map<String, Object>> history = screeningService.getScreeningHistory(limit, cursor);
             return ResponseEntity.ok(ApiResponse.ok(history));
+        } catch (IllegalArgumentException e) {
+            log.warn("screening history invalid cursor={}: {}", cursor, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage(), "INVALID_CURSOR"));
         } catch (Exception e) {
             log.error("screening history failed", e);
             return ResponseEntity.internalServerError()
@@ -91,4 +111,81 @@ public class ScreeningController {
                     .body(ApiResponse.error("Failed to retrieve batch detail for " + batchId));
         }
     }
+
+    /**
+     * GET /api/screening/analytics/forward-returns?from=2026-01-01&to=2026-06-30
+     * — 区间内各交易日最新批次命中的 t+1 / t+5 / t+20 前瞻收益与胜率（按 algorithm + windowDays）
+     */
+    @GetMapping("/analytics/forward-returns")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> forwardReturns(
+            @RequestParam String from, @RequestParam String to) {
+        try {
+            Map<String, Object> result = forwardReturnService.analyzeRange(LocalDate.parse(from), LocalDate.parse(to));
+            return ResponseEntity.ok(ApiResponse.ok(result));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            log.warn("screening forward-returns invalid argument from={}, to={}: {}", from, to, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage(), "INVALID_DATE"));
+        } catch (Exception e) {
+            log.error("screening forward-returns failed from={}, to={}", from, to, e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to compute forward returns", "INTERNAL_ERROR"));
+        }
+    }
+
+    /**
+     * GET /api/screening/analytics/batch/{batchId} — 单批次命中的前瞻收益与胜率
+     */
+    @GetMapping("/analytics/batch/{batchId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> batchForwardReturns(@PathVariable String batchId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.ok(forwardReturnService.analyzeBatch(batchId)));
+        } catch (Exception e) {
+            log.error("screening batch forward-returns failed batchId={}", batchId, e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to compute forward returns for " + batchId));
+        }
+    }
+
+    /**
+     * GET /api/screening/hits?terms=volume_spike:3d,increasing_volume&op=and&days=10&minDays=3&date=2026-05-18
+     * — 跨日命中查询（内存位图索引）：单日内各查询项按 op 合并，返回最近 days 个筛选日中至少 minDays 天满足的 symbol
+     */
+    @GetMapping("/hits")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> hits(
+            @RequestParam String terms,
+            @RequestParam(defaultValue = "and") String op,
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "1") int days,
+            @RequestParam(defaultValue = "1") int minDays) {
+        if (!screeningHitIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("命中索引加载中，请稍后重试", "INDEX_NOT_READY"));
+        }
+        try {
+            if (!"and".equalsIgnoreCase(op) && !"or".equalsIgnoreCase(op)) {
+                throw new IllegalArgumentException("op must be and / or");
+            }
+            List<ScreeningHitIndex.Term> parsed = ScreeningHitIndex.Term.parseAll(terms);
+            LocalDate endDate = date == null || date.isBlank() ? null : LocalDate.parse(date.trim());
+            ScreeningHitIndex.Result result = screeningHitIndex.query(parsed, "and".equalsIgnoreCase(op),
+                    endDate, days, minDays);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("terms", parsed.stream().map(ScreeningHitIndex.Term::toString).toList());
+            data.put("op", op.toLowerCase(Locale.ROOT));
+            data.put("dates", result.dates().stream().map(LocalDate::toString).toList());
+            data.put("minDays", minDays);
+            data.put("count", result.symbols().size());
+            data.put("symbols", result.symbols());
+            return ResponseEntity.ok(ApiResponse.ok(data));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            log.warn("screening hits invalid argument terms={}, op={}, date={}: {}", terms, op, date, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage(), "INVALID_QUERY"));
+        } catch (Exception e) {
+            log.error("screening hits failed terms={}", terms, e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to query screening hits", "INTERNAL_ERROR"));
+        }
+    }
 }
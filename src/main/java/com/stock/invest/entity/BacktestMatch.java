@@ -0,0 +1,77 @@
+package com.stock.invest.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * 历史回测命中记录：回测区间内每个筛选日的命中，列含义同 {@link ScreeningMatch}。
+ * <p>由回测引擎经 JDBC 多行 INSERT 批量写入（不走 JPA 逐行持久化），createdAt 由写入方填充。</p>
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(
+        name = "backtest_match",
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        name = "uk_backtest_match_run_trade_symbol_window_algorithm",
+                        columnNames = {"backtestId", "tradeDate", "symbol", "windowDays", "algorithm"}
+                )
+        },
+        indexes = {
+                @Index(name = "idx_backtest_match_trade_date", columnList = "tradeDate")
+        }
+)
+public class BacktestMatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String backtestId;
+
+    /** 筛选日：命中时的最新一根 bar 日期 */
+    @Column(nullable = false)
+    private LocalDate tradeDate;
+
+    @Column(nullable = false, length = 32)
+    private String symbol;
+
+    /** 筛选窗口天数: 2-7 */
+    @Column(name = "window_days", nullable = false)
+    private Integer windowDays;
+
+    /** "increasing_volume" / "volume_spike" */
+    @Column(name = "algorithm", nullable = false, length = 32)
+    private String algorithm;
+
+    @Column(nullable = false, length = 32)
+    private String dataSource;
+
+    @Column
+    private BigDecimal lastClose;
+
+    @Column(nullable = false)
+    private Boolean rise;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
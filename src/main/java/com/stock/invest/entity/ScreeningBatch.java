@@ -0,0 +1,71 @@
+package com.stock.invest.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * 筛选批次摘要（{@link com.stock.invest.service.ScreeningBatchStore} 维护）：每个批次一行，
+ * 历史列表按 (tradeDate, id) 倒序键集分页读取，不再对 screening_match 全表 GROUP BY。
+ * <p>计数在该交易日的 screening_match 每次写入后于同一事务内重算（重跑归并会把旧批次的行改归新批次）。</p>
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(
+        name = "screening_batch",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_screening_batch_batch_id", columnNames = {"batchId"})
+        },
+        indexes = {
+                @Index(name = "idx_screening_batch_trade_date_id", columnList = "tradeDate, id")
+        }
+)
+public class ScreeningBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String batchId;
+
+    @Column(nullable = false)
+    private LocalDate tradeDate;
+
+    @Column(nullable = false)
+    private Integer matchCount;
+
+    /** 各窗口命中数，JSON 对象：{"2":12,"3":5} */
+    @Column(nullable = false, length = 255)
+    private String windowCounts;
+
+    /** 各算法命中数，JSON 对象：{"increasing_volume":17} */
+    @Column(nullable = false, length = 1024)
+    private String algorithmCounts;
+
+    /** 全量筛选开始 / 结束时间；增量重评新建的批次与存量回填批次为空 */
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private Long durationMs;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,65 @@
+package com.stock.invest.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * 筛选批次的预渲染响应体（{@link com.stock.invest.service.ScreeningPayloadStore} 的持久化层）：
+ * 每个 (batchId, viewKey) 一行，进程重启后内存未命中时从此读取，不再重查 screening_match。
+ * <p>该交易日的 screening_match 有写入时整日删除，下次读取重新渲染。</p>
+ */
+@Getter
+@Setter
+@ToString(exclude = "payload")
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(
+        name = "screening_payload",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_screening_payload_batch_view", columnNames = {"batchId", "viewKey"})
+        },
+        indexes = {
+                @Index(name = "idx_screening_payload_trade_date", columnList = "tradeDate")
+        }
+)
+public class ScreeningPayload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String batchId;
+
+    /** 视图：screening / notification:&lt;窗口列表&gt; */
+    @Column(nullable = false, length = 64)
+    private String viewKey;
+
+    @Column(nullable = false)
+    private LocalDate tradeDate;
+
+    @Column(nullable = false, length = 32)
+    private String etag;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -1,5 +1,6 @@
 package com.stock.invest.entity;
 
+import com.stock.invest.service.DailyBarWriteListener;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -26,7 +27,7 @@ import java.time.LocalDate;
 @ToString
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, DailyBarWriteListener.class})
 @Table(
         name = "stock_daily_bar",
         uniqueConstraints = {
@@ -89,6 +90,13 @@ public class StockDailyBar {
     @Column(name = "field_fill_status", length = 20)
     private String fieldFillStatus;
 
+    /**
+     * 截至本根的连续开盘日 bar 数（交易日历口径；非开盘日为 0，NULL = 尚未计算）。
+     * 由 BarRunLengthMaintainer 在日 K 写事务内维护，JPA 不写入；窗口 w 无缺口 ⇔ runLength >= w。
+     */
+    @Column(name = "run_length", insertable = false, updatable = false)
+    private Integer runLength;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
@@ -0,0 +1,122 @@
+package com.stock.invest.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * 日 K 派生技术指标（{@link com.stock.invest.service.IndicatorEngine} 维护）：每个 (symbol, tradeDate) 一行，
+ * 与 stock_daily_bar 一一对应。预热期内（bar 数不足周期）对应列为空。
+ * <p>state* 为 EMA / RSI / ATR 递推状态的 double 原值（{@link com.stock.invest.model.IndicatorState.Checkpoint}），
+ * 进程重启后由最近一行的状态列 + 最近 50 根 bar 恢复；展示列为四舍五入值，不参与恢复。</p>
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(
+        name = "stock_daily_indicator",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_stock_daily_indicator_symbol_trade_date", columnNames = {"symbol", "tradeDate"})
+        },
+        indexes = {
+                @Index(name = "idx_stock_daily_indicator_trade_date", columnList = "tradeDate")
+        }
+)
+public class StockDailyIndicator {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String symbol;
+
+    @Column(nullable = false)
+    private LocalDate tradeDate;
+
+    /** 截至该日（含）的 bar 数 */
+    @Column(nullable = false)
+    private Integer barCount;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal closeSma5;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal closeSma20;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal closeSma50;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal closeEma12;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal closeEma26;
+
+    @Column(precision = 24, scale = 4)
+    private BigDecimal volumeSma20;
+
+    @Column(precision = 24, scale = 4)
+    private BigDecimal volumeEma20;
+
+    /** 当日成交量 ÷ 此前 20 日均量 */
+    @Column(precision = 14, scale = 4)
+    private BigDecimal relativeVolume;
+
+    @Column(precision = 9, scale = 4)
+    private BigDecimal rsi14;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal atr14;
+
+    /** 最近 20 日最高 / 最低价 */
+    @Column(precision = 20, scale = 6)
+    private BigDecimal high20;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal low20;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal rsiAvgGain;
+
+    @Column(precision = 20, scale = 6)
+    private BigDecimal rsiAvgLoss;
+
+    /** 递推状态原值（V13）；旧行为 null，恢复时改为从头回放 */
+    @Column(name = "state_ema_fast")
+    private Double stateEmaFast;
+
+    @Column(name = "state_ema_slow")
+    private Double stateEmaSlow;
+
+    @Column(name = "state_volume_ema")
+    private Double stateVolumeEma;
+
+    @Column(name = "state_avg_gain")
+    private Double stateAvgGain;
+
+    @Column(name = "state_avg_loss")
+    private Double stateAvgLoss;
+
+    @Column(name = "state_atr")
+    private Double stateAtr;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,55 @@
+package com.stock.invest.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * symbol 字典：每个代码一行，整数 id + 最新展示名称 + 首末出现交易日 + 活跃标记。
+ * 由 {@link com.stock.invest.service.SymbolDictionary} 在日 K 写事务内维护。
+ */
+@Data
+@Entity
+@Table(name = "symbol", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_symbol_symbol", columnNames = {"symbol"})
+})
+@EntityListeners(AuditingEntityListener.class)
+public class StockSymbol {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, length = 32)
+    private String symbol;
+
+    /** 最新展示名称（有 name 的最新一根 bar） */
+    @Column(length = 128)
+    private String name;
+
+    @Column(name = "first_seen", nullable = false)
+    private LocalDate firstSeen;
+
+    @Column(name = "last_seen", nullable = false)
+    private LocalDate lastSeen;
+
+    /** false = 已入黑名单 */
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.stock.invest.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * 最新日 K 快照：每个代码一行，取该 symbol 交易日最大的一根 bar。
+ * 由 {@link com.stock.invest.service.SymbolLatestBarMaintainer} 在日 K 写事务内同步维护。
+ */
+@Data
+@Entity
+@Table(name = "symbol_latest_bar", indexes = {
+    @Index(name = "idx_symbol_latest_bar_trade_date", columnList = "trade_date"),
+    @Index(name = "idx_symbol_latest_bar_close_price", columnList = "close_price")
+})
+@EntityListeners(AuditingEntityListener.class)
+public class SymbolLatestBar {
+
+    @Id
+    @Column(nullable = false, length = 32)
+    private String symbol;
+
+    /** 最新一根 bar 的交易日 */
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate tradeDate;
+
+    @Column(name = "close_price", precision = 12, scale = 4)
+    private BigDecimal closePrice;
+
+    private Long volume;
+
+    @Column(length = 16)
+    private String source;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
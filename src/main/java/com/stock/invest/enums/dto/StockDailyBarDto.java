@@ -19,5 +19,6 @@ public record StockDailyBarDto(
     BigDecimal afterHours,
     BigDecimal afterHoursChangePercent,
     Long volume,
-    String source
+    String source,
+    Integer runLength
 ) {}
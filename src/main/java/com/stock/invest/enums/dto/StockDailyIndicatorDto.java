@@ -0,0 +1,21 @@
+package com.stock.invest.enums.dto;
+
+import java.math.BigDecimal;
+
+public record StockDailyIndicatorDto(
+    String symbol,
+    String date,               // 格式: yyyy-MM-dd
+    Integer barCount,          // 截至该日的 bar 数（预热期内部分指标为 null）
+    BigDecimal closeSma5,
+    BigDecimal closeSma20,
+    BigDecimal closeSma50,
+    BigDecimal closeEma12,
+    BigDecimal closeEma26,
+    BigDecimal volumeSma20,
+    BigDecimal volumeEma20,
+    BigDecimal relativeVolume, // 当日成交量 / 此前 20 日均量
+    BigDecimal rsi14,
+    BigDecimal atr14,
+    BigDecimal high20,         // 最近 20 日最高价
+    BigDecimal low20           // 最近 20 日最低价
+) {}
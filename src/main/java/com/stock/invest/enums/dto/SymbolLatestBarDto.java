@@ -0,0 +1,11 @@
+package com.stock.invest.enums.dto;
+
+import java.math.BigDecimal;
+
+public record SymbolLatestBarDto(
+    String symbol,
+    String date,               // 最新一根 bar 的交易日，格式: yyyy-MM-dd
+    BigDecimal closePrice,
+    Long volume,
+    String source
+) {}
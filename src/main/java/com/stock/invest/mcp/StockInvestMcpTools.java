@@ -13,6 +13,7 @@ import org.springframework.stereotype.Component;
 import com.stock.invest.enums.dto.TigerWatchlistIngestRequestDto;
 import com.stock.invest.enums.dto.TigerWatchlistIngestResponseDto;
 import com.stock.invest.enums.dto.TigerWatchlistRowDto;
+import com.stock.invest.model.RenderedPayload;
 import com.stock.invest.security.IngestApiGuard;
 import com.stock.invest.service.OrchestrationService;
 import com.stock.invest.service.ScreeningService;
@@ -105,15 +106,17 @@ public class StockInvestMcpTools {
 
     @McpTool(name = "screening_notification_latest",
              description = "获取最新筛选结果通知，按 algorithm + windowDays 分组（对应 GET /api/notification/latest）")
-    public Map<String, Object> screeningNotificationLatest(
+    public RenderedPayload screeningNotificationLatest(
             @McpToolParam(description = "逗号分隔的窗口列表，如 \"2d,3d,4d,5d\"；缺省返回全部窗口", required = false) String windows) {
-        return screeningService.getLatestNotificationGrouped(windows);
+        // 与 REST 同一份预渲染响应体，序列化时原样写出
+        return screeningService.getLatestNotificationPayload(windows);
     }
 
     @McpTool(name = "screening_history",
              description = "获取历史筛选批次列表（对应 GET /api/notification/history）")
-    public List<Map<String, Object>> screeningHistory() {
-        return screeningService.getScreeningHistory(100);
+    public List<Map<String, Object>> screeningHistory(
+            @McpToolParam(description = "翻页游标：上一页末项的 cursor 字段；缺省返回最新一页", required = false) String cursor) {
+        return screeningService.getScreeningHistory(100, cursor);
     }
 
     @McpTool(name = "screening_batch_detail",
@@ -0,0 +1,40 @@
+package com.stock.invest.model;
+
+import com.stock.invest.entity.StockDailyBar;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 日 K 变更事件："这些 (symbol, tradeDate) 的 bar 已落库"。
+ * <p>由 {@link com.stock.invest.service.DailyBarWriteListener} 在写事务提交后发布，
+ * 截图导入、补缺（GapFetcher）、字段增补等经 JPA 保存的写路径统一覆盖；回滚的写入不发布。</p>
+ *
+ * @param symbolsByDate 交易日 → 该日有变更的 symbol（均升序）
+ * @param bars          本次写入的 bar 快照（写入顺序；只按 symbol / 交易日通知时为空）
+ */
+public record BarsChangedEvent(Map<LocalDate, Set<String>> symbolsByDate, List<StockDailyBar> bars) {
+
+    public BarsChangedEvent(Map<LocalDate, Set<String>> symbolsByDate) {
+        this(symbolsByDate, List.of());
+    }
+
+    public static BarsChangedEvent of(Collection<StockDailyBar> bars) {
+        Map<LocalDate, Set<String>> byDate = new TreeMap<>();
+        for (StockDailyBar bar : bars) {
+            if (bar.getSymbol() != null && bar.getTradeDate() != null) {
+                byDate.computeIfAbsent(bar.getTradeDate(), d -> new TreeSet<>()).add(bar.getSymbol());
+            }
+        }
+        return new BarsChangedEvent(byDate, List.copyOf(bars));
+    }
+
+    public boolean isEmpty() {
+        return symbolsByDate.isEmpty();
+    }
+}
@@ -0,0 +1,16 @@
+package com.stock.invest.model;
+
+import com.stock.invest.entity.StockDailyBar;
+
+import java.util.List;
+
+/**
+ * 日 K 写入事件（事务内）："本事务写入了这些 bar，即将提交"。
+ * <p>由 {@link com.stock.invest.service.DailyBarWriteListener} 在写事务提交前（beforeCommit，已 flush）同步发布，
+ * 监听方在同一事务内执行：必须与日 K 一致的派生数据（symbol 字典、最新日 K 快照、连续开盘日计数）在此维护，
+ * 监听方抛出的异常使整个写事务回滚。提交后的缓存合并与增量计算订阅 {@link BarsChangedEvent}。</p>
+ *
+ * @param bars 本事务写入的 bar 快照（写入顺序）
+ */
+public record BarsWrittenEvent(List<StockDailyBar> bars) {
+}
@@ -0,0 +1,357 @@
+package com.stock.invest.model;
+
+import com.stock.invest.entity.StockDailyBar;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * 单个 symbol 的列式日 K（不可变，按 epochDay 升序）。
+ * <p>每个字段一列原始类型数组：epochDay（int）、OHLC（按 {@link #PRICE_SCALE} 位小数定点放大的 long）、
+ * volume（long）、flags（byte，字段是否存在）、source（驻留字符串引用）、runLength（int，连续开盘日计数）。
+ * 读取无装箱；写入走 {@link #merge} 生成新实例（copy-on-write），并发读无需加锁。</p>
+ */
+public final class DailyBarColumns {
+
+    /** 价格定点小数位：long 值 = price × 10^4（HALF_UP） */
+    public static final int PRICE_SCALE = 4;
+
+    public static final byte FLAG_OPEN = 1;
+    public static final byte FLAG_HIGH = 1 << 1;
+    public static final byte FLAG_LOW = 1 << 2;
+    public static final byte FLAG_CLOSE = 1 << 3;
+    public static final byte FLAG_VOLUME = 1 << 4;
+
+    /** 连续开盘日计数未知（尚未计算） */
+    public static final int RUN_UNKNOWN = -1;
+
+    /** 每根 bar 的列宽：int + 5×long + byte + 引用（压缩指针 4 字节）+ int */
+    private static final int BYTES_PER_BAR = 4 + 5 * 8 + 1 + 4 + 4;
+    /** 对象头 + 9 个数组头 + 字段，粗估 */
+    private static final int FIXED_OVERHEAD_BYTES = 32 + 9 * 16;
+
+    private final String symbol;
+    private final int[] epochDays;
+    private final long[] open;
+    private final long[] high;
+    private final long[] low;
+    private final long[] close;
+    private final long[] volume;
+    private final byte[] flags;
+    private final String[] sources;
+    private final int[] runLengths;
+
+    private DailyBarColumns(String symbol, int[] epochDays, long[] open, long[] high, long[] low,
+                            long[] close, long[] volume, byte[] flags, String[] sources, int[] runLengths) {
+        this.symbol = symbol;
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.flags = flags;
+        this.sources = sources;
+        this.runLengths = runLengths;
+    }
+
+    public static Builder builder(String symbol) {
+        return new Builder(symbol);
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public int epochDay(int i) {
+        return epochDays[i];
+    }
+
+    public LocalDate tradeDate(int i) {
+        return LocalDate.ofEpochDay(epochDays[i]);
+    }
+
+    /** 定点开盘价（× 10^{@value #PRICE_SCALE}），缺失为 0 */
+    public long open(int i) {
+        return open[i];
+    }
+
+    public long high(int i) {
+        return high[i];
+    }
+
+    public long low(int i) {
+        return low[i];
+    }
+
+    public long close(int i) {
+        return close[i];
+    }
+
+    /** 成交量，缺失为 0 */
+    public long volume(int i) {
+        return volume[i];
+    }
+
+    public boolean has(int i, byte flag) {
+        return (flags[i] & flag) != 0;
+    }
+
+    public String source(int i) {
+        return sources[i];
+    }
+
+    /** 截至第 i 根的连续开盘日 bar 数，未知为 {@link #RUN_UNKNOWN} */
+    public int runLength(int i) {
+        return runLengths[i];
+    }
+
+    /** 精确命中的下标，不存在返回 -1 */
+    public int indexOf(LocalDate date) {
+        int i = Arrays.binarySearch(epochDays, (int) date.toEpochDay());
+        return i >= 0 ? i : -1;
+    }
+
+    /** 最后一根 epochDay ≤ day 的下标，没有返回 -1 */
+    public int lastIndexOnOrBefore(long day) {
+        int i = Arrays.binarySearch(epochDays, (int) day);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /** 第一根 epochDay ≥ day 的下标，没有返回 size() */
+    public int firstIndexOnOrAfter(long day) {
+        int i = Arrays.binarySearch(epochDays, (int) day);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** 本实例占用堆字节数（估算，用于容量上限与监控） */
+    public long memoryBytes() {
+        return FIXED_OVERHEAD_BYTES + (long) BYTES_PER_BAR * epochDays.length;
+    }
+
+    /** 还原为仅含 OHLCV/source 的游离 StockDailyBar（不受 JPA 管理） */
+    public StockDailyBar toDetachedBar(int i) {
+        StockDailyBar bar = new StockDailyBar();
+        bar.setSymbol(symbol);
+        bar.setTradeDate(tradeDate(i));
+        bar.setSource(sources[i]);
+        bar.setOpenPrice(has(i, FLAG_OPEN) ? fromScaled(open[i]) : null);
+        bar.setHighPrice(has(i, FLAG_HIGH) ? fromScaled(high[i]) : null);
+        bar.setLowPrice(has(i, FLAG_LOW) ? fromScaled(low[i]) : null);
+        bar.setClosePrice(has(i, FLAG_CLOSE) ? fromScaled(close[i]) : null);
+        bar.setVolume(has(i, FLAG_VOLUME) ? volume[i] : null);
+        bar.setRunLength(runLengths[i] == RUN_UNKNOWN ? null : runLengths[i]);
+        return bar;
+    }
+
+    /**
+     * 与较新的数据合并：同日以 newer 为准，结果仍按日期升序，只保留最近 capacity 根。
+     */
+    public DailyBarColumns merge(DailyBarColumns newer, int capacity) {
+        int n = epochDays.length;
+        int m = newer.epochDays.length;
+        Builder b = new Builder(symbol, n + m);
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (j >= m || (i < n && epochDays[i] < newer.epochDays[j])) {
+                b.copyFrom(this, i++);
+            } else {
+                if (i < n && epochDays[i] == newer.epochDays[j]) {
+                    i++;
+                }
+                b.copyFrom(newer, j++);
+            }
+        }
+        return b.build(capacity);
+    }
+
+    /**
+     * 回写连续开盘日计数：epochDays 中命中的交易日替换为 runs 对应值，返回新实例；无命中返回自身。
+     */
+    public DailyBarColumns withRunLengths(int[] days, int[] runs) {
+        int[] updated = null;
+        for (int k = 0; k < days.length; k++) {
+            int i = Arrays.binarySearch(epochDays, days[k]);
+            if (i < 0 || runLengths[i] == runs[k]) {
+                continue;
+            }
+            if (updated == null) {
+                updated = runLengths.clone();
+            }
+            updated[i] = runs[k];
+        }
+        return updated == null ? this
+                : new DailyBarColumns(symbol, epochDays, open, high, low, close, volume, flags, sources, updated);
+    }
+
+    /** 定点 long → BigDecimal（scale = {@value #PRICE_SCALE}） */
+    public static BigDecimal fromScaled(long value) {
+        return BigDecimal.valueOf(value, PRICE_SCALE);
+    }
+
+    /** BigDecimal → 定点 long；null → 0 */
+    public static long toScaled(BigDecimal value) {
+        return value == null ? 0L : value.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 列构建器：按追加顺序收集，{@link #build} 时按日期排序、同日后写覆盖先写、截断到 capacity。
+     */
+    public static final class Builder {
+
+        private final String symbol;
+        private int size;
+        private int[] epochDays;
+        private long[] open;
+        private long[] high;
+        private long[] low;
+        private long[] close;
+        private long[] volume;
+        private byte[] flags;
+        private String[] sources;
+        private int[] runLengths;
+
+        private Builder(String symbol) {
+            this(symbol, 16);
+        }
+
+        private Builder(String symbol, int initialCapacity) {
+            this.symbol = symbol;
+            int cap = Math.max(1, initialCapacity);
+            epochDays = new int[cap];
+            open = new long[cap];
+            high = new long[cap];
+            low = new long[cap];
+            close = new long[cap];
+            volume = new long[cap];
+            flags = new byte[cap];
+            sources = new String[cap];
+            runLengths = new int[cap];
+        }
+
+        public Builder add(LocalDate tradeDate, BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice,
+                           BigDecimal closePrice, Long vol, String source) {
+            return add(tradeDate, openPrice, highPrice, lowPrice, closePrice, vol, source, null);
+        }
+
+        /** runLength 为 null 时记为 {@link #RUN_UNKNOWN} */
+        public Builder add(LocalDate tradeDate, BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice,
+                           BigDecimal closePrice, Long vol, String source, Integer runLength) {
+            byte f = 0;
+            f |= openPrice != null ? FLAG_OPEN : 0;
+            f |= highPrice != null ? FLAG_HIGH : 0;
+            f |= lowPrice != null ? FLAG_LOW : 0;
+            f |= closePrice != null ? FLAG_CLOSE : 0;
+            f |= vol != null ? FLAG_VOLUME : 0;
+            return add((int) tradeDate.toEpochDay(), toScaled(openPrice), toScaled(highPrice), toScaled(lowPrice),
+                    toScaled(closePrice), vol == null ? 0L : vol, f, source,
+                    runLength == null ? RUN_UNKNOWN : runLength);
+        }
+
+        public Builder add(StockDailyBar bar) {
+            return add(bar.getTradeDate(), bar.getOpenPrice(), bar.getHighPrice(), bar.getLowPrice(),
+                    bar.getClosePrice(), bar.getVolume(), bar.getSource(), bar.getRunLength());
+        }
+
+        private void copyFrom(DailyBarColumns c, int i) {
+            add(c.epochDays[i], c.open[i], c.high[i], c.low[i], c.close[i], c.volume[i], c.flags[i], c.sources[i],
+                    c.runLengths[i]);
+        }
+
+        private Builder add(int day, long o, long h, long l, long c, long v, byte f, String source, int run) {
+            if (size == epochDays.length) {
+                grow();
+            }
+            epochDays[size] = day;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            volume[size] = v;
+            flags[size] = f;
+            sources[size] = source == null ? null : source.intern();
+            runLengths[size] = run;
+            size++;
+            return this;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private void grow() {
+            int cap = epochDays.length * 2;
+            epochDays = Arrays.copyOf(epochDays, cap);
+            open = Arrays.copyOf(open, cap);
+            high = Arrays.copyOf(high, cap);
+            low = Arrays.copyOf(low, cap);
+            close = Arrays.copyOf(close, cap);
+            volume = Arrays.copyOf(volume, cap);
+            flags = Arrays.copyOf(flags, cap);
+            sources = Arrays.copyOf(sources, cap);
+            runLengths = Arrays.copyOf(runLengths, cap);
+        }
+
+        public DailyBarColumns build(int capacity) {
+            // 下标按 (epochDay, 追加顺序) 排序；已升序时（流式加载 / merge）为原顺序
+            Integer[] order = null;
+            for (int i = 1; i < size; i++) {
+                if (epochDays[i] <= epochDays[i - 1]) {
+                    order = new Integer[size];
+                    for (int k = 0; k < size; k++) {
+                        order[k] = k;
+                    }
+                    Arrays.sort(order, (a, b) -> epochDays[a] != epochDays[b]
+                            ? Integer.compare(epochDays[a], epochDays[b]) : Integer.compare(a, b));
+                    break;
+                }
+            }
+            // 同日只保留最后追加的一根
+            int[] keep = new int[size];
+            int kept = 0;
+            for (int k = 0; k < size; k++) {
+                int idx = order == null ? k : order[k];
+                if (kept > 0 && epochDays[keep[kept - 1]] == epochDays[idx]) {
+                    keep[kept - 1] = idx;
+                } else {
+                    keep[kept++] = idx;
+                }
+            }
+            int from = Math.max(0, kept - Math.max(1, capacity));
+            int n = kept - from;
+            int[] d = new int[n];
+            long[] o = new long[n];
+            long[] h = new long[n];
+            long[] l = new long[n];
+            long[] c = new long[n];
+            long[] v = new long[n];
+            byte[] f = new byte[n];
+            String[] s = new String[n];
+            int[] r = new int[n];
+            for (int k = 0; k < n; k++) {
+                int idx = keep[from + k];
+                d[k] = epochDays[idx];
+                o[k] = open[idx];
+                h[k] = high[idx];
+                l[k] = low[idx];
+                c[k] = close[idx];
+                v[k] = volume[idx];
+                f[k] = flags[idx];
+                s[k] = sources[idx];
+                r[k] = runLengths[idx];
+            }
+            return new DailyBarColumns(symbol, d, o, h, l, c, v, f, s, r);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.stock.invest.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 单个 symbol 的技术指标滚动状态：按交易日升序逐根 {@link #push}，每根 O(1) 更新。
+ * <p>收盘价 / 最高 / 最低按 {@link DailyBarColumns#PRICE_SCALE} 位小数定点为 long，环形缓冲区内的
+ * 滑动和为精确整数；EMA、RSI（Wilder）、ATR（Wilder）为递推 double。缺失的最高 / 最低价以收盘价代替。</p>
+ * <p>可由最近一行指标值（{@link Values}，含全精度递推状态 {@link Checkpoint}）与其前 {@link #SMA_LONG} 根 bar
+ * 恢复（{@link #resume}），恢复后继续推入与不间断计算逐位一致，进程重启后无需回放全量历史。
+ * 非线程安全，由调用方串行使用。</p>
+ */
+public final class IndicatorState {
+
+    public static final int SMA_SHORT = 5;
+    public static final int SMA_MID = 20;
+    public static final int SMA_LONG = 50;
+    public static final int EMA_FAST = 12;
+    public static final int EMA_SLOW = 26;
+    public static final int VOLUME_PERIOD = 20;
+    public static final int RSI_PERIOD = 14;
+    public static final int ATR_PERIOD = 14;
+    public static final int RANGE_PERIOD = 20;
+
+    private static final double SCALE = 10_000d;
+
+    /**
+     * 某交易日的指标值；预热期内（bar 数不足周期）对应项为 null。
+     *
+     * @param barCount        截至该日（含）的 bar 数
+     * @param relativeVolume  当日成交量 ÷ 此前 {@value #VOLUME_PERIOD} 日均量
+     * @param high            最近 {@value #RANGE_PERIOD} 日最高价
+     * @param low             最近 {@value #RANGE_PERIOD} 日最低价
+     * @param rsiAvgGain      RSI 平均涨幅
+     * @param rsiAvgLoss      RSI 平均跌幅
+     * @param checkpoint      该日的递推状态（恢复用）；读自未保存状态的旧行时为 null
+     */
+    public record Values(LocalDate tradeDate, int barCount,
+                         Double closeSma5, Double closeSma20, Double closeSma50,
+                         Double closeEma12, Double closeEma26,
+                         Double volumeSma20, Double volumeEma20, Double relativeVolume,
+                         Double rsi14, Double atr14, Double high, Double low,
+                         Double rsiAvgGain, Double rsiAvgLoss, Checkpoint checkpoint) {
+    }
+
+    /**
+     * 递推状态原值（内部 double，价格类为定点单位）。须原样存取（DOUBLE 列）：
+     * 由四舍五入后的展示值恢复会截断状态，此后的 EMA / RSI / ATR 与全量重建逐步偏离。
+     *
+     * @param avgGain 预热期内为涨幅累计和，之后为 Wilder 均值；avgLoss / atr 同理
+     */
+    public record Checkpoint(double emaFast, double emaSlow, double volumeEma,
+                             double avgGain, double avgLoss, double atr) {
+    }
+
+    /** 最近 {@value #SMA_LONG} 根收盘价（定点），下标 count % SMA_LONG */
+    private final long[] closes = new long[SMA_LONG];
+    /** 最近 {@value #VOLUME_PERIOD} 根成交量 / 最高 / 最低，下标 count % VOLUME_PERIOD */
+    private final long[] volumes = new long[VOLUME_PERIOD];
+    private final long[] highs = new long[RANGE_PERIOD];
+    private final long[] lows = new long[RANGE_PERIOD];
+
+    private int count;
+    private LocalDate lastDate;
+
+    private long sumShort;
+    private long sumMid;
+    private long sumLong;
+    private long volumeSum;
+    private long prevClose;
+
+    private double emaFast;
+    private double emaSlow;
+    private double volumeEma;
+    /** 预热期内为涨跌幅 / TR 累计和，之后为 Wilder 均值 */
+    private double avgGain;
+    private double avgLoss;
+    private double atr;
+
+    /** 已推入的 bar 数 */
+    public int count() {
+        return count;
+    }
+
+    /** 最近一根 bar 的交易日；未推入任何 bar 时为 null */
+    public LocalDate lastDate() {
+        return lastDate;
+    }
+
+    /**
+     * 推入下一根 bar（交易日须晚于 {@link #lastDate}）并返回该日指标值。
+     *
+     * @param high  最高价，null 时以收盘价代替
+     * @param low   最低价，null 时以收盘价代替
+     * @throws IllegalArgumentException 交易日未递增或收盘价为 null
+     */
+    public Values push(LocalDate tradeDate, BigDecimal high, BigDecimal low, BigDecimal close, long volume) {
+        if (close == null) {
+            throw new IllegalArgumentException("close is required: " + tradeDate);
+        }
+        if (lastDate != null && !tradeDate.isAfter(lastDate)) {
+            throw new IllegalArgumentException("tradeDate " + tradeDate + " not after " + lastDate);
+        }
+        long c = scaled(close);
+        long h = high == null ? c : scaled(high);
+        long l = low == null ? c : scaled(low);
+
+        // 相对成交量以推入前的 VOLUME_PERIOD 日为基准
+        Double relativeVolume = null;
+        if (count >= VOLUME_PERIOD && volumeSum > 0) {
+            relativeVolume = volume * (double) VOLUME_PERIOD / volumeSum;
+        }
+
+        sumShort += c - (count >= SMA_SHORT ? closes[(count - SMA_SHORT) % SMA_LONG] : 0);
+        sumMid += c - (count >= SMA_MID ? closes[(count - SMA_MID) % SMA_LONG] : 0);
+        sumLong += c - (count >= SMA_LONG ? closes[count % SMA_LONG] : 0);
+        closes[count % SMA_LONG] = c;
+        volumeSum += volume - (count >= VOLUME_PERIOD ? volumes[count % VOLUME_PERIOD] : 0);
+        volumes[count % VOLUME_PERIOD] = volume;
+        highs[count % RANGE_PERIOD] = h;
+        lows[count % RANGE_PERIOD] = l;
+
+        if (count >= 1) {
+            long change = c - prevClose;
+            long tr = Math.max(h - l, Math.max(Math.abs(h - prevClose), Math.abs(l - prevClose)));
+            if (count <= RSI_PERIOD) {
+                avgGain += Math.max(change, 0);
+                avgLoss += Math.max(-change, 0);
+                if (count == RSI_PERIOD) {
+                    avgGain /= RSI_PERIOD;
+                    avgLoss /= RSI_PERIOD;
+                }
+            } else {
+                avgGain = (avgGain * (RSI_PERIOD - 1) + Math.max(change, 0)) / RSI_PERIOD;
+                avgLoss = (avgLoss * (RSI_PERIOD - 1) + Math.max(-change, 0)) / RSI_PERIOD;
+            }
+            atr = wilderAtr(tr, count + 1);
+        } else {
+            atr = wilderAtr(h - l, 1);
+        }
+        prevClose = c;
+        count++;
+        lastDate = tradeDate;
+
+        emaFast = ema(emaFast, c, EMA_FAST);
+        emaSlow = ema(emaSlow, c, EMA_SLOW);
+        if (count == VOLUME_PERIOD) {
+            volumeEma = volumeSum / (double) VOLUME_PERIOD;
+        } else if (count > VOLUME_PERIOD) {
+            volumeEma += (volume - volumeEma) * 2 / (VOLUME_PERIOD + 1);
+        }
+        return values(relativeVolume);
+    }
+
+    /**
+     * 由某日指标值与截至该日（含）的最近 bar 恢复状态。
+     *
+     * @param last   该日指标值，barCount 须不少于 {@value #SMA_LONG}，须带 {@link Checkpoint}
+     * @param recent 截至该日的最近 {@value #SMA_LONG} 根 bar，按交易日升序：
+     *               [tradeDate, high, low, close, volume]
+     * @return 恢复后的状态；条件不满足（预热期内、无递推状态、bar 数不足或末根日期不符）返回 null，
+     *         调用方改为从头回放
+     */
+    public static IndicatorState resume(Values last, List<Object[]> recent) {
+        Checkpoint cp = last.checkpoint();
+        if (cp == null || last.barCount() < SMA_LONG || recent.size() != SMA_LONG
+                || !last.tradeDate().equals(recent.get(SMA_LONG - 1)[0])) {
+            return null;
+        }
+        IndicatorState s = new IndicatorState();
+        s.count = last.barCount();
+        for (int j = 0; j < SMA_LONG; j++) {
+            Object[] r = recent.get(j);
+            int idx = s.count - SMA_LONG + j;
+            long c = scaled((BigDecimal) r[3]);
+            s.closes[idx % SMA_LONG] = c;
+            s.sumLong += c;
+            if (j >= SMA_LONG - SMA_MID) {
+                s.sumMid += c;
+            }
+            if (j >= SMA_LONG - SMA_SHORT) {
+                s.sumShort += c;
+            }
+            if (j >= SMA_LONG - VOLUME_PERIOD) {
+                long v = ((Number) r[4]).longValue();
+                s.volumes[idx % VOLUME_PERIOD] = v;
+                s.volumeSum += v;
+                s.highs[idx % RANGE_PERIOD] = r[1] == null ? c : scaled((BigDecimal) r[1]);
+                s.lows[idx % RANGE_PERIOD] = r[2] == null ? c : scaled((BigDecimal) r[2]);
+            }
+            s.prevClose = c;
+        }
+        s.lastDate = last.tradeDate();
+        s.emaFast = cp.emaFast();
+        s.emaSlow = cp.emaSlow();
+        s.volumeEma = cp.volumeEma();
+        s.avgGain = cp.avgGain();
+        s.avgLoss = cp.avgLoss();
+        s.atr = cp.atr();
+        return s;
+    }
+
+    private Values values(Double relativeVolume) {
+        Double rsi = null;
+        if (count > RSI_PERIOD) {
+            rsi = avgLoss == 0 ? (avgGain == 0 ? 50d : 100d) : 100 - 100 / (1 + avgGain / avgLoss);
+        }
+        Double high = null;
+        Double low = null;
+        if (count >= RANGE_PERIOD) {
+            long h = Long.MIN_VALUE;
+            long l = Long.MAX_VALUE;
+            for (int i = 0; i < RANGE_PERIOD; i++) {
+                h = Math.max(h, highs[i]);
+                l = Math.min(l, lows[i]);
+            }
+            high = h / SCALE;
+            low = l / SCALE;
+        }
+        return new Values(lastDate, count,
+                count >= SMA_SHORT ? sumShort / SCALE / SMA_SHORT : null,
+                count >= SMA_MID ? sumMid / SCALE / SMA_MID : null,
+                count >= SMA_LONG ? sumLong / SCALE / SMA_LONG : null,
+                count >= EMA_FAST ? emaFast / SCALE : null,
+                count >= EMA_SLOW ? emaSlow / SCALE : null,
+                count >= VOLUME_PERIOD ? volumeSum / (double) VOLUME_PERIOD : null,
+                count >= VOLUME_PERIOD ? volumeEma : null,
+                relativeVolume,
+                rsi,
+                count >= ATR_PERIOD ? atr / SCALE : null,
+                high, low,
+                count > RSI_PERIOD ? avgGain / SCALE : null,
+                count > RSI_PERIOD ? avgLoss / SCALE : null,
+                new Checkpoint(emaFast, emaSlow, volumeEma, avgGain, avgLoss, atr));
+    }
+
+    /** 第 n 根（从 1 计）bar 的 ATR 状态：预热期内累计 TR，第 ATR_PERIOD 根取均值，之后 Wilder 平滑 */
+    private double wilderAtr(long tr, int n) {
+        if (n < ATR_PERIOD) {
+            return atr + tr;
+        }
+        if (n == ATR_PERIOD) {
+            return (atr + tr) / ATR_PERIOD;
+        }
+        return (atr * (ATR_PERIOD - 1) + tr) / ATR_PERIOD;
+    }
+
+    /** EMA 以前 period 根的 SMA 为种子（此时 count == period），之后按 2 / (period + 1) 递推 */
+    private double ema(double previous, long close, int period) {
+        if (count < period) {
+            return 0;
+        }
+        if (count == period) {
+            long sum = 0;
+            for (int i = count - period; i < count; i++) {
+                sum += closes[i % SMA_LONG];
+            }
+            return sum / (double) period;
+        }
+        return previous + (close - previous) * 2 / (period + 1);
+    }
+
+    private static long scaled(BigDecimal price) {
+        return price.setScale(DailyBarColumns.PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,28 @@
+package com.stock.invest.model;
+
+/**
+ * 成交量模式阈值。
+ *
+ * @param spikeMultiplier   放量突破：窗口前 (w-1) 根均量 × 该倍数 &lt; 末根成交量（默认 5.0）
+ * @param increasingMinStep 递增量能：每个较短（更近）窗口的均量须超过较长窗口均量的比例，
+ *                          即 avg(末 len 根) × (1 + step) &lt; avg(末 len-1 根)；0 = 严格大于（默认）
+ */
+public record PatternParams(double spikeMultiplier, double increasingMinStep) {
+
+    /** 默认阈值：与参数化之前的硬编码判定逐位一致（× 1.0 为精确运算） */
+    public static final PatternParams DEFAULT = new PatternParams(5.0, 0.0);
+
+    public PatternParams {
+        if (!(spikeMultiplier > 0) || Double.isInfinite(spikeMultiplier)) {
+            throw new IllegalArgumentException("spikeMultiplier must be a positive number: " + spikeMultiplier);
+        }
+        if (!(increasingMinStep >= 0) || Double.isInfinite(increasingMinStep)) {
+            throw new IllegalArgumentException("increasingMinStep must be >= 0: " + increasingMinStep);
+        }
+    }
+
+    /** 递增量能比较时较长窗口均量的放大系数 */
+    public double increasingFactor() {
+        return 1.0 + increasingMinStep;
+    }
+}
@@ -0,0 +1,40 @@
+package com.stock.invest.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * 预渲染的响应体：已序列化的 JSON 文本 + 内容摘要 ETag。
+ * <p>序列化时原样写出 {@link #json()}（不再经 Map 组装与逐字段序列化），
+ * 可直接作为 {@code ApiResponse.data} 或 MCP 工具返回值。</p>
+ *
+ * @param json 已序列化的 JSON
+ * @param etag json 的 MD5 十六进制摘要（不含引号）
+ */
+@JsonSerialize(using = RenderedPayload.RawJsonSerializer.class)
+public record RenderedPayload(String json, String etag) {
+
+    public static RenderedPayload of(String json) {
+        return new RenderedPayload(json, DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static final class RawJsonSerializer extends StdSerializer<RenderedPayload> {
+
+        RawJsonSerializer() {
+            super(RenderedPayload.class);
+        }
+
+        @Override
+        public void serialize(RenderedPayload value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeRawValue(value.json());
+        }
+    }
+}
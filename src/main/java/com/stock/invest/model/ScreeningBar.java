@@ -0,0 +1,42 @@
+package com.stock.invest.model;
+
+import com.stock.invest.entity.StockDailyBar;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 筛选只读投影：stock_daily_bar 中筛选实际用到的列。
+ * <p>由 JPQL 构造表达式直接生成，不进入持久化上下文（无脏检查 / 一级缓存），
+ * 不读取名称、盘后、审计等无关列。</p>
+ *
+ * @param runLength 截至本根的连续开盘日 bar 数，NULL = 尚未计算
+ */
+public record ScreeningBar(String symbol, LocalDate tradeDate, String source,
+                           BigDecimal openPrice, BigDecimal closePrice, Long volume, Integer runLength) {
+
+    /** 不带连续开盘日计数（测试 / 回测等只需 OHLCV 的路径） */
+    public ScreeningBar(String symbol, LocalDate tradeDate, String source,
+                        BigDecimal openPrice, BigDecimal closePrice, Long volume) {
+        this(symbol, tradeDate, source, openPrice, closePrice, volume, null);
+    }
+
+    /** 由实体构造（测试 / 非流式路径用） */
+    public static ScreeningBar of(StockDailyBar bar) {
+        return new ScreeningBar(bar.getSymbol(), bar.getTradeDate(), bar.getSource(),
+                bar.getOpenPrice(), bar.getClosePrice(), bar.getVolume(), bar.getRunLength());
+    }
+
+    /** 转为仅含筛选字段的游离 StockDailyBar（供 PatternEvaluateService 使用，不受 JPA 管理） */
+    public StockDailyBar toDetachedBar() {
+        StockDailyBar bar = new StockDailyBar();
+        bar.setSymbol(symbol);
+        bar.setTradeDate(tradeDate);
+        bar.setSource(source);
+        bar.setOpenPrice(openPrice);
+        bar.setClosePrice(closePrice);
+        bar.setVolume(volume);
+        bar.setRunLength(runLength);
+        return bar;
+    }
+}
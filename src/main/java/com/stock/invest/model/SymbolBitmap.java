@@ -0,0 +1,330 @@
+package com.stock.invest.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 不可变压缩位图（Roaring 式两级结构），元素为非负 int（symbol 字典 id）。
+ * <p>按高 16 位分桶，每桶一个容器：元素数 ≤ {@link #ARRAY_MAX} 时为有序 char[]（每元素 2 字节），
+ * 否则为 {@value #BITMAP_WORDS} 个 long 的位图（固定 8 KB）。单日命中通常稀疏，均为数组容器；
+ * 交 / 并逐桶进行，数组与数组走有序归并，含位图容器时按字运算，结果按元素数重新选择容器。</p>
+ */
+public final class SymbolBitmap {
+
+    /** 数组容器元素上限（超过即位图容器更省） */
+    static final int ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    public static final SymbolBitmap EMPTY = new SymbolBitmap(new char[0], new Object[0], 0);
+
+    /** 各桶高 16 位，升序 */
+    private final char[] keys;
+    /** 与 keys 一一对应：char[]（有序低 16 位）或 long[BITMAP_WORDS] */
+    private final Object[] containers;
+    private final int cardinality;
+
+    private SymbolBitmap(char[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    /** 由任意顺序、可重复的非负 id 构建 */
+    public static SymbolBitmap of(int... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] < 0) {
+            throw new IllegalArgumentException("negative id: " + sorted[0]);
+        }
+        char[] keys = new char[16];
+        Object[] containers = new Object[16];
+        int buckets = 0;
+        int total = 0;
+        char[] lows = new char[sorted.length];
+        int i = 0;
+        while (i < sorted.length) {
+            char high = (char) (sorted[i] >>> 16);
+            int n = 0;
+            for (; i < sorted.length && (sorted[i] >>> 16) == high; i++) {
+                char low = (char) sorted[i];
+                if (n == 0 || lows[n - 1] != low) {
+                    lows[n++] = low;
+                }
+            }
+            if (buckets == keys.length) {
+                keys = Arrays.copyOf(keys, buckets * 2);
+                containers = Arrays.copyOf(containers, buckets * 2);
+            }
+            keys[buckets] = high;
+            containers[buckets++] = n > ARRAY_MAX ? toWords(lows, n) : Arrays.copyOf(lows, n);
+            total += n;
+        }
+        return new SymbolBitmap(Arrays.copyOf(keys, buckets), Arrays.copyOf(containers, buckets), total);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int b = Arrays.binarySearch(keys, (char) (id >>> 16));
+        if (b < 0) {
+            return false;
+        }
+        char low = (char) id;
+        return containers[b] instanceof char[] array
+                ? Arrays.binarySearch(array, low) >= 0
+                : (((long[]) containers[b])[low >>> 6] & (1L << low)) != 0;
+    }
+
+    /** 最大元素；空位图返回 -1 */
+    public int last() {
+        if (keys.length == 0) {
+            return -1;
+        }
+        int b = keys.length - 1;
+        int high = keys[b] << 16;
+        if (containers[b] instanceof char[] array) {
+            return high | array[array.length - 1];
+        }
+        long[] words = (long[]) containers[b];
+        for (int w = BITMAP_WORDS - 1; ; w--) {
+            if (words[w] != 0) {
+                return high | (w << 6) | (63 - Long.numberOfLeadingZeros(words[w]));
+            }
+        }
+    }
+
+    public SymbolBitmap and(SymbolBitmap other) {
+        if (isEmpty() || other.isEmpty()) {
+            return EMPTY;
+        }
+        int capacity = Math.min(keys.length, other.keys.length);
+        char[] outKeys = new char[capacity];
+        Object[] outContainers = new Object[capacity];
+        int n = 0;
+        int total = 0;
+        for (int i = 0, j = 0; i < keys.length && j < other.keys.length; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object c = and(containers[i], other.containers[j]);
+                int size = size(c);
+                if (size > 0) {
+                    outKeys[n] = keys[i];
+                    outContainers[n++] = c;
+                    total += size;
+                }
+                i++;
+                j++;
+            }
+        }
+        return n == 0 ? EMPTY : new SymbolBitmap(Arrays.copyOf(outKeys, n), Arrays.copyOf(outContainers, n), total);
+    }
+
+    public SymbolBitmap or(SymbolBitmap other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        int capacity = keys.length + other.keys.length;
+        char[] outKeys = new char[capacity];
+        Object[] outContainers = new Object[capacity];
+        int n = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            Object c;
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                outKeys[n] = keys[i];
+                c = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                outKeys[n] = other.keys[j];
+                c = other.containers[j++];
+            } else {
+                outKeys[n] = keys[i];
+                c = or(containers[i++], other.containers[j++]);
+            }
+            outContainers[n++] = c;
+            total += size(c);
+        }
+        return new SymbolBitmap(Arrays.copyOf(outKeys, n), Arrays.copyOf(outContainers, n), total);
+    }
+
+    /** 升序遍历 */
+    public void forEach(IntConsumer action) {
+        for (int b = 0; b < keys.length; b++) {
+            int high = keys[b] << 16;
+            if (containers[b] instanceof char[] array) {
+                for (char low : array) {
+                    action.accept(high | low);
+                }
+            } else {
+                long[] words = (long[]) containers[b];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /** 升序 id 数组 */
+    public int[] toArray() {
+        int[] out = new int[cardinality];
+        int[] n = new int[1];
+        forEach(id -> out[n[0]++] = id);
+        return out;
+    }
+
+    /** 堆占用粗估（字节）：容器数组体 + 每桶头部 */
+    public long memoryBytes() {
+        long bytes = 16 + keys.length * 2L + containers.length * 4L;
+        for (Object c : containers) {
+            bytes += 16 + (c instanceof char[] array ? array.length * 2L : BITMAP_WORDS * 8L);
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SymbolBitmap other && cardinality == other.cardinality
+                && Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolBitmap" + Arrays.toString(toArray());
+    }
+
+    private static int size(Object container) {
+        if (container instanceof char[] array) {
+            return array.length;
+        }
+        int n = 0;
+        for (long word : (long[]) container) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof char[] x && b instanceof char[] y) {
+            char[] out = new char[Math.min(x.length, y.length)];
+            int n = 0;
+            for (int i = 0, j = 0; i < x.length && j < y.length; ) {
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    out[n++] = x[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        if (a instanceof char[] || b instanceof char[]) {
+            char[] array = a instanceof char[] x ? x : (char[]) b;
+            long[] words = a instanceof long[] x ? x : (long[]) b;
+            char[] out = new char[array.length];
+            int n = 0;
+            for (char low : array) {
+                if ((words[low >>> 6] & (1L << low)) != 0) {
+                    out[n++] = low;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        long[] x = (long[]) a;
+        long[] y = (long[]) b;
+        long[] out = new long[BITMAP_WORDS];
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            out[w] = x[w] & y[w];
+        }
+        return normalize(out);
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] x && b instanceof char[] y) {
+            char[] out = new char[x.length + y.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.length || j < y.length) {
+                if (j == y.length || (i < x.length && x[i] < y[j])) {
+                    out[n++] = x[i++];
+                } else if (i == x.length || x[i] > y[j]) {
+                    out[n++] = y[j++];
+                } else {
+                    out[n++] = x[i++];
+                    j++;
+                }
+            }
+            return n > ARRAY_MAX ? toWords(out, n) : Arrays.copyOf(out, n);
+        }
+        // 至少一侧为位图容器：并集必然超过数组上限
+        long[] out = a instanceof long[] x ? x.clone() : toWords((char[]) a, ((char[]) a).length);
+        if (b instanceof long[] y) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                out[w] |= y[w];
+            }
+        } else {
+            for (char low : (char[]) b) {
+                out[low >>> 6] |= 1L << low;
+            }
+        }
+        return out;
+    }
+
+    private static long[] toWords(char[] lows, int n) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int i = 0; i < n; i++) {
+            words[lows[i] >>> 6] |= 1L << lows[i];
+        }
+        return words;
+    }
+
+    /** 位图容器按元素数回落为数组容器 */
+    private static Object normalize(long[] words) {
+        int n = size(words);
+        if (n > ARRAY_MAX) {
+            return words;
+        }
+        char[] out = new char[n];
+        int k = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                out[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return out;
+    }
+}
@@ -1,6 +1,10 @@
 package com.stock.invest.model;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 交易日历查询结果，不可变对象。
@@ -49,6 +53,41 @@ public class TradingCalendarResult {
                 "所有数据源均不可用，默认交易日");
     }
 
+    /**
+     * 区间查询结果展开为逐日结果：{@code openDayTypes} 中的日期为交易日（值为 type，如 TRADING/EARLY_CLOSE），
+     * 其余日期为非交易日（周末 WEEKEND，工作日 HOLIDAY）。
+     * <p>区间含工作日而供应商未返回任何开盘日时（如尚未发布的未来年份）视为不可用，返回 null，
+     * 避免把整段工作日展开成 HOLIDAY 写入缓存与数据库。</p>
+     */
+    public static List<TradingCalendarResult> fromOpenDays(String market, LocalDate start, LocalDate end,
+                                                           Map<LocalDate, String> openDayTypes, String source) {
+        boolean anyOpenInRange = openDayTypes.keySet().stream().anyMatch(d -> !d.isBefore(start) && !d.isAfter(end));
+        if (!anyOpenInRange && hasWeekday(start, end)) {
+            return null;
+        }
+        List<TradingCalendarResult> results = new ArrayList<>();
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            String type = openDayTypes.get(d);
+            if (type != null) {
+                results.add(trading(market, d, source, type));
+            } else if (d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                results.add(nonTrading(market, d, source, "WEEKEND"));
+            } else {
+                results.add(nonTrading(market, d, source, "HOLIDAY"));
+            }
+        }
+        return results;
+    }
+
+    private static boolean hasWeekday(LocalDate start, LocalDate end) {
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            if (d.getDayOfWeek() != DayOfWeek.SATURDAY && d.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // --- getters ---
 
     public String getMarket() { return market; }
@@ -0,0 +1,204 @@
+package com.stock.invest.model;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * 单市场交易日历内存快照，不可变对象。
+ * <p>覆盖 [firstDate, lastDate] 连续日期区间：{@code known} 位图标记已入库的日期，
+ * {@code open} 位图标记开盘日；{@code prevOpen}/{@code nextOpen} 预计算每个下标严格之前/之后
+ * 最近开盘日的下标，单日查询与前后交易日查询均为 O(1)。</p>
+ * <p>变更（整年同步 / 单日 upsert）时通过 {@link #with} 构建新快照整体替换，读路径无锁。</p>
+ */
+public final class TradingCalendarSnapshot {
+
+    private final String market;
+    /** 区间首日 epochDay；空快照为 0 */
+    private final long firstEpochDay;
+    private final int length;
+    private final BitSet known;
+    private final BitSet open;
+    /** 严格早于下标 i 的最近开盘日下标，-1 = 无 */
+    private final int[] prevOpen;
+    /** 严格晚于下标 i 的最近开盘日下标，-1 = 无 */
+    private final int[] nextOpen;
+    /** 下标 i 的原始结果（source/type/detail），未入库为 null */
+    private final TradingCalendarResult[] days;
+
+    private TradingCalendarSnapshot(String market, TreeMap<LocalDate, TradingCalendarResult> byDate) {
+        this.market = market;
+        if (byDate.isEmpty()) {
+            this.firstEpochDay = 0;
+            this.length = 0;
+        } else {
+            this.firstEpochDay = byDate.firstKey().toEpochDay();
+            this.length = (int) (byDate.lastKey().toEpochDay() - firstEpochDay + 1);
+        }
+        this.known = new BitSet(length);
+        this.open = new BitSet(length);
+        this.days = new TradingCalendarResult[length];
+        for (TradingCalendarResult r : byDate.values()) {
+            int i = (int) (r.getDate().toEpochDay() - firstEpochDay);
+            known.set(i);
+            open.set(i, r.isTradingDay());
+            days[i] = r;
+        }
+        this.prevOpen = new int[length];
+        this.nextOpen = new int[length];
+        int last = -1;
+        for (int i = 0; i < length; i++) {
+            prevOpen[i] = last;
+            if (open.get(i)) {
+                last = i;
+            }
+        }
+        last = -1;
+        for (int i = length - 1; i >= 0; i--) {
+            nextOpen[i] = last;
+            if (open.get(i)) {
+                last = i;
+            }
+        }
+    }
+
+    /** 空快照（该市场尚无入库日历） */
+    public static TradingCalendarSnapshot empty(String market) {
+        return new TradingCalendarSnapshot(market, new TreeMap<>());
+    }
+
+    /** 由逐日结果构建快照；同一日期多条时以后者为准 */
+    public static TradingCalendarSnapshot of(String market, Collection<TradingCalendarResult> results) {
+        return empty(market).with(results);
+    }
+
+    /** 返回合并了 {@code results} 的新快照（当前快照不变） */
+    public TradingCalendarSnapshot with(Collection<TradingCalendarResult> results) {
+        TreeMap<LocalDate, TradingCalendarResult> byDate = new TreeMap<>();
+        for (TradingCalendarResult r : days) {
+            if (r != null) {
+                byDate.put(r.getDate(), r);
+            }
+        }
+        for (TradingCalendarResult r : results) {
+            byDate.put(r.getDate(), r);
+        }
+        return new TradingCalendarSnapshot(market, byDate);
+    }
+
+    public String getMarket() {
+        return market;
+    }
+
+    /** 已入库天数 */
+    public int size() {
+        return known.cardinality();
+    }
+
+    /**
+     * 单日是否开盘。
+     *
+     * @return true/false；该日未入库返回 null
+     */
+    public Boolean isOpen(LocalDate date) {
+        int i = indexOf(date);
+        if (i < 0 || i >= length || !known.get(i)) {
+            return null;
+        }
+        return open.get(i);
+    }
+
+    /** 单日原始结果（含 source/type/detail）；未入库返回 null */
+    public TradingCalendarResult get(LocalDate date) {
+        int i = indexOf(date);
+        return i < 0 || i >= length ? null : days[i];
+    }
+
+    /**
+     * 严格早于 {@code date} 且不早于 {@code date - maxDays} 的最近开盘日。
+     */
+    public Optional<LocalDate> previousOpen(LocalDate date, int maxDays) {
+        int i = indexOf(date);
+        if (length == 0 || i <= 0) {
+            return Optional.empty();
+        }
+        int found = i >= length
+                ? (open.get(length - 1) ? length - 1 : prevOpen[length - 1])
+                : prevOpen[i];
+        return withinDays(date, found, maxDays);
+    }
+
+    /**
+     * 严格晚于 {@code date} 且不晚于 {@code date + maxDays} 的最近开盘日。
+     */
+    public Optional<LocalDate> nextOpen(LocalDate date, int maxDays) {
+        int i = indexOf(date);
+        if (length == 0 || i >= length - 1) {
+            return Optional.empty();
+        }
+        int found = i < 0
+                ? (open.get(0) ? 0 : nextOpen[0])
+                : nextOpen[i];
+        return withinDays(date, found, maxDays);
+    }
+
+    /** [start, end] 内已入库的逐日结果（按日期升序） */
+    public List<TradingCalendarResult> range(LocalDate start, LocalDate end) {
+        List<TradingCalendarResult> out = new ArrayList<>();
+        int from = Math.max(0, indexOf(start));
+        int to = Math.min(length - 1, indexOf(end));
+        for (int i = known.nextSetBit(from); i >= 0 && i <= to; i = known.nextSetBit(i + 1)) {
+            out.add(days[i]);
+        }
+        return out;
+    }
+
+    /** [start, end] 内的开盘日（按日期升序） */
+    public List<LocalDate> openDays(LocalDate start, LocalDate end) {
+        List<LocalDate> out = new ArrayList<>();
+        int from = Math.max(0, indexOf(start));
+        int to = Math.min(length - 1, indexOf(end));
+        for (int i = open.nextSetBit(from); i >= 0 && i <= to; i = open.nextSetBit(i + 1)) {
+            out.add(dateAt(i));
+        }
+        return out;
+    }
+
+    /** 指定年份已入库天数 */
+    public int knownDaysInYear(int year) {
+        LocalDate start = LocalDate.of(year, 1, 1);
+        int from = Math.max(0, indexOf(start));
+        int to = Math.min(length, indexOf(start.plusDays(Year.of(year).length())));
+        return from >= to ? 0 : known.get(from, to).cardinality();
+    }
+
+    private int indexOf(LocalDate date) {
+        long offset = date.toEpochDay() - firstEpochDay;
+        if (offset < 0) {
+            return -1;
+        }
+        return offset > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) offset;
+    }
+
+    private Optional<LocalDate> withinDays(LocalDate date, int found, int maxDays) {
+        if (found < 0 || Math.abs(firstEpochDay + found - date.toEpochDay()) > maxDays) {
+            return Optional.empty();
+        }
+        return Optional.of(dateAt(found));
+    }
+
+    private LocalDate dateAt(int index) {
+        return LocalDate.ofEpochDay(firstEpochDay + index);
+    }
+
+    @Override
+    public String toString() {
+        return "TradingCalendarSnapshot{market='" + market + "', days=" + size()
+                + (length == 0 ? "" : ", range=" + dateAt(0) + "~" + dateAt(length - 1)) + "}";
+    }
+}
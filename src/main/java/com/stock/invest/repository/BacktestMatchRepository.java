@@ -0,0 +1,24 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.BacktestMatch;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BacktestMatchRepository extends JpaRepository<BacktestMatch, Long> {
+
+    long countByBacktestId(String backtestId);
+
+    Page<BacktestMatch> findByBacktestIdOrderByTradeDateAscSymbolAscWindowDaysAscAlgorithmAsc(
+            String backtestId, Pageable pageable);
+
+    /** 每行 Object[]: [algorithm, windowDays, count, minTradeDate, maxTradeDate] */
+    @Query("SELECT bm.algorithm, bm.windowDays, COUNT(bm), MIN(bm.tradeDate), MAX(bm.tradeDate) FROM BacktestMatch bm "
+            + "WHERE bm.backtestId = :backtestId GROUP BY bm.algorithm, bm.windowDays ORDER BY bm.algorithm, bm.windowDays")
+    List<Object[]> summarizeByAlgorithmAndWindowDays(@Param("backtestId") String backtestId);
+}
@@ -0,0 +1,49 @@
+package com.stock.invest.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@code INSERT ... AS new ON DUPLICATE KEY UPDATE}（行别名）可用性判定：MySQL 8.0.19+。
+ * MariaDB 不支持行别名（以 MySQL 协议连接时版本串含 MariaDB）；H2 等测试库同样不可用，调用方退回 JPA 路径。
+ */
+final class RowAliasSupport {
+
+    /** 行别名的最低 MySQL 版本 */
+    private static final int[] MIN_VERSION = {8, 0, 19};
+
+    private static final Pattern VERSION = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+
+    private RowAliasSupport() {
+    }
+
+    /** 当前连接的库是否支持行别名 */
+    static boolean check(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> supports(
+                connection.getMetaData().getDatabaseProductName(),
+                connection.getMetaData().getDatabaseProductVersion())));
+    }
+
+    static boolean supports(String product, String version) {
+        if (product == null || version == null
+                || !product.toLowerCase(Locale.ROOT).contains("mysql")
+                || version.toLowerCase(Locale.ROOT).contains("mariadb")) {
+            return false;
+        }
+        Matcher m = VERSION.matcher(version);
+        if (!m.find()) {
+            return false;
+        }
+        for (int i = 0; i < MIN_VERSION.length; i++) {
+            int part = Integer.parseInt(m.group(i + 1));
+            if (part != MIN_VERSION[i]) {
+                return part > MIN_VERSION[i];
+            }
+        }
+        return true;
+    }
+}
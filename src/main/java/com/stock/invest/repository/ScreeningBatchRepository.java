@@ -0,0 +1,25 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.ScreeningBatch;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ScreeningBatchRepository extends JpaRepository<ScreeningBatch, Long> {
+
+    List<ScreeningBatch> findByTradeDate(LocalDate tradeDate);
+
+    /** 历史首页：按 (tradeDate, id) 倒序 */
+    @Query("SELECT b FROM ScreeningBatch b ORDER BY b.tradeDate DESC, b.id DESC")
+    List<ScreeningBatch> findLatest(Pageable pageable);
+
+    /** 历史翻页：严格位于游标 (tradeDate, id) 之后的批次，沿 idx_screening_batch_trade_date_id 范围扫描 */
+    @Query("SELECT b FROM ScreeningBatch b WHERE b.tradeDate <= :tradeDate "
+            + "AND (b.tradeDate < :tradeDate OR b.id < :id) ORDER BY b.tradeDate DESC, b.id DESC")
+    List<ScreeningBatch> findBefore(@Param("tradeDate") LocalDate tradeDate, @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,142 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.ScreeningMatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * screening_match 集合式批量写入：每 {@link #INSERT_ROWS} 行一条多行
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE}，由唯一约束
+ * uk_screening_match_trade_symbol_window_algorithm 判重，已存在的键不插入、改归本批次（batch_id）
+ * 并以本次评估的价格列（last_close / price / rise / data_source）覆盖，已存在行反映最近一次评估。
+ * 写入前无需整日读出已有行在内存查重，重复触发每个分片只有一次往返。
+ * <p>
+ * 更新值经行别名 {@code AS new} 引用（MySQL 8.0.19+；{@code VALUES()} 写法自 8.0.20 起已弃用）。
+ * </p>
+ * <p>
+ * 新增 / 已存在行数由受影响行数推出：MySQL 对插入计 1、对更新计 2，对"更新为原值"的已存在行
+ * 在 CLIENT_FOUND_ROWS 下计 1、否则计 0（Connector/J 默认 useAffectedRows=false 即开启 CLIENT_FOUND_ROWS）。
+ * 写入行的批次总是本次新生成的批次，已存在行的 batch_id 必然变化、恒计 2，与该标志无关，
+ * 故 已存在 = 受影响 - 行数，新增 = 行数 - 已存在。调用方若复用旧批次号，此计数不再成立。
+ * </p>
+ * <p>
+ * 依赖 MySQL 8.0.19+ 语法与唯一约束：非 MySQL（如 H2 测试库、MariaDB 不支持行别名）、版本过低
+ * 或约束缺失（存量库有历史重复行时守卫式迁移跳过，见 SchemaVerifier）时 {@link #isAvailable()} 为 false，
+ * 调用方退回应用层查重。
+ * </p>
+ */
+@Repository
+public class ScreeningMatchBulkWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreeningMatchBulkWriter.class);
+
+    /** 单条多行 INSERT 的行数 */
+    public static final int INSERT_ROWS = 500;
+
+    private static final String UNIQUE_CONSTRAINT = "uk_screening_match_trade_symbol_window_algorithm";
+
+    private static final String INSERT_PREFIX = "INSERT INTO screening_match "
+            + "(batch_id, created_at, data_source, last_close, price, rise, symbol, trade_date, window_days, algorithm) "
+            + "VALUES ";
+
+    private static final String INSERT_VALUES = "(?,?,?,?,?,?,?,?,?,?)";
+
+    private static final String ON_DUPLICATE = " AS new ON DUPLICATE KEY UPDATE batch_id = new.batch_id, "
+            + "data_source = new.data_source, last_close = new.last_close, price = new.price, rise = new.rise";
+
+    private static final int COLUMNS = 10;
+
+    /**
+     * 写入结果。
+     *
+     * @param inserted   新插入行数
+     * @param duplicates 键已存在、改归本批次的行数
+     */
+    public record Result(long inserted, long duplicates) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 只缓存"可用"：约束可能在启动后按 SchemaVerifier 指引手工补建 */
+    private volatile boolean available;
+
+    public ScreeningMatchBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 当前库是否支持集合式写入（MySQL 8.0.19+ 且唯一约束存在） */
+    public boolean isAvailable() {
+        if (available) {
+            return true;
+        }
+        try {
+            if (!RowAliasSupport.check(jdbcTemplate)) {
+                return false;
+            }
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.TABLE_CONSTRAINTS "
+                            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'screening_match' "
+                            + "AND CONSTRAINT_NAME = ?",
+                    Long.class, UNIQUE_CONSTRAINT);
+            available = count != null && count > 0;
+            if (!available) {
+                log.warn("[ScreeningMatchBulkWriter] {} missing, falling back to lookup-based dedup",
+                        UNIQUE_CONSTRAINT);
+            }
+        } catch (DataAccessException e) {
+            log.warn("[ScreeningMatchBulkWriter] availability check failed, falling back: {}", e.getMessage());
+            return false;
+        }
+        return available;
+    }
+
+    /**
+     * 写入命中行（各行 batchId 为本次批次）：新键插入，已存在的键改归该批次并覆盖价格列。
+     * 需在调用方事务内执行。
+     */
+    public Result insertOrCarry(List<ScreeningMatch> rows) {
+        long inserted = 0;
+        long duplicates = 0;
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        List<Object> params = new ArrayList<>(Math.min(rows.size(), INSERT_ROWS) * COLUMNS);
+        for (int from = 0; from < rows.size(); from += INSERT_ROWS) {
+            List<ScreeningMatch> chunk = rows.subList(from, Math.min(rows.size(), from + INSERT_ROWS));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + ON_DUPLICATE.length()
+                    + chunk.size() * (INSERT_VALUES.length() + 1));
+            sql.append(INSERT_PREFIX);
+            params.clear();
+            for (int i = 0; i < chunk.size(); i++) {
+                ScreeningMatch m = chunk.get(i);
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(INSERT_VALUES);
+                params.add(m.getBatchId());
+                params.add(m.getCreatedAt() == null ? createdAt : Timestamp.from(m.getCreatedAt()));
+                params.add(m.getDataSource());
+                params.add(m.getLastClose());
+                params.add(m.getPrice());
+                params.add(m.getRise());
+                params.add(m.getSymbol());
+                params.add(Date.valueOf(m.getTradeDate()));
+                params.add(m.getWindowDays());
+                params.add(m.getAlgorithm());
+            }
+            sql.append(ON_DUPLICATE);
+            int affected = jdbcTemplate.update(sql.toString(), params.toArray());
+            long existing = Math.max(0, affected - chunk.size());
+            duplicates += existing;
+            inserted += chunk.size() - existing;
+        }
+        return new Result(inserted, duplicates);
+    }
+}
@@ -2,14 +2,19 @@ package com.stock.invest.repository;
 
 import com.stock.invest.entity.ScreeningMatch;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ScreeningMatchRepository extends JpaRepository<ScreeningMatch, Long> {
 
@@ -22,6 +27,50 @@ public interface ScreeningMatchRepository extends JpaRepository<ScreeningMatch,
     /** P2-5：查询某交易日全部命中记录（用于 saveAll 前查重） */
     List<ScreeningMatch> findByTradeDate(LocalDate tradeDate);
 
+    /** 增量筛选：某交易日指定 symbol 的现有命中行（upsert 比对用） */
+    List<ScreeningMatch> findByTradeDateAndSymbolIn(LocalDate tradeDate, Collection<String> symbols);
+
+    /** 增量筛选：[start, end] 内已有筛选结果的交易日 */
+    @Query("SELECT DISTINCT sm.tradeDate FROM ScreeningMatch sm WHERE sm.tradeDate BETWEEN :start AND :end ORDER BY sm.tradeDate")
+    List<LocalDate> findDistinctTradeDatesBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /** 全量重跑命中的已存在行归入新批次（行本身不重插，批次视图仍完整） */
+    @Modifying
+    @Query("UPDATE ScreeningMatch sm SET sm.batchId = :batchId WHERE sm.id IN :ids")
+    int updateBatchIdByIdIn(@Param("batchId") String batchId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * 前瞻收益分析：[start, end] 内各批次的内容指纹，每行 Object[]: [batchId, tradeDate, count, maxId]。
+     * <p>行数与最大 id 任一变化即视为批次内容变化（增量重评的插入 / 删除、重跑归并均会改变其一）。</p>
+     */
+    @Query("SELECT sm.batchId, sm.tradeDate, COUNT(sm), MAX(sm.id) FROM ScreeningMatch sm "
+            + "WHERE sm.tradeDate BETWEEN :start AND :end GROUP BY sm.batchId, sm.tradeDate")
+    List<Object[]> findBatchFingerprintsBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /** 前瞻收益分析：单批次的内容指纹，每行 Object[]: [batchId, tradeDate, count, maxId] */
+    @Query("SELECT sm.batchId, sm.tradeDate, COUNT(sm), MAX(sm.id) FROM ScreeningMatch sm "
+            + "WHERE sm.batchId = :batchId GROUP BY sm.batchId, sm.tradeDate")
+    List<Object[]> findBatchFingerprints(@Param("batchId") String batchId);
+
+    List<ScreeningMatch> findByBatchIdIn(Collection<String> batchIds);
+
+    /**
+     * 命中位图索引加载流：[tradeDate, algorithm, windowDays, symbolId]，按交易日升序。
+     * <p>symbol 经 symbol 字典表换成整数 id，流消费期间不再发起字典查询；调用方须在事务内逐行消费。</p>
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StockDailyBarRepository.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT sm.tradeDate, sm.algorithm, sm.windowDays, s.id FROM ScreeningMatch sm "
+            + "JOIN StockSymbol s ON s.symbol = sm.symbol ORDER BY sm.tradeDate")
+    Stream<Object[]> streamHitIds();
+
+    /** 命中位图索引刷新：指定交易日的命中，列同 {@link #streamHitIds} */
+    @Query("SELECT sm.tradeDate, sm.algorithm, sm.windowDays, s.id FROM ScreeningMatch sm "
+            + "JOIN StockSymbol s ON s.symbol = sm.symbol WHERE sm.tradeDate IN :tradeDates")
+    List<Object[]> findHitIdsByTradeDateIn(@Param("tradeDates") Collection<LocalDate> tradeDates);
+
     Optional<ScreeningMatch> findTopByOrderByTradeDateDescIdDesc();
 
     /** 按交易日查询最新一次筛选批次的首条记录（id 最大 = 最近一次筛选） */
@@ -30,8 +79,10 @@ public interface ScreeningMatchRepository extends JpaRepository<ScreeningMatch,
     @Query("SELECT DISTINCT sm.batchId FROM ScreeningMatch sm ORDER BY sm.batchId DESC")
     List<String> findDistinctBatchIds();
 
-    @Query("SELECT sm.batchId, COUNT(sm) as matchCount, MAX(sm.tradeDate) as lastTradeDate FROM ScreeningMatch sm GROUP BY sm.batchId ORDER BY MAX(sm.tradeDate) DESC")
-    List<Object[]> findBatchSummary(Pageable pageable);
+    /** 批次摘要重算：某交易日各批次按 (windowDays, algorithm) 的命中数，每行 Object[]: [batchId, windowDays, algorithm, count] */
+    @Query("SELECT sm.batchId, sm.windowDays, sm.algorithm, COUNT(sm) FROM ScreeningMatch sm "
+            + "WHERE sm.tradeDate = :tradeDate GROUP BY sm.batchId, sm.windowDays, sm.algorithm")
+    List<Object[]> countByTradeDateGroupByBatch(@Param("tradeDate") LocalDate tradeDate);
 
     @Query("SELECT sm.windowDays, COUNT(sm) FROM ScreeningMatch sm WHERE sm.batchId = :batchId GROUP BY sm.windowDays ORDER BY sm.windowDays")
     List<Object[]> countByBatchIdGroupByWindowDays(@Param("batchId") String batchId);
@@ -0,0 +1,22 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.ScreeningPayload;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface ScreeningPayloadRepository extends JpaRepository<ScreeningPayload, Long> {
+
+    Optional<ScreeningPayload> findByBatchIdAndViewKey(String batchId, String viewKey);
+
+    /** 指定交易日的 screening_match 有写入：整日预渲染结果失效 */
+    @Modifying
+    @Query("DELETE FROM ScreeningPayload p WHERE p.tradeDate IN :tradeDates")
+    int deleteByTradeDateIn(@Param("tradeDates") Collection<LocalDate> tradeDates);
+}
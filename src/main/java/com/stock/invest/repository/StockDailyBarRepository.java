@@ -1,9 +1,13 @@
 package com.stock.invest.repository;
 
 import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.ScreeningBar;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
@@ -12,9 +16,16 @@ import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StockDailyBarRepository extends JpaRepository<StockDailyBar, Long> {
 
+    /**
+     * 流式查询单批行数。MySQL Connector/J 只有连接串带 {@code useCursorFetch=true} 时才按该值经服务端游标分批拉取，
+     * 否则忽略 fetch size、把整个结果集缓冲进堆（见 application.yml 数据源 URL）。
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
     Optional<StockDailyBar> findBySymbolAndTradeDate(String symbol, LocalDate tradeDate);
 
     List<StockDailyBar> findBySymbolOrderByTradeDateDesc(String symbol, Pageable pageable);
@@ -43,8 +54,51 @@ public interface StockDailyBarRepository extends JpaRepository<StockDailyBar, Lo
     @Query("SELECT DISTINCT b.source FROM StockDailyBar b ORDER BY b.source ASC")
     List<String> findAllSources();
 
-    @Query("SELECT b FROM StockDailyBar b WHERE b.tradeDate BETWEEN :startDate AND :endDate ORDER BY b.tradeDate DESC")
-    List<StockDailyBar> findByTradeDateBetweenOrderByTradeDateDesc(
+    @Query("SELECT MAX(b.tradeDate) FROM StockDailyBar b WHERE b.tradeDate BETWEEN :startDate AND :endDate")
+    LocalDate findMaxTradeDateBetween(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 筛选只读投影流：仅 symbol/date/source/open/close/volume/runLength，按 (symbol, trade_date) 升序。
+     * <p>构造表达式结果不进入持久化上下文；游标按 {@link #STREAM_FETCH_SIZE} 分批拉取（依赖 useCursorFetch），
+     * 调用方须在事务内以 try-with-resources 逐行消费。</p>
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.stock.invest.model.ScreeningBar(b.symbol, b.tradeDate, b.source, b.openPrice, b.closePrice, b.volume, b.runLength) "
+            + "FROM StockDailyBar b WHERE b.tradeDate BETWEEN :startDate AND :endDate "
+            + "ORDER BY b.symbol ASC, b.tradeDate ASC")
+    Stream<ScreeningBar> streamScreeningBars(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 筛选投影流（列同 {@link #streamScreeningBars}），只含最新 bar 落在 latestDate 且收盘价非空的 symbol
+     * （symbol_latest_bar 快照判定，主键关联）；参评以外的 symbol 不再读出。
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.stock.invest.model.ScreeningBar(b.symbol, b.tradeDate, b.source, b.openPrice, b.closePrice, b.volume, b.runLength) "
+            + "FROM StockDailyBar b WHERE b.tradeDate BETWEEN :startDate AND :endDate "
+            + "AND b.symbol IN (SELECT l.symbol FROM SymbolLatestBar l "
+            + "WHERE l.tradeDate = :latestDate AND l.closePrice IS NOT NULL) "
+            + "ORDER BY b.symbol ASC, b.tradeDate ASC")
+    Stream<ScreeningBar> streamScreeningBarsOfLatest(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("latestDate") LocalDate latestDate);
+
+    /** 增量筛选：指定 symbol 的筛选投影（列同 {@link #streamScreeningBars}），按 (symbol, trade_date) 升序 */
+    @Query("SELECT new com.stock.invest.model.ScreeningBar(b.symbol, b.tradeDate, b.source, b.openPrice, b.closePrice, b.volume, b.runLength) "
+            + "FROM StockDailyBar b WHERE b.symbol IN :symbols AND b.tradeDate BETWEEN :startDate AND :endDate "
+            + "ORDER BY b.symbol ASC, b.tradeDate ASC")
+    List<ScreeningBar> findScreeningBars(
+            @Param("symbols") Collection<String> symbols,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
@@ -53,27 +107,20 @@ public interface StockDailyBarRepository extends JpaRepository<StockDailyBar, Lo
             @Param("source") String source,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
-    /**
-     * 根据 symbol 列表查询有 name 的记录（取每个 symbol 最新的一条，P2-7）。
-     * <p>原实现返回全部匹配行（注释与实现不符，靠调用方 toMap 合并键兜底），
-     * 改为子查询精确取每个 symbol 的 tradeDate 最大行。</p>
-     */
-    @Query("SELECT b FROM StockDailyBar b WHERE b.symbol IN :symbols AND b.name IS NOT NULL "
-            + "AND b.tradeDate = (SELECT MAX(b2.tradeDate) FROM StockDailyBar b2 "
-            + "WHERE b2.symbol = b.symbol AND b2.name IS NOT NULL) ORDER BY b.tradeDate DESC")
-    List<StockDailyBar> findBySymbolInAndNameIsNotNull(@Param("symbols") List<String> symbols);
 
     /**
-     * 多条件筛选分页查询（所有条件均为可选）
+     * 多条件筛选分页查询（所有条件均为可选）；minRunLength：只取截至该根连续开盘日不少于 N 根的 bar
      */
     @Query("SELECT b FROM StockDailyBar b WHERE "
             + "(:symbol IS NULL OR b.symbol = :symbol) AND "
             + "(:tradeDate IS NULL OR b.tradeDate = :tradeDate) AND "
-            + "(:source IS NULL OR b.source = :source)")
+            + "(:source IS NULL OR b.source = :source) AND "
+            + "(:minRunLength IS NULL OR b.runLength >= :minRunLength)")
     Page<StockDailyBar> findFiltered(
             @Param("symbol") String symbol,
             @Param("tradeDate") LocalDate tradeDate,
             @Param("source") String source,
+            @Param("minRunLength") Integer minRunLength,
             Pageable pageable);
 
     // ---- 字段增补（2026-08-14）----
@@ -82,9 +129,76 @@ public interface StockDailyBarRepository extends JpaRepository<StockDailyBar, Lo
     @Query("SELECT b FROM StockDailyBar b WHERE b.fieldFillStatus IS NULL")
     List<StockDailyBar> findUnchecked(Pageable pageable);
 
-    /** 增补阶段：待增补记录（最新日期优先，保证当日/近期待补先处理，DB 侧限量） */
-    @Query("SELECT b FROM StockDailyBar b WHERE b.fieldFillStatus = :status ORDER BY b.tradeDate DESC")
-    List<StockDailyBar> findByFieldFillStatus(@Param("status") String status, Pageable pageable);
+    /**
+     * 增补阶段聚簇：按 (symbol, source) 分组的待增补簇，最新日期优先（保证当日/近期待补先处理）。
+     * 返回 Object[]{symbol, source, maxTradeDate, count}。
+     */
+    @Query("SELECT b.symbol, b.source, MAX(b.tradeDate), COUNT(b) FROM StockDailyBar b "
+            + "WHERE b.fieldFillStatus = :status GROUP BY b.symbol, b.source ORDER BY MAX(b.tradeDate) DESC")
+    List<Object[]> findFieldFillClusters(@Param("status") String status);
+
+    /** 增补阶段：单簇 (symbol, source) 内全部待增补记录（按日期升序） */
+    List<StockDailyBar> findBySymbolAndSourceAndFieldFillStatusOrderByTradeDateAsc(
+            String symbol, String source, String fieldFillStatus);
+
+    /**
+     * 列式缓存加载流：[symbol, tradeDate, open, high, low, close, volume, source, runLength]，按 (symbol, trade_date) 升序。
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.symbol, b.tradeDate, b.openPrice, b.highPrice, b.lowPrice, b.closePrice, b.volume, b.source, "
+            + "b.runLength "
+            + "FROM StockDailyBar b WHERE b.tradeDate >= :startDate ORDER BY b.symbol ASC, b.tradeDate ASC")
+    Stream<Object[]> streamColumnRowsSince(@Param("startDate") LocalDate startDate);
+
+    /**
+     * 技术指标回放：symbol 在 after 之后（不含；null = 全部）的 [tradeDate, high, low, close, volume]，按交易日升序。
+     */
+    @Query("SELECT b.tradeDate, b.highPrice, b.lowPrice, b.closePrice, b.volume FROM StockDailyBar b "
+            + "WHERE b.symbol = :symbol AND (:after IS NULL OR b.tradeDate > :after) ORDER BY b.tradeDate ASC")
+    List<Object[]> findIndicatorRowsAfter(@Param("symbol") String symbol, @Param("after") LocalDate after);
+
+    /** 技术指标状态恢复：symbol 截至 date（含）的最近若干根，列同 {@link #findIndicatorRowsAfter}，按交易日降序 */
+    @Query("SELECT b.tradeDate, b.highPrice, b.lowPrice, b.closePrice, b.volume FROM StockDailyBar b "
+            + "WHERE b.symbol = :symbol AND b.tradeDate <= :date ORDER BY b.tradeDate DESC")
+    List<Object[]> findIndicatorRowsUpTo(@Param("symbol") String symbol, @Param("date") LocalDate date, Pageable pageable);
+
+    /**
+     * 技术指标全量重建流：[symbol, tradeDate, high, low, close, volume]，按 (symbol, trade_date) 升序。
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.symbol, b.tradeDate, b.highPrice, b.lowPrice, b.closePrice, b.volume "
+            + "FROM StockDailyBar b ORDER BY b.symbol ASC, b.tradeDate ASC")
+    Stream<Object[]> streamIndicatorRows();
+
+    /**
+     * 连续开盘日计数增量维护：指定 symbol 自 from（含）起的 [id, symbol, tradeDate, runLength]，按 (symbol, trade_date) 升序。
+     */
+    @Query("SELECT b.id, b.symbol, b.tradeDate, b.runLength FROM StockDailyBar b "
+            + "WHERE b.symbol IN :symbols AND b.tradeDate >= :from ORDER BY b.symbol ASC, b.tradeDate ASC")
+    List<Object[]> findRunLengthRows(@Param("symbols") Collection<String> symbols, @Param("from") LocalDate from);
+
+    /**
+     * 连续开盘日计数增量维护（回看窗口内无已算起点时）：指定 symbol 的全部历史，列与排序同 {@link #findRunLengthRows}。
+     */
+    @Query("SELECT b.id, b.symbol, b.tradeDate, b.runLength FROM StockDailyBar b "
+            + "WHERE b.symbol IN :symbols ORDER BY b.symbol ASC, b.tradeDate ASC")
+    List<Object[]> findAllRunLengthRows(@Param("symbols") Collection<String> symbols);
+
+    /**
+     * 连续开盘日计数全量重算流：列同 {@link #findRunLengthRows}，按 (symbol, trade_date) 升序。
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id, b.symbol, b.tradeDate, b.runLength FROM StockDailyBar b ORDER BY b.symbol ASC, b.tradeDate ASC")
+    Stream<Object[]> streamRunLengthRows();
 
     /** 超窗 PENDING 批量确认终态（30 交易日窗口外不补，用户 2026-08-14） */
     @Modifying
@@ -0,0 +1,49 @@
+package com.stock.invest.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * stock_daily_bar.run_length 批量回写：JDBC 批量 UPDATE（每 {@link #BATCH_ROWS} 行一批），按主键定位。
+ * 不经 JPA，不触发实体监听（不会再次发布 BarsChangedEvent），不改 updated_at。需在调用方事务内执行。
+ */
+@Repository
+public class StockDailyBarRunLengthWriter {
+
+    /** 单批 UPDATE 行数 */
+    public static final int BATCH_ROWS = 1000;
+
+    private static final String UPDATE_SQL = "UPDATE stock_daily_bar SET run_length = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockDailyBarRunLengthWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 按 id 回写计数。
+     *
+     * @param ids  行主键
+     * @param runs 与 ids 同序的计数
+     * @return 更新的行数
+     */
+    public int update(List<Long> ids, List<Integer> runs) {
+        int updated = 0;
+        List<Object[]> args = new ArrayList<>(Math.min(ids.size(), BATCH_ROWS));
+        for (int from = 0; from < ids.size(); from += BATCH_ROWS) {
+            args.clear();
+            for (int i = from; i < Math.min(ids.size(), from + BATCH_ROWS); i++) {
+                args.add(new Object[]{runs.get(i), ids.get(i)});
+            }
+            for (int n : jdbcTemplate.batchUpdate(UPDATE_SQL, args)) {
+                // 驱动可能返回 SUCCESS_NO_INFO（-2）：按 1 行计
+                updated += n < 0 ? 1 : n;
+            }
+        }
+        return updated;
+    }
+}
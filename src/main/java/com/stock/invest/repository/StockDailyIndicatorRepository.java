@@ -0,0 +1,29 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.StockDailyIndicator;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockDailyIndicatorRepository extends JpaRepository<StockDailyIndicator, Long> {
+
+    List<StockDailyIndicator> findBySymbolOrderByTradeDateDesc(String symbol, Pageable pageable);
+
+    /** 某交易日全部 symbol 的指标（横截面），按 symbol 升序分页 */
+    Page<StockDailyIndicator> findByTradeDate(LocalDate tradeDate, Pageable pageable);
+
+    /** 恢复滚动状态：symbol 在 before 之前（不含）的最近一行 */
+    Optional<StockDailyIndicator> findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc(String symbol, LocalDate before);
+
+    /** 恢复滚动状态：symbol 最近一行 */
+    Optional<StockDailyIndicator> findTopBySymbolOrderByTradeDateDesc(String symbol);
+
+    @Query("SELECT MAX(i.tradeDate) FROM StockDailyIndicator i")
+    LocalDate findMaxTradeDate();
+}
@@ -0,0 +1,103 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.model.IndicatorState;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * stock_daily_indicator 批量写入：按 symbol 删除某日之后的行，再每 {@link #INSERT_ROWS} 行一条多行 INSERT。
+ * 指标只由 {@link com.stock.invest.service.IndicatorEngine} 按 symbol 串行写入，先删后插即可覆盖重算，
+ * 无需逐行判重；语法为标准 SQL，MySQL 与 H2 通用。需在调用方事务内执行。
+ * 展示列按列精度舍入，递推状态列（state_*）写入 double 原值。
+ */
+@Repository
+public class StockDailyIndicatorWriter {
+
+    /** 单条多行 INSERT 的行数 */
+    public static final int INSERT_ROWS = 500;
+
+    private static final String INSERT_PREFIX = "INSERT INTO stock_daily_indicator "
+            + "(symbol, trade_date, bar_count, close_sma5, close_sma20, close_sma50, close_ema12, close_ema26, "
+            + "volume_sma20, volume_ema20, relative_volume, rsi14, atr14, high20, low20, rsi_avg_gain, rsi_avg_loss, "
+            + "state_ema_fast, state_ema_slow, state_volume_ema, state_avg_gain, state_avg_loss, state_atr, "
+            + "updated_at) VALUES ";
+
+    private static final String INSERT_VALUES = "(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+    private static final int COLUMNS = 24;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockDailyIndicatorWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 以 rows 替换 symbol 在 after 之后（不含）的全部指标行。
+     *
+     * @param after null = 替换该 symbol 全部行
+     * @return 删除的行数
+     */
+    public int replaceAfter(String symbol, LocalDate after, List<IndicatorState.Values> rows) {
+        int deleted = after == null
+                ? jdbcTemplate.update("DELETE FROM stock_daily_indicator WHERE symbol = ?", symbol)
+                : jdbcTemplate.update("DELETE FROM stock_daily_indicator WHERE symbol = ? AND trade_date > ?",
+                        symbol, Date.valueOf(after));
+        Timestamp updatedAt = Timestamp.from(Instant.now());
+        List<Object> params = new ArrayList<>(Math.min(rows.size(), INSERT_ROWS) * COLUMNS);
+        for (int from = 0; from < rows.size(); from += INSERT_ROWS) {
+            List<IndicatorState.Values> chunk = rows.subList(from, Math.min(rows.size(), from + INSERT_ROWS));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * (INSERT_VALUES.length() + 1));
+            sql.append(INSERT_PREFIX);
+            params.clear();
+            for (int i = 0; i < chunk.size(); i++) {
+                IndicatorState.Values v = chunk.get(i);
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(INSERT_VALUES);
+                params.add(symbol);
+                params.add(Date.valueOf(v.tradeDate()));
+                params.add(v.barCount());
+                params.add(decimal(v.closeSma5(), 6));
+                params.add(decimal(v.closeSma20(), 6));
+                params.add(decimal(v.closeSma50(), 6));
+                params.add(decimal(v.closeEma12(), 6));
+                params.add(decimal(v.closeEma26(), 6));
+                params.add(decimal(v.volumeSma20(), 4));
+                params.add(decimal(v.volumeEma20(), 4));
+                params.add(decimal(v.relativeVolume(), 4));
+                params.add(decimal(v.rsi14(), 4));
+                params.add(decimal(v.atr14(), 6));
+                params.add(decimal(v.high(), 6));
+                params.add(decimal(v.low(), 6));
+                params.add(decimal(v.rsiAvgGain(), 6));
+                params.add(decimal(v.rsiAvgLoss(), 6));
+                // 递推状态原样写入 DOUBLE 列，不做舍入
+                IndicatorState.Checkpoint cp = v.checkpoint();
+                params.add(cp == null ? null : cp.emaFast());
+                params.add(cp == null ? null : cp.emaSlow());
+                params.add(cp == null ? null : cp.volumeEma());
+                params.add(cp == null ? null : cp.avgGain());
+                params.add(cp == null ? null : cp.avgLoss());
+                params.add(cp == null ? null : cp.atr());
+                params.add(updatedAt);
+            }
+            jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return deleted;
+    }
+
+    private static BigDecimal decimal(Double value, int scale) {
+        return value == null ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
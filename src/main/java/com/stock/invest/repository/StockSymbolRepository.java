@@ -0,0 +1,16 @@
+package com.stock.invest.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.stock.invest.entity.StockSymbol;
+
+public interface StockSymbolRepository extends JpaRepository<StockSymbol, Integer> {
+
+    Optional<StockSymbol> findBySymbol(String symbol);
+
+    List<StockSymbol> findBySymbolIn(Collection<String> symbols);
+}
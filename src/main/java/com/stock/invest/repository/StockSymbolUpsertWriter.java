@@ -0,0 +1,131 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.StockSymbol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * symbol 表集合式合并：每 {@link #INSERT_ROWS} 行一条多行 {@code INSERT ... AS new ON DUPLICATE KEY UPDATE}，
+ * 由唯一键 uk_symbol_symbol 判重，新代码插入、已存在的代码在库内合并，不先读后写，并发写入同一代码不冲突：
+ * <ul>
+ *   <li>name：本次带名称且 (现有为空 或 本次末次出现日不早于现有末次出现日) 时覆盖</li>
+ *   <li>first_seen / last_seen：LEAST / GREATEST 扩展</li>
+ * </ul>
+ * MySQL 按书写顺序求值赋值，name 的判断须读取更新前的 last_seen，故排在 last_seen 之前。
+ * 不经 JPA，需在调用方事务内执行。非 MySQL 8.0.19+（如 H2 测试库）时 {@link #isAvailable()} 为 false，
+ * 调用方退回 JPA 先读后写合并。
+ */
+@Repository
+public class StockSymbolUpsertWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(StockSymbolUpsertWriter.class);
+
+    /** 单条多行 INSERT 的行数，亦为单条 IN 查询的 symbol 数 */
+    public static final int INSERT_ROWS = 500;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO symbol (symbol, name, first_seen, last_seen, active, updated_at) VALUES ";
+
+    private static final String INSERT_VALUES = "(?,?,?,?,b'1',?)";
+
+    private static final String ON_DUPLICATE = " AS new ON DUPLICATE KEY UPDATE "
+            + "name = IF(new.name IS NOT NULL AND (name IS NULL OR new.last_seen >= last_seen), new.name, name), "
+            + "first_seen = LEAST(first_seen, new.first_seen), "
+            + "last_seen = GREATEST(last_seen, new.last_seen), "
+            + "updated_at = new.updated_at";
+
+    private static final String SELECT_PREFIX =
+            "SELECT id, symbol, name, first_seen, last_seen, active, updated_at FROM symbol WHERE symbol IN (";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 库类型启动后不变：判定一次后缓存 */
+    private volatile Boolean available;
+
+    public StockSymbolUpsertWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 当前库是否支持行别名 upsert（MySQL 8.0.19+） */
+    public boolean isAvailable() {
+        Boolean cached = available;
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            available = RowAliasSupport.check(jdbcTemplate);
+        } catch (DataAccessException e) {
+            log.warn("[StockSymbolUpsertWriter] availability check failed, using JPA merge: {}", e.getMessage());
+            return false;
+        }
+        return available;
+    }
+
+    /**
+     * 合并本次写入的首末出现日与名称（各行取 symbol / name / firstSeen / lastSeen）。
+     *
+     * @return 受影响行数（插入计 1、更新计 2）
+     */
+    public int upsert(List<StockSymbol> rows) {
+        int affected = 0;
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> params = new ArrayList<>(Math.min(rows.size(), INSERT_ROWS) * 5);
+        for (int from = 0; from < rows.size(); from += INSERT_ROWS) {
+            List<StockSymbol> chunk = rows.subList(from, Math.min(rows.size(), from + INSERT_ROWS));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + ON_DUPLICATE.length()
+                    + chunk.size() * (INSERT_VALUES.length() + 1));
+            sql.append(INSERT_PREFIX);
+            params.clear();
+            for (int i = 0; i < chunk.size(); i++) {
+                StockSymbol row = chunk.get(i);
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(INSERT_VALUES);
+                params.add(row.getSymbol());
+                params.add(row.getName());
+                params.add(Date.valueOf(row.getFirstSeen()));
+                params.add(Date.valueOf(row.getLastSeen()));
+                params.add(updatedAt);
+            }
+            sql.append(ON_DUPLICATE);
+            affected += jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return affected;
+    }
+
+    /**
+     * 按 symbol 读取当前行（JDBC 直读，不经持久化上下文，可见本事务内 {@link #upsert} 的结果）。
+     */
+    public List<StockSymbol> findBySymbols(Collection<String> symbols) {
+        List<String> all = new ArrayList<>(symbols);
+        List<StockSymbol> rows = new ArrayList<>(all.size());
+        for (int from = 0; from < all.size(); from += INSERT_ROWS) {
+            List<String> chunk = all.subList(from, Math.min(all.size(), from + INSERT_ROWS));
+            String sql = SELECT_PREFIX + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            rows.addAll(jdbcTemplate.query(sql, (rs, n) -> {
+                StockSymbol row = new StockSymbol();
+                row.setId(rs.getInt("id"));
+                row.setSymbol(rs.getString("symbol"));
+                row.setName(rs.getString("name"));
+                row.setFirstSeen(rs.getDate("first_seen").toLocalDate());
+                row.setLastSeen(rs.getDate("last_seen").toLocalDate());
+                row.setActive(rs.getBoolean("active"));
+                row.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+                return row;
+            }, chunk.toArray()));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,57 @@
+package com.stock.invest.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.stock.invest.entity.SymbolLatestBar;
+
+public interface SymbolLatestBarRepository extends JpaRepository<SymbolLatestBar, String> {
+
+    /** 全市场最新交易日（trade_date 索引取最大值） */
+    @Query("SELECT MAX(l.tradeDate) FROM SymbolLatestBar l")
+    LocalDate findMaxTradeDate();
+
+    /**
+     * 最新收盘价不高于 maxClose（或收盘价缺失）的 symbol，升序。
+     */
+    @Query("SELECT l.symbol FROM SymbolLatestBar l "
+            + "WHERE l.closePrice IS NULL OR l.closePrice <= :maxClose ORDER BY l.symbol")
+    List<String> findSymbolsWithCloseAtMost(@Param("maxClose") BigDecimal maxClose);
+
+    /**
+     * 按最新 bar 过滤标的池：收盘价区间、最低成交量、最新交易日不早于 since（排除停更代码），参数为 null 不过滤。
+     */
+    @Query("SELECT l FROM SymbolLatestBar l WHERE "
+            + "(:minClose IS NULL OR l.closePrice >= :minClose) AND "
+            + "(:maxClose IS NULL OR l.closePrice <= :maxClose) AND "
+            + "(:minVolume IS NULL OR l.volume >= :minVolume) AND "
+            + "(:since IS NULL OR l.tradeDate >= :since)")
+    Page<SymbolLatestBar> findFiltered(
+            @Param("minClose") BigDecimal minClose,
+            @Param("maxClose") BigDecimal maxClose,
+            @Param("minVolume") Long minVolume,
+            @Param("since") LocalDate since,
+            Pageable pageable);
+
+    /** 全量重建第一步：清空快照 */
+    @Modifying
+    @Query(value = "DELETE FROM symbol_latest_bar", nativeQuery = true)
+    int deleteAllRows();
+
+    /** 全量重建第二步：每个 symbol 交易日最大的一根写入快照 */
+    @Modifying
+    @Query(value = "INSERT INTO symbol_latest_bar (symbol, trade_date, close_price, volume, source, updated_at) "
+            + "SELECT b.symbol, b.trade_date, b.close_price, b.volume, b.source, CURRENT_TIMESTAMP "
+            + "FROM stock_daily_bar b "
+            + "JOIN (SELECT symbol, MAX(trade_date) AS trade_date FROM stock_daily_bar GROUP BY symbol) l "
+            + "ON l.symbol = b.symbol AND l.trade_date = b.trade_date", nativeQuery = true)
+    int insertFromDailyBars();
+}
@@ -0,0 +1,105 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.StockDailyBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * symbol_latest_bar 集合式合并：每 {@link #INSERT_ROWS} 行一条多行 {@code INSERT ... AS new ON DUPLICATE KEY UPDATE}，
+ * 由主键 symbol 判重，新代码插入、已存在的代码在库内按交易日比较后合并，不先读后写：
+ * <ul>
+ *   <li>close_price / volume / source / updated_at：本次交易日不早于现有交易日时覆盖（同日以本次为准）</li>
+ *   <li>trade_date：GREATEST，只进不退</li>
+ * </ul>
+ * MySQL 按书写顺序求值赋值，各列的判断须读取更新前的 trade_date，故 trade_date 排在最后。
+ * 主键行锁使同一代码的并发写入串行合并，较早交易日的写入不会覆盖较新的快照。
+ * 不经 JPA，需在调用方事务内执行。非 MySQL 8.0.19+（如 H2 测试库）时 {@link #isAvailable()} 为 false，
+ * 调用方退回 JPA 先读后写合并。
+ */
+@Repository
+public class SymbolLatestBarUpsertWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolLatestBarUpsertWriter.class);
+
+    /** 单条多行 INSERT 的行数 */
+    public static final int INSERT_ROWS = 500;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO symbol_latest_bar (symbol, trade_date, close_price, volume, source, updated_at) VALUES ";
+
+    private static final String INSERT_VALUES = "(?,?,?,?,?,?)";
+
+    private static final String ON_DUPLICATE = " AS new ON DUPLICATE KEY UPDATE "
+            + "close_price = IF(new.trade_date >= trade_date, new.close_price, close_price), "
+            + "volume = IF(new.trade_date >= trade_date, new.volume, volume), "
+            + "source = IF(new.trade_date >= trade_date, new.source, source), "
+            + "updated_at = IF(new.trade_date >= trade_date, new.updated_at, updated_at), "
+            + "trade_date = GREATEST(trade_date, new.trade_date)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 库类型启动后不变：判定一次后缓存 */
+    private volatile Boolean available;
+
+    public SymbolLatestBarUpsertWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 当前库是否支持行别名 upsert（MySQL 8.0.19+） */
+    public boolean isAvailable() {
+        Boolean cached = available;
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            available = RowAliasSupport.check(jdbcTemplate);
+        } catch (DataAccessException e) {
+            log.warn("[SymbolLatestBarUpsertWriter] availability check failed, using JPA merge: {}", e.getMessage());
+            return false;
+        }
+        return available;
+    }
+
+    /**
+     * 合并每个 symbol 本次写入的最新一根（调用方保证 symbol 不重复）。
+     *
+     * @return 受影响行数（插入计 1、更新计 2、交易日更早未改动计 0 或 1，取决于 CLIENT_FOUND_ROWS）
+     */
+    public int upsert(List<StockDailyBar> latestBars) {
+        int affected = 0;
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> params = new ArrayList<>(Math.min(latestBars.size(), INSERT_ROWS) * 6);
+        for (int from = 0; from < latestBars.size(); from += INSERT_ROWS) {
+            List<StockDailyBar> chunk = latestBars.subList(from, Math.min(latestBars.size(), from + INSERT_ROWS));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + ON_DUPLICATE.length()
+                    + chunk.size() * (INSERT_VALUES.length() + 1));
+            sql.append(INSERT_PREFIX);
+            params.clear();
+            for (int i = 0; i < chunk.size(); i++) {
+                StockDailyBar bar = chunk.get(i);
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(INSERT_VALUES);
+                params.add(bar.getSymbol());
+                params.add(Date.valueOf(bar.getTradeDate()));
+                params.add(bar.getClosePrice());
+                params.add(bar.getVolume());
+                params.add(bar.getSource());
+                params.add(updatedAt);
+            }
+            sql.append(ON_DUPLICATE);
+            affected += jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return affected;
+    }
+}
@@ -1,17 +1,21 @@
 package com.stock.invest.repository;
 
 import com.stock.invest.entity.TradingCalendarEntity;
+import com.stock.invest.model.TradingCalendarResult;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * 交易日历数据访问层。
- * 提供按市场+日期查询、按年查询、upsert 操作。
+ * 提供按市场+日期查询、按年查询、upsert / 批量 upsert 操作。
  */
 public interface TradingCalendarRepository extends JpaRepository<TradingCalendarEntity, Long> {
 
@@ -43,6 +47,45 @@ public interface TradingCalendarRepository extends JpaRepository<TradingCalendar
         }
     }
 
+    /**
+     * 批量 Upsert：一次区间查询取已有行，内存中逐日改/建后一次 saveAll（整年同步用）。
+     * 需在调用方事务内执行；并发冲突由 (market, trade_date) 唯一约束兜底，整批回滚后由调用方退回逐日 upsert。
+     *
+     * @return upsert 的记录数
+     */
+    default int upsertAll(String market, List<TradingCalendarResult> days) {
+        if (days == null || days.isEmpty()) {
+            return 0;
+        }
+        LocalDate min = days.get(0).getDate();
+        LocalDate max = min;
+        for (TradingCalendarResult day : days) {
+            if (day.getDate().isBefore(min)) min = day.getDate();
+            if (day.getDate().isAfter(max)) max = day.getDate();
+        }
+        Map<LocalDate, TradingCalendarEntity> existing = new HashMap<>();
+        for (TradingCalendarEntity e : findByMarketAndTradeDateBetween(market, min, max)) {
+            existing.put(e.getTradeDate(), e);
+        }
+        List<TradingCalendarEntity> toSave = new ArrayList<>(days.size());
+        for (TradingCalendarResult day : days) {
+            TradingCalendarEntity entity = existing.get(day.getDate());
+            if (entity == null) {
+                entity = new TradingCalendarEntity();
+                entity.setMarket(market);
+                entity.setTradeDate(day.getDate());
+                existing.put(day.getDate(), entity);
+            }
+            entity.setIsOpen(day.isTradingDay());
+            entity.setSource(day.getSource());
+            entity.setType(day.getType());
+            entity.setDetail(day.getDetail());
+            toSave.add(entity);
+        }
+        saveAll(toSave);
+        return toSave.size();
+    }
+
     private int upsertOnce(String market, LocalDate tradeDate, Boolean isOpen,
                            String source, String type, String detail) {
         Optional<TradingCalendarEntity> existing = findByMarketAndTradeDate(market, tradeDate);
@@ -0,0 +1,107 @@
+package com.stock.invest.scheduler;
+
+import com.stock.invest.config.ScreeningProperties;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.service.ScreeningService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量筛选调度：收集 {@link BarsChangedEvent}（截图导入 / 补缺 / 字段增补提交后发布），
+ * 按 bar 交易日合并待重评 symbol，每 {@code screening.incremental.flush-interval-ms} 交给
+ * {@link ScreeningService#rescreenSymbols} 处理。
+ * <p>全量筛选运行中时该批留待下次；重评失败只记日志，由下一次全量筛选兜底。
+ * 仅在 {@code screening.incremental.enabled=true} 时收集事件。</p>
+ */
+@Component
+public class IncrementalScreeningScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalScreeningScheduler.class);
+
+    /** 单次重评的 symbol 上限（大批补缺按此拆分，控制单事务与 IN 列表规模） */
+    static final int MAX_SYMBOLS_PER_CALL = 1000;
+
+    private final ScreeningService screeningService;
+    private final ScreeningProperties screeningProperties;
+
+    /** bar 交易日 → 待重评 symbol；增删均在 compute / remove 内原子完成 */
+    private final Map<LocalDate, Set<String>> pending = new ConcurrentHashMap<>();
+
+    public IncrementalScreeningScheduler(ScreeningService screeningService,
+                                         ScreeningProperties screeningProperties) {
+        this.screeningService = screeningService;
+        this.screeningProperties = screeningProperties;
+    }
+
+    @EventListener
+    public void onBarsChanged(BarsChangedEvent event) {
+        if (!screeningProperties.getIncremental().isEnabled() || event.isEmpty()) {
+            return;
+        }
+        event.symbolsByDate().forEach(this::enqueue);
+    }
+
+    private void enqueue(LocalDate barDate, Set<String> symbols) {
+        pending.compute(barDate, (d, set) -> {
+            Set<String> merged = set == null ? new TreeSet<>() : set;
+            merged.addAll(symbols);
+            return merged;
+        });
+    }
+
+    /**
+     * 按 bar 交易日升序处理已合并的变更；全量筛选运行中则把当前及剩余批次放回队列。
+     */
+    @Scheduled(fixedDelayString = "${screening.incremental.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (LocalDate barDate : new TreeSet<>(pending.keySet())) {
+            Set<String> symbols = pending.remove(barDate);
+            if (symbols == null || symbols.isEmpty()) {
+                continue;
+            }
+            List<String> all = new ArrayList<>(symbols);
+            for (int from = 0; from < all.size(); from += MAX_SYMBOLS_PER_CALL) {
+                Set<String> part = new TreeSet<>(all.subList(from, Math.min(all.size(), from + MAX_SYMBOLS_PER_CALL)));
+                if (!rescreen(barDate, part)) {
+                    enqueue(barDate, new TreeSet<>(all.subList(from, all.size())));
+                    log.info("[IncrementalScreening] full screening running, defer barDate={} symbols={}",
+                            barDate, all.size() - from);
+                    return;
+                }
+            }
+        }
+    }
+
+    /** @return false 表示全量筛选运行中，需稍后重试 */
+    private boolean rescreen(LocalDate barDate, Set<String> symbols) {
+        Instant start = Instant.now();
+        try {
+            Map<String, Object> summary = screeningService.rescreenSymbols(barDate, symbols);
+            if (summary == null) {
+                return false;
+            }
+            log.info("[IncrementalScreening] done {} elapsedMs={}",
+                    summary, Duration.between(start, Instant.now()).toMillis());
+        } catch (Exception e) {
+            log.error("[IncrementalScreening] failed barDate={}, symbols={}, error={}",
+                    barDate, symbols.size(), e.getMessage(), e);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.stock.invest.service;
+
+import com.stock.invest.model.PatternParams;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 历史回测服务：对任意日期区间内的每个交易日按单日筛选同一规则评估，
+ * 全部命中批量写入 backtest_match 表（按 backtestId 隔离，不影响 screening_match）。
+ * <p>参数扫描（sweep）在同一遍读取中对一组阈值组合分别计数并统计前瞻收益，结果只保留在内存中。</p>
+ */
+public interface BacktestService {
+
+    /** 单次回测允许的最大区间（自然日） */
+    int MAX_RANGE_DAYS = 3660;
+
+    /** 单次参数扫描允许的最大阈值组合数 */
+    int MAX_SWEEP_COMBINATIONS = 64;
+
+    /**
+     * 校验回测参数，不合法时抛出 {@link IllegalArgumentException}。
+     *
+     * @param from       区间起点（含）
+     * @param to         区间终点（含）
+     * @param windowDays 窗口天数；null 表示全部窗口 2~7 天
+     */
+    void validate(LocalDate from, LocalDate to, Integer windowDays);
+
+    /**
+     * 执行回测：每个 symbol 的历史只读一遍，逐日滑动评估全部窗口，
+     * 等价于对区间内每个交易日各执行一次单日筛选。
+     *
+     * @param backtestId 回测批次 ID（调用方生成，便于异步触发后立即返回）
+     * @param from       区间起点（含）
+     * @param to         区间终点（含）
+     * @param windowDays 窗口天数；null 表示全部窗口 2~7 天
+     * @return 摘要 Map，包含 backtestId / from / to / symbols / bars / matches / elapsedMs；
+     *         已有回测在运行时返回 null
+     */
+    Map<String, Object> runBacktest(String backtestId, LocalDate from, LocalDate to, Integer windowDays);
+
+    /**
+     * 回测结果：按 algorithm + windowDays 汇总，并分页返回命中明细（按交易日、symbol 升序）。
+     *
+     * @return 包含 backtestId / running / totalMatches / summary / page / size / matches 的 Map
+     */
+    Map<String, Object> getBacktest(String backtestId, int page, int size);
+
+    /**
+     * 校验参数扫描的阈值组合，不合法（为空 / 超过 {@link #MAX_SWEEP_COMBINATIONS}）时抛出 {@link IllegalArgumentException}。
+     */
+    void validateGrid(List<PatternParams> grid);
+
+    /**
+     * 参数扫描：每个 symbol 的历史只读一遍，逐日滑动时对每组阈值分别求命中，
+     * 按组合统计命中数与前瞻收益（{@link ForwardReturnService#HORIZONS}，后续 bar 不足记 pending）。
+     * 与回测共用运行互斥；不写 backtest_match。
+     *
+     * @param sweepId    扫描 ID（调用方生成）
+     * @param from       区间起点（含）
+     * @param to         区间终点（含）
+     * @param windowDays 窗口天数；null 表示全部窗口 2~7 天
+     * @param grid       阈值组合
+     * @return 扫描结果（同 {@link #getSweep}）；已有回测 / 扫描在运行时返回 null
+     */
+    Map<String, Object> runSweep(String sweepId, LocalDate from, LocalDate to, Integer windowDays,
+                                 List<PatternParams> grid);
+
+    /**
+     * 参数扫描结果：status = RUNNING / DONE / FAILED，DONE 时 combinations 每项为一组阈值的
+     * spikeMultiplier / increasingMinStep / matches / results（按 algorithm + windowDays 的前瞻收益）。
+     *
+     * @return 未知或已过期的 sweepId 返回 null
+     */
+    Map<String, Object> getSweep(String sweepId);
+
+    /** 是否有回测正在运行 */
+    boolean isRunning();
+}
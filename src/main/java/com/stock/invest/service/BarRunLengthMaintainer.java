@@ -0,0 +1,403 @@
+package com.stock.invest.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.BarsWrittenEvent;
+import com.stock.invest.model.TradingCalendarSnapshot;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.StockDailyBarRunLengthWriter;
+
+/**
+ * stock_daily_bar.run_length（截至本根的连续开盘日 bar 数）维护。
+ *
+ * 职责：
+ * 1. 订阅 {@link BarsWrittenEvent}（stock_daily_bar 写事务提交前、同一事务内发布，已 flush），
+ *    按 symbol 取最早变更日，读取其前 {@value #LOOKBACK_DAYS} 个自然日起的 bar，按交易日历逐根递推，
+ *    只回写有变化的行，与日 K 同事务提交或回滚（失败直接抛出，写入随之回滚），run_length 不会落后于已提交的 bar。
+ *    本次写入的 bar 快照同步填入计数，提交后随 BarsChangedEvent 合并进 {@link DailyBarColumnStore}；
+ *    其余受影响的已缓存交易日在提交后经 {@link DailyBarColumnStore#applyRunLengths} 更新。
+ *    回看窗口内首根（递推起点）尚未计算时不重新从 1 计数：该 symbol 回看加宽 {@value #LOOKBACK_WIDEN_FACTOR} 倍重读，
+ *    超过 {@value #MAX_LOOKBACK_DAYS} 天改读全部历史
+ * 2. {@link #rebuild} 一次流式读取全表重算（交易日历修订后使用）；重建期间提交的变更暂存，
+ *    结束后在独立事务中补处理，避免被重建读到的旧值覆盖
+ * 3. 递推：本根非开盘日为 0；上一根恰为前一个开盘日时为上一根 + 1，否则为 1
+ */
+@Service
+public class BarRunLengthMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(BarRunLengthMaintainer.class);
+
+    static final String MARKET = "US";
+    /** 变更日之前回看的自然日：其间必有开盘日，更早的 bar 不影响变更日起的计数 */
+    static final int LOOKBACK_DAYS = 14;
+    /** 起点未计算时回看窗口的放大倍数 */
+    static final int LOOKBACK_WIDEN_FACTOR = 16;
+    /** 回看超过该自然日数时改读全部历史（首根即最早一根，从 1 计数正确） */
+    static final int MAX_LOOKBACK_DAYS = 366;
+    /** 单次查询的 symbol 数（IN 列表上限） */
+    static final int SYMBOLS_PER_QUERY = 500;
+
+    private final StockDailyBarRepository repository;
+    private final StockDailyBarRunLengthWriter writer;
+    private final TradingCalendarDbService calendarService;
+    private final DailyBarColumnStore store;
+    /** 重建读流：可能由提交后回调或已有事务中调用，始终开启独立只读事务 */
+    private final TransactionTemplate readTx;
+    /** 重建分批回写、重建后补处理：独立事务提交 */
+    private final TransactionTemplate writeTx;
+
+    /** symbol → 重建期间提交、待补处理的最早变更交易日 */
+    private final Map<String, LocalDate> pending = new ConcurrentHashMap<>();
+    /** 全量重建与重建后补处理互斥 */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile boolean rebuilding;
+    private volatile Map<String, Object> lastRebuild;
+
+    public BarRunLengthMaintainer(StockDailyBarRepository repository,
+                                  StockDailyBarRunLengthWriter writer,
+                                  TradingCalendarDbService calendarService,
+                                  DailyBarColumnStore store,
+                                  PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.writer = writer;
+        this.calendarService = calendarService;
+        this.store = store;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onBarsWritten(BarsWrittenEvent event) {
+        record(event.bars());
+    }
+
+    /**
+     * 日 K 写事务内调用：重算本次写入涉及的 symbol 自最早写入日起的计数并回写，随日 K 一并提交；
+     * 失败直接抛出，日 K 写入随之回滚。列式缓存在事务提交后更新（无事务时立即更新）。
+     *
+     * @param bars 本次写入的 bar 快照；计数就地填入
+     */
+    public void record(List<StockDailyBar> bars) {
+        Map<String, LocalDate> fromBySymbol = new TreeMap<>();
+        for (StockDailyBar bar : bars) {
+            if (bar.getSymbol() != null && bar.getTradeDate() != null) {
+                fromBySymbol.merge(bar.getSymbol(), bar.getTradeDate(), BarRunLengthMaintainer::earlier);
+            }
+        }
+        if (fromBySymbol.isEmpty()) {
+            return;
+        }
+        Map<String, Map<LocalDate, Integer>> computed = update(fromBySymbol);
+        for (StockDailyBar bar : bars) {
+            Map<LocalDate, Integer> runs = computed.get(bar.getSymbol());
+            if (runs != null && runs.containsKey(bar.getTradeDate())) {
+                bar.setRunLength(runs.get(bar.getTradeDate()));
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyToStore(computed);
+                    if (rebuilding) {
+                        // 重建读流可能早于本次提交，结束后按提交后的数据补处理
+                        fromBySymbol.forEach((symbol, from) -> pending.merge(symbol, from, BarRunLengthMaintainer::earlier));
+                        drain();
+                    }
+                }
+            });
+        } else {
+            applyToStore(computed);
+        }
+    }
+
+    /**
+     * 重建后补处理暂存的变更（独立事务）；锁被占用（重建中）时直接返回，由重建结束时接着处理。
+     */
+    private void drain() {
+        while (!pending.isEmpty() && lock.tryLock()) {
+            try {
+                Map<String, LocalDate> batch = new TreeMap<>();
+                for (String symbol : new ArrayList<>(pending.keySet())) {
+                    LocalDate from = pending.remove(symbol);
+                    if (from != null) {
+                        batch.put(symbol, from);
+                    }
+                }
+                applyToStore(writeTx.execute(status -> update(batch)));
+            } catch (RuntimeException e) {
+                log.warn("[RunLength] update failed, rebuild via /api/admin/run-length/rebuild: {}", e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void applyToStore(Map<String, Map<LocalDate, Integer>> computed) {
+        if (computed == null) {
+            return;
+        }
+        computed.forEach((symbol, runs) -> {
+            int[] days = new int[runs.size()];
+            int[] values = new int[runs.size()];
+            int k = 0;
+            for (Map.Entry<LocalDate, Integer> e : runs.entrySet()) {
+                days[k] = (int) e.getKey().toEpochDay();
+                values[k++] = e.getValue();
+            }
+            store.applyRunLengths(symbol, days, values);
+        });
+    }
+
+    /**
+     * 在当前事务内重算各 symbol 自变更日起的计数并回写有变化的行。
+     *
+     * @param fromBySymbol symbol → 最早变更交易日
+     * @return symbol → 交易日升序的计数（读到的全部行，含未变化的）
+     */
+    Map<String, Map<LocalDate, Integer>> update(Map<String, LocalDate> fromBySymbol) {
+        TradingCalendarSnapshot calendar = calendarService.getSnapshot(MARKET);
+        Map<String, LocalDate> remaining = fromBySymbol;
+        Map<String, Map<LocalDate, Integer>> computed = new TreeMap<>();
+        for (int lookback = LOOKBACK_DAYS; !remaining.isEmpty(); lookback *= LOOKBACK_WIDEN_FACTOR) {
+            boolean fullHistory = lookback > MAX_LOOKBACK_DAYS;
+            List<String> symbols = new ArrayList<>(remaining.keySet());
+            Map<String, LocalDate> unseeded = new TreeMap<>();
+            for (int i = 0; i < symbols.size(); i += SYMBOLS_PER_QUERY) {
+                List<String> chunk = symbols.subList(i, Math.min(symbols.size(), i + SYMBOLS_PER_QUERY));
+                LocalDate from = null;
+                for (String symbol : chunk) {
+                    from = earlier(from, remaining.get(symbol));
+                }
+                LocalDate since = from.minusDays(lookback);
+                List<Object[]> rows = fullHistory
+                        ? repository.findAllRunLengthRows(chunk)
+                        : repository.findRunLengthRows(chunk, since);
+                Recompute recompute = new Recompute(calendar, remaining, fullHistory, computed);
+                for (Object[] r : rows) {
+                    recompute.accept(r);
+                }
+                recompute.finish();
+                for (String symbol : recompute.unseeded) {
+                    unseeded.put(symbol, remaining.get(symbol));
+                }
+            }
+            remaining = unseeded;
+        }
+        return computed;
+    }
+
+    /**
+     * 全量重算：一次流式读取全表，逐 symbol 递推并回写有变化的行。
+     *
+     * @return 汇总（symbols / rows / updated / elapsedMs）；增量维护或另一次重建进行中返回 null
+     */
+    public Map<String, Object> rebuild() {
+        if (!lock.tryLock()) {
+            return null;
+        }
+        rebuilding = true;
+        long t0 = System.currentTimeMillis();
+        Recompute recompute = new Recompute(calendarService.getSnapshot(MARKET), null, true, null);
+        try {
+            // 此前的变更已包含在本次读流中；重建期间到达的变更暂存，结束后补处理
+            pending.clear();
+            readTx.executeWithoutResult(status -> {
+                try (Stream<Object[]> stream = repository.streamRunLengthRows()) {
+                    Iterator<Object[]> it = stream.iterator();
+                    while (it.hasNext()) {
+                        recompute.accept(it.next());
+                    }
+                }
+                recompute.finish();
+            });
+        } finally {
+            rebuilding = false;
+            lock.unlock();
+        }
+        drain();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("symbols", recompute.symbols);
+        summary.put("rows", recompute.rows);
+        summary.put("updated", recompute.updated);
+        summary.put("elapsedMs", System.currentTimeMillis() - t0);
+        lastRebuild = summary;
+        log.info("[RunLength] rebuild done {}", summary);
+        return summary;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    /** 维护状态（管理端展示） */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rebuilding", rebuilding);
+        stats.put("pendingSymbols", pending.size());
+        stats.put("lastRebuild", lastRebuild);
+        return stats;
+    }
+
+    /**
+     * 下一根的计数。
+     *
+     * @param previousDate 同一 symbol 上一根的交易日，没有为 null
+     * @param previousRun  上一根的计数
+     */
+    static int nextRun(TradingCalendarSnapshot calendar, LocalDate previousDate, int previousRun, LocalDate date) {
+        if (!Boolean.TRUE.equals(calendar.isOpen(date))) {
+            return 0;
+        }
+        if (previousDate == null || previousRun <= 0) {
+            return 1;
+        }
+        int gap = (int) (date.toEpochDay() - previousDate.toEpochDay());
+        return calendar.previousOpen(date, gap).filter(previousDate::equals).isPresent() ? previousRun + 1 : 1;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        return a == null || (b != null && b.isBefore(a)) ? b : a;
+    }
+
+    /**
+     * 按 (symbol, trade_date) 升序逐行递推 [id, symbol, tradeDate, runLength]：有变化的行攒批回写。
+     * 全量重算时每批在独立事务中提交、每个 symbol 结束即同步列式缓存；
+     * 增量维护时在调用方事务内回写，算出的计数交给调用方在提交后同步。
+     * 增量维护时变更日之前的首行尚未计算的 symbol 不递推、不回写，记入 {@link #unseeded} 由调用方加宽回看重读。
+     */
+    private final class Recompute {
+
+        private final TradingCalendarSnapshot calendar;
+        /** 增量维护：symbol → 变更日，此前的首行沿用已存值作为递推起点；null = 全量（全部重算） */
+        private final Map<String, LocalDate> fromBySymbol;
+        /** 读取的是 symbol 全部历史：首行之前没有 bar，从 1 计数即正确 */
+        private final boolean fullHistory;
+        /** 回看窗口内缺少已算起点、本轮跳过的 symbol */
+        private final List<String> unseeded = new ArrayList<>();
+        /** 增量维护：symbol → 算出的计数，由调用方提交后同步到列式缓存；null = 全量（直接同步） */
+        private final Map<String, Map<LocalDate, Integer>> computed;
+
+        private final List<Long> ids = new ArrayList<>();
+        private final List<Integer> runs = new ArrayList<>();
+        private final Map<LocalDate, Integer> symbolRuns = new HashMap<>();
+
+        private String symbol;
+        private boolean skipping;
+        private LocalDate previousDate;
+        private int previousRun;
+        private long symbols;
+        private long rows;
+        private int updated;
+
+        private Recompute(TradingCalendarSnapshot calendar, Map<String, LocalDate> fromBySymbol, boolean fullHistory,
+                          Map<String, Map<LocalDate, Integer>> computed) {
+            this.calendar = calendar;
+            this.fromBySymbol = fromBySymbol;
+            this.fullHistory = fullHistory;
+            this.computed = computed;
+        }
+
+        void accept(Object[] r) {
+            String rowSymbol = (String) r[1];
+            LocalDate date = (LocalDate) r[2];
+            Integer stored = (Integer) r[3];
+            boolean first = !rowSymbol.equals(symbol);
+            LocalDate from = fromBySymbol == null ? null : fromBySymbol.get(rowSymbol);
+            if (first) {
+                endSymbol();
+                symbol = rowSymbol;
+                previousDate = null;
+                previousRun = 0;
+                symbols++;
+                skipping = !fullHistory && stored == null && from != null && date.isBefore(from);
+                if (skipping) {
+                    unseeded.add(rowSymbol);
+                }
+            }
+            if (skipping) {
+                return;
+            }
+            int run = first && stored != null && from != null && date.isBefore(from)
+                    ? stored
+                    : nextRun(calendar, previousDate, previousRun, date);
+            if (stored == null || stored != run) {
+                ids.add(((Number) r[0]).longValue());
+                runs.add(run);
+                if (ids.size() >= StockDailyBarRunLengthWriter.BATCH_ROWS) {
+                    flush();
+                }
+            }
+            symbolRuns.put(date, run);
+            previousDate = date;
+            previousRun = run;
+            rows++;
+        }
+
+        /** 回写剩余行并同步最后一个 symbol */
+        int finish() {
+            endSymbol();
+            flush();
+            return updated;
+        }
+
+        private void flush() {
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<Long> batchIds = List.copyOf(ids);
+            List<Integer> batchRuns = List.copyOf(runs);
+            Integer n = computed == null
+                    ? writeTx.execute(status -> writer.update(batchIds, batchRuns))
+                    : Integer.valueOf(writer.update(batchIds, batchRuns));
+            updated += n == null ? 0 : n;
+            ids.clear();
+            runs.clear();
+        }
+
+        private void endSymbol() {
+            if (symbol == null || symbolRuns.isEmpty()) {
+                return;
+            }
+            if (computed != null) {
+                computed.put(symbol, new TreeMap<>(symbolRuns));
+                symbolRuns.clear();
+                return;
+            }
+            int[] days = new int[symbolRuns.size()];
+            int[] values = new int[symbolRuns.size()];
+            int k = 0;
+            for (Map.Entry<LocalDate, Integer> e : new TreeMap<>(symbolRuns).entrySet()) {
+                days[k] = (int) e.getKey().toEpochDay();
+                values[k++] = e.getValue();
+            }
+            store.applyRunLengths(symbol, days, values);
+            symbolRuns.clear();
+        }
+    }
+}
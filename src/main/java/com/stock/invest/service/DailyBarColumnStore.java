@@ -0,0 +1,250 @@
+package com.stock.invest.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.invest.config.BarStoreProperties;
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.model.DailyBarColumns;
+import com.stock.invest.repository.StockDailyBarRepository;
+
+/**
+ * 进程内列式日 K 缓存。
+ *
+ * 职责：
+ * 1. 应用就绪后流式加载最近 {@link BarStoreProperties#getTradingDays()} 个交易日的日 K，
+ *    每个 symbol 一份 {@link DailyBarColumns}（原始类型数组，无装箱）
+ * 2. 订阅 {@link BarsChangedEvent}（stock_daily_bar 的每次保存提交后发布，先于其他监听方），
+ *    把事件携带的 bar 合并进缓存，copy-on-write 整体替换，读路径无锁
+ * 3. 堆占用按列宽估算并受 {@link BarStoreProperties#getMaxMemoryMb()} 约束：超限即停止收录新数据并标记
+ *    truncated，此后 {@link #covers} 返回 false，调用方回退读库
+ */
+@Service
+public class DailyBarColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyBarColumnStore.class);
+
+    private static final ZoneId AMERICA_NY = ZoneId.of("America/New_York");
+
+    private final StockDailyBarRepository repository;
+    private final BarStoreProperties properties;
+    private final TransactionTemplate readOnlyTx;
+
+    /** symbol → 列式日 K；写入后整体替换 */
+    private final Map<String, DailyBarColumns> columns = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    private volatile boolean ready;
+    private volatile boolean truncated;
+    /** 加载起点：此日期（含）之后的数据完整 */
+    private volatile LocalDate coveredFrom;
+
+    public DailyBarColumnStore(StockDailyBarRepository repository,
+                               BarStoreProperties properties,
+                               PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.properties = properties;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * 应用就绪后加载（不阻塞启动；加载完成前 {@link #covers} 为 false，筛选照常读库）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled()) {
+            log.info("[DailyBarColumnStore] disabled");
+            return;
+        }
+        try {
+            load();
+        } catch (Exception e) {
+            log.warn("[DailyBarColumnStore] load failed, screening keeps reading from DB: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从 stock_daily_bar 流式加载最近 tradingDays 个交易日（按自然日放宽 7/5 倍 + 10 天覆盖节假日）。
+     * 加载期间已到达的写入优先于加载结果。
+     */
+    public void load() {
+        long t0 = System.currentTimeMillis();
+        int capacity = capacity();
+        LocalDate from = ZonedDateTime.now(AMERICA_NY).toLocalDate()
+                .minusDays((long) capacity * 7 / 5 + 10);
+        int[] loaded = new int[2];
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = repository.streamColumnRowsSince(from)) {
+                Iterator<Object[]> it = rows.iterator();
+                DailyBarColumns.Builder builder = null;
+                while (it.hasNext()) {
+                    Object[] r = it.next();
+                    String symbol = (String) r[0];
+                    if (builder == null || !builder.symbol().equals(symbol)) {
+                        if (builder != null && !putLoaded(builder, capacity)) {
+                            return;
+                        }
+                        builder = DailyBarColumns.builder(symbol);
+                        loaded[0]++;
+                    }
+                    builder.add((LocalDate) r[1], (BigDecimal) r[2], (BigDecimal) r[3], (BigDecimal) r[4],
+                            (BigDecimal) r[5], (Long) r[6], (String) r[7], (Integer) r[8]);
+                    loaded[1]++;
+                }
+                if (builder != null) {
+                    putLoaded(builder, capacity);
+                }
+            }
+        });
+        coveredFrom = from;
+        ready = true;
+        log.info("[DailyBarColumnStore] loaded symbols={}, rows={}, from={}, memory={} KB (max {} MB), truncated={}, elapsedMs={}",
+                loaded[0], loaded[1], from, memoryBytes.get() / 1024, properties.getMaxMemoryMb(), truncated,
+                System.currentTimeMillis() - t0);
+    }
+
+    /** 加载单个 symbol；已有（加载期间写入的）数据优先。超出上限返回 false 停止加载 */
+    private boolean putLoaded(DailyBarColumns.Builder builder, int capacity) {
+        DailyBarColumns fresh = builder.build(capacity);
+        if (memoryBytes.get() + fresh.memoryBytes() > maxMemoryBytes()) {
+            markTruncated(fresh.symbol());
+            return false;
+        }
+        columns.compute(fresh.symbol(), (k, existing) -> {
+            DailyBarColumns merged = existing == null ? fresh : fresh.merge(existing, capacity);
+            memoryBytes.addAndGet(merged.memoryBytes() - (existing == null ? 0 : existing.memoryBytes()));
+            return merged;
+        });
+        return true;
+    }
+
+    /**
+     * 日 K 写入提交后合并进缓存；最先执行，其余监听方读取缓存时已能看到本次写入。
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBarsChanged(BarsChangedEvent event) {
+        apply(event.bars());
+    }
+
+    /**
+     * 合并已提交的写入（同 symbol 同日覆盖）。超出内存上限时丢弃并标记 truncated。
+     */
+    public void apply(Collection<StockDailyBar> bars) {
+        if (!properties.isEnabled() || bars == null || bars.isEmpty()) {
+            return;
+        }
+        int capacity = capacity();
+        Map<String, DailyBarColumns.Builder> bySymbol = new LinkedHashMap<>();
+        for (StockDailyBar bar : bars) {
+            if (bar.getSymbol() == null || bar.getTradeDate() == null) {
+                continue;
+            }
+            bySymbol.computeIfAbsent(bar.getSymbol(), DailyBarColumns::builder).add(bar);
+        }
+        for (DailyBarColumns.Builder builder : bySymbol.values()) {
+            DailyBarColumns newer = builder.build(capacity);
+            columns.compute(newer.symbol(), (k, existing) -> {
+                DailyBarColumns merged = existing == null ? newer : existing.merge(newer, capacity);
+                long delta = merged.memoryBytes() - (existing == null ? 0 : existing.memoryBytes());
+                if (memoryBytes.get() + delta > maxMemoryBytes()) {
+                    markTruncated(k);
+                    return existing;
+                }
+                memoryBytes.addAndGet(delta);
+                return merged;
+            });
+        }
+    }
+
+    /**
+     * 回写连续开盘日计数（{@link BarRunLengthMaintainer} 落库后调用）：只更新已缓存的交易日，列宽不变。
+     *
+     * @param epochDays 交易日 epochDay
+     * @param runs      与 epochDays 同序的计数
+     */
+    public void applyRunLengths(String symbol, int[] epochDays, int[] runs) {
+        if (!properties.isEnabled() || epochDays.length == 0) {
+            return;
+        }
+        columns.computeIfPresent(symbol, (k, existing) -> existing.withRunLengths(epochDays, runs));
+    }
+
+    private void markTruncated(String symbol) {
+        if (!truncated) {
+            log.warn("[DailyBarColumnStore] memory limit {} MB reached at symbol={}, stop caching; screening falls back to DB",
+                    properties.getMaxMemoryMb(), symbol);
+        }
+        truncated = true;
+    }
+
+    /**
+     * 缓存是否完整覆盖 [start, 今天]：已加载、未截断、且 start 不早于加载起点。
+     */
+    public boolean covers(LocalDate start) {
+        LocalDate from = coveredFrom;
+        return properties.isEnabled() && ready && !truncated && from != null && !start.isBefore(from);
+    }
+
+    /** symbol 的列式日 K，未缓存返回 null */
+    public DailyBarColumns get(String symbol) {
+        return columns.get(symbol);
+    }
+
+    /** 已缓存 symbol（升序） */
+    public List<String> symbols() {
+        List<String> list = new ArrayList<>(columns.keySet());
+        list.sort(null);
+        return list;
+    }
+
+    /** 缓存规模与内存占用（管理端展示） */
+    public Map<String, Object> stats() {
+        long bars = 0;
+        for (DailyBarColumns c : columns.values()) {
+            bars += c.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("ready", ready);
+        stats.put("truncated", truncated);
+        stats.put("coveredFrom", coveredFrom == null ? null : coveredFrom.toString());
+        stats.put("tradingDays", capacity());
+        stats.put("symbols", columns.size());
+        stats.put("bars", bars);
+        stats.put("memoryBytes", memoryBytes.get());
+        stats.put("maxMemoryBytes", maxMemoryBytes());
+        return stats;
+    }
+
+    private int capacity() {
+        return Math.max(1, properties.getTradingDays());
+    }
+
+    private long maxMemoryBytes() {
+        return (long) properties.getMaxMemoryMb() * 1024 * 1024;
+    }
+}
@@ -0,0 +1,108 @@
+package com.stock.invest.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.model.BarsWrittenEvent;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * StockDailyBar 实体监听：insert / update 后把该行快照挂到当前事务，每个事务发布两次事件（携带本次写入的 bar）：
+ * <ul>
+ *   <li>提交前（beforeCommit）先 flush 使待更新的 bar 全部触发回调，再同步发布 {@link BarsWrittenEvent}，
+ *       监听方在同一事务内维护必须与日 K 一致的派生数据（symbol 字典、最新日 K 快照、连续开盘日计数），失败则整体回滚</li>
+ *   <li>提交后发布 {@link BarsChangedEvent}，列式缓存、增量筛选、指标引擎等据此更新；回滚则丢弃</li>
+ * </ul>
+ * 补缺、截图导入、字段增补等所有经 JPA 保存的写路径统一覆盖，新增写路径无需改动。
+ * <p>本类只负责收集与发布，不依赖任何下游组件，新增消费方无需改动本类。</p>
+ * <p>由 Hibernate 经 Spring BeanContainer 实例化；EntityManagerFactory 经 {@link ObjectProvider} 延迟获取，
+ * 避免循环依赖。</p>
+ */
+@Component
+public class DailyBarWriteListener {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final ApplicationEventPublisher publisher;
+
+    public DailyBarWriteListener(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                 ApplicationEventPublisher publisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(StockDailyBar bar) {
+        // 复制字段：实体在提交前后仍可能被调用方修改
+        StockDailyBar copy = new StockDailyBar();
+        copy.setSymbol(bar.getSymbol());
+        copy.setName(bar.getName());
+        copy.setTradeDate(bar.getTradeDate());
+        copy.setOpenPrice(bar.getOpenPrice());
+        copy.setHighPrice(bar.getHighPrice());
+        copy.setLowPrice(bar.getLowPrice());
+        copy.setClosePrice(bar.getClosePrice());
+        copy.setVolume(bar.getVolume());
+        copy.setSource(bar.getSource());
+        copy.setRunLength(bar.getRunLength());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<StockDailyBar> single = List.of(copy);
+            publisher.publishEvent(new BarsWrittenEvent(single));
+            publish(single);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<StockDailyBar> pending = (List<StockDailyBar>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<StockDailyBar> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // flush 期间的 @PostUpdate 继续追加到 batch
+                    flush();
+                    publisher.publishEvent(new BarsWrittenEvent(List.copyOf(batch)));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DailyBarWriteListener.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(batch);
+                    }
+                }
+            });
+            pending = batch;
+        }
+        pending.add(copy);
+    }
+
+    private void flush() {
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        EntityManager em = emf == null ? null : EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (em != null) {
+            em.flush();
+        }
+    }
+
+    private void publish(List<StockDailyBar> bars) {
+        BarsChangedEvent event = BarsChangedEvent.of(bars);
+        if (!event.isEmpty()) {
+            publisher.publishEvent(event);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.stock.invest.service;
 
+import com.stock.invest.exception.StockDataException;
 import com.stock.invest.model.KLineData;
+import com.stock.invest.model.KLineIterator;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
 
 /**
  * 核心数据源策略接口 — 只包含数据补缺所需的最小方法集。
@@ -44,6 +50,83 @@ public interface DataSourceStrategy {
         return getDailyKLineDataByDateRange(symbol, tradeDate);
     }
 
+    /**
+     * {@link #getDailyKLineDataByDates} 是否已覆盖为少量请求（而非默认的逐日循环）。
+     * <p>默认实现一次调用对应多次外部请求，按源调用计配额的调用方在返回 false 时应自行逐日调用。</p>
+     */
+    default boolean supportsDailyKLineBatch() {
+        return false;
+    }
+
+    /**
+     * {@link #getAfterHoursKLineDataByDates} 是否已覆盖为少量请求（而非默认的逐日循环），语义同 {@link #supportsDailyKLineBatch}。
+     */
+    default boolean supportsAfterHoursKLineBatch() {
+        return false;
+    }
+
+    /**
+     * 按一组交易日批量获取 K 线数据（字段增补按 symbol 聚簇后一次拉取覆盖区间）。
+     * <p>支持区间查询的数据源应覆盖为一次请求 [min(tradeDates), max(tradeDates)]；
+     * 默认实现逐日回退到 {@link #getDailyKLineDataByDateRange}，单日确认不存在不影响其余日期，
+     * 全部日期均确认不存在时抛出最后一次的 {@link StockDataException}。覆盖时同时让 {@link #supportsDailyKLineBatch} 返回 true。</p>
+     *
+     * @param symbol     股票代码
+     * @param tradeDates 需要查询的交易日集合（非空）
+     * @return 合并后的 K线数据，由调用方按交易日匹配目标日期
+     */
+    default KLineData getDailyKLineDataByDates(String symbol, Collection<LocalDate> tradeDates) {
+        List<KLineIterator> items = new ArrayList<>();
+        StockDataException lastNotFound = null;
+        int notFound = 0;
+        TreeSet<LocalDate> dates = new TreeSet<>(tradeDates);
+        for (LocalDate date : dates) {
+            try {
+                KLineData data = getDailyKLineDataByDateRange(symbol, date);
+                if (data != null && data.getItems() != null) {
+                    items.addAll(data.getItems());
+                }
+            } catch (StockDataException e) {
+                if (e.getCategory() != StockDataException.ErrorCategory.CONFIRMED_NOT_FOUND) {
+                    throw e;
+                }
+                lastNotFound = e;
+                notFound++;
+            }
+        }
+        if (lastNotFound != null && notFound == dates.size()) {
+            throw lastNotFound;
+        }
+        KLineData merged = new KLineData();
+        merged.setSymbol(symbol);
+        merged.setItems(items);
+        return merged;
+    }
+
+    /**
+     * 按一组交易日批量获取盘后价 K 线数据（同一 symbol 的盘后积压一次解决）。
+     * <p>支持批量的数据源应覆盖为一次拉取（如 yfinance 每个分钟间隔按保留期分段下载一次），
+     * 默认实现逐日回退到 {@link #getAfterHoursKLineDataByDateRange} 并合并结果。
+     * 覆盖时同时让 {@link #supportsAfterHoursKLineBatch} 返回 true。</p>
+     *
+     * @param symbol     股票代码
+     * @param tradeDates 需要查询的交易日集合（非空）
+     * @return 合并后的盘后 K线数据，由调用方按交易日匹配目标日期
+     */
+    default KLineData getAfterHoursKLineDataByDates(String symbol, Collection<LocalDate> tradeDates) {
+        List<KLineIterator> items = new ArrayList<>();
+        for (LocalDate date : new TreeSet<>(tradeDates)) {
+            KLineData data = getAfterHoursKLineDataByDateRange(symbol, date);
+            if (data != null && data.getItems() != null) {
+                items.addAll(data.getItems());
+            }
+        }
+        KLineData merged = new KLineData();
+        merged.setSymbol(symbol);
+        merged.setItems(items);
+        return merged;
+    }
+
     /**
      * 获取股票的每日K线数据（对象格式）。
      * <p>核心接口需要此方法作为 getDailyKLineDataByDateRange 的默认回退实现。</p>
@@ -0,0 +1,35 @@
+package com.stock.invest.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 筛选命中的前瞻收益分析：命中日收盘买入，持有 t+1 / t+5 / t+20 根 bar 后按收盘计收益，
+ * 按 algorithm + windowDays 汇总样本数、平均收益与胜率（收益 &gt; 0 的占比）。
+ * <p>结果按批次缓存；批次内容变化（增量重评 / 重跑归并）或前瞻区间内日 K 变更后重新计算。</p>
+ */
+public interface ForwardReturnService {
+
+    /** 前瞻持有期（根 bar） */
+    List<Integer> HORIZONS = List.of(1, 5, 20);
+
+    /** 单次分析允许的最大区间（自然日） */
+    int MAX_RANGE_DAYS = 3660;
+
+    /**
+     * 区间分析：[from, to] 内每个交易日取最新一次筛选批次，合并各批次的统计。
+     *
+     * @return 包含 from / to / horizons / tradeDates / matches / cachedBatches / results 的 Map；
+     *         results 每项含 algorithm / windowDays / matches / returns（按持有期：samples / pending / avgReturn / hitRate）
+     * @throws IllegalArgumentException 日期缺失、起点晚于终点或区间过长
+     */
+    Map<String, Object> analyzeRange(LocalDate from, LocalDate to);
+
+    /**
+     * 单批次分析。
+     *
+     * @return 结构同 {@link #analyzeRange}，另含 batchId；批次不存在时 matches 为 0、results 为空
+     */
+    Map<String, Object> analyzeBatch(String batchId);
+}
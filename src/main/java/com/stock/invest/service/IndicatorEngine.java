@@ -0,0 +1,269 @@
+package com.stock.invest.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.invest.config.IndicatorProperties;
+import com.stock.invest.entity.StockDailyIndicator;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.model.IndicatorState;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.StockDailyIndicatorRepository;
+import com.stock.invest.repository.StockDailyIndicatorWriter;
+
+/**
+ * 技术指标引擎：按 symbol 维护 {@link IndicatorState} 滚动状态，结果写入 stock_daily_indicator。
+ *
+ * 职责：
+ * 1. 收集 {@link BarsChangedEvent}（截图导入 / 补缺 / 字段增补提交后发布），按 symbol 合并最早变更日，
+ *    每 {@code indicator.flush-interval-ms} 处理一次：
+ *    - 变更日晚于内存状态的末日（追加新交易日）：只读新 bar，每根 O(1) 推入并追加写入
+ *    - 无内存状态（如重启后）或改写了历史日：由变更日之前的最近一行指标（全精度状态列）+ 其前 50 根 bar
+ *      恢复状态，从变更日起重算，结果与全量重建一致；表中无可用行（或旧行无状态列）时从头回放该 symbol
+ * 2. {@link #rebuild} 一次流式读取全部日 K（按 symbol, trade_date 排序），逐 symbol 计算并整段替换
+ * 3. 内存状态每 symbol 约 1 KB；处理失败的 symbol 丢弃内存状态，下次变更时从表恢复
+ */
+@Service
+public class IndicatorEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicatorEngine.class);
+
+    private final StockDailyBarRepository stockDailyBarRepository;
+    private final StockDailyIndicatorRepository indicatorRepository;
+    private final StockDailyIndicatorWriter indicatorWriter;
+    private final IndicatorProperties properties;
+    private final TransactionTemplate readTx;
+    /** 重建时读流事务仍打开，写入须在独立事务（独立连接）中提交 */
+    private final TransactionTemplate writeTx;
+
+    /** symbol → 待处理的最早变更交易日 */
+    private final Map<String, LocalDate> pending = new ConcurrentHashMap<>();
+    /** symbol → 与表中最新一行一致的滚动状态 */
+    private final Map<String, IndicatorState> states = new ConcurrentHashMap<>();
+    /** 增量处理与全量重建互斥 */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile boolean rebuilding;
+    private volatile Map<String, Object> lastRebuild;
+
+    public IndicatorEngine(StockDailyBarRepository stockDailyBarRepository,
+                           StockDailyIndicatorRepository indicatorRepository,
+                           StockDailyIndicatorWriter indicatorWriter,
+                           IndicatorProperties properties,
+                           PlatformTransactionManager transactionManager) {
+        this.stockDailyBarRepository = stockDailyBarRepository;
+        this.indicatorRepository = indicatorRepository;
+        this.indicatorWriter = indicatorWriter;
+        this.properties = properties;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onBarsChanged(BarsChangedEvent event) {
+        if (!properties.isEnabled() || event.isEmpty()) {
+            return;
+        }
+        event.symbolsByDate().forEach((date, symbols) -> {
+            for (String symbol : symbols) {
+                pending.merge(symbol, date, (a, b) -> a.isBefore(b) ? a : b);
+            }
+        });
+    }
+
+    /**
+     * 处理已合并的变更；全量重建运行中则留待下次（重建结束后状态已就绪，变更按历史改写重算）。
+     */
+    @Scheduled(fixedDelayString = "${indicator.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty() || !lock.tryLock()) {
+            return;
+        }
+        try {
+            int symbols = 0;
+            long rows = 0;
+            for (String symbol : new TreeSet<>(pending.keySet())) {
+                LocalDate from = pending.remove(symbol);
+                if (from == null) {
+                    continue;
+                }
+                try {
+                    rows += update(symbol, from);
+                    symbols++;
+                } catch (RuntimeException e) {
+                    states.remove(symbol);
+                    log.warn("[IndicatorEngine] update symbol={} from={} failed: {}", symbol, from, e.getMessage());
+                }
+            }
+            log.debug("[IndicatorEngine] flushed symbols={}, rows={}", symbols, rows);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 重算 symbol 自 from（含）起的指标。
+     *
+     * @return 写入行数
+     */
+    int update(String symbol, LocalDate from) {
+        IndicatorState state = states.get(symbol);
+        if (state == null || state.lastDate() == null || !from.isAfter(state.lastDate())) {
+            state = restore(symbol, from);
+        }
+        LocalDate after = state.lastDate();
+        List<Object[]> rows = readTx.execute(status -> stockDailyBarRepository.findIndicatorRowsAfter(symbol, after));
+        List<IndicatorState.Values> values = new ArrayList<>(rows == null ? 0 : rows.size());
+        if (rows != null) {
+            for (Object[] r : rows) {
+                values.add(state.push((LocalDate) r[0], (BigDecimal) r[1], (BigDecimal) r[2], (BigDecimal) r[3],
+                        ((Number) r[4]).longValue()));
+            }
+        }
+        writeTx.executeWithoutResult(status -> indicatorWriter.replaceAfter(symbol, after, values));
+        states.put(symbol, state);
+        return values.size();
+    }
+
+    /** 由 from 之前的最近一行指标与其前 50 根 bar 恢复状态；不可恢复时返回空状态（从头回放） */
+    private IndicatorState restore(String symbol, LocalDate from) {
+        IndicatorState state = readTx.execute(status -> {
+            StockDailyIndicator last = indicatorRepository
+                    .findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc(symbol, from).orElse(null);
+            if (last == null) {
+                return null;
+            }
+            List<Object[]> recent = new ArrayList<>(stockDailyBarRepository.findIndicatorRowsUpTo(
+                    symbol, last.getTradeDate(), PageRequest.of(0, IndicatorState.SMA_LONG)));
+            Collections.reverse(recent);
+            return IndicatorState.resume(toValues(last), recent);
+        });
+        return state == null ? new IndicatorState() : state;
+    }
+
+    /**
+     * 全量重建：一次流式读取全部日 K，逐 symbol 从头计算并替换其全部指标行。
+     *
+     * @return 汇总（symbols / rows / failed / elapsedMs）；增量处理或另一次重建进行中返回 null
+     */
+    public Map<String, Object> rebuild() {
+        if (!lock.tryLock()) {
+            return null;
+        }
+        rebuilding = true;
+        long t0 = System.currentTimeMillis();
+        long[] counts = new long[3];
+        try {
+            states.clear();
+            // 此前的变更已包含在本次读流中；重建期间到达的变更保留，结束后按历史改写重算
+            pending.clear();
+            readTx.executeWithoutResult(status -> {
+                try (Stream<Object[]> stream = stockDailyBarRepository.streamIndicatorRows()) {
+                    Iterator<Object[]> it = stream.iterator();
+                    String symbol = null;
+                    IndicatorState state = null;
+                    List<IndicatorState.Values> values = new ArrayList<>();
+                    while (it.hasNext()) {
+                        Object[] r = it.next();
+                        if (!r[0].equals(symbol)) {
+                            if (symbol != null) {
+                                replaceAll(symbol, state, values, counts);
+                            }
+                            symbol = (String) r[0];
+                            state = new IndicatorState();
+                            values = new ArrayList<>();
+                        }
+                        values.add(state.push((LocalDate) r[1], (BigDecimal) r[2], (BigDecimal) r[3],
+                                (BigDecimal) r[4], ((Number) r[5]).longValue()));
+                    }
+                    if (symbol != null) {
+                        replaceAll(symbol, state, values, counts);
+                    }
+                }
+            });
+        } finally {
+            rebuilding = false;
+            lock.unlock();
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("symbols", counts[0]);
+        summary.put("rows", counts[1]);
+        summary.put("failed", counts[2]);
+        summary.put("elapsedMs", System.currentTimeMillis() - t0);
+        lastRebuild = summary;
+        log.info("[IndicatorEngine] rebuild done {}", summary);
+        return summary;
+    }
+
+    private void replaceAll(String symbol, IndicatorState state, List<IndicatorState.Values> values, long[] counts) {
+        try {
+            writeTx.executeWithoutResult(status -> indicatorWriter.replaceAfter(symbol, null, values));
+            states.put(symbol, state);
+            counts[0]++;
+            counts[1] += values.size();
+        } catch (RuntimeException e) {
+            counts[2]++;
+            log.warn("[IndicatorEngine] rebuild symbol={} failed: {}", symbol, e.getMessage());
+        }
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    /** 引擎状态（管理端展示） */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("rebuilding", rebuilding);
+        stats.put("trackedSymbols", states.size());
+        stats.put("pendingSymbols", pending.size());
+        stats.put("lastRebuild", lastRebuild);
+        return stats;
+    }
+
+    private static IndicatorState.Values toValues(StockDailyIndicator row) {
+        return new IndicatorState.Values(row.getTradeDate(), row.getBarCount(),
+                toDouble(row.getCloseSma5()), toDouble(row.getCloseSma20()), toDouble(row.getCloseSma50()),
+                toDouble(row.getCloseEma12()), toDouble(row.getCloseEma26()),
+                toDouble(row.getVolumeSma20()), toDouble(row.getVolumeEma20()), toDouble(row.getRelativeVolume()),
+                toDouble(row.getRsi14()), toDouble(row.getAtr14()), toDouble(row.getHigh20()), toDouble(row.getLow20()),
+                toDouble(row.getRsiAvgGain()), toDouble(row.getRsiAvgLoss()), checkpoint(row));
+    }
+
+    /** 递推状态列任一为空（V13 之前写入的行）返回 null：不从舍入后的展示值恢复，改为从头回放 */
+    private static IndicatorState.Checkpoint checkpoint(StockDailyIndicator row) {
+        if (row.getStateEmaFast() == null || row.getStateEmaSlow() == null || row.getStateVolumeEma() == null
+                || row.getStateAvgGain() == null || row.getStateAvgLoss() == null || row.getStateAtr() == null) {
+            return null;
+        }
+        return new IndicatorState.Checkpoint(row.getStateEmaFast(), row.getStateEmaSlow(), row.getStateVolumeEma(),
+                row.getStateAvgGain(), row.getStateAvgLoss(), row.getStateAtr());
+    }
+
+    private static Double toDouble(BigDecimal value) {
+        return value == null ? null : value.doubleValue();
+    }
+}
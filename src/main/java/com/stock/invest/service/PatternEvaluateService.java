@@ -7,6 +7,19 @@ import java.util.List;
 
 public interface PatternEvaluateService {
 
+    /** 命中位图中放量突破（volume_spike）相对递增量能（increasing_volume）的位移 */
+    int SPIKE_SHIFT = 8;
+
+    /** 窗口 w 的选择位 / 递增量能命中位：bit w */
+    static int windowBit(int windowDays) {
+        return 1 << windowDays;
+    }
+
+    /** 窗口 w 的放量突破命中位：bit (8 + w) */
+    static int spikeBit(int windowDays) {
+        return 1 << (SPIKE_SHIFT + windowDays);
+    }
+
     boolean matchesIncreasingVolumePattern(List<StockDailyBar> sevenBarsOldestFirst);
 
     boolean matchesIncreasingVolumePattern(List<StockDailyBar> barsOldestFirst, int windowDays);
@@ -18,11 +31,51 @@ public interface PatternEvaluateService {
 
     /**
      * 放量突破模式：
-     * 窗口内前 (windowDays-1) 天的平均成交量 × 5 &lt; 最后一天的成交量
+     * 窗口内前 (windowDays-1) 天的平均成交量 × 倍数（{@code screening.pattern.spike-multiplier}，默认 5）&lt; 最后一天的成交量
      *
      * @param barsOldestFirst K线数据（oldest-first 排序），v1最远，vN最近
      * @param windowDays 窗口天数（2-7）
      * @return 是否命中
      */
     boolean matchesVolumeSpikePattern(List<StockDailyBar> barsOldestFirst, int windowDays);
+
+    /**
+     * 单次评估多个窗口 × 两种算法，窗口均以最后一根为终点。
+     * <p>默认实现逐窗口调用 {@link #matchesIncreasingVolumePattern(List, int)} /
+     * {@link #matchesVolumeSpikePattern}；实现类可覆盖为单遍计算，结果须逐位一致。</p>
+     *
+     * @param barsOldestFirst K线数据（oldest-first）
+     * @param windowMask      待评估窗口，{@link #windowBit} 按位或
+     * @return 命中位图：{@link #windowBit}(w) = 递增量能命中，{@link #spikeBit}(w) = 放量突破命中
+     */
+    default int evaluateWindows(List<StockDailyBar> barsOldestFirst, int windowMask) {
+        if (barsOldestFirst == null) {
+            return 0;
+        }
+        int n = barsOldestFirst.size();
+        int mask = 0;
+        for (int w = 0; w < SPIKE_SHIFT; w++) {
+            if ((windowMask & windowBit(w)) == 0 || n < w) {
+                continue;
+            }
+            List<StockDailyBar> slice = barsOldestFirst.subList(n - w, n);
+            if (matchesIncreasingVolumePattern(slice, w)) {
+                mask |= windowBit(w);
+            }
+            if (matchesVolumeSpikePattern(slice, w)) {
+                mask |= spikeBit(w);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 诊断：按 {@link #evaluateWindows} 的同一计算输出逐窗口决策明细（均值、比较结果）。
+     * <p>会分配字符串，只用于观察名单 symbol，不进入评估热路径。默认无明细。</p>
+     *
+     * @return 每个窗口长度一行，按 len 递增
+     */
+    default List<String> traceWindows(List<StockDailyBar> barsOldestFirst, int windowMask) {
+        return List.of();
+    }
 }
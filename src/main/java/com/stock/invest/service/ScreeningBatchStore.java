@@ -0,0 +1,201 @@
+package com.stock.invest.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stock.invest.entity.ScreeningBatch;
+import com.stock.invest.repository.ScreeningBatchRepository;
+import com.stock.invest.repository.ScreeningMatchRepository;
+
+/**
+ * 筛选批次摘要（screening_batch）的写入与历史分页读取。
+ *
+ * 职责：
+ * 1. 全量筛选结束时 {@link #recordRun} 记录运行起止与耗时；screening_match 有写入的交易日经
+ *    {@link #refreshTradeDates} 重算该日全部批次的计数（重跑归并会把旧批次的行改归新批次）。
+ *    均在调用方（筛选 / 增量重评）事务内执行，与命中行一同提交或回滚
+ * 2. {@link #history} 按 (tradeDate, id) 倒序键集分页：每页一次索引范围扫描，与历史总量无关
+ */
+@Service
+public class ScreeningBatchStore {
+
+    /** 单页上限 */
+    static final int MAX_PAGE = 500;
+
+    private static final TypeReference<Map<String, Long>> COUNTS = new TypeReference<>() {
+    };
+
+    private final ScreeningBatchRepository screeningBatchRepository;
+    private final ScreeningMatchRepository screeningMatchRepository;
+    private final ObjectMapper objectMapper;
+
+    public ScreeningBatchStore(ScreeningBatchRepository screeningBatchRepository,
+                               ScreeningMatchRepository screeningMatchRepository,
+                               ObjectMapper objectMapper) {
+        this.screeningBatchRepository = screeningBatchRepository;
+        this.screeningMatchRepository = screeningMatchRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 全量筛选写入完成：记录本批次运行起止并重算该交易日全部批次的计数。
+     */
+    public void recordRun(String batchId, LocalDate tradeDate, Instant startedAt) {
+        Instant finishedAt = Instant.now();
+        Map<String, ScreeningBatch> rows = recount(tradeDate);
+        ScreeningBatch run = rows.computeIfAbsent(batchId, id -> newRow(id, tradeDate));
+        run.setStartedAt(startedAt);
+        run.setFinishedAt(finishedAt);
+        run.setDurationMs(Duration.between(startedAt, finishedAt).toMillis());
+        save(rows);
+    }
+
+    /**
+     * 增量重评有写入的交易日：重算这些交易日全部批次的计数（新建批次随之入表）。
+     */
+    public void refreshTradeDates(Collection<LocalDate> tradeDates) {
+        for (LocalDate tradeDate : tradeDates) {
+            save(recount(tradeDate));
+        }
+    }
+
+    /**
+     * 历史批次，按筛选日、写入顺序倒序。
+     *
+     * @param limit  页大小，限制在 [1, {@value #MAX_PAGE}]
+     * @param cursor 上一页末项的 cursor 字段；null / 空白 = 首页
+     * @throws IllegalArgumentException cursor 格式非法
+     */
+    public List<Map<String, Object>> history(int limit, String cursor) {
+        PageRequest page = PageRequest.of(0, Math.min(Math.max(1, limit), MAX_PAGE));
+        List<ScreeningBatch> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = screeningBatchRepository.findLatest(page);
+        } else {
+            Cursor c = Cursor.parse(cursor);
+            rows = screeningBatchRepository.findBefore(c.tradeDate(), c.id(), page);
+        }
+        List<Map<String, Object>> history = new ArrayList<>(rows.size());
+        for (ScreeningBatch row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("batchId", row.getBatchId());
+            item.put("matchCount", row.getMatchCount());
+            item.put("lastTradeDate", row.getTradeDate().toString());
+            item.put("windowCounts", readCounts(row.getWindowCounts()));
+            item.put("algorithmCounts", readCounts(row.getAlgorithmCounts()));
+            item.put("startedAt", row.getStartedAt() == null ? null : row.getStartedAt().toString());
+            item.put("finishedAt", row.getFinishedAt() == null ? null : row.getFinishedAt().toString());
+            item.put("durationMs", row.getDurationMs());
+            item.put("cursor", new Cursor(row.getTradeDate(), row.getId()).toString());
+            history.add(item);
+        }
+        return history;
+    }
+
+    /** 翻页游标：tradeDate_id */
+    record Cursor(LocalDate tradeDate, long id) {
+
+        static Cursor parse(String value) {
+            int sep = value.lastIndexOf('_');
+            try {
+                if (sep > 0) {
+                    return new Cursor(LocalDate.parse(value.substring(0, sep)), Long.parseLong(value.substring(sep + 1)));
+                }
+            } catch (DateTimeParseException | NumberFormatException e) {
+                // 落到下方统一报错
+            }
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+
+        @Override
+        public String toString() {
+            return tradeDate + "_" + id;
+        }
+    }
+
+    /** 按 screening_match 重算某交易日全部批次（已有摘要行 + 有命中的批次）的计数，未保存 */
+    private Map<String, ScreeningBatch> recount(LocalDate tradeDate) {
+        Map<String, SortedMap<Integer, Long>> windows = new HashMap<>();
+        Map<String, SortedMap<String, Long>> algorithms = new HashMap<>();
+        for (Object[] r : screeningMatchRepository.countByTradeDateGroupByBatch(tradeDate)) {
+            String batchId = (String) r[0];
+            long count = ((Number) r[3]).longValue();
+            windows.computeIfAbsent(batchId, k -> new TreeMap<>()).merge(((Number) r[1]).intValue(), count, Long::sum);
+            algorithms.computeIfAbsent(batchId, k -> new TreeMap<>()).merge((String) r[2], count, Long::sum);
+        }
+        Map<String, ScreeningBatch> rows = new LinkedHashMap<>();
+        for (ScreeningBatch row : screeningBatchRepository.findByTradeDate(tradeDate)) {
+            rows.put(row.getBatchId(), row);
+        }
+        windows.keySet().forEach(batchId -> rows.computeIfAbsent(batchId, id -> newRow(id, tradeDate)));
+        for (ScreeningBatch row : rows.values()) {
+            SortedMap<Integer, Long> byWindow = windows.getOrDefault(row.getBatchId(), new TreeMap<>());
+            row.setMatchCount((int) byWindow.values().stream().mapToLong(Long::longValue).sum());
+            row.setWindowCounts(writeCounts(byWindow));
+            row.setAlgorithmCounts(writeCounts(algorithms.getOrDefault(row.getBatchId(), new TreeMap<>())));
+        }
+        return rows;
+    }
+
+    private void save(Map<String, ScreeningBatch> rows) {
+        Instant now = Instant.now();
+        List<ScreeningBatch> keep = new ArrayList<>();
+        List<ScreeningBatch> drop = new ArrayList<>();
+        for (ScreeningBatch row : rows.values()) {
+            // 增量重评新建、命中已全部删除的批次不是一次运行，不保留
+            if (row.getMatchCount() == 0 && row.getStartedAt() == null) {
+                if (row.getId() != null) {
+                    drop.add(row);
+                }
+                continue;
+            }
+            row.setUpdatedAt(now);
+            keep.add(row);
+        }
+        if (!drop.isEmpty()) {
+            screeningBatchRepository.deleteAllInBatch(drop);
+        }
+        if (!keep.isEmpty()) {
+            screeningBatchRepository.saveAll(keep);
+        }
+    }
+
+    private static ScreeningBatch newRow(String batchId, LocalDate tradeDate) {
+        ScreeningBatch row = new ScreeningBatch();
+        row.setBatchId(batchId);
+        row.setTradeDate(tradeDate);
+        return row;
+    }
+
+    private String writeCounts(Map<?, Long> counts) {
+        try {
+            return objectMapper.writeValueAsString(counts);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("serialize batch counts failed", e);
+        }
+    }
+
+    private Map<String, Long> readCounts(String json) {
+        try {
+            return objectMapper.readValue(json, COUNTS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("parse batch counts failed: " + json, e);
+        }
+    }
+}
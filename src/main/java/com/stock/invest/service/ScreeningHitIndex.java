@@ -0,0 +1,313 @@
+package com.stock.invest.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.model.SymbolBitmap;
+import com.stock.invest.repository.ScreeningMatchRepository;
+
+/**
+ * 筛选命中位图索引：(交易日, algorithm, windowDays) → 命中 symbol 的 {@link SymbolBitmap}（位下标为 symbol 字典 id）。
+ *
+ * 职责：
+ * 1. 应用就绪后流式加载 screening_match 全部命中（加载完成前 {@link #isReady} 为 false）
+ * 2. screening_match 写入提交后按交易日整日重建（{@link #refreshTradeDates}），每日位图整体替换，读路径无锁
+ * 3. 跨日查询（{@link #query}）：单日内各查询项按 AND / OR 合并，再在最近 N 个筛选日上统计每个 symbol
+ *    的命中天数，取不少于 minDays 的 symbol —— 全部为内存位运算，不访问 screening_match
+ */
+@Service
+public class ScreeningHitIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreeningHitIndex.class);
+
+    /** 单次查询最多回看的筛选日数 */
+    static final int MAX_DAYS = 250;
+    /** 单次查询最多查询项数 */
+    static final int MAX_TERMS = 12;
+
+    private static final Pattern TERM = Pattern.compile("([a-z_]+)(?::(\\d)d?)?");
+
+    /** 索引键 */
+    public record HitKey(String algorithm, int windowDays) {
+    }
+
+    /**
+     * 查询项。
+     *
+     * @param windowDays 窗口天数；null = 该算法任一窗口
+     */
+    public record Term(String algorithm, Integer windowDays) {
+
+        /**
+         * 解析逗号分隔的查询项：{@code algorithm} 或 {@code algorithm:Nd}（如 "volume_spike:3d,increasing_volume"）。
+         *
+         * @throws IllegalArgumentException 为空、格式错误、窗口不在 2~7 或超过 {@value ScreeningHitIndex#MAX_TERMS} 项
+         */
+        public static List<Term> parseAll(String terms) {
+            List<Term> parsed = new ArrayList<>();
+            if (terms != null) {
+                for (String token : terms.split(",")) {
+                    String t = token.trim().toLowerCase(Locale.ROOT);
+                    if (t.isEmpty()) {
+                        continue;
+                    }
+                    Matcher m = TERM.matcher(t);
+                    if (!m.matches()) {
+                        throw new IllegalArgumentException("Invalid term: " + token.trim());
+                    }
+                    Integer window = m.group(2) == null ? null : Integer.valueOf(m.group(2));
+                    if (window != null && !WindowConstants.ALL_WINDOW_DAYS.contains(window)) {
+                        throw new IllegalArgumentException("Invalid window in term: " + token.trim());
+                    }
+                    parsed.add(new Term(m.group(1), window));
+                }
+            }
+            if (parsed.isEmpty() || parsed.size() > MAX_TERMS) {
+                throw new IllegalArgumentException("terms must contain 1~" + MAX_TERMS + " items");
+            }
+            return parsed;
+        }
+
+        @Override
+        public String toString() {
+            return windowDays == null ? algorithm : algorithm + ":" + windowDays + "d";
+        }
+    }
+
+    /**
+     * 查询结果。
+     *
+     * @param dates   参与统计的筛选日（升序）
+     * @param symbols 满足条件的 symbol（升序）
+     */
+    public record Result(List<LocalDate> dates, List<String> symbols) {
+    }
+
+    private final ScreeningMatchRepository repository;
+    private final SymbolDictionary symbolDictionary;
+    /** 刷新在筛选事务提交后（afterCommit）执行，必须开新事务 */
+    private final TransactionTemplate readTx;
+
+    /** 交易日 → 各键位图（不可变，整日替换） */
+    private final ConcurrentSkipListMap<LocalDate, Map<HitKey, SymbolBitmap>> byDate = new ConcurrentSkipListMap<>();
+    /** 加载与刷新互斥：加载期间提交的写入在加载完成后重建，不被加载结果覆盖 */
+    private final Object loadMonitor = new Object();
+
+    private volatile boolean ready;
+
+    public ScreeningHitIndex(ScreeningMatchRepository repository,
+                             SymbolDictionary symbolDictionary,
+                             PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.symbolDictionary = symbolDictionary;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 应用就绪后加载（失败不影响启动：查询返回未就绪）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("[ScreeningHitIndex] load failed, hit queries unavailable: {}", e.getMessage());
+        }
+    }
+
+    /** 从 screening_match 流式加载全部命中，按交易日分组构建位图 */
+    public void load() {
+        long t0 = System.currentTimeMillis();
+        long[] rows = new long[1];
+        synchronized (loadMonitor) {
+            readTx.executeWithoutResult(status -> {
+                try (Stream<Object[]> stream = repository.streamHitIds()) {
+                    Iterator<Object[]> it = stream.iterator();
+                    LocalDate current = null;
+                    Map<HitKey, IntStream.Builder> day = new HashMap<>();
+                    while (it.hasNext()) {
+                        Object[] r = it.next();
+                        LocalDate date = (LocalDate) r[0];
+                        if (!date.equals(current)) {
+                            if (current != null) {
+                                byDate.put(current, freeze(day));
+                            }
+                            current = date;
+                            day = new HashMap<>();
+                        }
+                        add(day, r);
+                        rows[0]++;
+                    }
+                    if (current != null) {
+                        byDate.put(current, freeze(day));
+                    }
+                }
+            });
+            ready = true;
+        }
+        log.info("[ScreeningHitIndex] loaded tradeDates={}, hits={}, memory={} KB, elapsedMs={}",
+                byDate.size(), rows[0], memoryBytes() / 1024, System.currentTimeMillis() - t0);
+    }
+
+    /**
+     * screening_match 写入提交后：按交易日整日重建（该日已无命中则移除）。失败只记日志。
+     */
+    public void refreshTradeDates(Collection<LocalDate> tradeDates) {
+        if (tradeDates.isEmpty()) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            try {
+                List<Object[]> rows = readTx.execute(status -> repository.findHitIdsByTradeDateIn(tradeDates));
+                Map<LocalDate, Map<HitKey, IntStream.Builder>> grouped = new HashMap<>();
+                if (rows != null) {
+                    for (Object[] r : rows) {
+                        add(grouped.computeIfAbsent((LocalDate) r[0], d -> new HashMap<>()), r);
+                    }
+                }
+                for (LocalDate date : tradeDates) {
+                    Map<HitKey, IntStream.Builder> day = grouped.get(date);
+                    if (day == null) {
+                        byDate.remove(date);
+                    } else {
+                        byDate.put(date, freeze(day));
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("[ScreeningHitIndex] refresh tradeDates={} failed: {}", tradeDates, e.getMessage());
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 跨日命中查询。
+     *
+     * @param terms    查询项
+     * @param matchAll true = 单日内全部查询项均命中（AND），false = 任一命中（OR）
+     * @param endDate  统计区间末日（含）；null = 最新筛选日
+     * @param days     回看的筛选日数（只计有筛选结果的交易日），1~{@value #MAX_DAYS}
+     * @param minDays  至少命中的天数，1~days
+     * @throws IllegalArgumentException 参数越界
+     */
+    public Result query(List<Term> terms, boolean matchAll, LocalDate endDate, int days, int minDays) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be in [1, " + MAX_DAYS + "]");
+        }
+        if (minDays < 1 || minDays > days) {
+            throw new IllegalArgumentException("minDays must be in [1, days]");
+        }
+        NavigableMap<LocalDate, Map<HitKey, SymbolBitmap>> range =
+                (endDate == null ? byDate : byDate.headMap(endDate, true)).descendingMap();
+        List<LocalDate> dates = new ArrayList<>(Math.min(days, range.size()));
+        List<SymbolBitmap> daily = new ArrayList<>(Math.min(days, range.size()));
+        for (Map.Entry<LocalDate, Map<HitKey, SymbolBitmap>> e : range.entrySet()) {
+            if (dates.size() == days) {
+                break;
+            }
+            dates.add(0, e.getKey());
+            daily.add(combine(e.getValue(), terms, matchAll));
+        }
+        SymbolBitmap hits = atLeast(daily, minDays);
+        List<Integer> ids = new ArrayList<>(hits.cardinality());
+        hits.forEach(ids::add);
+        List<String> symbols = new ArrayList<>(symbolDictionary.symbolsOf(ids).values());
+        symbols.sort(null);
+        return new Result(dates, symbols);
+    }
+
+    /** 位图总堆占用粗估（字节） */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Map<HitKey, SymbolBitmap> day : byDate.values()) {
+            for (SymbolBitmap bitmap : day.values()) {
+                bytes += bitmap.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private static SymbolBitmap combine(Map<HitKey, SymbolBitmap> day, List<Term> terms, boolean matchAll) {
+        SymbolBitmap acc = null;
+        for (Term term : terms) {
+            SymbolBitmap bitmap = SymbolBitmap.EMPTY;
+            if (term.windowDays() != null) {
+                bitmap = day.getOrDefault(new HitKey(term.algorithm(), term.windowDays()), SymbolBitmap.EMPTY);
+            } else {
+                for (Map.Entry<HitKey, SymbolBitmap> e : day.entrySet()) {
+                    if (e.getKey().algorithm().equals(term.algorithm())) {
+                        bitmap = bitmap.or(e.getValue());
+                    }
+                }
+            }
+            acc = acc == null ? bitmap : matchAll ? acc.and(bitmap) : acc.or(bitmap);
+        }
+        return acc == null ? SymbolBitmap.EMPTY : acc;
+    }
+
+    /** 在不少于 minDays 个位图中出现的元素：1 天取并集，全部天数取交集，其余按元素计数 */
+    private static SymbolBitmap atLeast(List<SymbolBitmap> daily, int minDays) {
+        if (daily.size() < minDays) {
+            return SymbolBitmap.EMPTY;
+        }
+        if (minDays == 1 || minDays == daily.size()) {
+            SymbolBitmap acc = daily.get(0);
+            for (int i = 1; i < daily.size(); i++) {
+                acc = minDays == 1 ? acc.or(daily.get(i)) : acc.and(daily.get(i));
+            }
+            return acc;
+        }
+        int max = -1;
+        for (SymbolBitmap bitmap : daily) {
+            max = Math.max(max, bitmap.last());
+        }
+        int[] counts = new int[max + 1];
+        IntStream.Builder out = IntStream.builder();
+        for (SymbolBitmap bitmap : daily) {
+            bitmap.forEach(id -> {
+                if (++counts[id] == minDays) {
+                    out.add(id);
+                }
+            });
+        }
+        return SymbolBitmap.of(out.build().toArray());
+    }
+
+    private static void add(Map<HitKey, IntStream.Builder> day, Object[] r) {
+        day.computeIfAbsent(new HitKey((String) r[1], ((Number) r[2]).intValue()), k -> IntStream.builder())
+                .add(((Number) r[3]).intValue());
+    }
+
+    private static Map<HitKey, SymbolBitmap> freeze(Map<HitKey, IntStream.Builder> day) {
+        Map<HitKey, SymbolBitmap> frozen = new HashMap<>();
+        day.forEach((key, ids) -> frozen.put(key, SymbolBitmap.of(ids.build().toArray())));
+        return Map.copyOf(frozen);
+    }
+}
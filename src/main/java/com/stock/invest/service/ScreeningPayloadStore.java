@@ -0,0 +1,171 @@
+package com.stock.invest.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stock.invest.entity.ScreeningPayload;
+import com.stock.invest.model.RenderedPayload;
+import com.stock.invest.repository.ScreeningPayloadRepository;
+
+/**
+ * 筛选结果预渲染存储：每个 (batchId, view) 的响应体序列化一次，之后按字节原样返回。
+ *
+ * 职责：
+ * 1. 两级查找 —— 进程内缓存 → screening_payload 表 → 调用方渲染（渲染结果写回两级）
+ * 2. screening_match 写入提交后按交易日整日失效（{@link #evictTradeDates}）；失效期间进行中的渲染
+ *    可能读到写入前的数据，经失效代次比对不回写
+ * 3. 筛选完成后预热（{@link #warm}），首个读请求即命中
+ * <p>表读写失败只记日志：仍返回渲染结果，读路径不因持久化层异常失败。</p>
+ */
+@Service
+public class ScreeningPayloadStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreeningPayloadStore.class);
+
+    /** 进程内缓存条目上限（每批次 1 个结果视图 + 少量窗口组合的通知视图） */
+    static final int MAX_ENTRIES = 512;
+
+    private final ScreeningPayloadRepository repository;
+    private final ObjectMapper objectMapper;
+    /** 失效与预热在筛选事务提交后（afterCommit）执行，必须开新事务 */
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+
+    private final Cache<String, RenderedPayload> memory = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .build();
+    /** 失效代次：渲染开始后发生过失效则结果不回写 */
+    private final AtomicLong generation = new AtomicLong();
+    /** 回写与失效互斥：代次比对与写入之间不会插入一次失效 */
+    private final Object writeMonitor = new Object();
+
+    public ScreeningPayloadStore(ScreeningPayloadRepository repository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 取批次某视图的预渲染响应体，两级均未命中时调用 renderer 渲染并写回。
+     *
+     * @param tradeDate 批次筛选日（失效粒度）
+     * @param view      视图键，≤ 64 字符
+     */
+    public RenderedPayload get(String batchId, LocalDate tradeDate, String view, Supplier<Object> renderer) {
+        String key = batchId + '|' + view;
+        RenderedPayload cached = memory.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        Optional<ScreeningPayload> stored = load(batchId, view);
+        if (stored.isPresent()) {
+            RenderedPayload payload = new RenderedPayload(stored.get().getPayload(), stored.get().getEtag());
+            synchronized (writeMonitor) {
+                if (generation.get() == startGeneration) {
+                    memory.put(key, payload);
+                }
+            }
+            return payload;
+        }
+        RenderedPayload payload = render(renderer.get());
+        synchronized (writeMonitor) {
+            if (generation.get() == startGeneration) {
+                memory.put(key, payload);
+                persist(batchId, tradeDate, view, payload);
+            }
+        }
+        return payload;
+    }
+
+    /** 序列化但不存储（空结果等无批次的响应） */
+    public RenderedPayload render(Object body) {
+        try {
+            return RenderedPayload.of(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("serialize screening payload failed", e);
+        }
+    }
+
+    /**
+     * 指定交易日的 screening_match 有写入：两级缓存中这些交易日的批次全部失效。
+     */
+    public void evictTradeDates(Collection<LocalDate> tradeDates) {
+        if (tradeDates.isEmpty()) {
+            return;
+        }
+        synchronized (writeMonitor) {
+            generation.incrementAndGet();
+            // 进程内键不含交易日，整体清空（条目少，下次读取从表或重新渲染恢复）
+            memory.invalidateAll();
+            try {
+                Integer deleted = writeTx.execute(status -> repository.deleteByTradeDateIn(tradeDates));
+                log.info("[ScreeningPayloadStore] evicted tradeDates={}, storedRows={}", tradeDates, deleted);
+            } catch (DataAccessException e) {
+                log.warn("[ScreeningPayloadStore] evict tradeDates={} failed: {}", tradeDates, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 预热：在新的只读事务中执行渲染任务（通常为各视图的 get），失败只记日志。
+     */
+    public void warm(Runnable task) {
+        try {
+            readTx.executeWithoutResult(status -> task.run());
+        } catch (RuntimeException e) {
+            log.warn("[ScreeningPayloadStore] warm failed: {}", e.getMessage());
+        }
+    }
+
+    private Optional<ScreeningPayload> load(String batchId, String view) {
+        try {
+            Optional<ScreeningPayload> row = readTx.execute(status -> repository.findByBatchIdAndViewKey(batchId, view));
+            return row == null ? Optional.empty() : row;
+        } catch (DataAccessException e) {
+            log.warn("[ScreeningPayloadStore] load {}|{} failed: {}", batchId, view, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void persist(String batchId, LocalDate tradeDate, String view, RenderedPayload payload) {
+        ScreeningPayload row = new ScreeningPayload();
+        row.setBatchId(batchId);
+        row.setViewKey(view);
+        row.setTradeDate(tradeDate);
+        row.setEtag(payload.etag());
+        row.setPayload(payload.json());
+        row.setCreatedAt(Instant.now());
+        try {
+            writeTx.executeWithoutResult(status -> repository.save(row));
+        } catch (DataIntegrityViolationException e) {
+            // 并发渲染同一视图：已由另一请求写入，内容一致
+            log.debug("[ScreeningPayloadStore] {}|{} already stored", batchId, view);
+        } catch (DataAccessException e) {
+            log.warn("[ScreeningPayloadStore] persist {}|{} failed: {}", batchId, view, e.getMessage());
+        }
+    }
+}
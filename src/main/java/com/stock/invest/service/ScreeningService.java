@@ -3,6 +3,9 @@ package com.stock.invest.service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import com.stock.invest.model.RenderedPayload;
 
 /**
  * 模式筛选服务：从 stock_daily_bars 读取最近数据，
@@ -28,6 +31,19 @@ public interface ScreeningService {
      */
     String runScreening(LocalDate tradeDate, Integer windowDays, Integer limit);
 
+    /**
+     * 增量筛选：日 K 变更后只重评给定 symbol，并 upsert 其 screening_match 行
+     * （新命中插入、已有命中刷新价格字段、不再命中的行删除），评估全部窗口 2~7 天。
+     * <p>受影响的筛选交易日：[barDate, barDate + 窗口回看天数] 内已有结果的交易日；
+     * barDate 晚于全部已有结果时为 barDate 本身。新增行归入该交易日的最新批次（无批次则新建）。</p>
+     *
+     * @param barDate 发生变更的 bar 交易日
+     * @param symbols 变更的 symbol
+     * @return 摘要 Map，包含 barDate / tradeDates / symbols / inserted / updated / deleted；
+     *         全量筛选运行中返回 null（调用方稍后重试）
+     */
+    Map<String, Object> rescreenSymbols(LocalDate barDate, Set<String> symbols);
+
     /**
      * 获取最新一次筛选结果（含 stock name）。
      *
@@ -35,6 +51,12 @@ public interface ScreeningService {
      */
     Map<String, Object> getLatestScreening();
 
+    /**
+     * 最新一次筛选结果的预渲染响应体（结构同 {@link #getLatestScreening()}）：
+     * 每批次只渲染一次，批次不变时不访问数据库。
+     */
+    RenderedPayload getLatestScreeningPayload();
+
     /**
      * 获取指定交易日的最新一次筛选结果（含 stock name）。
      *
@@ -44,6 +66,13 @@ public interface ScreeningService {
      */
     Map<String, Object> getScreeningByDate(String tradeDate);
 
+    /**
+     * 指定交易日最新一次筛选结果的预渲染响应体（结构同 {@link #getScreeningByDate(String)}）。
+     *
+     * @throws IllegalArgumentException tradeDate 为空或格式错误
+     */
+    RenderedPayload getScreeningByDatePayload(String tradeDate);
+
     /**
      * 获取历史筛选批次列表。
      *
@@ -51,6 +80,15 @@ public interface ScreeningService {
      */
     List<Map<String, Object>> getScreeningHistory(int limit);
 
+    /**
+     * 获取历史筛选批次列表（键集分页，按筛选日、写入顺序倒序）。
+     *
+     * @param cursor 上一页末项的 cursor 字段；null = 首页
+     * @return 每个批次的摘要 Map 列表（含各窗口 / 各算法命中数、运行耗时与翻页 cursor）
+     * @throws IllegalArgumentException cursor 格式非法
+     */
+    List<Map<String, Object>> getScreeningHistory(int limit, String cursor);
+
     /**
      * 获取某批次筛选详情（含 stock name）。
      *
@@ -82,6 +120,12 @@ public interface ScreeningService {
      */
     Map<String, Object> getLatestNotificationGrouped(String windows);
 
+    /**
+     * 最新筛选结果通知分组的预渲染响应体（结构同 {@link #getLatestNotificationGrouped(String)}），
+     * 按批次 + 规范化窗口列表各渲染一次。
+     */
+    RenderedPayload getLatestNotificationPayload(String windows);
+
     /**
      * 获取指定交易日的最新一次筛选结果，按 algorithm + windowDays 分组统计（通知用）。
      *
@@ -90,4 +134,11 @@ public interface ScreeningService {
      * @return 包含 batchId / screenDate / results 的 Map；该日期无数据时 results 为空
      */
     Map<String, Object> getNotificationGroupedByDate(String tradeDate, String windows);
+
+    /**
+     * 指定交易日通知分组的预渲染响应体（结构同 {@link #getNotificationGroupedByDate(String, String)}）。
+     *
+     * @throws IllegalArgumentException tradeDate 为空或格式错误
+     */
+    RenderedPayload getNotificationByDatePayload(String tradeDate, String windows);
 }
@@ -1,15 +1,24 @@
 package com.stock.invest.service;
 
 import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.StockDailyIndicator;
+import com.stock.invest.entity.SymbolLatestBar;
 import com.stock.invest.enums.dto.StockDailyBarCandleDto;
 import com.stock.invest.enums.dto.StockDailyBarDto;
+import com.stock.invest.enums.dto.StockDailyIndicatorDto;
+import com.stock.invest.enums.dto.SymbolLatestBarDto;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.StockDailyIndicatorRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,9 +27,15 @@ import java.util.stream.Collectors;
 public class StockDailyBarService {
 
     private final StockDailyBarRepository repository;
+    private final StockDailyIndicatorRepository indicatorRepository;
+    private final SymbolLatestBarRepository latestBarRepository;
 
-    public StockDailyBarService(StockDailyBarRepository repository) {
+    public StockDailyBarService(StockDailyBarRepository repository,
+                                StockDailyIndicatorRepository indicatorRepository,
+                                SymbolLatestBarRepository latestBarRepository) {
         this.repository = repository;
+        this.indicatorRepository = indicatorRepository;
+        this.latestBarRepository = latestBarRepository;
     }
 
     public List<StockDailyBarCandleDto> getRecentCandles(String symbol, int days) {
@@ -59,19 +74,40 @@ public class StockDailyBarService {
     }
 
     /**
-     * 分页查询日 K 线数据（DTO），支持按 symbol/tradeDate/source 筛选。
+     * 分页查询日 K 线数据（DTO），支持按 symbol/tradeDate/source/连续开盘日数筛选。
      *
-     * @param pageable 分页+排序
-     * @param symbol   股票代码（可选）
-     * @param date     交易日（可选）
-     * @param source   数据源（可选）
+     * @param pageable     分页+排序
+     * @param symbol       股票代码（可选）
+     * @param date         交易日（可选）
+     * @param source       数据源（可选）
+     * @param minRunLength 截至该根连续开盘日不少于 N 根（可选；N 天窗口无缺口）
      * @return DTO 分页结果
      */
-    public Page<StockDailyBarDto> queryBars(Pageable pageable, String symbol, LocalDate date, String source) {
-        Page<StockDailyBar> barPage = repository.findFiltered(symbol, date, source, pageable);
+    public Page<StockDailyBarDto> queryBars(Pageable pageable, String symbol, LocalDate date, String source,
+                                            Integer minRunLength) {
+        Page<StockDailyBar> barPage = repository.findFiltered(symbol, date, source, minRunLength, pageable);
         return barPage.map(this::toDto);
     }
 
+    /**
+     * 按每个 symbol 的最新一根 bar 过滤标的池（symbol_latest_bar 快照，单表扫描）。
+     *
+     * @param minClose  最新收盘价下限（可选）
+     * @param maxClose  最新收盘价上限（可选）
+     * @param minVolume 最新成交量下限（可选）
+     * @param since     最新交易日不早于该日（可选；排除停更代码）
+     */
+    public Page<SymbolLatestBarDto> queryLatestBars(Pageable pageable, BigDecimal minClose, BigDecimal maxClose,
+                                                    Long minVolume, LocalDate since) {
+        return latestBarRepository.findFiltered(minClose, maxClose, minVolume, since, pageable)
+                .map(StockDailyBarService::toLatestDto);
+    }
+
+    private static SymbolLatestBarDto toLatestDto(SymbolLatestBar row) {
+        return new SymbolLatestBarDto(row.getSymbol(), row.getTradeDate().toString(),
+                strip(row.getClosePrice()), row.getVolume(), row.getSource());
+    }
+
     /**
      * 获取所有数据源列表。
      *
@@ -81,6 +117,53 @@ public class StockDailyBarService {
         return repository.findAllSources();
     }
 
+    /**
+     * 按股票代码查询最近若干交易日的技术指标（按交易日升序）。
+     *
+     * @param days 交易日数，限制在 [1, 365]
+     */
+    public List<StockDailyIndicatorDto> getRecentIndicators(String symbol, int days) {
+        int limit = Math.min(Math.max(1, days), 365);
+        List<StockDailyIndicator> rows = new ArrayList<>(
+                indicatorRepository.findBySymbolOrderByTradeDateDesc(symbol, PageRequest.of(0, limit)));
+        Collections.reverse(rows);
+        return rows.stream().map(StockDailyBarService::toIndicatorDto).toList();
+    }
+
+    /**
+     * 某交易日全部 symbol 的技术指标（横截面），按 symbol 升序分页。
+     *
+     * @param tradeDate 交易日；null = 指标表中最新交易日（表为空时返回空页）
+     */
+    public Page<StockDailyIndicatorDto> getIndicatorsByDate(LocalDate tradeDate, int page, int pageSize) {
+        LocalDate date = tradeDate != null ? tradeDate : indicatorRepository.findMaxTradeDate();
+        Pageable pageable = PageRequest.of(page, pageSize, Sort.by("symbol").ascending());
+        if (date == null) {
+            return Page.empty(pageable);
+        }
+        return indicatorRepository.findByTradeDate(date, pageable).map(StockDailyBarService::toIndicatorDto);
+    }
+
+    private static StockDailyIndicatorDto toIndicatorDto(StockDailyIndicator row) {
+        return new StockDailyIndicatorDto(
+                row.getSymbol(),
+                row.getTradeDate().toString(),
+                row.getBarCount(),
+                strip(row.getCloseSma5()),
+                strip(row.getCloseSma20()),
+                strip(row.getCloseSma50()),
+                strip(row.getCloseEma12()),
+                strip(row.getCloseEma26()),
+                strip(row.getVolumeSma20()),
+                strip(row.getVolumeEma20()),
+                strip(row.getRelativeVolume()),
+                strip(row.getRsi14()),
+                strip(row.getAtr14()),
+                strip(row.getHigh20()),
+                strip(row.getLow20())
+        );
+    }
+
     private StockDailyBarDto toDto(StockDailyBar bar) {
         return new StockDailyBarDto(
                 bar.getId(),
@@ -95,7 +178,8 @@ public class StockDailyBarService {
                 strip(bar.getAfterHours()),
                 strip(bar.getAfterHoursChangePercent()),
                 bar.getVolume(),
-                bar.getSource()
+                bar.getSource(),
+                bar.getRunLength()
         );
     }
 
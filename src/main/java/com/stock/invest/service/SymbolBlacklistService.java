@@ -22,10 +22,12 @@ public class SymbolBlacklistService {
     private static final ZoneId AMERICA_NY = ZoneId.of("America/New_York");
 
     private final SymbolBlacklistRepository repository;
+    private final SymbolDictionary symbolDictionary;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public SymbolBlacklistService(SymbolBlacklistRepository repository) {
+    public SymbolBlacklistService(SymbolBlacklistRepository repository, SymbolDictionary symbolDictionary) {
         this.repository = repository;
+        this.symbolDictionary = symbolDictionary;
     }
 
     /**
@@ -51,7 +53,7 @@ public class SymbolBlacklistService {
 
     /**
      * 记录一次"不存在"判定。
-     * 如果该 symbol 首次入黑，创建记录；否则更新计数和日期。
+     * 如果该 symbol 首次入黑，创建记录；否则更新计数和日期。symbol 字典同步标记为非活跃。
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void recordNotFound(String symbol, Map<String, String> sourceErrors) {
@@ -77,6 +79,7 @@ public class SymbolBlacklistService {
             record.setUpdatedAt(LocalDateTime.now());
             repository.save(record);
         }
+        symbolDictionary.setActive(symbol, false);
     }
 
     /**
@@ -91,6 +94,7 @@ public class SymbolBlacklistService {
             record.setStatus("cleared");
             record.setUpdatedAt(LocalDateTime.now());
             repository.save(record);
+            symbolDictionary.setActive(symbol, true);
         });
     }
 
@@ -104,6 +108,7 @@ public class SymbolBlacklistService {
             record.setStatus("cleared");
             record.setUpdatedAt(LocalDateTime.now());
             repository.save(record);
+            symbolDictionary.setActive(symbol, true);
         });
     }
 
@@ -0,0 +1,340 @@
+package com.stock.invest.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.StockSymbol;
+import com.stock.invest.model.BarsWrittenEvent;
+import com.stock.invest.repository.StockSymbolRepository;
+import com.stock.invest.repository.StockSymbolUpsertWriter;
+
+/**
+ * symbol 字典：symbol 表的进程内 id ↔ symbol ↔ name 缓存。
+ *
+ * 职责：
+ * 1. 应用就绪后整表加载；未命中的 symbol 按需从 symbol 表补读（唯一键查询），读路径不再访问 stock_daily_bar
+ * 2. 订阅 {@link BarsWrittenEvent}（stock_daily_bar 写事务提交前、同一事务内发布），经 {@link #record}：
+ *    新代码插入、首末出现日扩展、名称以较新交易日为准，与日 K 同事务提交或回滚；
+ *    MySQL 上为单条 upsert（{@link StockSymbolUpsertWriter}，库内 LEAST / GREATEST 合并，并发写入不冲突），
+ *    其他库退回 JPA 先读后写。缓存在事务提交后才更新；缓存已覆盖的写入不访问数据库
+ * 3. 黑名单状态变化经 {@link #setActive} 同步活跃标记
+ */
+@Service
+public class SymbolDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolDictionary.class);
+
+    /** 单条 IN 查询的 symbol 数 */
+    static final int LOOKUP_CHUNK = 1000;
+
+    /**
+     * 字典项（不可变快照，写入后整体替换）。
+     *
+     * @param id        symbol 表主键
+     * @param name      最新展示名称，可能为 null
+     * @param firstSeen 最早一根 bar 的交易日
+     * @param lastSeen  最新一根 bar 的交易日
+     * @param active    false = 已入黑名单
+     */
+    public record Entry(int id, String symbol, String name, LocalDate firstSeen, LocalDate lastSeen, boolean active) {
+
+        static Entry of(StockSymbol row) {
+            return new Entry(row.getId(), row.getSymbol(), row.getName(), row.getFirstSeen(), row.getLastSeen(),
+                    !Boolean.FALSE.equals(row.getActive()));
+        }
+    }
+
+    private final StockSymbolRepository repository;
+    private final StockSymbolUpsertWriter upsertWriter;
+    private final TransactionTemplate readOnlyTx;
+
+    private final Map<String, Entry> bySymbol = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+
+    public SymbolDictionary(StockSymbolRepository repository, StockSymbolUpsertWriter upsertWriter,
+                            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.upsertWriter = upsertWriter;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * 应用就绪后整表加载（失败不影响启动：未命中的 symbol 仍按需补读）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            List<StockSymbol> rows = readOnlyTx.execute(status -> repository.findAll());
+            if (rows != null) {
+                rows.forEach(row -> put(Entry.of(row)));
+            }
+            log.info("[SymbolDictionary] loaded {} symbols", bySymbol.size());
+        } catch (RuntimeException e) {
+            log.warn("[SymbolDictionary] load failed, falling back to on-demand lookup: {}", e.getMessage());
+        }
+    }
+
+    /** 字典项；symbol 表中不存在时返回 null */
+    public Entry get(String symbol) {
+        return resolve(List.of(symbol)).get(symbol);
+    }
+
+    /** symbol 的整数 id；不存在时返回 null */
+    public Integer idOf(String symbol) {
+        Entry entry = get(symbol);
+        return entry == null ? null : entry.id();
+    }
+
+    /** id 对应的 symbol（只查缓存：id 均由已加载或已写入的字典项产生） */
+    public String symbolOf(int id) {
+        Entry entry = byId.get(id);
+        return entry == null ? null : entry.symbol();
+    }
+
+    /**
+     * 批量取展示名称：symbol → name，无名称或不在字典中的 symbol 不出现在结果里。
+     */
+    public Map<String, String> namesOf(Collection<String> symbols) {
+        Map<String, String> names = new HashMap<>();
+        resolve(symbols).forEach((symbol, entry) -> {
+            if (entry.name() != null) {
+                names.put(symbol, entry.name());
+            }
+        });
+        return names;
+    }
+
+    @EventListener
+    public void onBarsWritten(BarsWrittenEvent event) {
+        record(event.bars());
+    }
+
+    /**
+     * 日 K 写事务内调用：按 symbol 汇总本次写入的交易日与名称，合并进 symbol 表，随日 K 一并提交；
+     * 失败直接抛出，日 K 写入随之回滚。合并后的字典项在事务提交后写入缓存（无事务时立即写入）。
+     */
+    public void record(Collection<StockDailyBar> bars) {
+        Map<String, Seen> seen = new LinkedHashMap<>();
+        for (StockDailyBar bar : bars) {
+            if (bar.getSymbol() != null && bar.getTradeDate() != null) {
+                seen.computeIfAbsent(bar.getSymbol(), Seen::new).add(bar.getTradeDate(), bar.getName());
+            }
+        }
+        seen.values().removeIf(s -> s.coveredBy(bySymbol.get(s.symbol)));
+        if (seen.isEmpty()) {
+            return;
+        }
+        List<StockSymbol> merged;
+        if (upsertWriter.isAvailable()) {
+            upsertWriter.upsert(seen.values().stream().map(Seen::toRow).toList());
+            merged = upsertWriter.findBySymbols(seen.keySet());
+        } else {
+            merged = merge(seen.values());
+        }
+        List<Entry> entries = merged.stream().map(Entry::of).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.forEach(SymbolDictionary.this::put);
+                }
+            });
+        } else {
+            entries.forEach(this::put);
+        }
+    }
+
+    /**
+     * 同步活跃标记（黑名单入 / 出），在调用方事务内执行；symbol 表中不存在时忽略。
+     */
+    public void setActive(String symbol, boolean active) {
+        repository.findBySymbol(symbol)
+                .filter(row -> row.getActive() == null || row.getActive() != active)
+                .ifPresent(row -> {
+                    row.setActive(active);
+                    put(Entry.of(repository.save(row)));
+                });
+    }
+
+    /**
+     * 批量取 id 对应的 symbol：缓存未命中（如就绪加载失败）时按主键补读，不存在的 id 不出现在结果里。
+     */
+    public Map<Integer, String> symbolsOf(Collection<Integer> ids) {
+        Map<Integer, String> symbols = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            Entry entry = byId.get(id);
+            if (entry != null) {
+                symbols.put(id, entry.symbol());
+            } else {
+                missing.add(id);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += LOOKUP_CHUNK) {
+            List<Integer> chunk = missing.subList(from, Math.min(missing.size(), from + LOOKUP_CHUNK));
+            List<StockSymbol> rows = readOnlyTx.execute(status -> repository.findAllById(chunk));
+            if (rows != null) {
+                for (StockSymbol row : rows) {
+                    Entry entry = Entry.of(row);
+                    put(entry);
+                    symbols.put(entry.id(), entry.symbol());
+                }
+            }
+        }
+        return symbols;
+    }
+
+    /** 字典规模（监控用） */
+    public int size() {
+        return bySymbol.size();
+    }
+
+    private Map<String, Entry> resolve(Collection<String> symbols) {
+        Map<String, Entry> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String symbol : symbols) {
+            Entry entry = bySymbol.get(symbol);
+            if (entry != null) {
+                found.put(symbol, entry);
+            } else if (symbol != null) {
+                missing.add(symbol);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        List<String> distinct = missing.stream().distinct().toList();
+        for (int from = 0; from < distinct.size(); from += LOOKUP_CHUNK) {
+            List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + LOOKUP_CHUNK));
+            List<StockSymbol> rows = readOnlyTx.execute(status -> repository.findBySymbolIn(chunk));
+            if (rows != null) {
+                for (StockSymbol row : rows) {
+                    Entry entry = Entry.of(row);
+                    put(entry);
+                    found.put(entry.symbol(), entry);
+                }
+            }
+        }
+        return found;
+    }
+
+    /** JPA 先读后写合并（不支持行别名 upsert 的库） */
+    private List<StockSymbol> merge(Collection<Seen> seen) {
+        List<String> symbols = seen.stream().map(s -> s.symbol).toList();
+        Map<String, StockSymbol> existing = new HashMap<>();
+        for (int from = 0; from < symbols.size(); from += LOOKUP_CHUNK) {
+            repository.findBySymbolIn(symbols.subList(from, Math.min(symbols.size(), from + LOOKUP_CHUNK)))
+                    .forEach(row -> existing.put(row.getSymbol(), row));
+        }
+        List<StockSymbol> changed = new ArrayList<>();
+        List<StockSymbol> merged = new ArrayList<>();
+        for (Seen s : seen) {
+            StockSymbol row = existing.get(s.symbol);
+            if (row == null) {
+                row = new StockSymbol();
+                row.setSymbol(s.symbol);
+                row.setActive(true);
+            }
+            if (s.applyTo(row)) {
+                changed.add(row);
+            } else {
+                // 库中已覆盖（其他进程已写入）：只回填缓存
+                merged.add(row);
+            }
+        }
+        if (!changed.isEmpty()) {
+            merged.addAll(repository.saveAll(changed));
+        }
+        return merged;
+    }
+
+    private void put(Entry entry) {
+        bySymbol.put(entry.symbol(), entry);
+        byId.put(entry.id(), entry);
+    }
+
+    /** 单个 symbol 在一次写入中的首末交易日与最新名称 */
+    private static final class Seen {
+        final String symbol;
+        LocalDate first;
+        LocalDate last;
+        String name;
+        LocalDate nameDate;
+
+        Seen(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void add(LocalDate date, String barName) {
+            if (first == null || date.isBefore(first)) {
+                first = date;
+            }
+            if (last == null || date.isAfter(last)) {
+                last = date;
+            }
+            if (barName != null && !barName.isBlank() && (nameDate == null || !date.isBefore(nameDate))) {
+                name = barName;
+                nameDate = date;
+            }
+        }
+
+        /** 名称是否应覆盖：现有为空，或本次名称所在交易日不早于现有末次出现日 */
+        boolean takesName(String currentName, LocalDate currentLastSeen) {
+            return name != null && !name.equals(currentName)
+                    && (currentName == null || currentLastSeen == null || !nameDate.isBefore(currentLastSeen));
+        }
+
+        boolean coveredBy(Entry entry) {
+            return entry != null
+                    && !first.isBefore(entry.firstSeen())
+                    && !last.isAfter(entry.lastSeen())
+                    && !takesName(entry.name(), entry.lastSeen());
+        }
+
+        /** upsert 参数行：名称随末次出现日比较（upsert 中名称覆盖以本次 last 不早于现有 last_seen 为准） */
+        StockSymbol toRow() {
+            StockSymbol row = new StockSymbol();
+            row.setSymbol(symbol);
+            row.setName(name);
+            row.setFirstSeen(first);
+            row.setLastSeen(last);
+            return row;
+        }
+
+        /** 合并进实体；返回是否有变化 */
+        boolean applyTo(StockSymbol row) {
+            boolean changed = row.getId() == null;
+            if (takesName(row.getName(), row.getLastSeen())) {
+                row.setName(name);
+                changed = true;
+            }
+            if (row.getFirstSeen() == null || first.isBefore(row.getFirstSeen())) {
+                row.setFirstSeen(first);
+                changed = true;
+            }
+            if (row.getLastSeen() == null || last.isAfter(row.getLastSeen())) {
+                row.setLastSeen(last);
+                changed = true;
+            }
+            return changed;
+        }
+    }
+}
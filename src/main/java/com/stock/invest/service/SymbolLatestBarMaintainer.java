@@ -0,0 +1,126 @@
+package com.stock.invest.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.SymbolLatestBar;
+import com.stock.invest.model.BarsWrittenEvent;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
+
+/**
+ * symbol_latest_bar（每个 symbol 的最新日 K 快照）维护。
+ *
+ * 职责：
+ * 1. 订阅 {@link BarsWrittenEvent}（stock_daily_bar 写事务提交前、同一事务内发布），经 {@link #record}
+ *    按 symbol 取本次写入中交易日最大的一根，交易日不早于快照现有交易日即覆盖（同日以新写入为准），
+ *    更早交易日的写入（补历史缺口、字段增补）不改快照；与日 K 同事务提交或回滚。
+ *    MySQL 上为单条 upsert（{@link SymbolLatestBarUpsertWriter}，库内按交易日比较，并发写入不回退），
+ *    其他库退回 JPA 先读后写
+ * 2. {@link #rebuild} 按 stock_daily_bar 整表重建（删除 bar 或手工改库后使用）
+ */
+@Service
+public class SymbolLatestBarMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolLatestBarMaintainer.class);
+
+    /** 单条 IN 查询的 symbol 数 */
+    static final int LOOKUP_CHUNK = 1000;
+
+    private final SymbolLatestBarRepository repository;
+    private final SymbolLatestBarUpsertWriter upsertWriter;
+    /** 整表重建：删除与插入同一事务 */
+    private final TransactionTemplate rebuildTx;
+
+    public SymbolLatestBarMaintainer(SymbolLatestBarRepository repository,
+                                     SymbolLatestBarUpsertWriter upsertWriter,
+                                     PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.upsertWriter = upsertWriter;
+        this.rebuildTx = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener
+    public void onBarsWritten(BarsWrittenEvent event) {
+        record(event.bars());
+    }
+
+    /**
+     * 日 K 写事务内调用：合并每个 symbol 本次写入的最新一根，随日 K 一并提交；失败直接抛出，日 K 写入随之回滚。
+     */
+    public void record(Collection<StockDailyBar> bars) {
+        Map<String, StockDailyBar> latest = new LinkedHashMap<>();
+        for (StockDailyBar bar : bars) {
+            if (bar.getSymbol() != null && bar.getTradeDate() != null) {
+                // 同一 symbol 同日多次保存时后写为准
+                latest.merge(bar.getSymbol(), bar,
+                        (a, b) -> b.getTradeDate().isBefore(a.getTradeDate()) ? a : b);
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        if (upsertWriter.isAvailable()) {
+            upsertWriter.upsert(new ArrayList<>(latest.values()));
+        } else {
+            merge(latest);
+        }
+    }
+
+    /**
+     * 按 stock_daily_bar 整表重建快照（单事务：删除后整表插入）。
+     *
+     * @return 汇总（symbols / elapsedMs）
+     */
+    public Map<String, Object> rebuild() {
+        long t0 = System.currentTimeMillis();
+        Integer inserted = rebuildTx.execute(status -> {
+            repository.deleteAllRows();
+            return repository.insertFromDailyBars();
+        });
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("symbols", inserted == null ? 0 : inserted);
+        summary.put("elapsedMs", System.currentTimeMillis() - t0);
+        log.info("[SymbolLatestBar] rebuild done {}", summary);
+        return summary;
+    }
+
+    private void merge(Map<String, StockDailyBar> latest) {
+        List<String> symbols = new ArrayList<>(latest.keySet());
+        Map<String, SymbolLatestBar> existing = new HashMap<>();
+        for (int from = 0; from < symbols.size(); from += LOOKUP_CHUNK) {
+            repository.findAllById(symbols.subList(from, Math.min(symbols.size(), from + LOOKUP_CHUNK)))
+                    .forEach(row -> existing.put(row.getSymbol(), row));
+        }
+        List<SymbolLatestBar> changed = new ArrayList<>();
+        for (StockDailyBar bar : latest.values()) {
+            SymbolLatestBar row = existing.get(bar.getSymbol());
+            if (row == null) {
+                row = new SymbolLatestBar();
+                row.setSymbol(bar.getSymbol());
+            } else if (bar.getTradeDate().isBefore(row.getTradeDate())) {
+                continue;
+            }
+            row.setTradeDate(bar.getTradeDate());
+            row.setClosePrice(bar.getClosePrice());
+            row.setVolume(bar.getVolume());
+            row.setSource(bar.getSource());
+            changed.add(row);
+        }
+        if (!changed.isEmpty()) {
+            repository.saveAll(changed);
+        }
+    }
+}
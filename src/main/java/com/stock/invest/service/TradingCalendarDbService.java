@@ -2,8 +2,12 @@ package com.stock.invest.service;
 
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,18 +15,23 @@ import org.springframework.stereotype.Service;
 
 import com.stock.invest.entity.TradingCalendarEntity;
 import com.stock.invest.model.TradingCalendarResult;
+import com.stock.invest.model.TradingCalendarSnapshot;
 import com.stock.invest.repository.TradingCalendarRepository;
 import com.stock.invest.service.impl.TradingCalendarFallback;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
+
 /**
  * 交易日历持久化服务。
  *
  * 职责：
  * 1. 优先从 trading_calendar 表查询，无记录则 fallback 到 TradingCalendarFallback 实时查并入库
- * 2. 支持整年日历批量抓取（逐天独立事务 upsert，P2-13）
+ * 2. 支持整年日历批量抓取：优先区间源一次请求 + 单事务批量 upsert；不支持时退回逐天独立事务 upsert（P2-13）
  * 3. 所有日期使用 America/New_York 时区
+ * 4. 启动时将 trading_calendar 全表加载为按市场的 {@link TradingCalendarSnapshot}（位图 + 前后开盘日下标），
+ *    单日 / 前后交易日 / 区间查询全部走内存，零 DB 调用；入库后构建新快照原子替换
  */
 @Service
 public class TradingCalendarDbService {
@@ -34,6 +43,9 @@ public class TradingCalendarDbService {
     /** P2-13：单日持久化独立事务 —— 整年循环不再持有单个 DB 连接数小时，单日失败不回滚已入库日期 */
     private final TransactionTemplate transactionTemplate;
 
+    /** market → 不可变日历快照；写入后整体替换，读路径无锁 */
+    private final Map<String, TradingCalendarSnapshot> snapshots = new ConcurrentHashMap<>();
+
     public TradingCalendarDbService(TradingCalendarRepository repository,
                                     TradingCalendarFallback fallback,
                                     PlatformTransactionManager transactionManager) {
@@ -42,20 +54,48 @@ public class TradingCalendarDbService {
         this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * 从 trading_calendar 全表重建内存快照（启动时执行；全表约 365 行/市场/年）。
+     */
+    @PostConstruct
+    public void load() {
+        Map<String, List<TradingCalendarResult>> byMarket = new HashMap<>();
+        List<TradingCalendarEntity> all = repository.findAll();
+        for (TradingCalendarEntity e : all) {
+            if (e.getMarket() == null || e.getTradeDate() == null || e.getIsOpen() == null) {
+                continue;
+            }
+            byMarket.computeIfAbsent(e.getMarket(), k -> new ArrayList<>()).add(toResult(e));
+        }
+        Map<String, TradingCalendarSnapshot> built = new HashMap<>();
+        byMarket.forEach((market, days) -> built.put(market, TradingCalendarSnapshot.of(market, days)));
+        snapshots.clear();
+        snapshots.putAll(built);
+        log.info("[TradingCalendarDbService] loaded {} calendar rows for {} markets", all.size(), built.size());
+    }
+
+    /**
+     * 当前市场日历快照（未入库的市场返回空快照）。
+     */
+    public TradingCalendarSnapshot getSnapshot(String market) {
+        TradingCalendarSnapshot snapshot = snapshots.get(market);
+        return snapshot != null ? snapshot : TradingCalendarSnapshot.empty(market);
+    }
+
     /**
      * 查询单日是否为交易日。
-     * 策略：DB 优先 → fallback 链实时查并入库。
+     * 策略：内存快照优先 → fallback 链实时查并入库（同时更新快照）。
      *
      * @param market 市场代码，如 "US"
      * @param date    美东日期
      * @return true=交易日，false=非交易日，null=所有数据源不可用
      */
     public Boolean isTradingDay(String market, LocalDate date) {
-        // 1. 查 DB（无事务，只读）
-        Optional<TradingCalendarEntity> cached = repository.findByMarketAndTradeDate(market, date);
-        if (cached.isPresent()) {
-            log.debug("[TradingCalendarDbService] DB 命中: {}-{} -> isOpen={}", market, date, cached.get().getIsOpen());
-            return cached.get().getIsOpen();
+        // 1. 查内存快照（零 DB 调用）
+        Boolean cached = getSnapshot(market).isOpen(date);
+        if (cached != null) {
+            log.debug("[TradingCalendarDbService] 快照命中: {}-{} -> isOpen={}", market, date, cached);
+            return cached;
         }
 
         // 2. DB 无记录 → fallback 链实时查（不占用 DB 连接/事务）
@@ -65,6 +105,7 @@ public class TradingCalendarDbService {
             final TradingCalendarResult r = result;
             transactionTemplate.executeWithoutResult(status ->
                     upsert(market, date, r.isTradingDay(), r.getSource(), r.getType(), r.getDetail()));
+            publish(market, List.of(result));
             return result.isTradingDay();
         }
 
@@ -75,9 +116,10 @@ public class TradingCalendarDbService {
 
     /**
      * 抓取指定市场指定年份的完整开盘日历。
-     * 逐天通过 fallback 链查询后 upsert 入库。
-     * <p>P2-13：不持有整年单事务 —— 每天独立事务，外部 I/O 失败只跳过当天，
-     * 已入库日期不回滚；返回成功 upsert 的记录数。</p>
+     * <p>优先走区间查询（Alpaca / Tiger 一次请求拿整年），单事务批量 upsert；
+     * 区间源不可用或批量写入失败时，退回逐天通过 fallback 链查询后 upsert。</p>
+     * <p>P2-13：逐天路径不持有整年单事务 —— 每天独立事务，外部 I/O 失败只跳过当天，
+     * 已入库日期不回滚；返回成功 upsert 的记录数。整年结束后一次性替换内存快照。</p>
      *
      * @param market 市场代码
      * @param year   年份
@@ -87,8 +129,24 @@ public class TradingCalendarDbService {
         LocalDate start = LocalDate.of(year, 1, 1);
         LocalDate end = LocalDate.of(year, 12, 31);
 
+        List<TradingCalendarResult> yearDays = fallback.getTradingCalendar(market, start, end);
+        if (yearDays != null && !yearDays.isEmpty()) {
+            try {
+                Integer affected = transactionTemplate.execute(status -> repository.upsertAll(market, yearDays));
+                publish(market, yearDays);
+                int count = affected != null ? affected : 0;
+                log.info("[TradingCalendarDbService] fetchAndStoreFullYear 区间同步完成: market={}, year={}, count={}",
+                        market, year, count);
+                return count;
+            } catch (Exception e) {
+                log.warn("[TradingCalendarDbService] fetchFullYear: 批量 upsert 失败，退回逐天同步 market={}, year={}, error={}",
+                        market, year, e.getMessage());
+            }
+        }
+
         int count = 0;
         int skipped = 0;
+        List<TradingCalendarResult> stored = new ArrayList<>();
         LocalDate cursor = start;
         while (!cursor.isAfter(end)) {
             final LocalDate date = cursor;
@@ -99,6 +157,7 @@ public class TradingCalendarDbService {
                             upsert(market, date, result.isTradingDay(),
                                     result.getSource(), result.getType(), result.getDetail()));
                     count += (affected != null ? affected : 0);
+                    stored.add(result);
                 } else {
                     skipped++;
                     log.warn("[TradingCalendarDbService] fetchFullYear: 数据源不可用, 跳过 date={}", date);
@@ -111,6 +170,7 @@ public class TradingCalendarDbService {
             }
             cursor = cursor.plusDays(1);
         }
+        publish(market, stored);
 
         log.info("[TradingCalendarDbService] fetchAndStoreFullYear 完成: market={}, year={}, count={}, skipped={}",
                 market, year, count, skipped);
@@ -118,30 +178,31 @@ public class TradingCalendarDbService {
     }
 
     /**
-     * 获取某年整年日历列表（仅查 DB，不触发外部调用）。
+     * 获取某年整年日历列表（仅查内存快照，不触发外部调用）。
      */
     public List<TradingCalendarEntity> getYearCalendar(String market, int year) {
-        return repository.findByMarketAndYear(market, year);
+        return getRange(market, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
     }
 
     /**
-     * 获取指定日期范围内的日历记录。
+     * 获取指定日期范围内的日历记录（按日期升序，来自内存快照）。
      */
     public List<TradingCalendarEntity> getRange(String market, LocalDate start, LocalDate end) {
-        return repository.findByMarketAndTradeDateBetween(market, start, end);
+        return getSnapshot(market).range(start, end).stream()
+                .map(TradingCalendarDbService::toEntity)
+                .toList();
     }
 
     /**
-     * 判断指定年份的日历数据是否已在 DB 中完整存在（365/366 天）。
+     * 判断指定年份的日历数据是否已完整入库（365/366 天）。
      */
     public boolean isYearCompleteInDb(String market, int year) {
-        List<TradingCalendarEntity> existing = repository.findByMarketAndYear(market, year);
         int expectedDays = Year.isLeap(year) ? 366 : 365;
-        return existing.size() >= expectedDays;
+        return getSnapshot(market).knownDaysInYear(year) >= expectedDays;
     }
 
     /**
-     * 查找指定日期之前最近的交易日（美东）。
+     * 查找指定日期之前最近的交易日（美东），O(1)。
      *
      * @param market  市场代码，如 "US"
      * @param date    基准日期（美东）
@@ -150,16 +211,11 @@ public class TradingCalendarDbService {
      */
     public Optional<LocalDate> findPreviousTradingDay(String market, LocalDate date, int maxDays) {
         if (date == null) return Optional.empty();
-        LocalDate start = date.minusDays(maxDays);
-        List<TradingCalendarEntity> range = getRange(market, start, date.minusDays(1));
-        return range.stream()
-                .filter(e -> Boolean.TRUE.equals(e.getIsOpen()))
-                .map(TradingCalendarEntity::getTradeDate)
-                .max(LocalDate::compareTo);
+        return getSnapshot(market).previousOpen(date, maxDays);
     }
 
     /**
-     * 查找指定日期之后最近的交易日（美东）。
+     * 查找指定日期之后最近的交易日（美东），O(1)。
      *
      * @param market  市场代码，如 "US"
      * @param date    基准日期（美东）
@@ -168,12 +224,7 @@ public class TradingCalendarDbService {
      */
     public Optional<LocalDate> findNextTradingDay(String market, LocalDate date, int maxDays) {
         if (date == null) return Optional.empty();
-        LocalDate end = date.plusDays(maxDays);
-        List<TradingCalendarEntity> range = getRange(market, date.plusDays(1), end);
-        return range.stream()
-                .filter(e -> Boolean.TRUE.equals(e.getIsOpen()))
-                .map(TradingCalendarEntity::getTradeDate)
-                .min(LocalDate::compareTo);
+        return getSnapshot(market).nextOpen(date, maxDays);
     }
 
     // ---- 内部方法 ----
@@ -182,4 +233,29 @@ public class TradingCalendarDbService {
                        String source, String type, String detail) {
         return repository.upsert(market, date, isOpen, source, type, detail);
     }
+
+    /** 已入库结果合并进快照并原子替换 */
+    private void publish(String market, List<TradingCalendarResult> stored) {
+        if (stored.isEmpty()) {
+            return;
+        }
+        snapshots.compute(market, (k, current) ->
+                (current != null ? current : TradingCalendarSnapshot.empty(market)).with(stored));
+    }
+
+    private static TradingCalendarResult toResult(TradingCalendarEntity e) {
+        return new TradingCalendarResult(e.getMarket(), e.getTradeDate(), e.getIsOpen(),
+                e.getSource(), e.getType(), e.getDetail());
+    }
+
+    private static TradingCalendarEntity toEntity(TradingCalendarResult r) {
+        TradingCalendarEntity entity = new TradingCalendarEntity();
+        entity.setMarket(r.getMarket());
+        entity.setTradeDate(r.getDate());
+        entity.setIsOpen(r.isTradingDay());
+        entity.setSource(r.getSource());
+        entity.setType(r.getType());
+        entity.setDetail(r.getDetail());
+        return entity;
+    }
 }
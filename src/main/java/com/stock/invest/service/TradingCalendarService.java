@@ -3,11 +3,14 @@ package com.stock.invest.service;
 import com.stock.invest.model.TradingCalendarResult;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 交易日历查询接口。
  * 每个数据源实现此接口，返回单日查询结果。
  * 返回 null = 该源不可用/超时/失败，触发 fallback 到下一源。
+ * 支持区间查询的源（如 Alpaca /v2/calendar、Tiger get_trading_calendar）覆盖
+ * {@link #getTradingCalendar}，整年同步一次请求完成。
  */
 public interface TradingCalendarService {
 
@@ -20,6 +23,16 @@ public interface TradingCalendarService {
      */
     TradingCalendarResult isTradingDay(String market, LocalDate date);
 
+    /**
+     * 区间查询：返回 [start, end] 内逐日结果（含非交易日，按日期升序）。
+     * 默认不支持区间查询，返回 null，由调用方退回逐日 {@link #isTradingDay}。
+     *
+     * @return 覆盖区间内每一天的结果列表，或 null（不支持/不可用/失败）
+     */
+    default List<TradingCalendarResult> getTradingCalendar(String market, LocalDate start, LocalDate end) {
+        return null;
+    }
+
     /** 数据源名称，如 "tiger", "tigeropen", "alpaca" */
     String getSourceName();
 
@@ -10,6 +10,9 @@ import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -74,6 +77,44 @@ public class AlpacaCalendarService implements TradingCalendarService {
         }
     }
 
+    /**
+     * 区间查询：一次 /v2/calendar 请求覆盖 [start, end]（整年同步用）。
+     * 收盘时间早于 16:00 的开盘日标记为 EARLY_CLOSE。
+     */
+    @Override
+    public List<TradingCalendarResult> getTradingCalendar(String market, LocalDate start, LocalDate end) {
+        if (!isAvailable() || !"US".equals(market)) {
+            return null;
+        }
+
+        CompletableFuture<List<TradingCalendarResult>> future =
+                CompletableFuture.supplyAsync(() -> doRangeQuery(start, end), executor);
+        try {
+            return future.get(TIMEOUT.getSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("[alpaca] 区间日历查询超时 ({}s)，触发 fallback", TIMEOUT.getSeconds());
+            return null;
+        } catch (Exception e) {
+            log.warn("[alpaca] 区间日历查询失败: {}，触发 fallback", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<TradingCalendarResult> doRangeQuery(LocalDate start, LocalDate end) {
+        try {
+            Map<LocalDate, String> closeTimes = alpacaClient.getCalendar(start, end);
+            Map<LocalDate, String> openDayTypes = new LinkedHashMap<>();
+            closeTimes.forEach((day, close) -> openDayTypes.put(day,
+                    !close.isEmpty() && close.compareTo("16:00") < 0 ? "EARLY_CLOSE" : "TRADING"));
+            log.debug("[alpaca] {}~{} 区间查询结果: openDays={}", start, end, openDayTypes.size());
+            return TradingCalendarResult.fromOpenDays("US", start, end, openDayTypes, getSourceName());
+        } catch (Exception e) {
+            log.warn("[alpaca] 区间日历查询异常: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private TradingCalendarResult doQuery(LocalDate date) {
         try {
             boolean isTrading = alpacaClient.isTradingDay(date);
@@ -0,0 +1,536 @@
+package com.stock.invest.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stock.invest.config.ScreeningProperties;
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.entity.BacktestMatch;
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.BacktestMatchRepository;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.service.BacktestService;
+import com.stock.invest.service.ForwardReturnService;
+import com.stock.invest.service.PatternEvaluateService;
+import com.stock.invest.service.TradingCalendarDbService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 历史回测实现。
+ * <p>
+ * symbol 按升序分片，每片一次读出 [from - 回看, to] 的筛选投影（{@link ScreeningBar}），
+ * 每个 symbol 的历史交给 {@link RollingPatternScanner} 单遍滑动：每根 bar 作为"筛选日"时的
+ * 全部窗口 × 两种算法命中位图逐日得出，每步 O(1) 取窗口成交量和，不再按日重复读取与评估。
+ * 结果与对区间内每个交易日单独执行 {@link ScreeningServiceImpl} 全量筛选逐行一致
+ * （同样要求筛选日收盘价非空；有效窗口受末尾连续开盘日与回看区间约束）。
+ * </p>
+ * <p>
+ * 命中按 {@link #INSERT_ROWS} 行一条多行 INSERT 写入 backtest_match（绕过 JPA 逐行持久化）；
+ * 运行失败时删除本回测已写入的行。同一时刻只允许一个回测运行。
+ * </p>
+ * <p>
+ * 判定阈值取 {@code screening.pattern}。参数扫描沿用同一读取与滑动，bar 多读到 to 之后
+ * {@link ForwardReturnServiceImpl#FORWARD_CALENDAR_DAYS} 个自然日，命中当根即买入 bar，
+ * 前瞻收益与命中计数在同一遍内按组合累加（{@link ForwardReturnStats}）；结果只留在内存缓存中。
+ * </p>
+ */
+@Service
+public class BacktestServiceImpl implements BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestServiceImpl.class);
+
+    /** 单片读取的 bar 上限（按区间长度折算为 symbol 数），控制单次查询结果集与堆占用 */
+    static final int MAX_BARS_PER_CHUNK = 200_000;
+
+    /** 单片 symbol 上限（IN 列表规模） */
+    static final int MAX_SYMBOLS_PER_CHUNK = 1000;
+
+    /** 单条多行 INSERT 的行数 */
+    static final int INSERT_ROWS = 1000;
+
+    private static final String INSERT_PREFIX = "INSERT INTO backtest_match "
+            + "(backtest_id, trade_date, symbol, window_days, algorithm, data_source, last_close, rise, created_at) VALUES ";
+
+    private static final String INSERT_VALUES = "(?,?,?,?,?,?,?,?,?)";
+
+    private final StockDailyBarRepository stockDailyBarRepository;
+    private final BacktestMatchRepository backtestMatchRepository;
+    private final TradingCalendarDbService tradingCalendarDbService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PatternParams params;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTx;
+
+    /** sweepId → 扫描结果；24h TTL，最多保留 100 次扫描 */
+    private final Cache<String, Map<String, Object>> sweeps = Caffeine.newBuilder()
+            .expireAfterWrite(24, TimeUnit.HOURS)
+            .maximumSize(100)
+            .build();
+
+    /** 回测互斥：多次触发只允许一个在跑 */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** 当前运行中的 backtestId（供查询时标记 running） */
+    private volatile String currentBacktestId;
+
+    public BacktestServiceImpl(StockDailyBarRepository stockDailyBarRepository,
+                               BacktestMatchRepository backtestMatchRepository,
+                               TradingCalendarDbService tradingCalendarDbService,
+                               JdbcTemplate jdbcTemplate,
+                               ScreeningProperties screeningProperties,
+                               PlatformTransactionManager transactionManager) {
+        this.stockDailyBarRepository = stockDailyBarRepository;
+        this.backtestMatchRepository = backtestMatchRepository;
+        this.tradingCalendarDbService = tradingCalendarDbService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.params = screeningProperties.getPattern().toParams();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @Override
+    public void validate(LocalDate from, LocalDate to, Integer windowDays) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (windowDays != null && (windowDays < WindowConstants.MIN_WINDOW_DAYS
+                || windowDays > WindowConstants.MAX_WINDOW_DAYS)) {
+            throw new IllegalArgumentException("windowDays must be between "
+                    + WindowConstants.MIN_WINDOW_DAYS + " and " + WindowConstants.MAX_WINDOW_DAYS);
+        }
+    }
+
+    @Override
+    public Map<String, Object> runBacktest(String backtestId, LocalDate from, LocalDate to, Integer windowDays) {
+        validate(from, to, windowDays);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("[Backtest] already running ({}), skip backtestId={}", currentBacktestId, backtestId);
+            return null;
+        }
+        currentBacktestId = backtestId;
+        try {
+            return runInternal(backtestId, from, to, windowDays);
+        } catch (RuntimeException e) {
+            int removed = jdbcTemplate.update("DELETE FROM backtest_match WHERE backtest_id = ?", backtestId);
+            log.error("[Backtest] failed backtestId={}, removed {} partial row(s)", backtestId, removed, e);
+            throw e;
+        } finally {
+            currentBacktestId = null;
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> runInternal(String backtestId, LocalDate from, LocalDate to, Integer windowDays) {
+        Instant start = Instant.now();
+        List<Integer> windows = windows(windowDays);
+        int windowMask = windowMask(windows);
+        // 区间首日的筛选同样回看 LOOKBACK_DAYS 个自然日
+        LocalDate loadStart = from.minusDays(RollingPatternScanner.LOOKBACK_DAYS);
+        OpenDayIndex openDays = OpenDayIndex.of(tradingCalendarDbService.getRange("US", loadStart, to));
+        List<String> symbols = stockDailyBarRepository.findAllSymbols();
+        long rangeDays = ChronoUnit.DAYS.between(loadStart, to) + 1;
+        int chunkSymbols = (int) Math.max(1, Math.min(MAX_SYMBOLS_PER_CHUNK, MAX_BARS_PER_CHUNK / rangeDays));
+
+        log.info("[Backtest] start backtestId={}, from={}, to={}, windows={}, symbols={}, chunkSymbols={}",
+                backtestId, from, to, windows, symbols.size(), chunkSymbols);
+
+        MatchWriter writer = new MatchWriter(backtestId, Timestamp.from(start));
+        ScanBuffers buffers = new ScanBuffers(1);
+        long fromDay = from.toEpochDay();
+        long bars = 0;
+        for (int c = 0; c < symbols.size(); c += chunkSymbols) {
+            List<String> chunk = symbols.subList(c, Math.min(symbols.size(), c + chunkSymbols));
+            List<ScreeningBar> rows = readOnlyTx.execute(
+                    status -> stockDailyBarRepository.findScreeningBars(chunk, loadStart, to));
+            if (rows == null || rows.isEmpty()) {
+                continue;
+            }
+            bars += rows.size();
+            // 结果按 (symbol, trade_date) 升序，相邻行即同一 symbol
+            for (int lo = 0; lo < rows.size(); ) {
+                String symbol = rows.get(lo).symbol();
+                int hi = lo;
+                while (hi < rows.size() && rows.get(hi).symbol().equals(symbol)) {
+                    hi++;
+                }
+                scanSymbol(rows.subList(lo, hi), openDays, windowMask, params, windows, fromDay, buffers, writer);
+                lo = hi;
+            }
+        }
+        writer.flush();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("backtestId", backtestId);
+        summary.put("from", from.toString());
+        summary.put("to", to.toString());
+        summary.put("windowDays", windows);
+        summary.put("symbols", symbols.size());
+        summary.put("bars", bars);
+        summary.put("matches", writer.written);
+        summary.put("elapsedMs", Duration.between(start, Instant.now()).toMillis());
+        log.info("[Backtest] done {}", summary);
+        return summary;
+    }
+
+    /** 单 symbol 单遍滑动：区间内（含）且收盘价非空的筛选日按窗口顺序输出命中，同一窗口先递增量能、后放量突破 */
+    private static void scanSymbol(List<ScreeningBar> series, OpenDayIndex openDays, int windowMask,
+                                   PatternParams params, List<Integer> windows, long fromDay,
+                                   ScanBuffers buffers, MatchWriter writer) {
+        int n = series.size();
+        buffers.ensure(n);
+        for (int i = 0; i < n; i++) {
+            ScreeningBar bar = series.get(i);
+            buffers.epochDays[i] = bar.tradeDate().toEpochDay();
+            buffers.volumes[i] = bar.volume() == null ? 0L : bar.volume();
+        }
+        RollingPatternScanner.scan(buffers.epochDays, buffers.volumes, n, openDays, windowMask, params,
+                buffers.prefix, buffers.hits[0]);
+        for (int i = 0; i < n; i++) {
+            int hits = buffers.hits[0][i];
+            ScreeningBar bar = series.get(i);
+            if (hits == 0 || buffers.epochDays[i] < fromDay || bar.closePrice() == null) {
+                continue;
+            }
+            boolean rise = bar.openPrice() != null && bar.closePrice().compareTo(bar.openPrice()) > 0;
+            for (int w : windows) {
+                if ((hits & PatternEvaluateService.windowBit(w)) != 0) {
+                    writer.add(bar, w, "increasing_volume", rise);
+                }
+                if ((hits & PatternEvaluateService.spikeBit(w)) != 0) {
+                    writer.add(bar, w, "volume_spike", rise);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void validateGrid(List<PatternParams> grid) {
+        if (grid == null || grid.isEmpty()) {
+            throw new IllegalArgumentException("at least one parameter combination is required");
+        }
+        if (grid.size() > MAX_SWEEP_COMBINATIONS) {
+            throw new IllegalArgumentException("parameter combinations must not exceed " + MAX_SWEEP_COMBINATIONS);
+        }
+    }
+
+    @Override
+    public Map<String, Object> runSweep(String sweepId, LocalDate from, LocalDate to, Integer windowDays,
+                                        List<PatternParams> grid) {
+        validate(from, to, windowDays);
+        validateGrid(grid);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("[Sweep] already running ({}), skip sweepId={}", currentBacktestId, sweepId);
+            return null;
+        }
+        currentBacktestId = sweepId;
+        sweeps.put(sweepId, sweepHeader(sweepId, "RUNNING", from, to, windowDays, grid));
+        try {
+            Map<String, Object> result = sweepInternal(sweepId, from, to, windowDays, grid);
+            sweeps.put(sweepId, result);
+            return result;
+        } catch (RuntimeException e) {
+            Map<String, Object> failed = sweepHeader(sweepId, "FAILED", from, to, windowDays, grid);
+            failed.put("error", e.getMessage());
+            sweeps.put(sweepId, failed);
+            log.error("[Sweep] failed sweepId={}", sweepId, e);
+            throw e;
+        } finally {
+            currentBacktestId = null;
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> sweepInternal(String sweepId, LocalDate from, LocalDate to, Integer windowDays,
+                                              List<PatternParams> grid) {
+        Instant start = Instant.now();
+        List<Integer> windows = windows(windowDays);
+        int windowMask = windowMask(windows);
+        PatternParams[] combos = grid.toArray(new PatternParams[0]);
+        LocalDate loadStart = from.minusDays(RollingPatternScanner.LOOKBACK_DAYS);
+        // 区间末日命中的最长持有期也要有后续 bar
+        LocalDate loadEnd = to.plusDays(ForwardReturnServiceImpl.FORWARD_CALENDAR_DAYS);
+        OpenDayIndex openDays = OpenDayIndex.of(tradingCalendarDbService.getRange("US", loadStart, to));
+        List<String> symbols = stockDailyBarRepository.findAllSymbols();
+        long rangeDays = ChronoUnit.DAYS.between(loadStart, loadEnd) + 1;
+        int chunkSymbols = (int) Math.max(1, Math.min(MAX_SYMBOLS_PER_CHUNK, MAX_BARS_PER_CHUNK / rangeDays));
+
+        log.info("[Sweep] start sweepId={}, from={}, to={}, windows={}, combinations={}, symbols={}",
+                sweepId, from, to, windows, combos.length, symbols.size());
+
+        ForwardReturnStats[] stats = new ForwardReturnStats[combos.length];
+        for (int c = 0; c < combos.length; c++) {
+            stats[c] = new ForwardReturnStats();
+        }
+        ScanBuffers buffers = new ScanBuffers(combos.length);
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        long bars = 0;
+        for (int c = 0; c < symbols.size(); c += chunkSymbols) {
+            List<String> chunk = symbols.subList(c, Math.min(symbols.size(), c + chunkSymbols));
+            List<ScreeningBar> rows = readOnlyTx.execute(
+                    status -> stockDailyBarRepository.findScreeningBars(chunk, loadStart, loadEnd));
+            if (rows == null || rows.isEmpty()) {
+                continue;
+            }
+            bars += rows.size();
+            for (int lo = 0; lo < rows.size(); ) {
+                String symbol = rows.get(lo).symbol();
+                int hi = lo;
+                while (hi < rows.size() && rows.get(hi).symbol().equals(symbol)) {
+                    hi++;
+                }
+                sweepSymbol(rows.subList(lo, hi), openDays, windowMask, combos, windows, fromDay, toDay,
+                        buffers, stats);
+                lo = hi;
+            }
+        }
+
+        List<Map<String, Object>> combinations = new ArrayList<>(combos.length);
+        for (int c = 0; c < combos.length; c++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("spikeMultiplier", combos[c].spikeMultiplier());
+            item.put("increasingMinStep", combos[c].increasingMinStep());
+            item.put("matches", stats[c].matches());
+            item.put("results", stats[c].toResults());
+            combinations.add(item);
+        }
+        Map<String, Object> result = sweepHeader(sweepId, "DONE", from, to, windowDays, grid);
+        result.put("symbols", symbols.size());
+        result.put("bars", bars);
+        result.put("horizons", ForwardReturnService.HORIZONS);
+        result.put("combinations", combinations);
+        result.put("elapsedMs", Duration.between(start, Instant.now()).toMillis());
+        log.info("[Sweep] done sweepId={}, combinations={}, symbols={}, bars={}, elapsedMs={}",
+                sweepId, combos.length, symbols.size(), bars, result.get("elapsedMs"));
+        return result;
+    }
+
+    /**
+     * 单 symbol 单遍滑动 × 全部组合：只扫描到 to 为止的 bar，之后的 bar 仅供前瞻收益；
+     * 同一筛选日的前瞻收益只算一次，供命中的各组合共用。
+     */
+    private static void sweepSymbol(List<ScreeningBar> series, OpenDayIndex openDays, int windowMask,
+                                    PatternParams[] combos, List<Integer> windows, long fromDay, long toDay,
+                                    ScanBuffers buffers, ForwardReturnStats[] stats) {
+        int n = series.size();
+        buffers.ensure(n);
+        int scanned = 0;
+        for (int i = 0; i < n; i++) {
+            ScreeningBar bar = series.get(i);
+            buffers.epochDays[i] = bar.tradeDate().toEpochDay();
+            buffers.volumes[i] = bar.volume() == null ? 0L : bar.volume();
+            buffers.closes[i] = bar.closePrice() == null ? Double.NaN : bar.closePrice().doubleValue();
+            if (buffers.epochDays[i] <= toDay) {
+                scanned = i + 1;
+            }
+        }
+        RollingPatternScanner.scanGrid(buffers.epochDays, buffers.volumes, scanned, openDays, windowMask, combos,
+                buffers.prefix, buffers.hits);
+        double[] returns = buffers.returns;
+        for (int i = 0; i < scanned; i++) {
+            if (buffers.epochDays[i] < fromDay || Double.isNaN(buffers.closes[i])) {
+                continue;
+            }
+            boolean computed = false;
+            for (int c = 0; c < combos.length; c++) {
+                int hits = buffers.hits[c][i];
+                if (hits == 0) {
+                    continue;
+                }
+                if (!computed) {
+                    ForwardReturnStats.forwardReturns(buffers.closes, n, i, returns);
+                    computed = true;
+                }
+                for (int w : windows) {
+                    if ((hits & PatternEvaluateService.windowBit(w)) != 0) {
+                        stats[c].add("increasing_volume", w, returns);
+                    }
+                    if ((hits & PatternEvaluateService.spikeBit(w)) != 0) {
+                        stats[c].add("volume_spike", w, returns);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> sweepHeader(String sweepId, String status, LocalDate from, LocalDate to,
+                                                   Integer windowDays, List<PatternParams> grid) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("sweepId", sweepId);
+        header.put("status", status);
+        header.put("from", from.toString());
+        header.put("to", to.toString());
+        header.put("windowDays", windows(windowDays));
+        header.put("combinationCount", grid.size());
+        return header;
+    }
+
+    @Override
+    public Map<String, Object> getSweep(String sweepId) {
+        return sweeps.getIfPresent(sweepId);
+    }
+
+    private static List<Integer> windows(Integer windowDays) {
+        return windowDays == null ? WindowConstants.ALL_WINDOW_DAYS : List.of(windowDays);
+    }
+
+    private static int windowMask(List<Integer> windows) {
+        int mask = 0;
+        for (int w : windows) {
+            mask |= PatternEvaluateService.windowBit(w);
+        }
+        return mask;
+    }
+
+    @Override
+    public Map<String, Object> getBacktest(String backtestId, int page, int size) {
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, Math.min(size, 1000));
+
+        List<Map<String, Object>> summary = new ArrayList<>();
+        for (Object[] row : backtestMatchRepository.summarizeByAlgorithmAndWindowDays(backtestId)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("algorithm", row[0]);
+            item.put("windowDays", row[1]);
+            item.put("count", row[2]);
+            item.put("firstTradeDate", row[3] == null ? null : row[3].toString());
+            item.put("lastTradeDate", row[4] == null ? null : row[4].toString());
+            summary.add(item);
+        }
+
+        Page<BacktestMatch> matches = backtestMatchRepository
+                .findByBacktestIdOrderByTradeDateAscSymbolAscWindowDaysAscAlgorithmAsc(
+                        backtestId, PageRequest.of(safePage, safeSize));
+        List<Map<String, Object>> items = new ArrayList<>(matches.getNumberOfElements());
+        for (BacktestMatch m : matches.getContent()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("tradeDate", m.getTradeDate().toString());
+            item.put("symbol", m.getSymbol());
+            item.put("windowDays", m.getWindowDays());
+            item.put("algorithm", m.getAlgorithm());
+            item.put("dataSource", m.getDataSource());
+            item.put("lastClose", m.getLastClose());
+            item.put("rise", m.getRise());
+            items.add(item);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("backtestId", backtestId);
+        result.put("running", backtestId.equals(currentBacktestId));
+        result.put("totalMatches", matches.getTotalElements());
+        result.put("summary", summary);
+        result.put("page", safePage);
+        result.put("size", safeSize);
+        result.put("matches", items);
+        return result;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /** 单 symbol 扫描的工作数组，按需扩容、跨 symbol 复用；hits 每组阈值一行 */
+    private static final class ScanBuffers {
+        long[] epochDays = new long[0];
+        long[] volumes = new long[0];
+        double[] closes = new double[0];
+        long[] prefix = new long[1];
+        final int[][] hits;
+        final double[] returns = new double[ForwardReturnService.HORIZONS.size()];
+
+        ScanBuffers(int combinations) {
+            hits = new int[combinations][0];
+        }
+
+        void ensure(int n) {
+            if (epochDays.length < n) {
+                int capacity = Math.max(n, epochDays.length * 2);
+                epochDays = new long[capacity];
+                volumes = new long[capacity];
+                closes = new double[capacity];
+                prefix = new long[capacity + 1];
+                for (int c = 0; c < hits.length; c++) {
+                    hits[c] = new int[capacity];
+                }
+            }
+        }
+    }
+
+    /** 命中行缓冲：攒满 {@link #INSERT_ROWS} 行以一条多行 INSERT 写入（独立短事务） */
+    private final class MatchWriter {
+        private final String backtestId;
+        private final Timestamp createdAt;
+        private final List<Object> params = new ArrayList<>(INSERT_ROWS * 9);
+        private int buffered;
+        private long written;
+
+        private MatchWriter(String backtestId, Timestamp createdAt) {
+            this.backtestId = backtestId;
+            this.createdAt = createdAt;
+        }
+
+        void add(ScreeningBar bar, int windowDays, String algorithm, boolean rise) {
+            BigDecimal close = bar.closePrice();
+            params.add(backtestId);
+            params.add(Date.valueOf(bar.tradeDate()));
+            params.add(bar.symbol());
+            params.add(windowDays);
+            params.add(algorithm);
+            params.add(bar.source());
+            params.add(close);
+            params.add(rise);
+            params.add(createdAt);
+            if (++buffered >= INSERT_ROWS) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffered == 0) {
+                return;
+            }
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + buffered * (INSERT_VALUES.length() + 1));
+            sql.append(INSERT_PREFIX);
+            for (int i = 0; i < buffered; i++) {
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(INSERT_VALUES);
+            }
+            Object[] args = params.toArray();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql.toString(), args));
+            written += buffered;
+            buffered = 0;
+            params.clear();
+        }
+    }
+}
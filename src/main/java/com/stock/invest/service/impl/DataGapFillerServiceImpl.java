@@ -24,6 +24,8 @@ import com.stock.invest.entity.DataFillTask;
 import com.stock.invest.entity.StockDailyBar;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.DataFillProgressService;
 import com.stock.invest.service.DataGapFillerService;
 import com.stock.invest.service.DataSourceStrategy;
@@ -44,6 +46,10 @@ import com.stock.invest.service.TradingCalendarDbService;
  * 在查找缺失日期时会通过 {@link TradingCalendarDbService} 查询交易日历，
  * 跳过非开盘日（节假日、周末），避免不必要的 API 调用。
  * </p>
+ * <p>
+ * 候选 symbol 由 symbol_latest_bar 快照（与日 K 同事务维护）按最新收盘价（min-price-threshold）一次索引扫描筛出，
+ * 不再逐 symbol 读取最新 bar 后才判断是否跳过；非 MySQL 库（快照走 JPA 合并、可能未回填）退回全部 symbol。
+ * </p>
  */
 @Service
 public class DataGapFillerServiceImpl implements DataGapFillerService {
@@ -53,9 +59,6 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
     private static final int MAX_SYMBOLS_PER_RUN = 200;
     private static final int MAX_LOOKBACK_DAYS = 7;
 
-    /** 字段增补单次上限：防止存量 PENDING 过多时一次性打爆外部 API（2026-08-14） */
-    static final int MAX_FILL_FIELDS_PER_RUN = 100;
-
     /** 字段增补窗口：只补最近 30 个交易日内的记录（≈45 日历日，含周末/节假日宽松覆盖）。
      *  用户 2026-08-14：历史太久的不补（yfinance 盘后分钟数据 30 天窗口外不可得）。 */
     static final int FILL_WINDOW_CALENDAR_DAYS = 45;
@@ -75,6 +78,8 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
     static final String STATUS_CONFIRMED = "CONFIRMED";
 
     private final StockDailyBarRepository stockDailyBarRepository;
+    private final SymbolLatestBarRepository symbolLatestBarRepository;
+    private final SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     private final DataFillTaskRepository dataFillTaskRepository;
     private final GapFillProperties gapFillProperties;
     private final DataFillProgressService dataFillProgressService;
@@ -106,8 +111,12 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
             StockDataSourcePriorityService stockDataSourcePriorityService,
             SymbolBlacklistService symbolBlacklistService,
             PlatformTransactionManager transactionManager,
-            FieldCapabilityService fieldCapabilityService) {
+            FieldCapabilityService fieldCapabilityService,
+            SymbolLatestBarRepository symbolLatestBarRepository,
+            SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter) {
         this.stockDailyBarRepository = stockDailyBarRepository;
+        this.symbolLatestBarRepository = symbolLatestBarRepository;
+        this.symbolLatestBarUpsertWriter = symbolLatestBarUpsertWriter;
         this.dataFillTaskRepository = dataFillTaskRepository;
         this.gapFillProperties = gapFillProperties;
         this.dataFillProgressService = dataFillProgressService;
@@ -117,7 +126,7 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
         this.fallbackChainBuilder = new FallbackChainBuilder(
                 dataSources, stockDataSourcePriorityService, sourceCooldownUntil);
         this.missingFieldFiller = new MissingFieldFiller(
-                stockDailyBarRepository, dataSources, fieldCapabilityService, transactionManager);
+                stockDailyBarRepository, dataSources, fieldCapabilityService, gapFillProperties, transactionManager);
         this.gapFetcher = new GapFetcher(
                 stockDailyBarRepository,
                 dataFillTaskRepository,
@@ -155,9 +164,9 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
         // 获取进度对象，如果没有（scheduler 触发）则忽略
         DataFillProgressService.FillProgress progress = dataFillProgressService.getProgress();
 
-        List<String> allSymbols = stockDailyBarRepository.findAllSymbols();
+        List<String> allSymbols = candidateSymbols();
         if (allSymbols.isEmpty()) {
-            log.info("[DataGapFiller] fillGaps: no symbols found in stock_daily_bars");
+            log.info("[DataGapFiller] fillGaps: no candidate symbols (no bars, or latest close above min-price-threshold)");
             if (progress != null) {
                 progress.setStage("COMPLETED");
                 progress.setRunning(false);
@@ -249,6 +258,17 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
         }
     }
 
+    /**
+     * 补缺候选：MySQL 上快照随日 K 写事务 upsert，最新收盘价不高于 min-price-threshold（或缺失）的 symbol
+     * 由一次 close_price 索引扫描得出；其他库回退 stock_daily_bar 全部 symbol，由 {@link #fillGapsForSymbol} 逐个按最新 bar 判断。
+     */
+    private List<String> candidateSymbols() {
+        if (symbolLatestBarUpsertWriter.isAvailable()) {
+            return symbolLatestBarRepository.findSymbolsWithCloseAtMost(gapFillProperties.getMinPriceThreshold());
+        }
+        return stockDailyBarRepository.findAllSymbols();
+    }
+
     private FillResult fillGapsForSymbol(String symbol, DataFillProgressService.FillProgress progress) {
         // 查询结果按 tradeDate DESC（最新在前）
         List<StockDailyBar> bars = stockDailyBarRepository
@@ -278,9 +298,11 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
 
         int filled = 0;
         int failed = 0;
+        // 同一 symbol 全部缺口日期共享盘后取数缓存：每个数据源一次拉取全部日期的盘后价
+        MissingFieldFiller.ClusterFetch ahFetch = missingFieldFiller.newClusterFetch(symbol, missingDates);
         for (LocalDate date : missingDates) {
             // 进入 fetchAndPersist 会打印分隔线和补缺信息
-            GapFetcher.FetchResult result = gapFetcher.fetchAndPersist(symbol, date);
+            GapFetcher.FetchResult result = gapFetcher.fetchAndPersist(symbol, date, ahFetch);
             if (result.succeeded()) {
                 filled++;
                 if (progress != null) {
@@ -337,7 +359,9 @@ public class DataGapFillerServiceImpl implements DataGapFillerService {
     }
 
     /**
-     * 增补阶段：对 field_fill_status=PENDING 的记录逐条增补缺失字段。
+     * 增补阶段：对 field_fill_status=PENDING 的记录按 (symbol, source) 聚簇增补缺失字段，
+     * 同簇日 K 一次拉取覆盖区间；单次运行受 gap-fill.field-fill-time-budget /
+     * field-fill-max-source-calls 预算约束，未处理的簇留待下次。
      * <ul>
      *   <li>增补成功 / 源确认无值 → 清标记 + CONFIRMED</li>
      *   <li>瞬态失败 → 保留 PENDING + 缺失标记（下次再试）</li>
@@ -0,0 +1,279 @@
+package com.stock.invest.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stock.invest.entity.ScreeningMatch;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.ScreeningMatchRepository;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.service.ForwardReturnService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 前瞻收益分析实现。
+ * <p>
+ * 未命中缓存的批次一起计算：命中行按 symbol 分组，symbol 分片后每片一次读出
+ * [最早命中日 - {@link #ENTRY_LOOKBACK_DAYS}, 最晚命中日 + {@link #FORWARD_CALENDAR_DAYS}] 的筛选投影，
+ * 每个 symbol 的 bar 与其命中按日期双指针单遍对齐：买入价为命中日（含）之前最近一根 bar 的收盘价，
+ * t+N 为其后第 N 根 bar 的收盘价；后续 bar 不足的持有期记为 pending。
+ * </p>
+ * <p>
+ * 缓存按批次存放可合并的累加量（{@link ForwardReturnStats}）与批次指纹（行数 + 最大 id），
+ * 查询时指纹不一致即重算；日 K 变更（{@link BarsChangedEvent}）时剔除前瞻区间覆盖到变更日的批次。
+ * </p>
+ */
+@Service
+public class ForwardReturnServiceImpl implements ForwardReturnService {
+
+    private static final Logger log = LoggerFactory.getLogger(ForwardReturnServiceImpl.class);
+
+    /** 最长持有期（20 根 bar）覆盖的自然日上限（含长假与零星缺根） */
+    static final int FORWARD_CALENDAR_DAYS = 40;
+
+    /** 命中日若为非交易日，向前回看买入 bar 的自然日数 */
+    static final int ENTRY_LOOKBACK_DAYS = 10;
+
+    /** 单片读取的 bar 上限（按日期跨度折算为 symbol 数） */
+    static final int MAX_BARS_PER_CHUNK = 200_000;
+
+    /** 单片 symbol 上限（IN 列表规模） */
+    static final int MAX_SYMBOLS_PER_CHUNK = 1000;
+
+    /** 单次加载命中行的批次数上限（IN 列表规模） */
+    private static final int MAX_BATCHES_PER_LOAD = 500;
+
+    private static final int H = HORIZONS.size();
+
+    private final ScreeningMatchRepository screeningMatchRepository;
+    private final StockDailyBarRepository stockDailyBarRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    /** batchId → 批次统计；24h TTL 兜底，最多 5000 个批次 */
+    private final Cache<String, CachedBatch> cache = Caffeine.newBuilder()
+            .expireAfterWrite(24, TimeUnit.HOURS)
+            .maximumSize(5000)
+            .build();
+
+    /** 日 K 变更计数：计算期间发生变更时结果只返回、不入缓存 */
+    private final AtomicLong barsVersion = new AtomicLong();
+
+    /** 批次指纹 */
+    record Fingerprint(String batchId, LocalDate tradeDate, long count, long maxId) {
+    }
+
+    private record CachedBatch(Fingerprint fingerprint, ForwardReturnStats stats) {
+    }
+
+    public ForwardReturnServiceImpl(ScreeningMatchRepository screeningMatchRepository,
+                                    StockDailyBarRepository stockDailyBarRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.screeningMatchRepository = screeningMatchRepository;
+        this.stockDailyBarRepository = stockDailyBarRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @Override
+    public Map<String, Object> analyzeRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        // 每个交易日只取最新一次批次（最大 id 所在批次，与按日期查询结果一致）
+        Map<LocalDate, Fingerprint> latestByDate = new TreeMap<>();
+        for (Fingerprint fp : toFingerprints(screeningMatchRepository.findBatchFingerprintsBetween(from, to))) {
+            latestByDate.merge(fp.tradeDate(), fp, (a, b) -> a.maxId() >= b.maxId() ? a : b);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        result.put("tradeDates", latestByDate.size());
+        fill(result, new ArrayList<>(latestByDate.values()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> analyzeBatch(String batchId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("batchId", batchId);
+        List<Fingerprint> fps = toFingerprints(screeningMatchRepository.findBatchFingerprints(batchId));
+        // 批次按单一交易日生成；多日期时合并为一个指纹（取最早日期，用于变更剔除）
+        List<Fingerprint> merged = new ArrayList<>();
+        if (!fps.isEmpty()) {
+            long count = 0;
+            long maxId = Long.MIN_VALUE;
+            LocalDate first = null;
+            for (Fingerprint fp : fps) {
+                count += fp.count();
+                maxId = Math.max(maxId, fp.maxId());
+                first = first == null || fp.tradeDate().isBefore(first) ? fp.tradeDate() : first;
+            }
+            merged.add(new Fingerprint(batchId, first, count, maxId));
+            result.put("tradeDate", first.toString());
+        }
+        fill(result, merged);
+        return result;
+    }
+
+    /** 取缓存 / 计算缺失批次，合并后写入 horizons / matches / cachedBatches / results */
+    private void fill(Map<String, Object> result, List<Fingerprint> fingerprints) {
+        ForwardReturnStats total = new ForwardReturnStats();
+        Map<String, Fingerprint> missing = new LinkedHashMap<>();
+        int cached = 0;
+        for (Fingerprint fp : fingerprints) {
+            CachedBatch hit = cache.getIfPresent(fp.batchId());
+            if (hit != null && hit.fingerprint().equals(fp)) {
+                total.merge(hit.stats());
+                cached++;
+            } else {
+                missing.put(fp.batchId(), fp);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long version = barsVersion.get();
+            Map<String, ForwardReturnStats> computed = compute(missing);
+            boolean cacheable = version == barsVersion.get();
+            computed.forEach((batchId, stats) -> {
+                if (cacheable) {
+                    cache.put(batchId, new CachedBatch(missing.get(batchId), stats));
+                }
+                total.merge(stats);
+            });
+        }
+        result.put("horizons", HORIZONS);
+        result.put("batches", fingerprints.size());
+        result.put("cachedBatches", cached);
+        result.put("matches", total.matches());
+        result.put("results", total.toResults());
+    }
+
+    /**
+     * 一次计算多个批次：命中行按 symbol 分组，分片读取 bar，每个 symbol 单遍对齐。
+     */
+    private Map<String, ForwardReturnStats> compute(Map<String, Fingerprint> batches) {
+        Map<String, ForwardReturnStats> stats = new HashMap<>();
+        batches.keySet().forEach(id -> stats.put(id, new ForwardReturnStats()));
+
+        List<String> ids = new ArrayList<>(batches.keySet());
+        Map<String, List<ScreeningMatch>> bySymbol = new TreeMap<>();
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+        for (int i = 0; i < ids.size(); i += MAX_BATCHES_PER_LOAD) {
+            List<String> part = ids.subList(i, Math.min(ids.size(), i + MAX_BATCHES_PER_LOAD));
+            List<ScreeningMatch> rows = readOnlyTx.execute(status -> screeningMatchRepository.findByBatchIdIn(part));
+            for (ScreeningMatch m : rows == null ? List.<ScreeningMatch>of() : rows) {
+                bySymbol.computeIfAbsent(m.getSymbol(), k -> new ArrayList<>()).add(m);
+                minDate = minDate == null || m.getTradeDate().isBefore(minDate) ? m.getTradeDate() : minDate;
+                maxDate = maxDate == null || m.getTradeDate().isAfter(maxDate) ? m.getTradeDate() : maxDate;
+            }
+        }
+        if (bySymbol.isEmpty()) {
+            return stats;
+        }
+
+        LocalDate start = minDate.minusDays(ENTRY_LOOKBACK_DAYS);
+        LocalDate end = maxDate.plusDays(FORWARD_CALENDAR_DAYS);
+        long spanDays = ChronoUnit.DAYS.between(start, end) + 1;
+        int chunkSymbols = (int) Math.max(1, Math.min(MAX_SYMBOLS_PER_CHUNK, MAX_BARS_PER_CHUNK / spanDays));
+        List<String> symbols = new ArrayList<>(bySymbol.keySet());
+        long bars = 0;
+        for (int c = 0; c < symbols.size(); c += chunkSymbols) {
+            List<String> chunk = symbols.subList(c, Math.min(symbols.size(), c + chunkSymbols));
+            List<ScreeningBar> rows = readOnlyTx.execute(
+                    status -> stockDailyBarRepository.findScreeningBars(chunk, start, end));
+            List<ScreeningBar> all = rows == null ? List.of() : rows;
+            bars += all.size();
+            // 结果按 (symbol, trade_date) 升序，相邻行即同一 symbol（不依赖库排序规则与 Java 字符串序一致）
+            for (int lo = 0; lo < all.size(); ) {
+                String symbol = all.get(lo).symbol();
+                int hi = lo;
+                while (hi < all.size() && all.get(hi).symbol().equals(symbol)) {
+                    hi++;
+                }
+                List<ScreeningMatch> symbolMatches = bySymbol.remove(symbol);
+                if (symbolMatches != null) {
+                    accumulate(symbolMatches, all.subList(lo, hi), stats);
+                }
+                lo = hi;
+            }
+        }
+        // 区间内无 bar 的 symbol：命中计数，各持有期均 pending
+        bySymbol.values().forEach(symbolMatches -> accumulate(symbolMatches, List.of(), stats));
+        log.info("[ForwardReturn] computed batches={}, symbols={}, bars={}, range=[{}, {}]",
+                batches.size(), symbols.size(), bars, start, end);
+        return stats;
+    }
+
+    /**
+     * 单 symbol：命中按日期升序，与 bar 双指针对齐；买入 bar 为命中日（含）之前最近一根。
+     */
+    static void accumulate(List<ScreeningMatch> matches, List<ScreeningBar> bars,
+                           Map<String, ForwardReturnStats> stats) {
+        matches.sort(Comparator.comparing(ScreeningMatch::getTradeDate));
+        double[] returns = new double[H];
+        int entry = -1;
+        for (ScreeningMatch m : matches) {
+            while (entry + 1 < bars.size() && !bars.get(entry + 1).tradeDate().isAfter(m.getTradeDate())) {
+                entry++;
+            }
+            BigDecimal base = entry < 0 ? null : bars.get(entry).closePrice();
+            for (int h = 0; h < H; h++) {
+                int exit = entry + HORIZONS.get(h);
+                BigDecimal close = base == null || base.signum() <= 0 || exit >= bars.size()
+                        ? null : bars.get(exit).closePrice();
+                returns[h] = close == null ? Double.NaN : close.doubleValue() / base.doubleValue() - 1.0;
+            }
+            ForwardReturnStats s = stats.get(m.getBatchId());
+            if (s != null) {
+                s.add(m.getAlgorithm(), m.getWindowDays(), returns);
+            }
+        }
+    }
+
+    /**
+     * 日 K 变更：剔除命中日在 [最早变更日 - 前瞻区间, ...) 的批次（其买入价或前瞻收盘价可能变化）。
+     */
+    @EventListener
+    public void onBarsChanged(BarsChangedEvent event) {
+        if (event.isEmpty()) {
+            return;
+        }
+        LocalDate earliest = event.symbolsByDate().keySet().stream().min(LocalDate::compareTo).orElseThrow();
+        LocalDate cutoff = earliest.minusDays(FORWARD_CALENDAR_DAYS);
+        barsVersion.incrementAndGet();
+        cache.asMap().values().removeIf(c -> !c.fingerprint().tradeDate().isBefore(cutoff));
+    }
+
+    private static List<Fingerprint> toFingerprints(List<Object[]> rows) {
+        List<Fingerprint> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new Fingerprint((String) row[0], (LocalDate) row[1],
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.service.ForwardReturnService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 前瞻收益累加器：按 algorithm → windowDays 分组，每组对各持有期累计样本数 / 收益和 / 正收益数。
+ * <p>只存可加的量，批次之间直接合并，区间结果由各批次缓存拼出，无需回看明细。</p>
+ */
+final class ForwardReturnStats {
+
+    private static final int H = ForwardReturnService.HORIZONS.size();
+
+    private final Map<String, Map<Integer, Group>> groups = new TreeMap<>();
+    private long matches;
+
+    private static final class Group {
+        long matches;
+        final long[] samples = new long[H];
+        final double[] sumReturn = new double[H];
+        final long[] wins = new long[H];
+
+        void merge(Group other) {
+            matches += other.matches;
+            for (int h = 0; h < H; h++) {
+                samples[h] += other.samples[h];
+                sumReturn[h] += other.sumReturn[h];
+                wins[h] += other.wins[h];
+            }
+        }
+    }
+
+    private Group group(String algorithm, int windowDays) {
+        return groups.computeIfAbsent(algorithm, a -> new TreeMap<>())
+                .computeIfAbsent(windowDays, w -> new Group());
+    }
+
+    /**
+     * 记录一条命中。
+     *
+     * @param returns 各持有期收益（与 {@link ForwardReturnService#HORIZONS} 同序），NaN 表示尚无足够后续 bar
+     */
+    void add(String algorithm, int windowDays, double[] returns) {
+        Group g = group(algorithm, windowDays);
+        g.matches++;
+        matches++;
+        for (int h = 0; h < H; h++) {
+            double r = returns[h];
+            if (Double.isNaN(r)) {
+                continue;
+            }
+            g.samples[h]++;
+            g.sumReturn[h] += r;
+            if (r > 0) {
+                g.wins[h]++;
+            }
+        }
+    }
+
+    /**
+     * 以 closes[entry] 买入、持有 HORIZONS[h] 根后的各持有期收益写入 out。
+     * 买入价非正、后续根数不足（≥ n）或收盘缺失（NaN）时记 NaN。
+     */
+    static void forwardReturns(double[] closes, int n, int entry, double[] out) {
+        double base = closes[entry];
+        for (int h = 0; h < H; h++) {
+            int exit = entry + ForwardReturnService.HORIZONS.get(h);
+            out[h] = !(base > 0) || exit >= n ? Double.NaN : closes[exit] / base - 1.0;
+        }
+    }
+
+    void merge(ForwardReturnStats other) {
+        matches += other.matches;
+        other.groups.forEach((algorithm, byWindow) ->
+                byWindow.forEach((windowDays, g) -> group(algorithm, windowDays).merge(g)));
+    }
+
+    long matches() {
+        return matches;
+    }
+
+    /** 每组一项：algorithm / windowDays / matches / returns（t+N → samples / pending / avgReturn / hitRate） */
+    List<Map<String, Object>> toResults() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        groups.forEach((algorithm, byWindow) -> byWindow.forEach((windowDays, g) -> {
+            Map<String, Object> returns = new LinkedHashMap<>();
+            for (int h = 0; h < H; h++) {
+                Map<String, Object> r = new LinkedHashMap<>();
+                r.put("samples", g.samples[h]);
+                r.put("pending", g.matches - g.samples[h]);
+                r.put("avgReturn", g.samples[h] == 0 ? null : round6(g.sumReturn[h] / g.samples[h]));
+                r.put("hitRate", g.samples[h] == 0 ? null : round6((double) g.wins[h] / g.samples[h]));
+                returns.put("t+" + ForwardReturnService.HORIZONS.get(h), r);
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("algorithm", algorithm);
+            item.put("windowDays", windowDays);
+            item.put("matches", g.matches);
+            item.put("returns", returns);
+            results.add(item);
+        }));
+        return results;
+    }
+
+    private static double round6(double value) {
+        return Math.round(value * 1_000_000d) / 1_000_000d;
+    }
+}
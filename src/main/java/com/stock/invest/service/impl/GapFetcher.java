@@ -73,6 +73,14 @@ class GapFetcher {
     }
 
     FetchResult fetchAndPersist(String symbol, LocalDate tradeDate) {
+        return fetchAndPersist(symbol, tradeDate, missingFieldFiller.newClusterFetch(symbol, List.of(tradeDate)));
+    }
+
+    /**
+     * 补缺单日，盘后价经调用方按 symbol 共享的 {@code ahFetch} 合并
+     * （同一 symbol 的全部缺口日期一次拉取盘后价）。
+     */
+    FetchResult fetchAndPersist(String symbol, LocalDate tradeDate, MissingFieldFiller.ClusterFetch ahFetch) {
         log.info("");
         log.info("[GapFetcher] ================================================");
         log.info("[GapFetcher] === 补缺 {}，日期 {} ===", symbol, tradeDate);
@@ -124,7 +132,7 @@ class GapFetcher {
                     if (itemDate.equals(tradeDate)) {
                         log.info("[GapFetcher] {} source then received response: matched targetDate={}", source.name(), tradeDate);
                         StockDailyBar bar = persist(symbol, tradeDate, item, source.name());
-                        missingFieldFiller.mergeAfterHoursIfAvailable(symbol, tradeDate, bar, source.ds());
+                        missingFieldFiller.mergeAfterHoursIfAvailable(symbol, tradeDate, bar, source.ds(), ahFetch);
                         final String sourceName = source.name();
                         stockDataSourcePriorityService.updatePriority(
                                 symbol, sourceName, java.time.LocalDateTime.now());
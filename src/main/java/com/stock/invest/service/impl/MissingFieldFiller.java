@@ -1,5 +1,6 @@
 package com.stock.invest.service.impl;
 
+import com.stock.invest.config.GapFillProperties;
 import com.stock.invest.entity.StockDailyBar;
 import com.stock.invest.model.KLineData;
 import com.stock.invest.model.KLineIterator;
@@ -12,15 +13,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -28,6 +33,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * <p>负责对已有日 K 记录做缺失字段发现、标记和增补：
  * 日线 OHLCV、change_percent、盘后价等由能力表驱动。</p>
+ * <p>增补阶段按 (symbol, source) 聚簇：同簇日 K 一次拉取覆盖区间后复用到簇内全部记录；
+ * 单次运行受时间/调用配额预算约束（{@link GapFillProperties}），替代原固定 100 条上限。
+ * 每次外部源调用前扣减预算，耗尽即中止（含簇内逐日回退），未处理记录保持 PENDING；
+ * 下次运行从上次中止的簇开始轮转，避免近期簇持续占满预算导致较早的簇饿死。</p>
  */
 class MissingFieldFiller {
 
@@ -41,15 +50,20 @@ class MissingFieldFiller {
     private final StockDailyBarRepository stockDailyBarRepository;
     private final List<DataSourceStrategy> dataSources;
     private final FieldCapabilityService fieldCapabilityService;
+    private final GapFillProperties gapFillProperties;
     private final TransactionTemplate transactionTemplate;
+    /** 上次因预算耗尽中止的簇；下次运行从该簇开始轮转，null 表示按默认顺序 */
+    private volatile ClusterKey resumeFrom;
 
     MissingFieldFiller(StockDailyBarRepository stockDailyBarRepository,
                        List<DataSourceStrategy> dataSources,
                        FieldCapabilityService fieldCapabilityService,
+                       GapFillProperties gapFillProperties,
                        PlatformTransactionManager transactionManager) {
         this.stockDailyBarRepository = stockDailyBarRepository;
         this.dataSources = dataSources;
         this.fieldCapabilityService = fieldCapabilityService;
+        this.gapFillProperties = gapFillProperties;
         this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
@@ -129,28 +143,79 @@ class MissingFieldFiller {
             log.info("[MissingFieldFiller] fillMissingFields: confirmed {} stale pending (tradeDate < {}) as terminal",
                     stale, windowStart);
         }
-        List<StockDailyBar> pending = stockDailyBarRepository.findByFieldFillStatus(
-                DataGapFillerServiceImpl.STATUS_PENDING,
-                org.springframework.data.domain.PageRequest.of(0, DataGapFillerServiceImpl.MAX_FILL_FIELDS_PER_RUN));
+        FillBudget budget = new FillBudget(gapFillProperties.getFieldFillTimeBudget(),
+                gapFillProperties.getFieldFillMaxSourceCalls());
+        List<Object[]> clusters = rotate(
+                stockDailyBarRepository.findFieldFillClusters(DataGapFillerServiceImpl.STATUS_PENDING), resumeFrom);
+        int processed = 0;
         int completed = 0;
-        for (StockDailyBar bar : pending) {
-            try {
-                if (fillMissingFieldsForBar(bar)) {
-                    completed++;
+        int clustersDone = 0;
+        ClusterKey deferredFrom = null;
+        clusterLoop:
+        for (Object[] cluster : clusters) {
+            ClusterKey key = new ClusterKey((String) cluster[0], (String) cluster[1]);
+            if (budget.exhausted()) {
+                deferredFrom = key;
+                break;
+            }
+            List<StockDailyBar> bars = stockDailyBarRepository
+                    .findBySymbolAndSourceAndFieldFillStatusOrderByTradeDateAsc(
+                            key.symbol(), key.source(), DataGapFillerServiceImpl.STATUS_PENDING);
+            if (!bars.isEmpty()) {
+                ClusterFetch fetch = clusterFetchFor(key.symbol(), bars, budget);
+                for (StockDailyBar bar : bars) {
+                    try {
+                        if (fillMissingFieldsForBar(bar, fetch)) {
+                            completed++;
+                        }
+                    } catch (BudgetExhaustedException e) {
+                        // 簇内中止：本条及其后记录保持 PENDING，下次从本簇继续
+                        deferredFrom = key;
+                        break clusterLoop;
+                    } catch (Exception e) {
+                        log.warn("[MissingFieldFiller] fillMissingFields failed for {} {}: {}",
+                                bar.getSymbol(), bar.getTradeDate(), e.getMessage());
+                    }
+                    processed++;
                 }
-            } catch (Exception e) {
-                log.warn("[MissingFieldFiller] fillMissingFields failed for {} {}: {}",
-                        bar.getSymbol(), bar.getTradeDate(), e.getMessage());
             }
+            clustersDone++;
+        }
+        resumeFrom = deferredFrom;
+        if (deferredFrom != null) {
+            log.info("[MissingFieldFiller] fillMissingFields: budget exhausted (sourceCalls={}), {} clusters deferred, next run resumes at {}/{}",
+                    budget.sourceCalls(), clusters.size() - clustersDone, deferredFrom.symbol(), deferredFrom.source());
         }
-        if (!pending.isEmpty()) {
-            log.info("[MissingFieldFiller] fillMissingFields: processed {} pending records, completed {}",
-                    pending.size(), completed);
+        if (processed > 0) {
+            log.info("[MissingFieldFiller] fillMissingFields: processed {} pending records in {} clusters, completed {}, sourceCalls={}",
+                    processed, clustersDone, completed, budget.sourceCalls());
         }
         return completed;
     }
 
+    /**
+     * 把簇列表轮转为从 {@code from} 开始（其前的簇排到末尾）；{@code from} 已不在列表中时保持原顺序。
+     */
+    static List<Object[]> rotate(List<Object[]> clusters, ClusterKey from) {
+        if (from == null) {
+            return clusters;
+        }
+        for (int i = 0; i < clusters.size(); i++) {
+            Object[] c = clusters.get(i);
+            if (from.symbol().equals(c[0]) && from.source().equals(c[1])) {
+                List<Object[]> rotated = new ArrayList<>(clusters.subList(i, clusters.size()));
+                rotated.addAll(clusters.subList(0, i));
+                return rotated;
+            }
+        }
+        return clusters;
+    }
+
     boolean fillMissingFieldsForBar(StockDailyBar bar) {
+        return fillMissingFieldsForBar(bar, newClusterFetch(bar.getSymbol(), List.of(bar.getTradeDate())));
+    }
+
+    private boolean fillMissingFieldsForBar(StockDailyBar bar, ClusterFetch fetch) {
         List<String> missing = parseMissingFields(bar.getMissingFields());
         if (missing.isEmpty()) {
             bar.setFieldFillStatus(DataGapFillerServiceImpl.STATUS_CONFIRMED);
@@ -179,13 +244,15 @@ class MissingFieldFiller {
             DataSourceStrategy matchedDs = null;
             for (DataSourceStrategy ds : querySequence) {
                 try {
-                    KLineData data = ds.getDailyKLineDataByDateRange(bar.getSymbol(), bar.getTradeDate());
+                    KLineData data = fetch.daily(ds, bar.getTradeDate());
                     KLineIterator item = findItemByDate(data, bar.getTradeDate());
                     if (item != null) {
                         matchedItem = item;
                         matchedDs = ds;
                         break;
                     }
+                } catch (BudgetExhaustedException e) {
+                    throw e;
                 } catch (StockDataException e) {
                     if (e.getCategory() == StockDataException.ErrorCategory.CONFIRMED_NOT_FOUND) {
                         continue;
@@ -228,7 +295,7 @@ class MissingFieldFiller {
                     continue;
                 }
                 try {
-                    KLineData ahData = ds.getAfterHoursKLineDataByDateRange(bar.getSymbol(), bar.getTradeDate());
+                    KLineData ahData = fetch.afterHours(ds, bar.getTradeDate());
                     if (isKLineDataEmpty(ahData)) {
                         continue;
                     }
@@ -253,6 +320,8 @@ class MissingFieldFiller {
                         ahResolved = true;
                         break;
                     }
+                } catch (BudgetExhaustedException e) {
+                    throw e;
                 } catch (Exception e) {
                     log.warn("[MissingFieldFiller] fillMissingFields after-hours failed for {} {} via {}: {}",
                             bar.getSymbol(), bar.getTradeDate(), ds.getSourceName(), e.getMessage());
@@ -286,11 +355,20 @@ class MissingFieldFiller {
 
     void mergeAfterHoursIfAvailable(String symbol, LocalDate tradeDate, StockDailyBar bar,
                                     DataSourceStrategy source) {
+        mergeAfterHoursIfAvailable(symbol, tradeDate, bar, source, newClusterFetch(symbol, List.of(tradeDate)));
+    }
+
+    /**
+     * 合并盘后价：盘后数据经 {@code fetch} 取得——补缺按 symbol 预先登记全部缺口日期，
+     * 同一数据源首次合并即一次拉取该 symbol 全部日期的盘后价，后续日期直接命中缓存。
+     */
+    void mergeAfterHoursIfAvailable(String symbol, LocalDate tradeDate, StockDailyBar bar,
+                                    DataSourceStrategy source, ClusterFetch fetch) {
         if (!supportsAfterHoursMerge(source)) {
             return;
         }
         try {
-            KLineData ahData = source.getAfterHoursKLineDataByDateRange(symbol, tradeDate);
+            KLineData ahData = fetch.afterHours(source, tradeDate);
             if (isKLineDataEmpty(ahData)) {
                     return;
             }
@@ -325,6 +403,28 @@ class MissingFieldFiller {
         return fieldCapabilityService.isMarkable(source.getSourceName(), DataGapFillerServiceImpl.F_AFTER_HOURS);
     }
 
+    /** 同一 symbol 一组日期（日 K / 盘后共用）的取数缓存，无预算约束 */
+    ClusterFetch newClusterFetch(String symbol, List<LocalDate> dates) {
+        return new ClusterFetch(symbol, dates, dates, null);
+    }
+
+    /** 增补簇取数缓存：日 K 只覆盖缺行情字段的日期，盘后只覆盖缺盘后字段的日期 */
+    private ClusterFetch clusterFetchFor(String symbol, List<StockDailyBar> bars, FillBudget budget) {
+        List<LocalDate> klineDates = new ArrayList<>();
+        List<LocalDate> ahDates = new ArrayList<>();
+        for (StockDailyBar bar : bars) {
+            for (String field : parseMissingFields(bar.getMissingFields())) {
+                if (DataGapFillerServiceImpl.F_AFTER_HOURS.equals(field)
+                        || DataGapFillerServiceImpl.F_AFTER_HOURS_CHANGE_PERCENT.equals(field)) {
+                    ahDates.add(bar.getTradeDate());
+                } else {
+                    klineDates.add(bar.getTradeDate());
+                }
+            }
+        }
+        return new ClusterFetch(symbol, klineDates, ahDates, budget);
+    }
+
     private LocalDate fillWindowStart() {
         return ZonedDateTime.now(AMERICA_NY).toLocalDate().minusDays(FILL_WINDOW_CALENDAR_DAYS);
     }
@@ -506,4 +606,151 @@ class MissingFieldFiller {
     private void runInTx(Runnable action) {
         transactionTemplate.executeWithoutResult(status -> action.run());
     }
+
+    /** 增补簇标识 (symbol, source) */
+    record ClusterKey(String symbol, String source) {}
+
+    /** 预算耗尽：在外部源调用之前抛出，调用方据此中止本次运行（不视为数据源失败） */
+    static final class BudgetExhaustedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExhaustedException(int sourceCalls) {
+            super("field fill budget exhausted after " + sourceCalls + " source calls", null, false, false);
+        }
+    }
+
+    /**
+     * 字段增补单次运行预算：时间截止 + 外部源调用配额。簇之间检查 {@link #exhausted()}，
+     * 每次外部源调用前经 {@link #charge()} 扣减，耗尽即抛 {@link BudgetExhaustedException}（簇内同样生效）。
+     */
+    static final class FillBudget {
+
+        private final long deadlineNanos;
+        private final int maxSourceCalls;
+        private int sourceCalls;
+
+        FillBudget(Duration timeBudget, int maxSourceCalls) {
+            this.deadlineNanos = timeBudget == null || timeBudget.isZero() || timeBudget.isNegative()
+                    ? Long.MAX_VALUE
+                    : System.nanoTime() + timeBudget.toNanos();
+            this.maxSourceCalls = maxSourceCalls;
+        }
+
+        void charge() {
+            if (exhausted()) {
+                throw new BudgetExhaustedException(sourceCalls);
+            }
+            sourceCalls++;
+        }
+
+        int sourceCalls() {
+            return sourceCalls;
+        }
+
+        boolean exhausted() {
+            if (maxSourceCalls > 0 && sourceCalls >= maxSourceCalls) {
+                return true;
+            }
+            return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+        }
+    }
+
+    /**
+     * 同一 symbol 一组日期的取数缓存（字段增补簇 / 补缺缺口日期共用）：
+     * 日 K 经 {@link DataSourceStrategy#getDailyKLineDataByDates}、盘后经
+     * {@link DataSourceStrategy#getAfterHoursKLineDataByDates} 按数据源各一次拉取并复用；
+     * 批量请求失败或未返回时回退逐条单日查询，保持原单条语义（失败只影响对应记录）。
+     * 数据源未覆盖批量方法（{@link DataSourceStrategy#supportsDailyKLineBatch} / {@link DataSourceStrategy#supportsAfterHoursKLineBatch}
+     * 为 false，默认实现即逐日循环）时直接逐日查询：每次外部请求各扣一次预算，中途瞬态失败也不会整组重拉。
+     */
+    static final class ClusterFetch {
+
+        private final String symbol;
+        private final Set<LocalDate> klineDates;
+        private final Set<LocalDate> ahDates;
+        private final FillBudget budget;
+        private final Map<String, KLineData> dailyBySource = new HashMap<>();
+        private final Map<String, KLineData> ahBySource = new HashMap<>();
+        private final Map<String, StockDataException> notFoundBySource = new HashMap<>();
+        private final Set<String> dailyBatchFailed = new HashSet<>();
+        private final Set<String> ahBatchFailed = new HashSet<>();
+
+        ClusterFetch(String symbol, List<LocalDate> klineDates, List<LocalDate> ahDates, FillBudget budget) {
+            this.symbol = symbol;
+            this.klineDates = new TreeSet<>(klineDates);
+            this.ahDates = new TreeSet<>(ahDates);
+            this.budget = budget;
+        }
+
+        KLineData daily(DataSourceStrategy ds, LocalDate tradeDate) {
+            String key = ds.getSourceName();
+            if (klineDates.size() > 1 && klineDates.contains(tradeDate) && ds.supportsDailyKLineBatch()
+                    && !dailyBatchFailed.contains(key)) {
+                StockDataException notFound = notFoundBySource.get(key);
+                if (notFound != null) {
+                    throw notFound;
+                }
+                KLineData cached = dailyBySource.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                recordSourceCall();
+                try {
+                    KLineData data = ds.getDailyKLineDataByDates(symbol, klineDates);
+                    if (data != null) {
+                        dailyBySource.put(key, data);
+                        return data;
+                    }
+                    dailyBatchFailed.add(key);
+                } catch (StockDataException e) {
+                    if (e.getCategory() == StockDataException.ErrorCategory.CONFIRMED_NOT_FOUND) {
+                        notFoundBySource.put(key, e);
+                        throw e;
+                    }
+                    dailyBatchFailed.add(key);
+                    log.debug("[MissingFieldFiller] cluster fetch failed for {} via {}, fallback per-date: {}",
+                            symbol, key, e.getMessage());
+                } catch (Exception e) {
+                    dailyBatchFailed.add(key);
+                    log.debug("[MissingFieldFiller] cluster fetch failed for {} via {}, fallback per-date: {}",
+                            symbol, key, e.getMessage());
+                }
+            }
+            recordSourceCall();
+            return ds.getDailyKLineDataByDateRange(symbol, tradeDate);
+        }
+
+        KLineData afterHours(DataSourceStrategy ds, LocalDate tradeDate) {
+            String key = ds.getSourceName();
+            if (ahDates.size() > 1 && ahDates.contains(tradeDate) && ds.supportsAfterHoursKLineBatch()
+                    && !ahBatchFailed.contains(key)) {
+                KLineData cached = ahBySource.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                recordSourceCall();
+                try {
+                    KLineData data = ds.getAfterHoursKLineDataByDates(symbol, ahDates);
+                    if (data != null) {
+                        ahBySource.put(key, data);
+                        return data;
+                    }
+                    ahBatchFailed.add(key);
+                } catch (Exception e) {
+                    ahBatchFailed.add(key);
+                    log.debug("[MissingFieldFiller] cluster after-hours fetch failed for {} via {}, fallback per-date: {}",
+                            symbol, key, e.getMessage());
+                }
+            }
+            recordSourceCall();
+            return ds.getAfterHoursKLineDataByDateRange(symbol, tradeDate);
+        }
+
+        /** 每次外部源调用之前扣减预算（无预算时不限） */
+        private void recordSourceCall() {
+            if (budget != null) {
+                budget.charge();
+            }
+        }
+    }
 }
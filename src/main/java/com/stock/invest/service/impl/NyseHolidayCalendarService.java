@@ -0,0 +1,194 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.model.TradingCalendarResult;
+import com.stock.invest.service.TradingCalendarService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 离线规则版 NYSE 交易日历（fallback 链末位，零 I/O）。
+ * <p>按规则推算美股休市日与提前收盘日：固定日期节日 + 周末顺延（周六 → 周五、周日 → 周一；
+ * 元旦逢周六不提前到上年 12-31）、按第 n 个星期几的节日、复活节推算的耶稣受难日。
+ * 提前收盘（13:00）：独立日前一日（07-03 为周一至周四）、感恩节次日、平安夜（12-24 为周一至周四）。</p>
+ * <p>临时休市（国丧、灾害）无法推算，仅内置已发生的少数日期；供应商数据仍优先，本源兜底并用于交叉校验。
+ * 只支持 US 市场，非 US 返回 null。</p>
+ */
+@Service
+public class NyseHolidayCalendarService implements TradingCalendarService {
+
+    private static final Logger log = LoggerFactory.getLogger(NyseHolidayCalendarService.class);
+
+    static final String SOURCE = "rules";
+
+    /** 已发生的临时休市日（不可推算；条目超过 Map.of 的 10 对上限，用 ofEntries） */
+    private static final Map<LocalDate, String> SPECIAL_CLOSURES = Map.ofEntries(
+            Map.entry(LocalDate.of(2001, 9, 11), "September 11 attacks"),
+            Map.entry(LocalDate.of(2001, 9, 12), "September 11 attacks"),
+            Map.entry(LocalDate.of(2001, 9, 13), "September 11 attacks"),
+            Map.entry(LocalDate.of(2001, 9, 14), "September 11 attacks"),
+            Map.entry(LocalDate.of(2004, 6, 11), "National Day of Mourning (Ronald Reagan)"),
+            Map.entry(LocalDate.of(2007, 1, 2), "National Day of Mourning (Gerald Ford)"),
+            Map.entry(LocalDate.of(2012, 10, 29), "Hurricane Sandy"),
+            Map.entry(LocalDate.of(2012, 10, 30), "Hurricane Sandy"),
+            Map.entry(LocalDate.of(2018, 12, 5), "National Day of Mourning (George H.W. Bush)"),
+            Map.entry(LocalDate.of(2025, 1, 9), "National Day of Mourning (Jimmy Carter)"));
+
+    /** year → (date → 休市节日名) */
+    private final Map<Integer, Map<LocalDate, String>> holidaysByYear = new ConcurrentHashMap<>();
+
+    /** year → (date → 提前收盘说明) */
+    private final Map<Integer, Map<LocalDate, String>> earlyClosesByYear = new ConcurrentHashMap<>();
+
+    @Override
+    public String getSourceName() {
+        return SOURCE;
+    }
+
+    /** 纯计算，始终可用 */
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public TradingCalendarResult isTradingDay(String market, LocalDate date) {
+        if (!"US".equals(market)) {
+            log.debug("[rules] 日历查询跳过：不支持市场 {}", market);
+            return null;
+        }
+        if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            return TradingCalendarResult.nonTrading(market, date, SOURCE, "WEEKEND", "weekend");
+        }
+        String holiday = holidays(date.getYear()).get(date);
+        if (holiday != null) {
+            return TradingCalendarResult.nonTrading(market, date, SOURCE, "HOLIDAY", holiday);
+        }
+        String earlyClose = earlyCloses(date.getYear()).get(date);
+        if (earlyClose != null) {
+            return new TradingCalendarResult(market, date, true, SOURCE, "EARLY_CLOSE", earlyClose);
+        }
+        return TradingCalendarResult.trading(market, date, SOURCE, "TRADING");
+    }
+
+    @Override
+    public List<TradingCalendarResult> getTradingCalendar(String market, LocalDate start, LocalDate end) {
+        if (!"US".equals(market)) {
+            return null;
+        }
+        List<TradingCalendarResult> results = new ArrayList<>();
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            results.add(isTradingDay(market, d));
+        }
+        return results;
+    }
+
+    /** 指定年份的休市日（date → 节日名，不含周末） */
+    public Map<LocalDate, String> holidays(int year) {
+        return holidaysByYear.computeIfAbsent(year, NyseHolidayCalendarService::computeHolidays);
+    }
+
+    /** 指定年份的提前收盘日（date → 说明） */
+    public Map<LocalDate, String> earlyCloses(int year) {
+        return earlyClosesByYear.computeIfAbsent(year, y -> computeEarlyCloses(y, holidays(y)));
+    }
+
+    // ---- 规则推算 ----
+
+    private static Map<LocalDate, String> computeHolidays(int year) {
+        Map<LocalDate, String> h = new HashMap<>();
+        // 元旦：逢周日顺延周一；逢周六不休（NYSE 不把上年 12-31 作为观察日）
+        LocalDate newYear = LocalDate.of(year, 1, 1);
+        if (newYear.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            h.put(newYear.plusDays(1), "New Year's Day (observed)");
+        } else if (newYear.getDayOfWeek() != DayOfWeek.SATURDAY) {
+            h.put(newYear, "New Year's Day");
+        }
+        if (year >= 1998) {
+            h.put(nthWeekday(year, Month.JANUARY, DayOfWeek.MONDAY, 3), "Martin Luther King Jr. Day");
+        }
+        h.put(nthWeekday(year, Month.FEBRUARY, DayOfWeek.MONDAY, 3), "Washington's Birthday");
+        h.put(easterSunday(year).minusDays(2), "Good Friday");
+        h.put(LocalDate.of(year, 5, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), "Memorial Day");
+        if (year >= 2022) {
+            putObserved(h, LocalDate.of(year, 6, 19), "Juneteenth");
+        }
+        putObserved(h, LocalDate.of(year, 7, 4), "Independence Day");
+        h.put(nthWeekday(year, Month.SEPTEMBER, DayOfWeek.MONDAY, 1), "Labor Day");
+        h.put(thanksgiving(year), "Thanksgiving Day");
+        putObserved(h, LocalDate.of(year, 12, 25), "Christmas Day");
+        SPECIAL_CLOSURES.forEach((date, name) -> {
+            if (date.getYear() == year) {
+                h.put(date, name);
+            }
+        });
+        return Collections.unmodifiableMap(h);
+    }
+
+    private static Map<LocalDate, String> computeEarlyCloses(int year, Map<LocalDate, String> holidays) {
+        Map<LocalDate, String> e = new HashMap<>();
+        LocalDate july3 = LocalDate.of(year, 7, 3);
+        if (isMonToThu(july3) && !holidays.containsKey(july3)) {
+            e.put(july3, "Day before Independence Day (13:00 close)");
+        }
+        e.put(thanksgiving(year).plusDays(1), "Day after Thanksgiving (13:00 close)");
+        LocalDate christmasEve = LocalDate.of(year, 12, 24);
+        if (isMonToThu(christmasEve) && !holidays.containsKey(christmasEve)) {
+            e.put(christmasEve, "Christmas Eve (13:00 close)");
+        }
+        return Collections.unmodifiableMap(e);
+    }
+
+    /** 固定日期节日：周六 → 前一周五，周日 → 后一周一 */
+    private static void putObserved(Map<LocalDate, String> h, LocalDate date, String name) {
+        if (date.getDayOfWeek() == DayOfWeek.SATURDAY) {
+            h.put(date.minusDays(1), name + " (observed)");
+        } else if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            h.put(date.plusDays(1), name + " (observed)");
+        } else {
+            h.put(date, name);
+        }
+    }
+
+    private static LocalDate nthWeekday(int year, Month month, DayOfWeek dow, int n) {
+        return LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(n, dow));
+    }
+
+    private static LocalDate thanksgiving(int year) {
+        return nthWeekday(year, Month.NOVEMBER, DayOfWeek.THURSDAY, 4);
+    }
+
+    private static boolean isMonToThu(LocalDate date) {
+        return date.getDayOfWeek().getValue() <= DayOfWeek.THURSDAY.getValue();
+    }
+
+    /** 复活节（公历，Anonymous Gregorian / Meeus 算法） */
+    static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = ((h + l - 7 * m + 114) % 31) + 1;
+        return LocalDate.of(year, month, day);
+    }
+}
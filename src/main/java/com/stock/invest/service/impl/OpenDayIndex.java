@@ -0,0 +1,71 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.TradingCalendarEntity;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 筛选单次运行内的开盘日索引（升序 epochDay 数组）。
+ * <p>每次筛选只查一次日历区间；每个 symbol 用 {@link #trailingConsecutive} 从最新交易日倒推，
+ * 逐根比对"第 k 个开盘日"，得到末尾连续开盘日根数，窗口 w 的连续性校验退化为 {@code run >= w}。</p>
+ */
+final class OpenDayIndex {
+
+    private final long[] openEpochDays;
+
+    private OpenDayIndex(long[] openEpochDays) {
+        this.openEpochDays = openEpochDays;
+    }
+
+    static OpenDayIndex of(List<TradingCalendarEntity> entries) {
+        long[] days = entries == null ? new long[0] : entries.stream()
+                .filter(e -> Boolean.TRUE.equals(e.getIsOpen()) && e.getTradeDate() != null)
+                .mapToLong(e -> e.getTradeDate().toEpochDay())
+                .sorted()
+                .distinct()
+                .toArray();
+        return new OpenDayIndex(days);
+    }
+
+    int size() {
+        return openEpochDays.length;
+    }
+
+    /** 开盘日下标；非开盘日/不在区间内返回 -1 */
+    int indexOf(LocalDate date) {
+        return indexOf(date.toEpochDay());
+    }
+
+    /** 同 {@link #indexOf(LocalDate)}，按 epochDay 查询 */
+    int indexOf(long epochDay) {
+        int i = Arrays.binarySearch(openEpochDays, epochDay);
+        return i >= 0 ? i : -1;
+    }
+
+    /**
+     * 升序 bars 末尾有多少根恰好落在连续开盘日上（以最后一根为基准倒推）。
+     * <p>等价于原逐窗口校验：末尾 w 根的日期 == 日历中 [首根, 末根] 的全部开盘日 ⇔ 返回值 ≥ w。</p>
+     *
+     * @param barsAsc 单 symbol 的 bar，按 tradeDate 升序
+     * @return 连续根数；最后一根不是开盘日时为 0
+     */
+    int trailingConsecutive(List<StockDailyBar> barsAsc) {
+        if (barsAsc == null || barsAsc.isEmpty()) {
+            return 0;
+        }
+        int last = barsAsc.size() - 1;
+        int idx = indexOf(barsAsc.get(last).getTradeDate());
+        if (idx < 0) {
+            return 0;
+        }
+        int run = 0;
+        while (run <= last && idx - run >= 0
+                && barsAsc.get(last - run).getTradeDate().toEpochDay() == openEpochDays[idx - run]) {
+            run++;
+        }
+        return run;
+    }
+}
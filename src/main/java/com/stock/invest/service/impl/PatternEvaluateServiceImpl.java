@@ -1,161 +1,210 @@
 package com.stock.invest.service.impl;
 
+import com.stock.invest.config.ScreeningProperties;
 import com.stock.invest.constant.WindowConstants;
 import com.stock.invest.entity.StockDailyBar;
 import com.stock.invest.model.KLineIterator;
+import com.stock.invest.model.PatternParams;
 import com.stock.invest.service.PatternEvaluateService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 成交量模式评估。
+ * <p>所有入口共用 {@link #evaluateTail}：从最后一根向前单遍累加后缀和，逐窗口得出
+ * 递增量能 / 放量突破结论。热路径零分配 —— 无数组拷贝、无装箱、无日志参数求值
+ * （DEBUG 日志全部在 {@code isDebugEnabled()} 之后）。逐窗口决策明细仅由
+ * {@link #traceWindows} 按需生成（筛选对观察名单 symbol 调用）。</p>
+ * <p>判定阈值来自 {@code screening.pattern}（{@link PatternParams}），默认值与参数化前的硬编码判定逐位一致。</p>
+ */
 @Service
 public class PatternEvaluateServiceImpl implements PatternEvaluateService {
 
     private static final Logger log = LoggerFactory.getLogger(PatternEvaluateServiceImpl.class);
 
+    /** 合法窗口 2~7 的选择位 */
+    private static final int VALID_WINDOW_MASK = ((1 << (WindowConstants.MAX_WINDOW_DAYS + 1)) - 1)
+            & ~((1 << WindowConstants.MIN_WINDOW_DAYS) - 1);
+
+    private final PatternParams params;
+
+    /** 默认阈值（基准 / 测试直接构造） */
+    public PatternEvaluateServiceImpl() {
+        this(PatternParams.DEFAULT);
+    }
+
+    @Autowired
+    public PatternEvaluateServiceImpl(ScreeningProperties screeningProperties) {
+        this(screeningProperties.getPattern().toParams());
+    }
+
+    public PatternEvaluateServiceImpl(PatternParams params) {
+        this.params = params;
+    }
+
+    /** 当前生效的判定阈值 */
+    public PatternParams params() {
+        return params;
+    }
+
     @Override
     public boolean matchesIncreasingVolumePattern(List<StockDailyBar> sevenBarsOldestFirst) {
-        log.debug("[PatternEval] matchesIncreasingVolumePattern: begin — barCount={}",
-                sevenBarsOldestFirst != null ? sevenBarsOldestFirst.size() : 0);
-        boolean result = matchesIncreasingVolumePattern(sevenBarsOldestFirst, WindowConstants.MAX_WINDOW_DAYS);
-        log.debug("[PatternEval] matchesIncreasingVolumePattern: result={}", result);
-        return result;
+        return matchesIncreasingVolumePattern(sevenBarsOldestFirst, WindowConstants.MAX_WINDOW_DAYS);
     }
 
     @Override
     public boolean matchesIncreasingVolumePattern(List<StockDailyBar> barsOldestFirst, int windowDays) {
-        log.debug("[PatternEval] matchesIncreasingVolumePattern: begin — barCount={}, windowDays={}",
-                barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
-
-        if (windowDays < WindowConstants.MIN_WINDOW_DAYS || windowDays > WindowConstants.MAX_WINDOW_DAYS) {
-            log.debug("[PatternEval] matchesIncreasingVolumePattern: invalid windowDays={}", windowDays);
-            return false;
-        }
-        if (barsOldestFirst == null || barsOldestFirst.size() < windowDays) {
-            log.debug("[PatternEval] matchesIncreasingVolumePattern: insufficient data — size={}, required={}",
-                    barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
-            return false;
-        }
-        int start = barsOldestFirst.size() - windowDays;
-        long[] vol = new long[windowDays];
-        for (int i = 0; i < windowDays; i++) {
-            StockDailyBar bar = barsOldestFirst.get(start + i);
-            if (bar == null || bar.getVolume() == null || bar.getVolume() == 0L) {
-                log.debug("[PatternEval] matchesIncreasingVolumePattern: null bar at index={}", i);
-                return false;
-            }
-            vol[i] = bar.getVolume();
-        }
+        return matchesSingle(barsOldestFirst, windowDays, false);
+    }
 
-        log.debug("[PatternEval] matchesIncreasingVolumePattern: volumes — windowDays={}, lastVolume={}",
-                windowDays, vol[windowDays - 1]);
+    @Override
+    public boolean matchesIncreasingVolumePatternFromKLine(List<KLineIterator> barsOldestFirst, int windowDays) {
+        return matchesSingle(barsOldestFirst, windowDays, false);
+    }
 
-        boolean result = checkIncreasingPattern(vol, windowDays);
-        log.debug("[PatternEval] matchesIncreasingVolumePattern: result={}, windowDays={}", result, windowDays);
-        return result;
+    /**
+     * 放量突破模式：窗口内前 (windowDays-1) 天的平均成交量 × spikeMultiplier（默认 5）&lt; 最后一天的成交量。
+     */
+    @Override
+    public boolean matchesVolumeSpikePattern(List<StockDailyBar> barsOldestFirst, int windowDays) {
+        return matchesSingle(barsOldestFirst, windowDays, true);
     }
 
+    /**
+     * 单遍多窗口评估（见 {@link #evaluateTail}）。
+     */
     @Override
-    public boolean matchesIncreasingVolumePatternFromKLine(List<KLineIterator> barsOldestFirst, int windowDays) {
-        log.debug("[PatternEval] matchesIncreasingVolumePatternFromKLine: begin — barCount={}, windowDays={}",
-                barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
+    public int evaluateWindows(List<StockDailyBar> barsOldestFirst, int windowMask) {
+        return evaluateTail(barsOldestFirst, windowMask, params);
+    }
 
+    private boolean matchesSingle(List<?> barsOldestFirst, int windowDays, boolean spike) {
         if (windowDays < WindowConstants.MIN_WINDOW_DAYS || windowDays > WindowConstants.MAX_WINDOW_DAYS) {
-            log.debug("[PatternEval] matchesIncreasingVolumePatternFromKLine: invalid windowDays={}", windowDays);
+            if (log.isDebugEnabled()) {
+                log.debug("[PatternEval] invalid windowDays={}", windowDays);
+            }
             return false;
         }
         if (barsOldestFirst == null || barsOldestFirst.size() < windowDays) {
-            log.debug("[PatternEval] matchesIncreasingVolumePatternFromKLine: insufficient data — size={}, required={}",
-                    barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
+            if (log.isDebugEnabled()) {
+                log.debug("[PatternEval] insufficient data — size={}, required={}",
+                        barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
+            }
             return false;
         }
-        int start = barsOldestFirst.size() - windowDays;
-        long[] vol = new long[windowDays];
-        for (int i = 0; i < windowDays; i++) {
-            KLineIterator bar = barsOldestFirst.get(start + i);
-            if (bar == null || bar.getVolume() == 0L) {
-                log.debug("[PatternEval] matchesIncreasingVolumePatternFromKLine: null bar at index={}", i);
-                return false;
-            }
-            vol[i] = bar.getVolume();
+        int hits = evaluateTail(barsOldestFirst, PatternEvaluateService.windowBit(windowDays), params);
+        int bit = spike ? PatternEvaluateService.spikeBit(windowDays) : PatternEvaluateService.windowBit(windowDays);
+        boolean result = (hits & bit) != 0;
+        if (log.isDebugEnabled()) {
+            log.debug("[PatternEval] {}: result={}, windowDays={}",
+                    spike ? "volume_spike" : "increasing_volume", result, windowDays);
         }
-
-        log.debug("[PatternEval] matchesIncreasingVolumePatternFromKLine: volumes — windowDays={}, lastVolume={}",
-                windowDays, vol[windowDays - 1]);
-
-        boolean result = checkIncreasingPattern(vol, windowDays);
-        log.debug("[PatternEval] matchesIncreasingVolumePatternFromKLine: result={}, windowDays={}", result, windowDays);
         return result;
     }
 
-    private static boolean checkIncreasingPattern(long[] vols, int windowDays) {
-        log.debug("[PatternEval] checkIncreasingPattern: begin — windowDays={}", windowDays);
-
-        // Build prefix sum for O(1) tail average calculation
-        long[] prefixSum = new long[vols.length + 1];
-        for (int i = 0; i < vols.length; i++) {
-            prefixSum[i + 1] = prefixSum[i] + vols[i];
+    /**
+     * 从最后一根向前累加后缀和，len 每增 1 同时得出窗口 len 上的：
+     * 递增量能（avg(末 len 根) × (1 + increasingMinStep) &lt; avg(末 len-1 根)，对 len=2..w 全部成立）与
+     * 放量突破（avg(窗口前 w-1 根) × spikeMultiplier &lt; 末根）。
+     * 遇到 null / 0 成交量即停止：包含该根的更长窗口均不命中。
+     *
+     * @param barsOldestFirst {@link StockDailyBar} 或 {@link KLineIterator} 列表
+     */
+    static int evaluateTail(List<?> barsOldestFirst, int windowMask, PatternParams params) {
+        int requested = windowMask & VALID_WINDOW_MASK;
+        if (barsOldestFirst == null || requested == 0) {
+            return 0;
         }
-
-        for (int len = windowDays; len > 1; len--) {
-            double longerAvg = (prefixSum[vols.length] - prefixSum[vols.length - len]) / (double) len;
-            double shorterAvg = (prefixSum[vols.length] - prefixSum[vols.length - len + 1]) / (double) (len - 1);
-            log.debug("[PatternEval] checkIncreasingPattern: comparing — len={}, longerAvg={}, shorterAvg={}",
-                    len, String.format("%.2f", longerAvg), String.format("%.2f", shorterAvg));
-            if (!(longerAvg < shorterAvg)) {
-                log.debug("[PatternEval] checkIncreasingPattern: failed at len={}, longerAvg >= shorterAvg", len);
-                return false;
+        int n = barsOldestFirst.size();
+        int maxWindow = Math.min(n, 31 - Integer.numberOfLeadingZeros(requested));
+        double factor = params.increasingFactor();
+        double multiplier = params.spikeMultiplier();
+        int result = 0;
+        long last = 0;
+        long suffix = 0;
+        boolean increasing = true;
+        for (int len = 1; len <= maxWindow; len++) {
+            long v = volumeAt(barsOldestFirst.get(n - len));
+            if (v == 0L) {
+                break;
+            }
+            long prevSuffix = suffix;
+            suffix += v;
+            if (len == 1) {
+                last = v;
+                continue;
+            }
+            increasing &= suffix / (double) len * factor < prevSuffix / (double) (len - 1);
+            if ((requested & PatternEvaluateService.windowBit(len)) == 0) {
+                continue;
+            }
+            if (increasing) {
+                result |= PatternEvaluateService.windowBit(len);
+            }
+            double avgBeforeLast = (double) (suffix - last) / (len - 1);
+            if (avgBeforeLast * multiplier < (double) last) {
+                result |= PatternEvaluateService.spikeBit(len);
             }
         }
-
-        double avg2 = (prefixSum[vols.length] - prefixSum[vols.length - 2]) / 2.0;
-        double lastVol = vols[windowDays - 1];
-        log.debug("[PatternEval] checkIncreasingPattern: final check — avg2={}, lastVol={}", String.format("%.2f", avg2), lastVol);
-        boolean result = avg2 < lastVol;
-        log.debug("[PatternEval] checkIncreasingPattern: result={}", result);
         return result;
     }
 
-    @Override
-    public boolean matchesVolumeSpikePattern(List<StockDailyBar> barsOldestFirst, int windowDays) {
-        log.debug("[PatternEval] matchesVolumeSpikePattern: begin - barCount={}, windowDays={}",
-                barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
-
-        if (windowDays < WindowConstants.MIN_WINDOW_DAYS
-                || windowDays > WindowConstants.MAX_WINDOW_DAYS) {
-            log.debug("[PatternEval] matchesVolumeSpikePattern: invalid windowDays={}", windowDays);
-            return false;
+    /** 成交量；bar / volume 缺失按 0（不命中）处理 */
+    private static long volumeAt(Object bar) {
+        if (bar instanceof StockDailyBar b) {
+            Long v = b.getVolume();
+            return v == null ? 0L : v;
         }
-        if (barsOldestFirst == null || barsOldestFirst.size() < windowDays) {
-            log.debug("[PatternEval] matchesVolumeSpikePattern: insufficient data - size={}, required={}",
-                    barsOldestFirst != null ? barsOldestFirst.size() : 0, windowDays);
-            return false;
+        if (bar instanceof KLineIterator k) {
+            return k.getVolume();
         }
+        return 0L;
+    }
 
-        int start = barsOldestFirst.size() - windowDays;
-        long[] vol = new long[windowDays];
-        for (int i = 0; i < windowDays; i++) {
-            StockDailyBar bar = barsOldestFirst.get(start + i);
-            if (bar == null || bar.getVolume() == null || bar.getVolume() == 0L) {
-                log.debug("[PatternEval] matchesVolumeSpikePattern: null bar at index={}", i);
-                return false;
-            }
-            vol[i] = bar.getVolume();
+    /**
+     * 逐窗口决策明细（诊断用，有分配）：与 {@link #evaluateTail} 同一计算，附带各窗口均值与结论。
+     */
+    @Override
+    public List<String> traceWindows(List<StockDailyBar> barsOldestFirst, int windowMask) {
+        List<String> trace = new ArrayList<>();
+        int requested = windowMask & VALID_WINDOW_MASK;
+        if (barsOldestFirst == null || requested == 0) {
+            trace.add("no data or no valid window requested");
+            return trace;
         }
-
-        long sum = 0;
-        for (int i = 0; i < windowDays - 1; i++) {
-            sum += vol[i];
+        int n = barsOldestFirst.size();
+        int maxWindow = Math.min(n, 31 - Integer.numberOfLeadingZeros(requested));
+        long last = 0;
+        long suffix = 0;
+        boolean increasing = true;
+        for (int len = 1; len <= maxWindow; len++) {
+            long v = volumeAt(barsOldestFirst.get(n - len));
+            if (v == 0L) {
+                trace.add(String.format("len=%d: missing/zero volume, windows >= %d rejected", len, len));
+                break;
+            }
+            long prevSuffix = suffix;
+            suffix += v;
+            if (len == 1) {
+                last = v;
+                trace.add("len=1: lastVol=" + v);
+                continue;
+            }
+            double longerAvg = suffix / (double) len;
+            double shorterAvg = prevSuffix / (double) (len - 1);
+            increasing &= longerAvg * params.increasingFactor() < shorterAvg;
+            double avgBeforeLast = (double) (suffix - last) / (len - 1);
+            boolean spike = avgBeforeLast * params.spikeMultiplier() < (double) last;
+            trace.add(String.format("len=%d%s: vol=%d, avg(last %d)=%.2f, avg(last %d)=%.2f, increasing=%b, "
+                            + "avgBeforeLast=%.2f, spike=%b",
+                    len, (requested & PatternEvaluateService.windowBit(len)) != 0 ? "" : " (not requested)",
+                    v, len, longerAvg, len - 1, shorterAvg, increasing, avgBeforeLast, spike));
         }
-        double avgBeforeLast = (double) sum / (windowDays - 1);
-        double lastVol = vol[windowDays - 1];
-        boolean result = avgBeforeLast * 5.0 < lastVol;
-
-        log.debug("[PatternEval] matchesVolumeSpikePattern: result={}, avgBeforeLast={}, lastVol={}, windowDays={}",
-                result, String.format("%.2f", avgBeforeLast), lastVol, windowDays);
-        return result;
+        return trace;
     }
-
 }
@@ -0,0 +1,105 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.service.PatternEvaluateService;
+
+/**
+ * 历史回测的单 symbol 滑动扫描：全历史只读一遍，逐日前移，每一步用前缀和 O(1) 取出末尾任意根数的成交量和，
+ * 得出"以该日为筛选日"时全部窗口 × 两种算法的命中位图。
+ * <p>每一步与单日筛选逐位一致：</p>
+ * <ul>
+ *   <li>可评估窗口 = 末尾连续开盘日根数（增量维护）与筛选回看区间（{@link #LOOKBACK_DAYS} 个自然日）共同约束</li>
+ *   <li>判定与 {@link PatternEvaluateServiceImpl} 同一浮点表达式，成交量和取自前缀和之差（溢出按补码抵消，结果不变）</li>
+ *   <li>最近一根 0 / 缺失成交量之前的根不参与，包含它的窗口均不命中</li>
+ * </ul>
+ * <p>{@link #scanGrid} 对同一份序列一次求出多组阈值（参数扫描）的命中：连续开盘日、回看约束、
+ * 前缀和每步只算一次，各组只重复 O(窗口数) 的比较。</p>
+ */
+final class RollingPatternScanner {
+
+    /** 单日筛选的回看自然日数：[tradeDate - LOOKBACK_DAYS, tradeDate] */
+    static final int LOOKBACK_DAYS = WindowConstants.MAX_WINDOW_DAYS + 2;
+
+    private RollingPatternScanner() {
+    }
+
+    /**
+     * @param epochDays  单 symbol 的 bar 日期（epochDay，严格升序）
+     * @param volumes    对应成交量，缺失记 0
+     * @param n          有效根数（数组可更长，便于复用）
+     * @param openDays   覆盖 [首根 - 回看, 末根] 的开盘日索引
+     * @param windowMask 参评窗口位图（{@link PatternEvaluateService#windowBit}）
+     * @param params     判定阈值
+     * @param prefix     工作区，长度 ≥ n + 1
+     * @param hits       输出，长度 ≥ n：hits[i] = 以第 i 根为最新一根时的命中位图
+     */
+    static void scan(long[] epochDays, long[] volumes, int n, OpenDayIndex openDays, int windowMask,
+                     PatternParams params, long[] prefix, int[] hits) {
+        scanGrid(epochDays, volumes, n, openDays, windowMask, new PatternParams[]{params}, prefix, new int[][]{hits});
+    }
+
+    /**
+     * 多组阈值同遍扫描。
+     *
+     * @param grid 阈值组合
+     * @param hits 输出，hits[c][i] = 第 c 组阈值下以第 i 根为最新一根时的命中位图（每行长度 ≥ n）
+     * @see #scan
+     */
+    static void scanGrid(long[] epochDays, long[] volumes, int n, OpenDayIndex openDays, int windowMask,
+                         PatternParams[] grid, long[] prefix, int[][] hits) {
+        int run = 0;
+        int prevOpen = Integer.MIN_VALUE;
+        int lastZero = -1;
+        prefix[0] = 0L;
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + volumes[i];
+            if (volumes[i] == 0L) {
+                lastZero = i;
+            }
+            int open = openDays.indexOf(epochDays[i]);
+            run = open < 0 ? 0 : (open == prevOpen + 1 ? run + 1 : 1);
+            prevOpen = open < 0 ? Integer.MIN_VALUE : open;
+
+            int max = Math.min(run, WindowConstants.MAX_WINDOW_DAYS);
+            while (max >= WindowConstants.MIN_WINDOW_DAYS
+                    && epochDays[i - max + 1] < epochDays[i] - LOOKBACK_DAYS) {
+                max--;
+            }
+            int eligible = max < WindowConstants.MIN_WINDOW_DAYS ? 0
+                    : windowMask & ((1 << (max + 1)) - (1 << WindowConstants.MIN_WINDOW_DAYS));
+            int maxLen = Math.min(max, i - lastZero);
+            for (int c = 0; c < grid.length; c++) {
+                hits[c][i] = eligible == 0 ? 0 : evaluate(prefix, i, maxLen, eligible, grid[c]);
+            }
+        }
+    }
+
+    /**
+     * 第 i 根为最新一根、末尾 maxLen 根成交量均非 0 时的命中位图（只置 eligible 内的位）。
+     */
+    private static int evaluate(long[] prefix, int i, int maxLen, int eligible, PatternParams params) {
+        double factor = params.increasingFactor();
+        double multiplier = params.spikeMultiplier();
+        long end = prefix[i + 1];
+        long last = end - prefix[i];
+        int result = 0;
+        boolean increasing = true;
+        for (int len = 2; len <= maxLen; len++) {
+            long suffix = end - prefix[i + 1 - len];
+            long prevSuffix = end - prefix[i + 2 - len];
+            increasing &= suffix / (double) len * factor < prevSuffix / (double) (len - 1);
+            if ((eligible & PatternEvaluateService.windowBit(len)) == 0) {
+                continue;
+            }
+            if (increasing) {
+                result |= PatternEvaluateService.windowBit(len);
+            }
+            double avgBeforeLast = (double) (suffix - last) / (len - 1);
+            if (avgBeforeLast * multiplier < (double) last) {
+                result |= PatternEvaluateService.spikeBit(len);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.service.PatternEvaluateService;
+
+/**
+ * 标量内核：逐 symbol 从最新一根向前累加后缀和（与 {@link PatternEvaluateServiceImpl} 同一计算），
+ * 也是 SIMD 内核处理尾部不足一个向量宽度的 symbol 时的实现。
+ */
+final class ScalarVolumePatternKernel implements VolumePatternKernel {
+
+    static final ScalarVolumePatternKernel INSTANCE = new ScalarVolumePatternKernel();
+
+    private ScalarVolumePatternKernel() {
+    }
+
+    @Override
+    public void evaluate(long[][] byLag, int symbols, int[] hits, PatternParams params) {
+        for (int s = 0; s < symbols; s++) {
+            hits[s] = evaluate(byLag, s, params);
+        }
+    }
+
+    /** 单个 symbol（第 s 列）的全部窗口命中位图；遇 0 成交量停止 */
+    static int evaluate(long[][] byLag, int s, PatternParams params) {
+        long last = byLag[0][s];
+        if (last == 0L) {
+            return 0;
+        }
+        double factor = params.increasingFactor();
+        double multiplier = params.spikeMultiplier();
+        int result = 0;
+        long suffix = last;
+        boolean increasing = true;
+        for (int len = 2; len <= DEPTH; len++) {
+            long v = byLag[len - 1][s];
+            if (v == 0L) {
+                break;
+            }
+            long prevSuffix = suffix;
+            suffix += v;
+            increasing &= suffix / (double) len * factor < prevSuffix / (double) (len - 1);
+            if (increasing) {
+                result |= PatternEvaluateService.windowBit(len);
+            }
+            double avgBeforeLast = (double) (suffix - last) / (len - 1);
+            if (avgBeforeLast * multiplier < (double) last) {
+                result |= PatternEvaluateService.spikeBit(len);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
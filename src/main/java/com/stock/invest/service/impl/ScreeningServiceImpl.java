@@ -1,44 +1,103 @@
 package com.stock.invest.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stock.invest.config.ScreeningProperties;
 import com.stock.invest.constant.WindowConstants;
 import com.stock.invest.entity.ScreeningMatch;
 import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.SymbolLatestBar;
+import com.stock.invest.model.DailyBarColumns;
+import com.stock.invest.model.RenderedPayload;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.ScreeningMatchBulkWriter;
 import com.stock.invest.repository.ScreeningMatchRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.service.DailyBarColumnStore;
 import com.stock.invest.service.PatternEvaluateService;
+import com.stock.invest.service.ScreeningBatchStore;
+import com.stock.invest.service.ScreeningHitIndex;
+import com.stock.invest.service.ScreeningPayloadStore;
 import com.stock.invest.service.ScreeningService;
+import com.stock.invest.service.SymbolDictionary;
 import com.stock.invest.service.TradingCalendarDbService;
-import com.stock.invest.entity.TradingCalendarEntity;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 模式筛选服务实现。
  * <p>
- * 从 stock_daily_bars 读取最近 7 天数据，按 symbol 分组后传入
- * {@link PatternEvaluateServiceImpl} 做模式评估，结果写入 screening_match 表。
+ * 从 stock_daily_bars 以只读投影流（{@link ScreeningBar}，仅筛选所需 6 列，按 symbol、日期升序）
+ * 读取最近 7 天数据，逐 symbol 组装后传入 {@link PatternEvaluateServiceImpl} 做模式评估，
+ * 结果写入 screening_match 表。堆占用与全市场 bar 总量无关，只与单个分片相关。
+ * {@link DailyBarColumnStore} 已完整覆盖筛选区间时改从列式缓存读取，不访问 stock_daily_bar。
+ * 读库时筛选基准日取 symbol_latest_bar 快照的最新交易日，且只流式读取最新 bar 落在基准日、收盘价非空的 symbol；
+ * 快照最新交易日晚于筛选日（历史日期重跑）时按区间查 stock_daily_bar。
+ * 通知 / 结果列表的 lastClose 按主键批量读取同一快照（含字段增补后的修正），名称取自 symbol 字典缓存。
  * </p>
  * <p>
- * 每个 symbol 对 2/3/4/5/6/7 天窗口依次评估（P3-2：原 javadoc 声称"并行评估"，
- * 实际为串行双层循环，注释与实现保持一致），分别记录结果。
+ * 每个 symbol 对 2/3/4/5/6/7 天窗口依次评估，分别记录结果。symbol 之间相互独立：
+ * 按 symbol 升序选出参评 symbol 并按 limit 截断，每攒满一个分片即并行评估
+ * （{@link ScreeningProperties#getParallelism()}，小批量走串行），结果按参评顺序合并，
+ * 与串行结果逐行一致。
+ * </p>
+ * <p>
+ * 连续开盘日校验：最新一根 bar 上的 run_length（{@link com.stock.invest.service.BarRunLengthMaintainer}
+ * 在日 K 写事务内维护，与 bar 同时提交）截到区间内根数即为末尾连续开盘日根数，窗口校验为整数比较；
+ * 尚未计算（NULL，历史数据未重建）时按每次运行只查一次的日历区间 {@link OpenDayIndex} 逐根比对。
+ * </p>
+ * <p>
+ * 写入：{@link ScreeningMatchBulkWriter} 可用（MySQL 且唯一约束在）时以多行 INSERT ... ON DUPLICATE KEY UPDATE
+ * 集合式写入，否则退回整日读出已有键在应用层查重后 saveAll。
+ * </p>
+ * <p>
+ * 横截面内核（{@link ScreeningProperties#isVectorKernel()}）：分片内全部 symbol 的最近 7 根成交量按滞后期分行，
+ * 由 {@link VolumePatternKernel} 一次求出全部窗口命中位图（SIMD 可用时向量化，否则标量），结果与逐 symbol 评估一致。
+ * </p>
+ * <p>
+ * 增量筛选（{@link #rescreenSymbols}）：只重评日 K 有变更的 symbol，与本次筛选结果逐键比对后 upsert；
+ * 全量运行期间让路（返回 null 由调用方重试），两者经 matchWriteLock 互斥写 screening_match。
+ * </p>
+ * <p>
+ * 读路径：最新 / 按日结果与通知分组的响应体按批次在 {@link ScreeningPayloadStore} 预渲染，
+ * 最新批次与按日批次指针常驻内存；screening_match 写入提交后失效，全量筛选完成后立即预热。
+ * 历史批次列表读 {@link ScreeningBatchStore} 维护的 screening_batch 摘要表（键集分页）；
+ * 跨日命中查询的 {@link ScreeningHitIndex} 同在写入提交后按交易日重建。
+ * </p>
+ * <p>
+ * 诊断：{@link ScreeningProperties#getDiagnosticSymbols()} 观察名单内的 symbol 额外输出
+ * [PatternTrace] 逐窗口决策明细；名单外 symbol 的评估路径不产生任何日志参数或字符串。
  * </p>
  */
 @Service
@@ -46,23 +105,75 @@ public class ScreeningServiceImpl implements ScreeningService {
 
     private static final Logger log = LoggerFactory.getLogger(ScreeningServiceImpl.class);
 
+    /** 流式消费时每攒满多少个参评 symbol 评估一次（单分片内仍可并行） */
+    private static final int CHUNK_SYMBOLS = 2048;
+
+    /** 展示用最新 bar 快照按主键批量读取的分片大小（IN 列表上限） */
+    private static final int LATEST_BAR_LOOKUP_CHUNK = 1000;
+
+    /** 预渲染视图：最新 / 按日结果（含 name） */
+    static final String VIEW_SCREENING = "screening";
+    /** 预渲染视图前缀：通知分组，后接规范化窗口列表（all = 全部窗口） */
+    static final String VIEW_NOTIFICATION = "notification:";
+
     private final StockDailyBarRepository stockDailyBarRepository;
     private final ScreeningMatchRepository screeningMatchRepository;
     private final PatternEvaluateService patternEvaluateService;
     private final TradingCalendarDbService tradingCalendarDbService;
+    private final ScreeningProperties screeningProperties;
+    private final DailyBarColumnStore dailyBarColumnStore;
+    private final ScreeningMatchBulkWriter screeningMatchBulkWriter;
+    private final SymbolDictionary symbolDictionary;
+    private final ScreeningPayloadStore screeningPayloadStore;
+    private final ScreeningBatchStore screeningBatchStore;
+    private final ScreeningHitIndex screeningHitIndex;
+    private final SymbolLatestBarRepository symbolLatestBarRepository;
+
+    /** 并行评估专用池：首次并行评估时创建，跨分片、跨运行复用，容器关闭时释放 */
+    private ForkJoinPool evaluationPool;
+
+    /** 最新批次指针：null = 未解析；screening_match 写入提交后清空 */
+    private volatile Optional<BatchRef> latestBatch;
+    /** 批次指针失效代次：查询开始后发生过失效则结果不回写（与 {@link ScreeningPayloadStore} 同一做法） */
+    private final AtomicLong latestBatchGeneration = new AtomicLong();
+    /** 回写与失效互斥：代次比对与写入之间不会插入一次失效 */
+    private final Object latestBatchMonitor = new Object();
+    /** 交易日 → 该日最新批次指针；写入提交后按交易日清除 */
+    private final Cache<LocalDate, Optional<BatchRef>> batchByDate = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
 
     /** P1-2：筛选运行互斥 —— 同步/异步/定时多路触发共用同一实例，重复触发直接跳过 */
     private final AtomicBoolean running = new AtomicBoolean(false);
 
+    /** screening_match 写入互斥：全量运行全程持有，增量重评仅在空闲时获取（全量优先） */
+    private final ReentrantLock matchWriteLock = new ReentrantLock();
+
     public ScreeningServiceImpl(
             StockDailyBarRepository stockDailyBarRepository,
             ScreeningMatchRepository screeningMatchRepository,
             PatternEvaluateService patternEvaluateService,
-            TradingCalendarDbService tradingCalendarDbService) {
+            TradingCalendarDbService tradingCalendarDbService,
+            ScreeningProperties screeningProperties,
+            DailyBarColumnStore dailyBarColumnStore,
+            ScreeningMatchBulkWriter screeningMatchBulkWriter,
+            SymbolDictionary symbolDictionary,
+            ScreeningPayloadStore screeningPayloadStore,
+            ScreeningBatchStore screeningBatchStore,
+            ScreeningHitIndex screeningHitIndex,
+            SymbolLatestBarRepository symbolLatestBarRepository) {
         this.stockDailyBarRepository = stockDailyBarRepository;
         this.screeningMatchRepository = screeningMatchRepository;
         this.patternEvaluateService = patternEvaluateService;
         this.tradingCalendarDbService = tradingCalendarDbService;
+        this.screeningProperties = screeningProperties;
+        this.dailyBarColumnStore = dailyBarColumnStore;
+        this.screeningMatchBulkWriter = screeningMatchBulkWriter;
+        this.symbolDictionary = symbolDictionary;
+        this.screeningPayloadStore = screeningPayloadStore;
+        this.screeningBatchStore = screeningBatchStore;
+        this.screeningHitIndex = screeningHitIndex;
+        this.symbolLatestBarRepository = symbolLatestBarRepository;
     }
 
     @Override
@@ -79,9 +190,12 @@ public class ScreeningServiceImpl implements ScreeningService {
             log.warn("[Screening] runScreening: already running, skip concurrent trigger");
             return null;
         }
+        // 等待进行中的增量重评收尾（单批秒级）
+        matchWriteLock.lock();
         try {
             return runScreeningInternal(tradeDate, windowDays, limit);
         } finally {
+            unlockAfterCompletion();
             running.set(false);
         }
     }
@@ -89,6 +203,7 @@ public class ScreeningServiceImpl implements ScreeningService {
     private String runScreeningInternal(LocalDate tradeDate, Integer windowDays, Integer limit) {
         LocalDate targetDate = tradeDate == null ? ZonedDateTime.now(ZoneId.of("America/New_York")).toLocalDate() : tradeDate;
         String batchId = UUID.randomUUID().toString();
+        Instant startedAt = Instant.now();
 
         // P1-7：windowDays 生效 —— null 或小于最小窗口时使用全部窗口 2~7 天
         List<Integer> windows = (windowDays == null || windowDays < WindowConstants.MIN_WINDOW_DAYS)
@@ -98,146 +213,694 @@ public class ScreeningServiceImpl implements ScreeningService {
         log.info("ScreeningServiceImpl: start batchId={}, date={}, windowDays={}, limit={}",
                 batchId, targetDate, windows, limit);
 
-        // 获取最近 MAX_SEARCH_DAYS 天的数据
+        // 获取最近 MAX_SEARCH_DAYS 天的数据：先取区间内最新交易日作为筛选基准（targetDate 仅作批次标记）；
+        // 列式缓存完整覆盖区间时全程不访问 stock_daily_bar
         LocalDate startDate = targetDate.minusDays(WindowConstants.MAX_WINDOW_DAYS + 2);
-        List<StockDailyBar> allBars = stockDailyBarRepository
-                .findByTradeDateBetweenOrderByTradeDateDesc(startDate, targetDate);
-
-        if (allBars == null || allBars.isEmpty()) {
+        boolean fromStore = dailyBarColumnStore.covers(startDate);
+        LocalDate snapshotLatest = fromStore ? null : latestTradeDateInSnapshot(targetDate);
+        LocalDate latestTradeDate = fromStore
+                ? latestTradeDateInStore(startDate, targetDate)
+                : latestTradeDateInDb(snapshotLatest, startDate, targetDate);
+        if (latestTradeDate == null) {
             log.warn("ScreeningServiceImpl: no bars found for date={}", targetDate);
             return batchId;
         }
 
-        // 按 symbol 分组
-        Map<String, List<StockDailyBar>> barsBySymbol = new LinkedHashMap<>();
-        LocalDate latestTradeDate = allBars.get(0).getTradeDate();
-        for (StockDailyBar bar : allBars) {
-            barsBySymbol.computeIfAbsent(bar.getSymbol(), k -> new ArrayList<>()).add(bar);
+        // 开盘日索引：整次运行只查一次日历
+        OpenDayIndex openDays = OpenDayIndex.of(
+                tradingCalendarDbService.getRange("US", startDate, latestTradeDate));
+
+        VolumePatternKernel kernel = screeningProperties.isVectorKernel() ? VolumePatternKernels.preferred() : null;
+        ChunkedEvaluation run = new ChunkedEvaluation(windows, openDays, batchId, targetDate, limit,
+                diagnosticSymbols(), kernel);
+        if (fromStore) {
+            evaluateFromStore(run, startDate, targetDate, latestTradeDate);
+        } else {
+            evaluateFromDb(run, startDate, targetDate, latestTradeDate, snapshotLatest != null);
         }
+        List<ScreeningMatch> allRows = run.finish();
+        int symbols = run.symbols;
+        int processed = run.processed;
+        int totalMatchedRows = allRows.size();
 
-        // 对每个 symbol 并行评估 6 个窗口 (2d~7d)
-        List<ScreeningMatch> allRows = new ArrayList<>();
-        int processed = 0;
-        int totalMatchedRows = 0;
+        // 批量写入（P2-5：防重 —— 同交易日同股票同窗口同算法已存在的行跳过，重复触发不再插入重复行）。
+        // 跳过的已存在行（如增量筛选先行写入）改归本批次，按批次读取的结果仍完整
+        if (!allRows.isEmpty()) {
+            if (screeningMatchBulkWriter.isAvailable()) {
+                ScreeningMatchBulkWriter.Result result = screeningMatchBulkWriter.insertOrCarry(allRows);
+                log.info("[Screening] batch save inserted {} row(s), carried {} existing row(s) for tradeDate={}",
+                        result.inserted(), result.duplicates(), targetDate);
+            } else {
+                saveWithLookup(allRows, batchId, targetDate);
+            }
+        }
+        screeningBatchStore.recordRun(batchId, targetDate, startedAt);
+        refreshReadModelsAfterCommit(Set.of(targetDate), true);
 
-        for (Map.Entry<String, List<StockDailyBar>> entry : barsBySymbol.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockDailyBar> bars = entry.getValue();
+        log.info("ScreeningServiceImpl: done batchId={}, tradeDate={}, source={}, symbols={}, processed={}, matchedRows={}",
+                batchId, targetDate, fromStore ? "bar-store" : "db", symbols, processed, totalMatchedRows);
+        return batchId;
+    }
+
+    /**
+     * 应用层查重写入（唯一约束缺失或非 MySQL 时）：整日读出已有键，新键 saveAll，已存在的键改归本批次。
+     * 存量库存在历史重复行时约束暂缺，由本处查重保证不再新增重复。
+     */
+    private void saveWithLookup(List<ScreeningMatch> allRows, String batchId, LocalDate targetDate) {
+        Map<String, Long> existingIds = new HashMap<>();
+        for (ScreeningMatch m : screeningMatchRepository.findByTradeDate(targetDate)) {
+            existingIds.put(matchKey(m), m.getId());
+        }
+        List<ScreeningMatch> toSave = new ArrayList<>();
+        List<Long> carried = new ArrayList<>();
+        for (ScreeningMatch r : allRows) {
+            String key = matchKey(r);
+            if (!existingIds.containsKey(key)) {
+                toSave.add(r);
+            } else if (existingIds.get(key) != null) {
+                carried.add(existingIds.get(key));
+            }
+        }
+        int skippedDuplicates = allRows.size() - toSave.size();
+        if (skippedDuplicates > 0) {
+            log.info("[Screening] batch save skipped {} duplicate row(s) for tradeDate={}",
+                    skippedDuplicates, targetDate);
+        }
+        if (!carried.isEmpty()) {
+            screeningMatchRepository.updateBatchIdByIdIn(batchId, carried);
+        }
+        if (!toSave.isEmpty()) {
+            screeningMatchRepository.saveAll(toSave);
+        }
+    }
 
-            // 升序排列（PatternEvaluateService 要求 oldest-first）
-            bars.sort(Comparator.comparing(StockDailyBar::getTradeDate));
+    @Override
+    @Transactional
+    public Map<String, Object> rescreenSymbols(LocalDate barDate, Set<String> symbols) {
+        if (running.get() || !matchWriteLock.tryLock()) {
+            return null;
+        }
+        try {
+            List<String> tradeDates = new ArrayList<>();
+            int[] counts = new int[3];
+            Set<String> sortedSymbols = new TreeSet<>(symbols);
+            Set<LocalDate> changedDates = new HashSet<>();
+            for (LocalDate targetDate : affectedTradeDates(barDate)) {
+                int[] c = upsertSymbols(targetDate, sortedSymbols);
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += c[i];
+                }
+                if (c[0] + c[1] + c[2] > 0) {
+                    changedDates.add(targetDate);
+                }
+                tradeDates.add(targetDate.toString());
+            }
+            screeningBatchStore.refreshTradeDates(changedDates);
+            refreshReadModelsAfterCommit(changedDates, false);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("barDate", barDate.toString());
+            summary.put("tradeDates", tradeDates);
+            summary.put("symbols", sortedSymbols.size());
+            summary.put("inserted", counts[0]);
+            summary.put("updated", counts[1]);
+            summary.put("deleted", counts[2]);
+            return summary;
+        } finally {
+            unlockAfterCompletion();
+        }
+    }
 
-            StockDailyBar latest = bars.get(bars.size() - 1);
+    /**
+     * 写锁在当前事务结束（提交 / 回滚）后释放：另一方拿到锁时读到的已是提交后的 screening_match，
+     * 不会按过期快照插入重复键；无事务时立即释放。
+     */
+    private void unlockAfterCompletion() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            matchWriteLock.unlock();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                matchWriteLock.unlock();
+            }
+        });
+    }
 
-            // 以库里实际最新日期作为筛选基准，targetDate 仅作批次标记
-            if (!latestTradeDate.equals(latest.getTradeDate())) {
-                continue;
+    /**
+     * screening_match 写入提交后：清空批次指针、失效这些交易日的预渲染结果并重建命中位图；warm 时随即渲染
+     * 这些交易日最新批次的结果视图与全窗口通知视图（全量筛选完成即就绪，增量重评按需渲染）。
+     * 回滚不失效；无事务时立即执行。
+     */
+    private void refreshReadModelsAfterCommit(Set<LocalDate> tradeDates, boolean warm) {
+        if (tradeDates.isEmpty()) {
+            return;
+        }
+        Runnable refresh = () -> {
+            synchronized (latestBatchMonitor) {
+                latestBatchGeneration.incrementAndGet();
+                latestBatch = null;
             }
-            if (latest.getClosePrice() == null) {
-                continue;
+            batchByDate.invalidateAll(tradeDates);
+            screeningPayloadStore.evictTradeDates(tradeDates);
+            screeningHitIndex.refreshTradeDates(tradeDates);
+            if (warm) {
+                screeningPayloadStore.warm(() -> {
+                    for (LocalDate date : tradeDates) {
+                        screeningPayload(batchOn(date), date);
+                        notificationPayload(batchOn(date), date, null);
+                    }
+                    latestBatchRef();
+                });
             }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh.run();
+            }
+        });
+    }
 
-            processed++;
+    /**
+     * barDate 落在其回看区间内的筛选交易日：已有结果的交易日；barDate 晚于全部已有结果时取 barDate 本身。
+     */
+    private List<LocalDate> affectedTradeDates(LocalDate barDate) {
+        Optional<LocalDate> lastScreened = screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc()
+                .map(ScreeningMatch::getTradeDate);
+        if (lastScreened.isEmpty() || barDate.isAfter(lastScreened.get())) {
+            return List.of(barDate);
+        }
+        return screeningMatchRepository.findDistinctTradeDatesBetween(
+                barDate, barDate.plusDays(WindowConstants.MAX_WINDOW_DAYS + 2));
+    }
 
-            // 多窗口并行评估：数据够哪个窗口就评估哪个
-            for (int w : windows) {
-                if (bars.size() < w) {
-                    continue;
+    /**
+     * 单个筛选交易日的增量 upsert：参评规则与全量一致（最新日为区间内全市场最新交易日、收盘价非空、
+     * 全部窗口 2~7 天），与现有行按 (symbol, windowDays, algorithm) 比对。
+     *
+     * @return [inserted, updated, deleted]
+     */
+    private int[] upsertSymbols(LocalDate targetDate, Set<String> symbols) {
+        LocalDate startDate = targetDate.minusDays(WindowConstants.MAX_WINDOW_DAYS + 2);
+        boolean fromStore = dailyBarColumnStore.covers(startDate);
+        LocalDate latestTradeDate = fromStore
+                ? latestTradeDateInStore(startDate, targetDate)
+                : latestTradeDateInDb(latestTradeDateInSnapshot(targetDate), startDate, targetDate);
+        Map<String, ScreeningMatch> existing = new HashMap<>();
+        for (ScreeningMatch m : screeningMatchRepository.findByTradeDateAndSymbolIn(targetDate, symbols)) {
+            existing.put(matchKey(m), m);
+        }
+
+        List<ScreeningMatch> fresh = new ArrayList<>();
+        if (latestTradeDate != null) {
+            OpenDayIndex openDays = OpenDayIndex.of(
+                    tradingCalendarDbService.getRange("US", startDate, latestTradeDate));
+            String batchId = screeningMatchRepository.findTopByTradeDateOrderByIdDesc(targetDate)
+                    .map(ScreeningMatch::getBatchId)
+                    .orElseGet(() -> UUID.randomUUID().toString());
+            Map<String, List<StockDailyBar>> barsBySymbol = fromStore
+                    ? barsFromStore(symbols, startDate, targetDate)
+                    : barsFromDb(symbols, startDate, targetDate);
+            Set<String> watch = diagnosticSymbols();
+            for (Map.Entry<String, List<StockDailyBar>> e : barsBySymbol.entrySet()) {
+                List<StockDailyBar> bars = e.getValue();
+                StockDailyBar latest = bars.get(bars.size() - 1);
+                if (latestTradeDate.equals(latest.getTradeDate()) && latest.getClosePrice() != null) {
+                    fresh.addAll(evaluateSymbol(new SymbolBars(e.getKey(), bars), WindowConstants.ALL_WINDOW_DAYS,
+                            openDays, batchId, targetDate, watch));
                 }
-                // 取对应窗口长度的数据
-                List<StockDailyBar> windowSlice = bars.subList(bars.size() - w, bars.size());
+            }
+        }
 
-                // 连续开盘日校验
-                if (!isWindowConsecutiveTradingDays(windowSlice, w)) {
-                    log.debug("[Screening] skip symbol={} window={}d: data not on consecutive trading days",
-                            symbol, w);
+        List<ScreeningMatch> toSave = new ArrayList<>();
+        int inserted = 0;
+        int updated = 0;
+        for (ScreeningMatch row : fresh) {
+            ScreeningMatch old = existing.remove(matchKey(row));
+            if (old == null) {
+                toSave.add(row);
+                inserted++;
+            } else if (refresh(old, row)) {
+                toSave.add(old);
+                updated++;
+            }
+        }
+        if (!toSave.isEmpty()) {
+            screeningMatchRepository.saveAll(toSave);
+        }
+        // 剩余即不再命中（或不再参评）的行
+        if (!existing.isEmpty()) {
+            screeningMatchRepository.deleteAllInBatch(existing.values());
+        }
+        return new int[]{inserted, updated, existing.size()};
+    }
+
+    /** 已有行按新评估结果刷新价格相关字段（批次、创建时间不变），有变化返回 true */
+    private static boolean refresh(ScreeningMatch old, ScreeningMatch row) {
+        boolean changed = !Objects.equals(old.getDataSource(), row.getDataSource())
+                || !sameValue(old.getLastClose(), row.getLastClose())
+                || !sameValue(old.getPrice(), row.getPrice())
+                || !Objects.equals(old.getRise(), row.getRise());
+        if (changed) {
+            old.setDataSource(row.getDataSource());
+            old.setLastClose(row.getLastClose());
+            old.setPrice(row.getPrice());
+            old.setRise(row.getRise());
+        }
+        return changed;
+    }
+
+    private static boolean sameValue(java.math.BigDecimal a, java.math.BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /** 去重键：同交易日内 (symbol, windowDays, algorithm) 唯一 */
+    private static String matchKey(ScreeningMatch m) {
+        return m.getSymbol() + "|" + m.getWindowDays() + "|" + m.getAlgorithm();
+    }
+
+    /** 列式缓存中指定 symbol 的 [startDate, targetDate] 区间 bar（升序），无数据的 symbol 不出现 */
+    private Map<String, List<StockDailyBar>> barsFromStore(Set<String> symbols, LocalDate startDate,
+                                                           LocalDate targetDate) {
+        Map<String, List<StockDailyBar>> result = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            DailyBarColumns c = dailyBarColumnStore.get(symbol);
+            int hi = c == null ? -1 : c.lastIndexOnOrBefore(targetDate.toEpochDay());
+            int lo = c == null ? 0 : c.firstIndexOnOrAfter(startDate.toEpochDay());
+            if (hi < lo) {
+                continue;
+            }
+            List<StockDailyBar> bars = new ArrayList<>(hi - lo + 1);
+            for (int i = lo; i <= hi; i++) {
+                bars.add(c.toDetachedBar(i));
+            }
+            result.put(symbol, bars);
+        }
+        return result;
+    }
+
+    /** 读库：指定 symbol 的筛选投影，按 symbol 分组（升序） */
+    private Map<String, List<StockDailyBar>> barsFromDb(Set<String> symbols, LocalDate startDate,
+                                                        LocalDate targetDate) {
+        Map<String, List<StockDailyBar>> result = new LinkedHashMap<>();
+        for (ScreeningBar row : stockDailyBarRepository.findScreeningBars(symbols, startDate, targetDate)) {
+            result.computeIfAbsent(row.symbol(), k -> new ArrayList<>()).add(row.toDetachedBar());
+        }
+        return result;
+    }
+
+    /**
+     * symbol_latest_bar 的全市场最新交易日。不晚于 targetDate 时快照即各 symbol 在筛选区间内的最新 bar；
+     * 晚于 targetDate（历史日期重跑）或快照为空时返回 null，调用方按区间查 stock_daily_bar。
+     */
+    private LocalDate latestTradeDateInSnapshot(LocalDate targetDate) {
+        LocalDate latest = symbolLatestBarRepository.findMaxTradeDate();
+        return latest != null && !latest.isAfter(targetDate) ? latest : null;
+    }
+
+    /** 读库路径的 [startDate, targetDate] 内最新交易日：快照可用时直接取用，否则按区间聚合 */
+    private LocalDate latestTradeDateInDb(LocalDate snapshotLatest, LocalDate startDate, LocalDate targetDate) {
+        if (snapshotLatest != null) {
+            return snapshotLatest.isBefore(startDate) ? null : snapshotLatest;
+        }
+        return stockDailyBarRepository.findMaxTradeDateBetween(startDate, targetDate);
+    }
+
+    /**
+     * 读库路径：只读投影流按 (symbol, trade_date) 升序逐行消费，相邻行即同一 symbol。
+     *
+     * @param latestOnly 快照可用：只读取最新 bar 落在 latestTradeDate 且收盘价非空的 symbol
+     */
+    private void evaluateFromDb(ChunkedEvaluation run, LocalDate startDate, LocalDate targetDate,
+                                LocalDate latestTradeDate, boolean latestOnly) {
+        try (Stream<ScreeningBar> stream = latestOnly
+                ? stockDailyBarRepository.streamScreeningBarsOfLatest(startDate, targetDate, latestTradeDate)
+                : stockDailyBarRepository.streamScreeningBars(startDate, targetDate)) {
+            Iterator<ScreeningBar> it = stream.iterator();
+            String currentSymbol = null;
+            List<ScreeningBar> current = new ArrayList<>();
+            while (true) {
+                ScreeningBar row = it.hasNext() ? it.next() : null;
+                if (row != null && row.symbol().equals(currentSymbol)) {
+                    current.add(row);
                     continue;
                 }
-
-                // 算法1: 递增成交量
-                if (patternEvaluateService.matchesIncreasingVolumePattern(windowSlice, w)) {
-                    ScreeningMatch row = buildMatch(batchId, latest, symbol, targetDate, w, "increasing_volume");
-                    allRows.add(row);
-                    totalMatchedRows++;
+                // symbol 切换（或流结束）：收尾上一个 symbol
+                if (currentSymbol != null) {
+                    ScreeningBar latest = current.get(current.size() - 1);
+                    boolean eligible = latestTradeDate.equals(latest.tradeDate()) && latest.closePrice() != null;
+                    if (!run.accept(currentSymbol, eligible ? toBars(current) : null)) {
+                        return;
+                    }
+                }
+                if (row == null) {
+                    return;
                 }
+                currentSymbol = row.symbol();
+                current = new ArrayList<>();
+                current.add(row);
+            }
+        }
+    }
 
-                // 算法2: 放量突破
-                if (patternEvaluateService.matchesVolumeSpikePattern(windowSlice, w)) {
-                    ScreeningMatch row = buildMatch(batchId, latest, symbol, targetDate, w, "volume_spike");
-                    allRows.add(row);
-                    totalMatchedRows++;
+    /**
+     * 列式缓存路径：按 symbol 升序遍历，二分定位 [startDate, targetDate] 区间，只为参评 symbol 还原 bar。
+     */
+    private void evaluateFromStore(ChunkedEvaluation run, LocalDate startDate, LocalDate targetDate,
+                                   LocalDate latestTradeDate) {
+        long latestDay = latestTradeDate.toEpochDay();
+        for (String symbol : dailyBarColumnStore.symbols()) {
+            DailyBarColumns c = dailyBarColumnStore.get(symbol);
+            int hi = c == null ? -1 : c.lastIndexOnOrBefore(targetDate.toEpochDay());
+            int lo = c == null ? 0 : c.firstIndexOnOrAfter(startDate.toEpochDay());
+            if (hi < lo) {
+                continue;
+            }
+            List<StockDailyBar> bars = null;
+            if (c.epochDay(hi) == latestDay && c.has(hi, DailyBarColumns.FLAG_CLOSE)) {
+                bars = new ArrayList<>(hi - lo + 1);
+                for (int i = lo; i <= hi; i++) {
+                    bars.add(c.toDetachedBar(i));
                 }
             }
+            if (!run.accept(symbol, bars)) {
+                return;
+            }
+        }
+    }
+
+    /** 缓存中 [startDate, targetDate] 内的最新交易日，无数据返回 null */
+    private LocalDate latestTradeDateInStore(LocalDate startDate, LocalDate targetDate) {
+        long latest = Long.MIN_VALUE;
+        for (String symbol : dailyBarColumnStore.symbols()) {
+            DailyBarColumns c = dailyBarColumnStore.get(symbol);
+            int hi = c == null ? -1 : c.lastIndexOnOrBefore(targetDate.toEpochDay());
+            if (hi >= 0 && c.epochDay(hi) >= startDate.toEpochDay()) {
+                latest = Math.max(latest, c.epochDay(hi));
+            }
+        }
+        return latest == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(latest);
+    }
+
+    /** 观察名单（去空白、统一大写），整次运行解析一次 */
+    private Set<String> diagnosticSymbols() {
+        List<String> configured = screeningProperties.getDiagnosticSymbols();
+        if (configured == null || configured.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> watch = new HashSet<>();
+        for (String symbol : configured) {
+            if (symbol != null && !symbol.isBlank()) {
+                watch.add(symbol.trim().toUpperCase());
+            }
+        }
+        return watch;
+    }
+
+    private static List<StockDailyBar> toBars(List<ScreeningBar> rows) {
+        List<StockDailyBar> bars = new ArrayList<>(rows.size());
+        for (ScreeningBar row : rows) {
+            bars.add(row.toDetachedBar());
+        }
+        return bars;
+    }
+
+    /**
+     * 单次运行的分片评估：按参评顺序接收 symbol，攒满 CHUNK_SYMBOLS 个即评估一次，
+     * 堆上只保留当前分片；P1-7：limit 限制参评 symbol 数。
+     */
+    private final class ChunkedEvaluation {
 
-            // P1-7：limit 生效 —— 当前 symbol 已完整评估后，再判断是否达到上限
+        private final List<Integer> windows;
+        private final OpenDayIndex openDays;
+        private final String batchId;
+        private final LocalDate targetDate;
+        private final Integer limit;
+        private final Set<String> watch;
+        /** null = 逐 symbol 经 PatternEvaluateService 评估 */
+        private final VolumePatternKernel kernel;
+        private final List<SymbolBars> chunk = new ArrayList<>(CHUNK_SYMBOLS);
+        private final List<ScreeningMatch> rows = new ArrayList<>();
+        private int symbols;
+        private int processed;
+
+        private ChunkedEvaluation(List<Integer> windows, OpenDayIndex openDays, String batchId,
+                                  LocalDate targetDate, Integer limit, Set<String> watch,
+                                  VolumePatternKernel kernel) {
+            this.windows = windows;
+            this.openDays = openDays;
+            this.batchId = batchId;
+            this.targetDate = targetDate;
+            this.limit = limit;
+            this.watch = watch;
+            this.kernel = kernel;
+        }
+
+        /**
+         * 计入一个 symbol；barsAsc 为 null 表示不参评（最新日不符或收盘价缺失）。
+         *
+         * @return false 表示 limit 已到，调用方停止投喂
+         */
+        boolean accept(String symbol, List<StockDailyBar> barsAsc) {
+            symbols++;
+            if (barsAsc == null) {
+                return true;
+            }
+            chunk.add(new SymbolBars(symbol, barsAsc));
+            processed++;
             if (limit != null && limit > 0 && processed >= limit) {
                 log.info("[Screening] limit={} reached, stop evaluating more symbols (processed={})", limit, processed);
-                break;
+                flush();
+                return false;
+            }
+            if (chunk.size() >= CHUNK_SYMBOLS) {
+                flush();
             }
+            return true;
         }
 
-        // 批量写入（P2-5：防重 —— 同交易日同股票同窗口同算法已存在的行跳过，
-        // 重复触发不再插入重复行；DB 唯一约束 uk_screening_match_trade_symbol_window_algorithm 兜底，
-        // 存量库存在历史重复行时约束暂缺，由本处应用层查重保证）
-        if (!allRows.isEmpty()) {
-            Set<String> existingKeys = screeningMatchRepository.findByTradeDate(targetDate).stream()
-                    .map(m -> m.getSymbol() + "|" + m.getWindowDays() + "|" + m.getAlgorithm())
-                    .collect(Collectors.toSet());
-            List<ScreeningMatch> toSave = allRows.stream()
-                    .filter(r -> !existingKeys.contains(r.getSymbol() + "|" + r.getWindowDays() + "|" + r.getAlgorithm()))
-                    .collect(Collectors.toList());
-            int skippedDuplicates = allRows.size() - toSave.size();
-            if (skippedDuplicates > 0) {
-                log.info("[Screening] batch save skipped {} duplicate row(s) for tradeDate={}",
-                        skippedDuplicates, targetDate);
+        List<ScreeningMatch> finish() {
+            flush();
+            return rows;
+        }
+
+        /** 评估当前分片并按参评顺序追加结果，随后清空分片 */
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
             }
-            if (!toSave.isEmpty()) {
-                screeningMatchRepository.saveAll(toSave);
+            List<List<ScreeningMatch>> results = kernel != null
+                    ? evaluateWithKernel(kernel, chunk, windows, openDays, batchId, targetDate, watch)
+                    : evaluateAll(chunk, sb -> evaluateSymbol(sb, windows, openDays, batchId, targetDate, watch));
+            for (List<ScreeningMatch> r : results) {
+                rows.addAll(r);
             }
+            chunk.clear();
         }
+    }
 
-        log.info("ScreeningServiceImpl: done batchId={}, tradeDate={}, symbols={}, processed={}, matchedRows={}",
-                batchId, targetDate, barsBySymbol.size(), processed, totalMatchedRows);
-        return batchId;
+    /**
+     * 评估单个 symbol 的全部窗口（无共享可变状态，可并行）。观察名单内的 symbol 额外输出决策明细。
+     */
+    private List<ScreeningMatch> evaluateSymbol(SymbolBars symbolBars, List<Integer> windows,
+                                                OpenDayIndex openDays, String batchId, LocalDate targetDate,
+                                                Set<String> watch) {
+        String symbol = symbolBars.symbol();
+        List<StockDailyBar> bars = symbolBars.bars();
+
+        // 末尾连续开盘日根数（窗口 w 连续 ⇔ consecutive >= w）
+        int consecutive = consecutive(openDays, bars);
+        // 数据够且连续的窗口一次性评估：单遍得出全部窗口 × 两种算法的命中位图
+        int windowMask = evaluableWindows(symbol, bars.size(), consecutive, windows);
+        if (windowMask == 0) {
+            return new ArrayList<>();
+        }
+        int hits = patternEvaluateService.evaluateWindows(bars, windowMask);
+        if (!watch.isEmpty() && watch.contains(symbol)) {
+            logTrace(symbol, bars, windowMask, consecutive, hits);
+        }
+        return toRows(symbolBars, windows, windowMask, hits, batchId, targetDate);
+    }
+
+    /**
+     * 横截面内核评估一个分片：最近 {@link VolumePatternKernel#DEPTH} 根成交量按滞后期分行（缺失 / 不足记 0），
+     * 一次求出全部 symbol 的全部窗口命中位图，再按各 symbol 的可评估窗口截取。返回值与输入同序。
+     */
+    private List<List<ScreeningMatch>> evaluateWithKernel(VolumePatternKernel kernel, List<SymbolBars> chunk,
+                                                          List<Integer> windows, OpenDayIndex openDays,
+                                                          String batchId, LocalDate targetDate, Set<String> watch) {
+        int n = chunk.size();
+        long[][] byLag = new long[VolumePatternKernel.DEPTH][n];
+        for (int s = 0; s < n; s++) {
+            List<StockDailyBar> bars = chunk.get(s).bars();
+            int depth = Math.min(VolumePatternKernel.DEPTH, bars.size());
+            for (int k = 0; k < depth; k++) {
+                StockDailyBar bar = bars.get(bars.size() - 1 - k);
+                Long volume = bar == null ? null : bar.getVolume();
+                byLag[k][s] = volume == null ? 0L : volume;
+            }
+        }
+        int[] allHits = new int[n];
+        kernel.evaluate(byLag, n, allHits, screeningProperties.getPattern().toParams());
+
+        List<List<ScreeningMatch>> results = new ArrayList<>(n);
+        for (int s = 0; s < n; s++) {
+            SymbolBars symbolBars = chunk.get(s);
+            List<StockDailyBar> bars = symbolBars.bars();
+            int consecutive = consecutive(openDays, bars);
+            int windowMask = evaluableWindows(symbolBars.symbol(), bars.size(), consecutive, windows);
+            if (windowMask == 0) {
+                results.add(new ArrayList<>());
+                continue;
+            }
+            int hits = allHits[s] & (windowMask | windowMask << PatternEvaluateService.SPIKE_SHIFT);
+            if (!watch.isEmpty() && watch.contains(symbolBars.symbol())) {
+                logTrace(symbolBars.symbol(), bars, windowMask, consecutive, hits);
+            }
+            results.add(toRows(symbolBars, windows, windowMask, hits, batchId, targetDate));
+        }
+        return results;
+    }
+
+    /**
+     * 末尾连续开盘日根数：最新一根的 run_length 截到区间内根数；尚未计算时按日历逐根比对。
+     */
+    private static int consecutive(OpenDayIndex openDays, List<StockDailyBar> barsAsc) {
+        Integer run = barsAsc.get(barsAsc.size() - 1).getRunLength();
+        return run != null ? Math.min(run, barsAsc.size()) : openDays.trailingConsecutive(barsAsc);
+    }
+
+    /** 数据够且末尾连续开盘日覆盖的窗口位图（{@link PatternEvaluateService#windowBit}） */
+    private static int evaluableWindows(String symbol, int barCount, int consecutive, List<Integer> windows) {
+        int windowMask = 0;
+        for (int w : windows) {
+            if (w > WindowConstants.MAX_WINDOW_DAYS || barCount < w) {
+                continue;
+            }
+            if (consecutive < w) {
+                if (log.isDebugEnabled()) {
+                    log.debug("[Screening] skip symbol={} window={}d: data not on consecutive trading days",
+                            symbol, w);
+                }
+                continue;
+            }
+            windowMask |= PatternEvaluateService.windowBit(w);
+        }
+        return windowMask;
+    }
+
+    /** 命中位图按窗口顺序还原为结果行：同一窗口先递增量能、后放量突破 */
+    private List<ScreeningMatch> toRows(SymbolBars symbolBars, List<Integer> windows, int windowMask, int hits,
+                                        String batchId, LocalDate targetDate) {
+        String symbol = symbolBars.symbol();
+        List<StockDailyBar> bars = symbolBars.bars();
+        StockDailyBar latest = bars.get(bars.size() - 1);
+        List<ScreeningMatch> rows = new ArrayList<>();
+        for (int w : windows) {
+            if (w > WindowConstants.MAX_WINDOW_DAYS || (windowMask & PatternEvaluateService.windowBit(w)) == 0) {
+                continue;
+            }
+            // 算法1: 递增成交量
+            if ((hits & PatternEvaluateService.windowBit(w)) != 0) {
+                rows.add(buildMatch(batchId, latest, symbol, targetDate, w, "increasing_volume"));
+            }
+            // 算法2: 放量突破
+            if ((hits & PatternEvaluateService.spikeBit(w)) != 0) {
+                rows.add(buildMatch(batchId, latest, symbol, targetDate, w, "volume_spike"));
+            }
+        }
+        return rows;
+    }
+
+    private void logTrace(String symbol, List<StockDailyBar> bars, int windowMask, int consecutive, int hits) {
+        log.info("[PatternTrace] symbol={}, bars={}, consecutive={}, windowMask={}, hits={}",
+                symbol, bars.size(), consecutive, Integer.toBinaryString(windowMask), Integer.toBinaryString(hits));
+        for (String line : patternEvaluateService.traceWindows(bars, windowMask)) {
+            log.info("[PatternTrace] symbol={} {}", symbol, line);
+        }
+    }
+
+    /**
+     * 对参评 symbol 逐个求值，返回值与输入同序。
+     * 参评数 ≥ parallelThreshold 且并行度 > 1 时在专用 ForkJoinPool（{@link #evaluationPool}）中分片并行，否则串行。
+     */
+    private <R> List<R> evaluateAll(List<SymbolBars> eligible, Function<SymbolBars, R> evaluator) {
+        int parallelism = screeningProperties.getParallelism() > 0
+                ? screeningProperties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        if (parallelism <= 1 || eligible.size() < Math.max(2, screeningProperties.getParallelThreshold())) {
+            return eligible.stream().map(evaluator).toList();
+        }
+        ForkJoinPool pool = evaluationPool(parallelism);
+        try {
+            // 有序并行流：toList 保持 encounter order，合并结果与串行一致
+            return pool.submit(() -> eligible.parallelStream().map(evaluator).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("screening evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("screening evaluation failed", cause);
+        }
+    }
+
+    private synchronized ForkJoinPool evaluationPool(int parallelism) {
+        if (evaluationPool == null) {
+            evaluationPool = new ForkJoinPool(parallelism);
+        }
+        return evaluationPool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdownEvaluationPool() {
+        if (evaluationPool != null) {
+            evaluationPool.shutdown();
+            evaluationPool = null;
+        }
+    }
+
+    /** 单 symbol 参评数据（bars 已按 tradeDate 升序） */
+    private record SymbolBars(String symbol, List<StockDailyBar> bars) {
     }
 
     @Override
     public Map<String, Object> getLatestScreening() {
-        Optional<ScreeningMatch> top = screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc();
-        if (top.isEmpty()) {
-            Map<String, Object> emptyResult = new HashMap<>();
-            emptyResult.put("batchId", null);
-            emptyResult.put("tradeDate", null);
-            emptyResult.put("matches", List.of());
-            return emptyResult;
-        }
+        return latestBatchRef()
+                .map(ref -> screeningView(ref.batchId(), ref.tradeDate()))
+                .orElseGet(ScreeningServiceImpl::emptyLatestScreening);
+    }
 
-        ScreeningMatch latest = top.get();
-        String batchId = latest.getBatchId();
-        List<ScreeningMatch> matches = screeningMatchRepository.findByBatchIdOrderByIdAsc(batchId);
+    @Override
+    public RenderedPayload getLatestScreeningPayload() {
+        return latestBatchRef()
+                .map(ref -> screeningPayload(Optional.of(ref), ref.tradeDate()))
+                .orElseGet(() -> screeningPayloadStore.render(emptyLatestScreening()));
+    }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("batchId", batchId);
-        result.put("tradeDate", latest.getTradeDate().toString());
-        result.put("totalMatches", matches.size());
-        result.put("matches", buildMatchesWithName(matches));
-        return result;
+    private static Map<String, Object> emptyLatestScreening() {
+        Map<String, Object> emptyResult = new HashMap<>();
+        emptyResult.put("batchId", null);
+        emptyResult.put("tradeDate", null);
+        emptyResult.put("matches", List.of());
+        return emptyResult;
     }
 
     @Override
     public List<Map<String, Object>> getScreeningHistory(int limit) {
-        int safeLimit = Math.min(Math.max(1, limit), 500);
-        List<Object[]> batchSummaries = screeningMatchRepository.findBatchSummary(
-                org.springframework.data.domain.PageRequest.of(0, safeLimit));
-        List<Map<String, Object>> history = new ArrayList<>();
-        for (Object[] row : batchSummaries) {
-            Map<String, Object> item = new HashMap<>();
-            item.put("batchId", row[0]);
-            item.put("matchCount", row[1]);
-            item.put("lastTradeDate", row[2] != null ? row[2].toString() : null);
-            history.add(item);
-        }
-        return history;
+        return getScreeningHistory(limit, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> getScreeningHistory(int limit, String cursor) {
+        return screeningBatchStore.history(limit, cursor);
     }
 
     @Override
@@ -263,13 +926,26 @@ public class ScreeningServiceImpl implements ScreeningService {
 
     @Override
     public Map<String, Object> getLatestNotificationGrouped(String windows) {
-        Optional<ScreeningMatch> latest = screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc();
+        Optional<BatchRef> latest = latestBatchRef();
+        if (latest.isEmpty()) {
+            return emptyLatestNotification();
+        }
+        return notificationView(latest.get().batchId(), latest.get().tradeDate(), normalizeWindows(windows));
+    }
+
+    @Override
+    public RenderedPayload getLatestNotificationPayload(String windows) {
+        Optional<BatchRef> latest = latestBatchRef();
         if (latest.isEmpty()) {
-            Map<String, Object> empty = new HashMap<>();
-            empty.put("message", "暂无筛选数据");
-            return empty;
+            return screeningPayloadStore.render(emptyLatestNotification());
         }
-        return groupNotificationByBatch(latest.get().getBatchId(), latest.get().getTradeDate(), windows);
+        return notificationPayload(latest, latest.get().tradeDate(), windows);
+    }
+
+    private static Map<String, Object> emptyLatestNotification() {
+        Map<String, Object> empty = new HashMap<>();
+        empty.put("message", "暂无筛选数据");
+        return empty;
     }
 
     /**
@@ -278,15 +954,29 @@ public class ScreeningServiceImpl implements ScreeningService {
     @Override
     public Map<String, Object> getNotificationGroupedByDate(String tradeDate, String windows) {
         LocalDate date = parseTradeDate(tradeDate);
-        Optional<ScreeningMatch> top = screeningMatchRepository.findTopByTradeDateOrderByIdDesc(date);
+        Optional<BatchRef> top = batchOn(date);
+        if (top.isEmpty()) {
+            return emptyNotificationByDate(tradeDate);
+        }
+        return notificationView(top.get().batchId(), top.get().tradeDate(), normalizeWindows(windows));
+    }
+
+    @Override
+    public RenderedPayload getNotificationByDatePayload(String tradeDate, String windows) {
+        LocalDate date = parseTradeDate(tradeDate);
+        Optional<BatchRef> top = batchOn(date);
         if (top.isEmpty()) {
-            Map<String, Object> empty = new HashMap<>();
-            empty.put("batchId", null);
-            empty.put("screenDate", tradeDate);
-            empty.put("results", new LinkedHashMap<>());
-            return empty;
+            return screeningPayloadStore.render(emptyNotificationByDate(tradeDate));
         }
-        return groupNotificationByBatch(top.get().getBatchId(), top.get().getTradeDate(), windows);
+        return notificationPayload(top, date, windows);
+    }
+
+    private static Map<String, Object> emptyNotificationByDate(String tradeDate) {
+        Map<String, Object> empty = new HashMap<>();
+        empty.put("batchId", null);
+        empty.put("screenDate", tradeDate);
+        empty.put("results", new LinkedHashMap<>());
+        return empty;
     }
 
     /**
@@ -295,23 +985,28 @@ public class ScreeningServiceImpl implements ScreeningService {
     @Override
     public Map<String, Object> getScreeningByDate(String tradeDate) {
         LocalDate date = parseTradeDate(tradeDate);
-        Optional<ScreeningMatch> top = screeningMatchRepository.findTopByTradeDateOrderByIdDesc(date);
+        return batchOn(date)
+                .map(ref -> screeningView(ref.batchId(), ref.tradeDate()))
+                .orElseGet(() -> emptyScreeningByDate(tradeDate));
+    }
+
+    @Override
+    public RenderedPayload getScreeningByDatePayload(String tradeDate) {
+        LocalDate date = parseTradeDate(tradeDate);
+        Optional<BatchRef> top = batchOn(date);
         if (top.isEmpty()) {
-            Map<String, Object> emptyResult = new HashMap<>();
-            emptyResult.put("batchId", null);
-            emptyResult.put("tradeDate", tradeDate);
-            emptyResult.put("totalMatches", 0);
-            emptyResult.put("matches", List.of());
-            return emptyResult;
-        }
-        String batchId = top.get().getBatchId();
-        List<ScreeningMatch> matches = screeningMatchRepository.findByBatchIdOrderByIdAsc(batchId);
-        Map<String, Object> result = new HashMap<>();
-        result.put("batchId", batchId);
-        result.put("tradeDate", top.get().getTradeDate().toString());
-        result.put("totalMatches", matches.size());
-        result.put("matches", buildMatchesWithName(matches));
-        return result;
+            return screeningPayloadStore.render(emptyScreeningByDate(tradeDate));
+        }
+        return screeningPayload(top, date);
+    }
+
+    private static Map<String, Object> emptyScreeningByDate(String tradeDate) {
+        Map<String, Object> emptyResult = new HashMap<>();
+        emptyResult.put("batchId", null);
+        emptyResult.put("tradeDate", tradeDate);
+        emptyResult.put("totalMatches", 0);
+        emptyResult.put("matches", List.of());
+        return emptyResult;
     }
 
     private static LocalDate parseTradeDate(String tradeDate) {
@@ -325,17 +1020,88 @@ public class ScreeningServiceImpl implements ScreeningService {
         }
     }
 
+    /** 筛选批次指针（批次内各行同一筛选日） */
+    private record BatchRef(String batchId, LocalDate tradeDate) {
+    }
+
+    /**
+     * 最新批次（交易日最大、id 最大）；写入提交前只查一次库。
+     * 查询期间发生失效（读到的可能是提交前的旧批次）时本次结果照常返回但不缓存。
+     */
+    private Optional<BatchRef> latestBatchRef() {
+        Optional<BatchRef> ref = latestBatch;
+        if (ref == null) {
+            long startGeneration = latestBatchGeneration.get();
+            ref = screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc()
+                    .map(m -> new BatchRef(m.getBatchId(), m.getTradeDate()));
+            synchronized (latestBatchMonitor) {
+                if (latestBatchGeneration.get() == startGeneration) {
+                    latestBatch = ref;
+                }
+            }
+        }
+        return ref;
+    }
+
+    /** 指定交易日的最新批次（id 最大）；写入提交前每个交易日只查一次库 */
+    private Optional<BatchRef> batchOn(LocalDate date) {
+        return batchByDate.get(date, d -> screeningMatchRepository.findTopByTradeDateOrderByIdDesc(d)
+                .map(m -> new BatchRef(m.getBatchId(), m.getTradeDate())));
+    }
+
+    /** 结果视图的预渲染响应体；无批次时为 null（调用方已处理空结果） */
+    private RenderedPayload screeningPayload(Optional<BatchRef> ref, LocalDate tradeDate) {
+        return ref.map(r -> screeningPayloadStore.get(r.batchId(), tradeDate, VIEW_SCREENING,
+                () -> screeningView(r.batchId(), r.tradeDate()))).orElse(null);
+    }
+
+    /** 通知视图的预渲染响应体；窗口列表规范化后作为视图键，等价写法共用一份 */
+    private RenderedPayload notificationPayload(Optional<BatchRef> ref, LocalDate tradeDate, String windows) {
+        SortedSet<String> allowed = normalizeWindows(windows);
+        String view = VIEW_NOTIFICATION + (allowed == null ? "all" : String.join(",", allowed));
+        return ref.map(r -> screeningPayloadStore.get(r.batchId(), tradeDate, view,
+                () -> notificationView(r.batchId(), r.tradeDate(), allowed))).orElse(null);
+    }
+
+    /**
+     * 规范化窗口过滤：null 表示全部窗口；否则为去空白、去重、排序后的有效窗口键（2d~7d）。
+     * 无效窗口原本就匹配不到任何命中，剔除后结果不变。
+     */
+    static SortedSet<String> normalizeWindows(String windows) {
+        if (windows == null || windows.isBlank()) {
+            return null;
+        }
+        SortedSet<String> allowed = new TreeSet<>();
+        for (String token : windows.split(",")) {
+            String key = token.trim();
+            for (int wd : WindowConstants.ALL_WINDOW_DAYS) {
+                if (key.equals(wd + "d")) {
+                    allowed.add(key);
+                }
+            }
+        }
+        return allowed;
+    }
+
+    /** 结果视图：batchId / tradeDate / totalMatches / matches（含 name） */
+    private Map<String, Object> screeningView(String batchId, LocalDate tradeDate) {
+        List<ScreeningMatch> matches = screeningMatchRepository.findByBatchIdOrderByIdAsc(batchId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("batchId", batchId);
+        result.put("tradeDate", tradeDate.toString());
+        result.put("totalMatches", matches.size());
+        result.put("matches", buildMatchesWithName(matches));
+        return result;
+    }
+
     /**
      * 按批次分组统计 algorithm + windowDays（通知 payload 结构）。
+     *
+     * @param allowedWindows 规范化后的窗口键；null 表示全部窗口
      */
-    private Map<String, Object> groupNotificationByBatch(String batchId, LocalDate screenDate, String windows) {
+    private Map<String, Object> notificationView(String batchId, LocalDate screenDate, Set<String> allowedWindows) {
         List<ScreeningMatch> allMatches = screeningMatchRepository.findByBatchIdOrderByIdAsc(batchId);
-        Set<String> allowedWindows = null;
-        if (windows != null && !windows.isBlank()) {
-            allowedWindows = Arrays.stream(windows.split(","))
-                    .map(String::trim)
-                    .collect(Collectors.toSet());
-        }
+        Map<String, SymbolLatestBar> latestBars = latestBarsOf(allMatches);
         Map<String, Map<String, Object>> resultByAlgo = new LinkedHashMap<>();
         for (ScreeningMatch m : allMatches) {
             String algo = m.getAlgorithm();
@@ -362,7 +1128,7 @@ public class ScreeningServiceImpl implements ScreeningService {
 
             Map<String, Object> stockInfo = new LinkedHashMap<>();
             stockInfo.put("symbol", m.getSymbol());
-            java.math.BigDecimal close = m.getLastClose();
+            java.math.BigDecimal close = lastClose(m, latestBars.get(m.getSymbol()));
             stockInfo.put("lastClose", close == null ? null : strip3(close));
             stockInfo.put("rise", m.getRise());
             stocks.add(stockInfo);
@@ -375,26 +1141,21 @@ public class ScreeningServiceImpl implements ScreeningService {
         return payload;
     }
     /**
-     * 为匹配列表批量补充 stock name，构建带 name 的匹配项列表。
+     * 为匹配列表批量补充 stock name，构建带 name 的匹配项列表（名称取自 symbol 字典缓存，收盘价取自最新 bar 快照）。
      */
     private List<Map<String, Object>> buildMatchesWithName(List<ScreeningMatch> matches) {
         if (matches == null || matches.isEmpty()) {
             return List.of();
         }
         var symbols = matches.stream().map(ScreeningMatch::getSymbol).distinct().toList();
-        var nameMap = stockDailyBarRepository.findBySymbolInAndNameIsNotNull(symbols)
-                .stream()
-                .collect(Collectors.toMap(
-                        bar -> bar.getSymbol(),
-                        bar -> bar.getName(),
-                        (a, b) -> a
-                ));
+        var nameMap = symbolDictionary.namesOf(symbols);
+        var latestBars = latestBarsOf(matches);
         return matches.stream().<Map<String, Object>>map(m -> {
             Map<String, Object> item = new LinkedHashMap<>();
             item.put("id", m.getId());
             item.put("symbol", m.getSymbol());
             item.put("name", nameMap.getOrDefault(m.getSymbol(), ""));
-            java.math.BigDecimal lastClose = m.getLastClose();
+            java.math.BigDecimal lastClose = lastClose(m, latestBars.get(m.getSymbol()));
             item.put("lastClose", lastClose == null ? null : strip3(lastClose));
             item.put("rise", m.getRise());
             item.put("windowDays", m.getWindowDays());
@@ -403,6 +1164,31 @@ public class ScreeningServiceImpl implements ScreeningService {
         }).toList();
     }
 
+    /** 匹配项 symbol 的最新 bar 快照：按主键分片批量读取，每个视图一次 */
+    private Map<String, SymbolLatestBar> latestBarsOf(List<ScreeningMatch> matches) {
+        List<String> symbols = matches.stream().map(ScreeningMatch::getSymbol).distinct().toList();
+        Map<String, SymbolLatestBar> bySymbol = new HashMap<>();
+        for (int from = 0; from < symbols.size(); from += LATEST_BAR_LOOKUP_CHUNK) {
+            for (SymbolLatestBar row : symbolLatestBarRepository.findAllById(
+                    symbols.subList(from, Math.min(symbols.size(), from + LATEST_BAR_LOOKUP_CHUNK)))) {
+                bySymbol.put(row.getSymbol(), row);
+            }
+        }
+        return bySymbol;
+    }
+
+    /**
+     * 展示用收盘价：快照交易日不晚于匹配的筛选日时即筛选所见的最新一根，取快照值（字段增补修正后的收盘价）；
+     * 快照缺失、无收盘价或已有更新的交易日（查看历史批次）时沿用筛选时写入的 lastClose。
+     */
+    private static java.math.BigDecimal lastClose(ScreeningMatch m, SymbolLatestBar latest) {
+        if (latest != null && latest.getClosePrice() != null && m.getTradeDate() != null
+                && !latest.getTradeDate().isAfter(m.getTradeDate())) {
+            return latest.getClosePrice();
+        }
+        return m.getLastClose();
+    }
+
     /**
      * P2-6：lastClose 展示统一 3 位小数圆整 + 去尾零（整数值回落普通十进制，避免 1.5E+2 科学计数）。
      */
@@ -427,36 +1213,4 @@ public class ScreeningServiceImpl implements ScreeningService {
         row.setAlgorithm(algorithm);
         return row;
     }
-
-    /**
-     * 判断窗口数据是否覆盖连续开盘日（无缺失）。
-     * <p>
-     * 取窗口首尾日期范围，查 trading_calendar，统计该范围内
-     * 实际开盘日列表，与窗口数据的日期列表做 equals 比较。
-     * 完全一致 = 无缺口，放行。
-     * </p>
-     */
-    private boolean isWindowConsecutiveTradingDays(List<StockDailyBar> windowSlice, int windowDays) {
-        if (windowSlice == null || windowSlice.isEmpty()) {
-            return false;
-        }
-
-        LocalDate firstDate = windowSlice.get(0).getTradeDate();
-        LocalDate lastDate = windowSlice.get(windowSlice.size() - 1).getTradeDate();
-
-        // 从日历获取 range 内的开盘日（已升序）
-        List<TradingCalendarEntity> calEntries = tradingCalendarDbService.getRange("US", firstDate, lastDate);
-        List<LocalDate> openDaysInRange = calEntries.stream()
-                .filter(TradingCalendarEntity::getIsOpen)
-                .map(TradingCalendarEntity::getTradeDate)
-                .sorted()
-                .toList();
-
-        // 窗口数据的日期（已升序，因为 bars 在外部已排序）
-        List<LocalDate> actualDates = windowSlice.stream()
-                .map(StockDailyBar::getTradeDate)
-                .toList();
-
-        return openDaysInRange.equals(actualDates);
-    }
 }
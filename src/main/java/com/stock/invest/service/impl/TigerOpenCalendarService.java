@@ -13,6 +13,8 @@ import org.springframework.stereotype.Service;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -76,6 +78,56 @@ public class TigerOpenCalendarService implements TradingCalendarService {
         }
     }
 
+    /**
+     * 区间查询：一次 tigeropen_channel.py calendar_range 调用覆盖 [start, end]（整年同步用）。
+     */
+    @Override
+    public List<TradingCalendarResult> getTradingCalendar(String market, LocalDate start, LocalDate end) {
+        if (!isAvailable()) {
+            return null;
+        }
+
+        CompletableFuture<List<TradingCalendarResult>> future =
+                CompletableFuture.supplyAsync(() -> doRangeQuery(market, start, end), executor);
+        try {
+            return future.get(TIMEOUT.getSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("[tigeropen] 区间日历查询超时 ({}s)，触发 fallback", TIMEOUT.getSeconds());
+            return null;
+        } catch (Exception e) {
+            log.warn("[tigeropen] 区间日历查询失败: {}，触发 fallback", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<TradingCalendarResult> doRangeQuery(String marketCode, LocalDate start, LocalDate end) {
+        try {
+            String json = bridge.executePythonScript("calendar_range", marketCode,
+                    start.format(DateTimeFormatter.ISO_LOCAL_DATE), end.format(DateTimeFormatter.ISO_LOCAL_DATE));
+
+            Map<String, Object> result = objectMapper.readValue(json.trim(),
+                    new TypeReference<Map<String, Object>>() {});
+            if (!(result.get("days") instanceof List<?> days)) {
+                log.warn("[tigeropen] 区间日历返回缺少 days: {}", result.get("error"));
+                return null;
+            }
+            Map<LocalDate, String> openDayTypes = new LinkedHashMap<>();
+            for (Object o : days) {
+                if (o instanceof Map<?, ?> day && day.get("date") != null) {
+                    Object type = day.get("type");
+                    openDayTypes.put(LocalDate.parse(String.valueOf(day.get("date"))),
+                            type == null ? "TRADING" : String.valueOf(type));
+                }
+            }
+            log.debug("[tigeropen] {} {}~{} 区间查询结果: openDays={}", marketCode, start, end, openDayTypes.size());
+            return TradingCalendarResult.fromOpenDays(marketCode, start, end, openDayTypes, getSourceName());
+        } catch (Exception e) {
+            log.warn("[tigeropen] 区间日历查询异常: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private TradingCalendarResult doQuery(String marketCode, LocalDate date) {
         try {
             String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
@@ -11,6 +11,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 import org.springframework.core.annotation.Order;
 
 /**
@@ -125,4 +127,18 @@ public class TigerOpenStockServiceImpl implements DataSourceStrategy {
         }
     }
 
+    @Override
+    public boolean supportsAfterHoursKLineBatch() {
+        return true;
+    }
+
+    /**
+     * 盘后 K 线批量：afterhours_bars 本身返回最近 N 根盘后聚合数据（与日期无关），
+     * 一次拉取即覆盖全部请求日期，无需逐日重复调用。
+     */
+    @Override
+    public KLineData getAfterHoursKLineDataByDates(String symbol, Collection<LocalDate> tradeDates) {
+        return getAfterHoursKLineDataByDateRange(symbol, Collections.max(tradeDates));
+    }
+
 }
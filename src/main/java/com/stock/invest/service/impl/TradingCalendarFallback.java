@@ -11,37 +11,56 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 交易日历 Fallback 编排 + 缓存。
- * 按顺序尝试三个数据源：
- *   1. Tiger Java SDK
- *   2. TigerOpen Python
- *   3. Alpaca Markets
- * 全部不可用时返回 null（未知状态，P2-11）——不再默认 tradingDay=true：
+ * 按顺序尝试数据源：
+ *   1. TigerOpen Python
+ *   2. Alpaca Markets
+ *   3. NYSE 离线规则（{@link NyseHolidayCalendarService}，零 I/O，仅 US）
+ * 供应商源返回后与离线规则交叉校验，不一致时告警（以供应商为准）。
+ * 全部不可用时（非 US 市场且供应商源均失败）返回 null（未知状态，P2-11）——不再默认 tradingDay=true：
  * 补缺路径按"未知"跳过该日期（宁可漏一天，不可错补白打配额）；
  * REST/MCP 查询端点自行决定未知态展示。
  *
  * 查询结果缓存 24 小时（仅缓存成功结果，失败不缓存，P2-11），
  * key 格式为 "{market}:{yyyy-MM-dd}"。
+ *
+ * 区间查询 {@link #getTradingCalendar} 同样按链顺序尝试支持区间的源，
+ * 一次请求拿到整段日历后逐日写入缓存。供应商区间结果先做可信度校验，不通过视为该源不可用、
+ * 继续下一源：最后一个开盘日早于预期（截断 / 未发布年份）或与离线规则不一致的工作日超过
+ * {@link #MAX_RULE_DISAGREEMENTS} 天；少量不一致（规则漏掉的临时休市）仍以供应商为准并告警。
  */
 @Service
 public class TradingCalendarFallback implements TradingCalendarService {
 
     private static final Logger log = LoggerFactory.getLogger(TradingCalendarFallback.class);
 
+    /** 区间结果与离线规则允许不一致的最多工作日数（超过即拒绝该源的区间结果） */
+    static final int MAX_RULE_DISAGREEMENTS = 2;
+
+    /** 无离线规则的市场：区间末个工作日之前允许的最长连续休市（日历日），超过视为截断 */
+    static final int MAX_TRAILING_CLOSURE_DAYS = 4;
+
     /** Fallback 链：按优先级排列 */
     private final List<TradingCalendarService> sources;
 
+    /** 离线规则源：链末位兜底 + 供应商结果交叉校验 */
+    private final NyseHolidayCalendarService rules;
+
     /** 内存缓存：24h TTL，最多 10000 条 */
     private final Cache<String, TradingCalendarResult> cache;
 
     public TradingCalendarFallback(
             TigerOpenCalendarService tigerOpen,
-            AlpacaCalendarService alpaca) {
-        this.sources = List.of(tigerOpen, alpaca);
+            AlpacaCalendarService alpaca,
+            NyseHolidayCalendarService rules) {
+        this.sources = List.of(tigerOpen, alpaca, rules);
+        this.rules = rules;
         this.cache = Caffeine.newBuilder()
                 .expireAfterWrite(24, TimeUnit.HOURS)
                 .maximumSize(10000)
@@ -88,6 +107,7 @@ public class TradingCalendarFallback implements TradingCalendarService {
             log.debug("[fallback] 尝试源: {} (market={}, date={})", source.getSourceName(), market, date);
             TradingCalendarResult result = source.isTradingDay(market, date);
             if (result != null) {
+                crossCheck(source, result);
                 cache.put(cacheKey, result);
                 log.info("[fallback] 源 {} 返回: tradingDay={}", source.getSourceName(), result.isTradingDay());
                 return result;
@@ -102,11 +122,122 @@ public class TradingCalendarFallback implements TradingCalendarService {
         return null;
     }
 
+    /**
+     * 区间查询：按 fallback 顺序取第一个返回完整区间的源。
+     * 周末统一判定为 system/WEEKEND（与单日路径一致）。
+     *
+     * @return [start, end] 逐日结果，或 null（无源支持区间查询 / 全部失败，调用方退回逐日查询）
+     */
+    @Override
+    public List<TradingCalendarResult> getTradingCalendar(String market, LocalDate start, LocalDate end) {
+        long expectedDays = ChronoUnit.DAYS.between(start, end) + 1;
+        List<TradingCalendarResult> expected = rules.getTradingCalendar(market, start, end);
+        if (expected != null && expected.size() != expectedDays) {
+            expected = null;
+        }
+        for (TradingCalendarService source : sources) {
+            if (!source.isAvailable()) {
+                continue;
+            }
+            List<TradingCalendarResult> results = source.getTradingCalendar(market, start, end);
+            if (results == null || results.size() != expectedDays) {
+                log.debug("[fallback] 源 {} 区间查询不可用 ({}~{})，尝试下一源", source.getSourceName(), start, end);
+                continue;
+            }
+            if (source != rules) {
+                String rejected = implausibleRange(source, results, expected, start, end);
+                if (rejected != null) {
+                    log.warn("[fallback] 源 {} 区间结果不可信 ({}~{}): {}，尝试下一源",
+                            source.getSourceName(), start, end, rejected);
+                    continue;
+                }
+            }
+            List<TradingCalendarResult> normalized = new ArrayList<>(results.size());
+            for (TradingCalendarResult r : results) {
+                TradingCalendarResult day = r.getDate().getDayOfWeek().getValue() >= 6
+                        ? TradingCalendarResult.nonTrading(market, r.getDate(), "system", "WEEKEND", "weekend")
+                        : r;
+                cache.put(buildCacheKey(market, day.getDate()), day);
+                normalized.add(day);
+            }
+            log.info("[fallback] 源 {} 区间返回: {}~{}, days={}", source.getSourceName(), start, end, normalized.size());
+            return normalized;
+        }
+        log.warn("[fallback] 无可用区间日历源 (market={}, {}~{})", market, start, end);
+        return null;
+    }
+
     /** 获取缓存统计信息 */
     public CacheStats getCacheStats() {
         return cache.stats();
     }
 
+    /**
+     * 供应商区间结果可信度校验，返回拒绝原因（null 表示可用）。
+     * <ul>
+     *   <li>截断：最后一个开盘日早于规则推算的最后开盘日；无规则的市场以区间末个工作日前
+     *       {@link #MAX_TRAILING_CLOSURE_DAYS} 天为下限</li>
+     *   <li>与规则不一致的工作日超过 {@link #MAX_RULE_DISAGREEMENTS} 天；未超过时逐日告警、以供应商为准</li>
+     * </ul>
+     */
+    private String implausibleRange(TradingCalendarService source, List<TradingCalendarResult> results,
+                                    List<TradingCalendarResult> expected, LocalDate start, LocalDate end) {
+        LocalDate lastOpen = lastOpenDay(results);
+        LocalDate floor;
+        if (expected != null) {
+            floor = lastOpenDay(expected);
+        } else {
+            LocalDate lastWeekday = end;
+            while (!lastWeekday.isBefore(start) && lastWeekday.getDayOfWeek().getValue() >= 6) {
+                lastWeekday = lastWeekday.minusDays(1);
+            }
+            floor = lastWeekday.minusDays(MAX_TRAILING_CLOSURE_DAYS);
+        }
+        if (floor != null && !floor.isBefore(start) && (lastOpen == null || lastOpen.isBefore(floor))) {
+            return "last open day " + lastOpen + " before expected " + floor + " (truncated or unpublished)";
+        }
+        if (expected == null) {
+            return null;
+        }
+        List<TradingCalendarResult> mismatches = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            TradingCalendarResult vendor = results.get(i);
+            if (vendor.getDate().getDayOfWeek().getValue() < 6
+                    && vendor.isTradingDay() != expected.get(i).isTradingDay()) {
+                mismatches.add(vendor);
+            }
+        }
+        if (mismatches.size() > MAX_RULE_DISAGREEMENTS) {
+            return mismatches.size() + " weekdays disagree with rules, first " + mismatches.get(0).getDate();
+        }
+        for (TradingCalendarResult vendor : mismatches) {
+            crossCheck(source, vendor);
+        }
+        return null;
+    }
+
+    private static LocalDate lastOpenDay(List<TradingCalendarResult> days) {
+        for (int i = days.size() - 1; i >= 0; i--) {
+            if (days.get(i).isTradingDay()) {
+                return days.get(i).getDate();
+            }
+        }
+        return null;
+    }
+
+    /** 供应商结果与离线规则比对开盘状态，不一致时告警（规则漏掉临时休市 / 供应商数据错误均可暴露） */
+    private void crossCheck(TradingCalendarService source, TradingCalendarResult vendor) {
+        if (source == rules || "system".equals(vendor.getSource())) {
+            return;
+        }
+        TradingCalendarResult expected = rules.isTradingDay(vendor.getMarket(), vendor.getDate());
+        if (expected != null && expected.isTradingDay() != vendor.isTradingDay()) {
+            log.warn("[fallback] 日历交叉校验不一致: market={}, date={}, {}={}({}), rules={}({})",
+                    vendor.getMarket(), vendor.getDate(), source.getSourceName(), vendor.isTradingDay(),
+                    vendor.getType(), expected.isTradingDay(), expected.getDetail() != null ? expected.getDetail() : expected.getType());
+        }
+    }
+
     private static String buildCacheKey(String market, LocalDate date) {
         return market + ":" + date.format(DateTimeFormatter.ISO_LOCAL_DATE);
     }
@@ -0,0 +1,36 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.constant.WindowConstants;
+import com.stock.invest.model.PatternParams;
+
+/**
+ * 横截面成交量模式内核：一次评估一批 symbol 的全部窗口（2~7）× 两种算法。
+ * <p>输入按"倒数第 k 根"分行 —— 同一滞后期的全部 symbol 在一行内连续存放，
+ * 判定因此成为跨 symbol 的直线算术（可 SIMD）。语义与
+ * {@link PatternEvaluateServiceImpl#evaluateWindows} 对全部窗口求值逐位一致。</p>
+ *
+ * @see VolumePatternKernels
+ */
+interface VolumePatternKernel {
+
+    /** 每个 symbol 参与评估的最近根数（= 最大窗口） */
+    int DEPTH = WindowConstants.MAX_WINDOW_DAYS;
+
+    /**
+     * @param byLag   byLag[k][s] = symbol s 倒数第 k+1 根的成交量（k=0 为最新）；缺失 / null / 不足 DEPTH 根记 0。
+     *                行数 ≥ {@link #DEPTH}，每行长度 ≥ symbols
+     * @param symbols 参与评估的 symbol 数
+     * @param hits    输出（长度 ≥ symbols）：命中位图，位布局同
+     *                {@link com.stock.invest.service.PatternEvaluateService#evaluateWindows}
+     * @param params  判定阈值
+     */
+    void evaluate(long[][] byLag, int symbols, int[] hits, PatternParams params);
+
+    /** 默认阈值评估 */
+    default void evaluate(long[][] byLag, int symbols, int[] hits) {
+        evaluate(byLag, symbols, hits, PatternParams.DEFAULT);
+    }
+
+    /** 实现名（日志 / 基准展示） */
+    String name();
+}
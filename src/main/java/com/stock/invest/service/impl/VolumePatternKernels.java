@@ -0,0 +1,59 @@
+package com.stock.invest.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 横截面内核选择：进程内探测一次。
+ * <p>SIMD 内核依赖孵化模块 {@code jdk.incubator.vector}，源码在 src/vector/java，只在 {@code -Pvector} 构建中编译，
+ * 因此按类名反射加载、主代码不直接引用。运行时需 JVM 参数 {@code --add-modules jdk.incubator.vector}；
+ * 模块不在启动层、类未打包或初始化失败时使用标量内核，结果一致、只是没有向量化加速。</p>
+ */
+final class VolumePatternKernels {
+
+    private static final Logger log = LoggerFactory.getLogger(VolumePatternKernels.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.stock.invest.service.impl.VectorVolumePatternKernel";
+
+    private VolumePatternKernels() {
+    }
+
+    /** SIMD 可用时为 SIMD 内核，否则为标量内核 */
+    static VolumePatternKernel preferred() {
+        return Holder.VECTOR != null ? Holder.VECTOR : ScalarVolumePatternKernel.INSTANCE;
+    }
+
+    static VolumePatternKernel scalar() {
+        return ScalarVolumePatternKernel.INSTANCE;
+    }
+
+    /** SIMD 内核；不可用返回 null */
+    static VolumePatternKernel vector() {
+        return Holder.VECTOR;
+    }
+
+    private static final class Holder {
+        private static final VolumePatternKernel VECTOR = loadVector();
+    }
+
+    private static VolumePatternKernel loadVector() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.info("[VolumePatternKernel] {} not enabled (--add-modules {}), using scalar kernel",
+                    VECTOR_MODULE, VECTOR_MODULE);
+            return null;
+        }
+        try {
+            VolumePatternKernel kernel = (VolumePatternKernel) Class.forName(VECTOR_KERNEL)
+                    .getDeclaredConstructor().newInstance();
+            log.info("[VolumePatternKernel] using {}", kernel.name());
+            return kernel;
+        } catch (ClassNotFoundException e) {
+            log.info("[VolumePatternKernel] vector kernel not packaged (build with -Pvector), using scalar kernel");
+            return null;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            log.warn("[VolumePatternKernel] vector kernel unavailable, using scalar kernel: {}", e.toString());
+            return null;
+        }
+    }
+}
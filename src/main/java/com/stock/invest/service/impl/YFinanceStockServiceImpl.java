@@ -1,8 +1,12 @@
 package com.stock.invest.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -154,6 +158,46 @@ public class YFinanceStockServiceImpl implements DataSourceStrategy {
         }
     }
 
+    @Override
+    public boolean supportsDailyKLineBatch() {
+        return true;
+    }
+
+    /**
+     * 按一组交易日批量获取日 K：一次 get_daily_kline_range 覆盖 [min-3, max]，
+     * 供字段增补按 symbol 聚簇后复用，避免同一 symbol 相邻日期逐日拉取。
+     */
+    @Override
+    public KLineData getDailyKLineDataByDates(String symbol, Collection<LocalDate> tradeDates) {
+        TreeSet<LocalDate> dates = new TreeSet<>(tradeDates);
+        if (dates.size() == 1) {
+            return getDailyKLineDataByDateRange(symbol, dates.first());
+        }
+        try {
+            LocalDate yfStart = dates.first().minusDays(3);
+            LocalDate yfEnd = dates.last();
+            log.info("[YFinanceStockServiceImpl] dateRange(batch) symbol={}, range=[{},{}], dates={}",
+                    symbol, yfStart, yfEnd, dates.size());
+            String result = pythonScriptExecutor.executeScript(getScriptName(),
+                    "get_daily_kline_range", symbol, yfStart.toString(), yfEnd.toString());
+            if (result != null && result.contains("\"error\"")) {
+                throw StockDataException.classify(symbol, "yfinance", extractErrorFromJson(result), null);
+            }
+            KLineData klineData = objectMapper.readValue(result, KLineData.class);
+            if (klineData != null && klineData.getItems() != null) {
+                for (KLineIterator item : klineData.getItems()) {
+                    item.setSymbol(symbol);
+                }
+            }
+            return klineData;
+        } catch (StockDataException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Failed to get daily kline by dates for {}: {}", symbol, e.getMessage());
+            throw StockDataException.classify(symbol, "yfinance", e.getMessage(), e);
+        }
+    }
+
     /**
      * 从脚本原始 JSON 中提取目标日 item 的 JSON（保留脚本原始字段/精度）。
      */
@@ -248,4 +292,62 @@ public class YFinanceStockServiceImpl implements DataSourceStrategy {
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    public boolean supportsAfterHoursKLineBatch() {
+        return true;
+    }
+
+    /**
+     * 按一组交易日批量获取盘后价。
+     * <p>调用 Python get_after_hours_prices：每个分钟间隔只按保留期分段下载一次
+     * （1m 单次 ≤7 天），逐日取 16:00-20:00 ET 最后一条 close，与单日
+     * {@link #getAfterHoursKLineDataByDateRange} 同口径；无盘后数据的日期不返回 item。</p>
+     */
+    @Override
+    public KLineData getAfterHoursKLineDataByDates(String symbol, Collection<LocalDate> tradeDates) {
+        TreeSet<LocalDate> dates = new TreeSet<>(tradeDates);
+        if (dates.size() == 1) {
+            return getAfterHoursKLineDataByDateRange(symbol, dates.first());
+        }
+        try {
+            String dateArg = dates.stream().map(LocalDate::toString)
+                    .collect(Collectors.joining(","));
+            String result = pythonScriptExecutor.executeScript(getScriptName(),
+                    "get_after_hours_prices", symbol, dateArg);
+            if (result != null && result.contains("\"error\"")) {
+                log.warn("[YFinanceStockServiceImpl] afterHours(batch) fetch failed for {}, dates={}: {}",
+                        symbol, dates.size(), extractErrorFromJson(result));
+                return new KLineData();
+            }
+            com.fasterxml.jackson.databind.JsonNode root = objectMapper.readTree(result);
+            List<KLineIterator> items = new ArrayList<>();
+            for (com.fasterxml.jackson.databind.JsonNode node : root.path("items")) {
+                if (!node.hasNonNull("afterHours")) {
+                    continue;
+                }
+                LocalDate tradeDate = LocalDate.parse(node.path("date").asText());
+                KLineIterator item = new KLineIterator();
+                item.setSymbol(symbol);
+                item.setTime(tradeDate.atStartOfDay(java.time.ZoneId.of("America/New_York")).toInstant().toEpochMilli());
+                item.setTimeString(tradeDate.toString());
+                item.setClose(java.math.BigDecimal.valueOf(node.path("afterHours").asDouble()));
+                if (node.hasNonNull("afterHoursChangePercent")) {
+                    item.setAfterHoursChangePercent(
+                            java.math.BigDecimal.valueOf(node.path("afterHoursChangePercent").asDouble()));
+                }
+                items.add(item);
+            }
+            KLineData ahData = new KLineData();
+            ahData.setSymbol(symbol);
+            ahData.setItems(items);
+            log.info("[YFinanceStockServiceImpl] afterHours(batch): symbol={}, requested={}, resolved={}",
+                    symbol, dates.size(), items.size());
+            return ahData;
+        } catch (Exception e) {
+            log.warn("[YFinanceStockServiceImpl] afterHours(batch) fetch failed for {}, dates={}: {}",
+                    symbol, dates.size(), e.getMessage());
+            return new KLineData();
+        }
+    }
+
+}
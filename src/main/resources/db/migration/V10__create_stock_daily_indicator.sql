@@ -0,0 +1,34 @@
+-- ============================================================
+-- V10: 日 K 派生技术指标表
+-- stock_daily_indicator —— 每个 (symbol, trade_date) 一行：收盘价 SMA 5/20/50、EMA 12/26，
+-- 成交量 SMA / EMA 20 与相对成交量，RSI 14、ATR 14（Wilder），20 日最高 / 最低价。
+-- 由 IndicatorEngine 在 stock_daily_bar 写入提交后按 symbol 增量维护（追加新交易日每根 O(1)，
+-- 改写历史日则从该日起重算）；rsi_avg_gain / rsi_avg_loss 为恢复滚动状态所需。
+-- 不在迁移中回填：部署后经 POST /api/admin/indicators/rebuild 一次流式全量计算；
+-- 未重建前，各 symbol 在下一次有 bar 写入时自动从头补算。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS stock_daily_indicator (
+  id               BIGINT          NOT NULL AUTO_INCREMENT,
+  symbol           VARCHAR(32)     NOT NULL,
+  trade_date       DATE            NOT NULL,
+  bar_count        INT             NOT NULL COMMENT '截至该日（含）的 bar 数',
+  close_sma5       DECIMAL(20,6)   NULL,
+  close_sma20      DECIMAL(20,6)   NULL,
+  close_sma50      DECIMAL(20,6)   NULL,
+  close_ema12      DECIMAL(20,6)   NULL,
+  close_ema26      DECIMAL(20,6)   NULL,
+  volume_sma20     DECIMAL(24,4)   NULL,
+  volume_ema20     DECIMAL(24,4)   NULL,
+  relative_volume  DECIMAL(14,4)   NULL COMMENT '当日成交量 / 此前 20 日均量',
+  rsi14            DECIMAL(9,4)    NULL,
+  atr14            DECIMAL(20,6)   NULL,
+  high20           DECIMAL(20,6)   NULL,
+  low20            DECIMAL(20,6)   NULL,
+  rsi_avg_gain     DECIMAL(20,6)   NULL,
+  rsi_avg_loss     DECIMAL(20,6)   NULL,
+  updated_at       DATETIME(6)     NOT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_stock_daily_indicator_symbol_trade_date (symbol, trade_date),
+  KEY idx_stock_daily_indicator_trade_date (trade_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT '日 K 派生技术指标';
@@ -0,0 +1,38 @@
+-- ============================================================
+-- V11: stock_daily_bar 连续开盘日计数
+-- run_length —— 截至本根 bar，该 symbol 在交易日历（US）上连续开盘日有数据的根数：
+-- 本根不是开盘日为 0；上一根恰为前一个开盘日时为上一根 + 1，否则为 1。
+-- 筛选窗口 w 无缺口 ⇔ run_length >= w。写入 / 补缺提交后由 BarRunLengthMaintainer 增量维护；
+-- 交易日历修订后经 POST /api/admin/run-length/rebuild 全量重算。NULL = 尚未计算（筛选回退按日历逐根比对）。
+-- 回填：开盘日按日历编号 open_seq；与上一根 open_seq 不相邻（或本根非开盘日）处断开，
+-- 断点累计和为段号，段内行号即 run_length。
+-- ============================================================
+
+ALTER TABLE stock_daily_bar
+  ADD COLUMN run_length INT NULL COMMENT '截至本根的连续开盘日 bar 数（非开盘日为 0）';
+
+UPDATE stock_daily_bar b
+JOIN (
+  SELECT g.id,
+         CASE WHEN g.open_seq IS NULL THEN 0
+              ELSE ROW_NUMBER() OVER (PARTITION BY g.symbol, g.seg ORDER BY g.trade_date)
+         END AS run_length
+  FROM (
+    SELECT r.id, r.symbol, r.trade_date, r.open_seq,
+           SUM(r.brk) OVER (PARTITION BY r.symbol ORDER BY r.trade_date ROWS UNBOUNDED PRECEDING) AS seg
+    FROM (
+      SELECT s.id, s.symbol, s.trade_date, c.open_seq,
+             CASE WHEN c.open_seq IS NOT NULL
+                       AND c.open_seq = LAG(c.open_seq) OVER (PARTITION BY s.symbol ORDER BY s.trade_date) + 1
+                  THEN 0 ELSE 1
+             END AS brk
+      FROM stock_daily_bar s
+      LEFT JOIN (
+        SELECT trade_date, ROW_NUMBER() OVER (ORDER BY trade_date) AS open_seq
+        FROM trading_calendar
+        WHERE market = 'US' AND is_open = 1
+      ) c ON c.trade_date = s.trade_date
+    ) r
+  ) g
+) x ON x.id = b.id
+SET b.run_length = x.run_length;
@@ -0,0 +1,27 @@
+-- ============================================================
+-- V12: symbol_latest_bar 最新日 K 快照
+-- symbol_latest_bar —— 每个代码一行：最新一根 bar 的交易日、收盘价、成交量、数据源。
+-- 日 K 写入提交后由应用层（SymbolLatestBarMaintainer）按"交易日不早于现有即覆盖"upsert；
+-- 补缺的最低价格阈值、筛选的最新交易日等"每个 symbol 的最新 bar"改为单表索引扫描，
+-- 不再逐 symbol 查询 stock_daily_bar。删除 bar 或手工改库后经 POST /api/admin/latest-bars/rebuild 重建。
+-- 存量数据一次性回填：每个 symbol 交易日最大的一根。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS symbol_latest_bar (
+  symbol       VARCHAR(32)    NOT NULL,
+  trade_date   DATE           NOT NULL COMMENT '最新一根 bar 的交易日',
+  close_price  DECIMAL(12,4)  NULL,
+  volume       BIGINT         NULL,
+  source       VARCHAR(16)    NULL,
+  updated_at   DATETIME(6)    NOT NULL,
+  PRIMARY KEY (symbol),
+  KEY idx_symbol_latest_bar_trade_date (trade_date),
+  KEY idx_symbol_latest_bar_close_price (close_price)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT '每个 symbol 的最新日 K 快照';
+
+INSERT INTO symbol_latest_bar (symbol, trade_date, close_price, volume, source, updated_at)
+SELECT b.symbol, b.trade_date, b.close_price, b.volume, b.source, NOW(6)
+FROM stock_daily_bar b
+JOIN (SELECT symbol, MAX(trade_date) AS trade_date FROM stock_daily_bar GROUP BY symbol) l
+  ON l.symbol = b.symbol AND l.trade_date = b.trade_date
+WHERE NOT EXISTS (SELECT 1 FROM symbol_latest_bar s WHERE s.symbol = b.symbol);
@@ -0,0 +1,16 @@
+-- ============================================================
+-- V13: stock_daily_indicator 滚动状态全精度列
+-- state_* —— IndicatorState 递推状态（EMA 12/26、成交量 EMA 20、RSI 平均涨跌幅、ATR）的内部 double 原值，
+-- 价格类为定点单位（× 10000）。V10 的展示列为 DECIMAL(20,6)，从其恢复会在每次重启 / 历史改写后截断状态，
+-- 增量结果与全量重建逐步偏离；改为 DOUBLE 原样存取，恢复后与不间断计算逐位一致。
+-- 不回填：存量行状态列为 NULL，IndicatorEngine 遇到时从该 symbol 首根 bar 回放（结果与重建一致），
+-- 或部署后经 POST /api/admin/indicators/rebuild 一次全量计算。
+-- ============================================================
+
+ALTER TABLE stock_daily_indicator
+  ADD COLUMN state_ema_fast   DOUBLE NULL COMMENT 'EMA 12 递推状态（定点单位）',
+  ADD COLUMN state_ema_slow   DOUBLE NULL COMMENT 'EMA 26 递推状态（定点单位）',
+  ADD COLUMN state_volume_ema DOUBLE NULL COMMENT '成交量 EMA 20 递推状态',
+  ADD COLUMN state_avg_gain   DOUBLE NULL COMMENT 'RSI 平均涨幅 / 预热期累计（定点单位）',
+  ADD COLUMN state_avg_loss   DOUBLE NULL COMMENT 'RSI 平均跌幅 / 预热期累计（定点单位）',
+  ADD COLUMN state_atr        DOUBLE NULL COMMENT 'ATR 递推状态 / 预热期累计（定点单位）';
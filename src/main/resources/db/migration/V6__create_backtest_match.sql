@@ -0,0 +1,21 @@
+-- ============================================================
+-- V6: 历史回测命中表
+-- backtest_match —— 回测引擎对 [from, to] 区间逐日滑动评估的全部命中，
+-- 按回测批次 backtest_id 隔离，不进入 screening_match（不影响最新批次 / 通知等读路径）
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS backtest_match (
+  id           BIGINT        NOT NULL AUTO_INCREMENT,
+  backtest_id  VARCHAR(36)   NOT NULL COMMENT '回测批次 ID',
+  trade_date   DATE          NOT NULL COMMENT '筛选日（命中时的最新一根 bar 日期）',
+  symbol       VARCHAR(32)   NOT NULL,
+  window_days  INT           NOT NULL COMMENT 'window days(2-7)',
+  algorithm    VARCHAR(32)   NOT NULL COMMENT 'increasing_volume / volume_spike',
+  data_source  VARCHAR(32)   NOT NULL,
+  last_close   DECIMAL(12,4) NULL,
+  rise         BIT(1)        NOT NULL,
+  created_at   DATETIME(6)   NOT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_backtest_match_run_trade_symbol_window_algorithm (backtest_id, trade_date, symbol, window_days, algorithm),
+  KEY idx_backtest_match_trade_date (trade_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT '历史回测命中';
@@ -0,0 +1,35 @@
+-- ============================================================
+-- V7: symbol 字典表
+-- symbol —— 每个代码一行：整数 id、最新展示名称、首末出现交易日、活跃标记。
+-- 日 K 写入提交后由应用层（SymbolDictionary）维护，读路径（筛选结果补名称等）
+-- 不再对 stock_daily_bar 做按 symbol 取最新 name 的相关子查询。
+-- 存量数据一次性回填：名称取每个 symbol 有 name 的最新一根 bar；黑名单活跃的代码标记为非活跃。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS symbol (
+  id          INT           NOT NULL AUTO_INCREMENT,
+  symbol      VARCHAR(32)   NOT NULL,
+  name        VARCHAR(128)  NULL COMMENT '最新展示名称（有 name 的最新一根 bar）',
+  first_seen  DATE          NOT NULL COMMENT '最早一根 bar 的交易日',
+  last_seen   DATE          NOT NULL COMMENT '最新一根 bar 的交易日',
+  active      BIT(1)        NOT NULL DEFAULT b'1' COMMENT '0 = 已入黑名单',
+  updated_at  DATETIME(6)   NOT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_symbol_symbol (symbol)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT 'symbol 字典';
+
+INSERT INTO symbol (symbol, name, first_seen, last_seen, active, updated_at)
+SELECT r.symbol, n.stock_name, r.first_seen, r.last_seen, b'1', NOW(6)
+FROM (SELECT symbol, MIN(trade_date) AS first_seen, MAX(trade_date) AS last_seen
+      FROM stock_daily_bar GROUP BY symbol) r
+LEFT JOIN (SELECT b.symbol, b.stock_name
+           FROM stock_daily_bar b
+           JOIN (SELECT symbol, MAX(trade_date) AS trade_date FROM stock_daily_bar
+                 WHERE stock_name IS NOT NULL GROUP BY symbol) l
+             ON l.symbol = b.symbol AND l.trade_date = b.trade_date) n
+  ON n.symbol = r.symbol
+WHERE NOT EXISTS (SELECT 1 FROM symbol s WHERE s.symbol = r.symbol);
+
+UPDATE symbol s
+JOIN symbol_blacklist bl ON bl.symbol = s.symbol AND bl.status = 'active'
+SET s.active = b'0';
@@ -0,0 +1,19 @@
+-- ============================================================
+-- V8: 筛选结果预渲染表
+-- screening_payload —— 每个筛选批次的响应体（最新 / 按日结果、按窗口分组的通知）在筛选完成时渲染一次，
+-- 以序列化 JSON 存储；进程内缓存未命中（如重启后）时读取此表，不再重查 screening_match 与名称。
+-- 该交易日的 screening_match 有写入（全量重跑、增量重评）时整日删除，下次读取重新渲染。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS screening_payload (
+  id          BIGINT        NOT NULL AUTO_INCREMENT,
+  batch_id    VARCHAR(36)   NOT NULL COMMENT '筛选批次 ID',
+  view_key    VARCHAR(64)   NOT NULL COMMENT 'screening / notification:<窗口列表>',
+  trade_date  DATE          NOT NULL COMMENT '批次筛选日（失效粒度）',
+  etag        VARCHAR(32)   NOT NULL COMMENT 'payload 的 MD5 十六进制摘要',
+  payload     LONGTEXT      NOT NULL COMMENT '序列化 JSON',
+  created_at  DATETIME(6)   NOT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_screening_payload_batch_view (batch_id, view_key),
+  KEY idx_screening_payload_trade_date (trade_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT '筛选结果预渲染响应体';
@@ -0,0 +1,39 @@
+-- ============================================================
+-- V9: 筛选批次摘要表
+-- screening_batch —— 每个筛选批次一行：筛选日、命中总数、各窗口 / 各算法命中数、运行起止与耗时。
+-- 全量筛选结束时写入；该交易日的 screening_match 每次写入（全量重跑归并、增量重评）后同事务重算计数。
+-- 历史列表（/api/screening/history、/api/notification/history、MCP screening_history）按
+-- (trade_date, id) 倒序键集分页读取此表，不再对 screening_match 全表 GROUP BY。
+-- 存量批次一次性回填（按筛选日、首条命中时间升序分配 id）；存量批次无运行起止记录，时间列为空。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS screening_batch (
+  id                BIGINT         NOT NULL AUTO_INCREMENT,
+  batch_id          VARCHAR(36)    NOT NULL COMMENT '筛选批次 ID',
+  trade_date        DATE           NOT NULL COMMENT '批次筛选日',
+  match_count       INT            NOT NULL COMMENT '命中行数',
+  window_counts     VARCHAR(255)   NOT NULL COMMENT '各窗口命中数 JSON',
+  algorithm_counts  VARCHAR(1024)  NOT NULL COMMENT '各算法命中数 JSON',
+  started_at        DATETIME(6)    NULL,
+  finished_at       DATETIME(6)    NULL,
+  duration_ms       BIGINT         NULL,
+  updated_at        DATETIME(6)    NOT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_screening_batch_batch_id (batch_id),
+  KEY idx_screening_batch_trade_date_id (trade_date, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT '筛选批次摘要';
+
+INSERT INTO screening_batch (batch_id, trade_date, match_count, window_counts, algorithm_counts, updated_at)
+SELECT t.batch_id, t.trade_date, t.match_count, w.window_counts, a.algorithm_counts, NOW(6)
+FROM (SELECT batch_id, MAX(trade_date) AS trade_date, COUNT(*) AS match_count, MIN(created_at) AS first_created
+      FROM screening_match GROUP BY batch_id) t
+JOIN (SELECT batch_id, JSON_OBJECTAGG(window_days, cnt) AS window_counts
+      FROM (SELECT batch_id, window_days, COUNT(*) AS cnt FROM screening_match
+            GROUP BY batch_id, window_days) x
+      GROUP BY batch_id) w ON w.batch_id = t.batch_id
+JOIN (SELECT batch_id, JSON_OBJECTAGG(algorithm, cnt) AS algorithm_counts
+      FROM (SELECT batch_id, algorithm, COUNT(*) AS cnt FROM screening_match
+            GROUP BY batch_id, algorithm) y
+      GROUP BY batch_id) a ON a.batch_id = t.batch_id
+WHERE NOT EXISTS (SELECT 1 FROM screening_batch b WHERE b.batch_id = t.batch_id)
+ORDER BY t.trade_date, t.first_created;
@@ -165,6 +165,46 @@ def get_daily_kline(symbol: str, days: int = 7) -> str:
         return json.dumps({"error": str(e)})
 
 
+# 盘后分钟数据间隔降级表：(interval, Yahoo 保留天数, 单次请求最大跨度天数)
+# 1m 仅近 30 天且单次 ≤7 天；15m/30m 近 60 天；60m 近 730 天
+AFTER_HOURS_INTERVALS = (
+    ("1m", 30, 7),
+    ("15m", 60, 60),
+    ("30m", 60, 60),
+    ("60m", 730, 365),
+)
+
+
+def _after_hours_close(hist):
+    """从单个交易日的分钟数据（已转美东时区）提取 (盘后 close, 盘后涨跌幅)；无盘后数据返回 None。
+
+    盘后时段 16:00-20:00 ET，取最后一条 close。
+    盘后涨跌幅直算：常规时段收盘 = 9:30-15:59 最后一根 close。
+    注意不能含 16:00 —— Yahoo 分钟数据 16:00 那根已属盘后时段（16:00-16:15 等），
+    取到它会把盘后第一根当收盘 → 涨跌幅≈0 失真
+    """
+    ah = hist.between_time("16:00", "20:00")
+    if ah.empty:
+        return None
+    ah_close = float(ah["Close"].iloc[-1])
+    reg = hist.between_time("09:30", "15:59")
+    pct = None
+    if not reg.empty:
+        reg_close = float(reg["Close"].iloc[-1])
+        if reg_close != 0:
+            pct = (ah_close - reg_close) / reg_close * 100.0
+    return ah_close, pct
+
+
+def _to_new_york(hist):
+    """统一转美东时区（Yahoo 分钟数据默认 UTC）"""
+    try:
+        hist.index = hist.index.tz_convert("America/New_York")
+    except Exception:
+        pass
+    return hist
+
+
 def get_after_hours_price(symbol: str, trade_date: str) -> str:
     """按交易日获取盘后收盘价。
 
@@ -182,40 +222,22 @@ def get_after_hours_price(symbol: str, trade_date: str) -> str:
     返回 {"afterHours": <close>} 或 {"afterHours": null}（无盘后数据）。
     """
     try:
-        import pytz
-        from datetime import datetime, timedelta
-
         stock = yf.Ticker(symbol)
         start_dt = datetime.strptime(trade_date, "%Y-%m-%d")
         end_dt = start_dt + timedelta(days=1)
         start_str = start_dt.strftime("%Y-%m-%d")
         end_str = end_dt.strftime("%Y-%m-%d")
         # 分钟数据保留限制：1m 仅近 30 天 → 30 天外降级 15m/30m/60m（60m 保留期更长）
-        for interval in ("1m", "15m", "30m", "60m"):
+        for interval, _, _ in AFTER_HOURS_INTERVALS:
             try:
                 hist = stock.history(start=start_str, end=end_str, interval=interval, prepost=True)
             except Exception:
                 continue
             if hist is None or hist.empty:
                 continue
-            # 统一转美东时区（Yahoo 分钟数据默认 UTC）
-            try:
-                hist.index = hist.index.tz_convert("America/New_York")
-            except Exception:
-                pass
-            # 盘后时段 16:00-20:00 ET，取最后一条 close
-            ah = hist.between_time("16:00", "20:00")
-            if not ah.empty:
-                ah_close = float(ah["Close"].iloc[-1])
-                # 盘后涨跌幅直算：常规时段收盘 = 9:30-15:59 最后一根 close。
-                # 注意不能含 16:00 —— Yahoo 分钟数据 16:00 那根已属盘后时段（16:00-16:15 等），
-                # 取到它会把盘后第一根当收盘 → 涨跌幅≈0 失真
-                reg = hist.between_time("09:30", "15:59")
-                pct = None
-                if not reg.empty:
-                    reg_close = float(reg["Close"].iloc[-1])
-                    if reg_close != 0:
-                        pct = (ah_close - reg_close) / reg_close * 100.0
+            value = _after_hours_close(_to_new_york(hist))
+            if value is not None:
+                ah_close, pct = value
                 result = {"afterHours": ah_close}
                 if pct is not None:
                     result["afterHoursChangePercent"] = pct
@@ -225,6 +247,61 @@ def get_after_hours_price(symbol: str, trade_date: str) -> str:
         return json.dumps({"error": str(e)})
 
 
+def _chunk_dates(dates, max_span_days):
+    """把升序日期切成首尾跨度 < max_span_days 的连续分段（每段一次分钟数据请求）"""
+    chunks = []
+    for d in dates:
+        if chunks and (d - chunks[-1][0]).days < max_span_days:
+            chunks[-1].append(d)
+        else:
+            chunks.append([d])
+    return chunks
+
+
+def get_after_hours_prices(symbol: str, trade_dates: str) -> str:
+    """按多个交易日批量获取盘后收盘价（逗号分隔日期）。
+
+    与 get_after_hours_price 同口径（16:00-20:00 ET 最后一条 close），但每个间隔只按
+    保留期内的日期分段各拉一次分钟数据（1m 单次 ≤7 天），再逐日切片提取，
+    避免同一 symbol 每个交易日各下载一遍分钟数据。
+
+    返回 {"symbol": ..., "items": [{"date": "YYYY-MM-DD", "afterHours": <close>,
+    "afterHoursChangePercent": <pct|null>}, ...]}，无盘后数据的日期不出现在 items 中。
+    """
+    try:
+        stock = yf.Ticker(symbol)
+        today = datetime.now(pytz.timezone("America/New_York")).date()
+        dates = sorted({datetime.strptime(d, "%Y-%m-%d").date()
+                        for d in trade_dates.split(",") if d.strip()})
+        results = {}
+        for interval, retention_days, max_span_days in AFTER_HOURS_INTERVALS:
+            todo = [d for d in dates if d not in results and (today - d).days < retention_days]
+            for chunk in _chunk_dates(todo, max_span_days):
+                start_str = chunk[0].strftime("%Y-%m-%d")
+                end_str = (chunk[-1] + timedelta(days=1)).strftime("%Y-%m-%d")
+                try:
+                    hist = stock.history(start=start_str, end=end_str, interval=interval, prepost=True)
+                except Exception:
+                    continue
+                if hist is None or hist.empty:
+                    continue
+                hist = _to_new_york(hist)
+                for d in chunk:
+                    day = hist[hist.index.date == d]
+                    if day.empty:
+                        continue
+                    value = _after_hours_close(day)
+                    if value is not None:
+                        results[d] = value
+        items = [
+            {"date": d.strftime("%Y-%m-%d"), "afterHours": v[0], "afterHoursChangePercent": v[1]}
+            for d, v in sorted(results.items())
+        ]
+        return json.dumps({"symbol": symbol, "items": items})
+    except Exception as e:
+        return json.dumps({"error": str(e)})
+
+
 def get_daily_kline_range(symbol: str, start_date: str, end_date: str) -> str:
     """获取指定日期范围内的日K线数据"""
     try:
@@ -386,6 +463,12 @@ def main():
             sys.exit(1)
         print(get_after_hours_price(sys.argv[2], sys.argv[3]))
     
+    elif command == "get_after_hours_prices":
+        if len(sys.argv) < 4:
+            print(json.dumps({"error": "Missing parameters: symbol trade_dates"}))
+            sys.exit(1)
+        print(get_after_hours_prices(sys.argv[2], sys.argv[3]))
+
     elif command == "get_batch_kline":
         if len(sys.argv) < 5:
             print(json.dumps({"error": "Missing parameters"}))
@@ -346,9 +346,35 @@ def _cmd_calendar(client, market: str, date_str: str):
     )
 
 
+def _cmd_calendar_range(client, market: str, begin: str, end: str):
+    """查询 [begin, end] 区间内的开盘日（一次 API 调用，供整年同步使用）。
+
+    只返回开盘日：{"market", "begin", "end", "days": [{"date", "type"}]}；
+    区间内未列出的日期即非交易日。
+    """
+    from datetime import datetime, timedelta
+
+    from tigeropen.common.consts import Market
+
+    # end_date 为开区间，+1 天覆盖 end 当日
+    end_exclusive = (datetime.strptime(end, "%Y-%m-%d") + timedelta(days=1)).strftime("%Y-%m-%d")
+    calendars = client.get_trading_calendar(
+        market=getattr(Market, market.upper()),
+        begin_date=begin,
+        end_date=end_exclusive,
+    )
+    days = []
+    for cal in calendars or []:
+        day = str(cal.get("date", ""))[:10]
+        if begin <= day <= end:
+            days.append({"date": day, "type": cal.get("type", "TRADING")})
+    days.sort(key=lambda x: x["date"])
+    print(json.dumps({"market": market, "begin": begin, "end": end, "days": days}))
+
+
 def main():
     if len(sys.argv) < 2:
-        print(json.dumps({"error": "usage: tigeropen_channel.py scan|bars|calendar ..."}))
+        print(json.dumps({"error": "usage: tigeropen_channel.py scan|bars|calendar|calendar_range ..."}))
         sys.exit(2)
     cmd = sys.argv[1]
     client = _client()
@@ -376,6 +402,11 @@ def main():
             print(json.dumps({"error": "calendar needs market date (e.g. US 2026-06-01)"}))
             sys.exit(2)
         _cmd_calendar(client, sys.argv[2], sys.argv[3])
+    elif cmd == "calendar_range":
+        if len(sys.argv) < 5:
+            print(json.dumps({"error": "calendar_range needs market begin end (e.g. US 2026-01-01 2026-12-31)"}))
+            sys.exit(2)
+        _cmd_calendar_range(client, sys.argv[2], sys.argv[3], sys.argv[4])
     else:
         print(json.dumps({"error": "unknown command"}))
         sys.exit(2)
@@ -1,11 +1,15 @@
 package com.stock.invest.controller;
 
+import com.stock.invest.service.BarRunLengthMaintainer;
+import com.stock.invest.service.DailyBarColumnStore;
 import com.stock.invest.service.DataFillProgressService;
 import com.stock.invest.service.DataGapFillerService;
+import com.stock.invest.service.IndicatorEngine;
 import com.stock.invest.service.RetryProgressService;
 import com.stock.invest.service.ScreeningProgressService;
 import com.stock.invest.service.ScreeningService;
 import com.stock.invest.service.StockDataSourcePriorityService;
+import com.stock.invest.service.SymbolLatestBarMaintainer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +21,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDate;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -75,6 +80,18 @@ class AdminControllerTest {
     @MockitoBean
     private RetryProgressService retryProgressService;
 
+    @MockitoBean
+    private DailyBarColumnStore dailyBarColumnStore;
+
+    @MockitoBean
+    private IndicatorEngine indicatorEngine;
+
+    @MockitoBean
+    private BarRunLengthMaintainer barRunLengthMaintainer;
+
+    @MockitoBean
+    private SymbolLatestBarMaintainer symbolLatestBarMaintainer;
+
     /** 与 AsyncConfig#scanAsyncExecutor 同名的 mock —— 测试中直接控制拒绝/提交。 */
     @MockitoBean(name = "scanExecutor")
     private Executor scanExecutor;
@@ -314,4 +331,67 @@ class AdminControllerTest {
         verify(scanExecutor, never()).execute(any());
     }
 
+    @Test
+    @DisplayName("bar-store-stats 返回列式缓存规模与内存占用")
+    void barStoreStats_returnsMemoryReport() throws Exception {
+        when(dailyBarColumnStore.stats()).thenReturn(java.util.Map.of(
+                "symbols", 2, "bars", 520L, "memoryBytes", 30000L, "truncated", false));
+
+        mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+                        .get("/api/admin/bar-store-stats")
+                        .header("X-Admin-API-Key", ADMIN_API_KEY)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.symbols").value(2))
+                .andExpect(jsonPath("$.data.memoryBytes").value(30000))
+                .andExpect(jsonPath("$.data.truncated").value(false));
+    }
+
+    @Test
+    @DisplayName("indicators/rebuild 空闲时提交到 scanExecutor；重建进行中返回 409")
+    void rebuildIndicators_submitsOrConflicts() throws Exception {
+        mockMvc.perform(adminPost("/api/admin/indicators/rebuild")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        verify(scanExecutor, times(1)).execute(any(Runnable.class));
+
+        when(indicatorEngine.isRebuilding()).thenReturn(true);
+        mockMvc.perform(adminPost("/api/admin/indicators/rebuild")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+        verify(scanExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("run-length/rebuild 空闲时提交到 scanExecutor；重算进行中返回 409")
+    void rebuildRunLength_submitsOrConflicts() throws Exception {
+        mockMvc.perform(adminPost("/api/admin/run-length/rebuild")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        verify(scanExecutor, times(1)).execute(any(Runnable.class));
+
+        when(barRunLengthMaintainer.isRebuilding()).thenReturn(true);
+        mockMvc.perform(adminPost("/api/admin/run-length/rebuild")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+        verify(scanExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("latest-bars/rebuild 同步重建快照并返回汇总")
+    void rebuildLatestBars_returnsSummary() throws Exception {
+        when(symbolLatestBarMaintainer.rebuild()).thenReturn(Map.of("symbols", 3, "elapsedMs", 5L));
+
+        mockMvc.perform(adminPost("/api/admin/latest-bars/rebuild")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.symbols").value(3));
+        verify(symbolLatestBarMaintainer).rebuild();
+        verify(scanExecutor, never()).execute(any(Runnable.class));
+    }
 }
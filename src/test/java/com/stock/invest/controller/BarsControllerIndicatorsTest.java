@@ -0,0 +1,94 @@
+package com.stock.invest.controller;
+
+import com.stock.invest.enums.dto.StockDailyIndicatorDto;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.service.StockDailyBarService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * CTRL-IND-01~04: BarsController 技术指标端点单元测试。
+ */
+@WebMvcTest(BarsController.class)
+class BarsControllerIndicatorsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private StockDailyBarService stockDailyBarService;
+
+    @MockitoBean
+    private StockDailyBarRepository stockDailyBarRepository;
+
+    private static StockDailyIndicatorDto row(String symbol, String date, String sma5, String rsi) {
+        return new StockDailyIndicatorDto(symbol, date, 60,
+                new BigDecimal(sma5), null, null, null, null, null, null, null,
+                new BigDecimal(rsi), null, null, null);
+    }
+
+    @Test
+    @DisplayName("CTRL-IND-01: GET /api/bars/aapl/indicators 代码转大写，默认 30 天")
+    void getIndicators_defaults() throws Exception {
+        when(stockDailyBarService.getRecentIndicators("AAPL", 30))
+                .thenReturn(List.of(row("AAPL", "2026-06-25", "151.2", "55.5")));
+
+        mockMvc.perform(get("/api/bars/aapl/indicators"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].date").value("2026-06-25"))
+                .andExpect(jsonPath("$.data[0].closeSma5").value(151.2))
+                .andExpect(jsonPath("$.data[0].rsi14").value(55.5));
+
+        verify(stockDailyBarService).getRecentIndicators("AAPL", 30);
+    }
+
+    @Test
+    @DisplayName("CTRL-IND-02: days 越界 clamp 到 [1, 365]")
+    void getIndicators_clampsDays() throws Exception {
+        when(stockDailyBarService.getRecentIndicators(eq("AAPL"), anyInt())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/bars/AAPL/indicators").param("days", "9999")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/bars/AAPL/indicators").param("days", "-3")).andExpect(status().isOk());
+
+        verify(stockDailyBarService).getRecentIndicators("AAPL", 365);
+        verify(stockDailyBarService).getRecentIndicators("AAPL", 1);
+    }
+
+    @Test
+    @DisplayName("CTRL-IND-03: 横截面查询 — 未传日期取最新交易日，pageSize clamp 到 500")
+    void queryIndicators_latestDate() throws Exception {
+        when(stockDailyBarService.getIndicatorsByDate(null, 0, 500)).thenReturn(new PageImpl<>(
+                List.of(row("AAA", "2026-06-25", "1.5", "40"), row("BBB", "2026-06-25", "2.5", "60")),
+                PageRequest.of(0, 500), 2));
+
+        mockMvc.perform(get("/api/bars/indicators/query").param("pageSize", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tradeDate").value("2026-06-25"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.rows[1].symbol").value("BBB"));
+    }
+
+    @Test
+    @DisplayName("CTRL-IND-04: 非法 tradeDate 返回 400")
+    void queryIndicators_invalidDate() throws Exception {
+        mockMvc.perform(get("/api/bars/indicators/query").param("tradeDate", "2026-13-40"))
+                .andExpect(status().isBadRequest());
+
+        verify(stockDailyBarService, never()).getIndicatorsByDate(any(LocalDate.class), anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,81 @@
+package com.stock.invest.controller;
+
+import com.stock.invest.enums.dto.SymbolLatestBarDto;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.service.StockDailyBarService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * CTRL-LB-01~02: BarsController 最新 K 线标的池过滤端点单元测试。
+ */
+@WebMvcTest(BarsController.class)
+class BarsControllerLatestBarsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private StockDailyBarService stockDailyBarService;
+
+    @MockitoBean
+    private StockDailyBarRepository stockDailyBarRepository;
+
+    @Test
+    @DisplayName("CTRL-LB-01: GET /api/bars/latest/query 透传过滤条件，按白名单字段排序，pageSize 上限 500")
+    void queryLatestBars_passesFilters() throws Exception {
+        PageRequest expected = PageRequest.of(0, 500, Sort.by("volume").descending());
+        when(stockDailyBarService.queryLatestBars(expected, new BigDecimal("1"), new BigDecimal("5"),
+                100000L, LocalDate.of(2026, 6, 1)))
+                .thenReturn(new PageImpl<>(List.of(new SymbolLatestBarDto(
+                        "PENNY", "2026-06-26", new BigDecimal("2.5"), 250000L, "alpaca")), expected, 1));
+
+        mockMvc.perform(get("/api/bars/latest/query")
+                        .param("pageSize", "10000")
+                        .param("sortBy", "volume")
+                        .param("sortDir", "desc")
+                        .param("minClose", "1")
+                        .param("maxClose", "5")
+                        .param("minVolume", "100000")
+                        .param("since", "2026-06-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.pageSize").value(500))
+                .andExpect(jsonPath("$.rows[0].symbol").value("PENNY"))
+                .andExpect(jsonPath("$.rows[0].date").value("2026-06-26"))
+                .andExpect(jsonPath("$.rows[0].closePrice").value(2.5));
+    }
+
+    @Test
+    @DisplayName("CTRL-LB-02: 未知排序字段回落到 symbol 升序，未给过滤条件时全部为 null")
+    void queryLatestBars_defaults() throws Exception {
+        PageRequest expected = PageRequest.of(0, 100, Sort.by("symbol").ascending());
+        when(stockDailyBarService.queryLatestBars(eq(expected), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(new PageImpl<>(List.of(), expected, 0));
+
+        mockMvc.perform(get("/api/bars/latest/query").param("sortBy", "source; drop table"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.rows").isEmpty());
+
+        verify(stockDailyBarService).queryLatestBars(any(), isNull(), isNull(), isNull(), isNull());
+    }
+}
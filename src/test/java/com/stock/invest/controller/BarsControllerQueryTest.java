@@ -47,7 +47,7 @@ class BarsControllerQueryTest {
     @DisplayName("合法 symbol 转大写并返回 200")
     void validSymbol_uppercasesAndReturns200() throws Exception {
         when(stockDailyBarService.getBarsBySymbol(anyString())).thenReturn(List.of(new StockDailyBarDto(
-                null, "AAPL", null, null, null, null, null, null, null, null, null, null, null)));
+                null, "AAPL", null, null, null, null, null, null, null, null, null, null, null, null)));
 
         mockMvc.perform(get("/api/bars/single/query").param("symbol", " aapl "))
                 .andExpect(status().isOk())
@@ -1,5 +1,7 @@
 package com.stock.invest.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stock.invest.model.RenderedPayload;
 import com.stock.invest.service.ScreeningService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +16,8 @@ import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,6 +31,10 @@ class NotificationControllerTest {
     @MockitoBean
     private ScreeningService screeningService;
 
+    private static RenderedPayload rendered(Map<String, Object> body) throws Exception {
+        return RenderedPayload.of(new ObjectMapper().writeValueAsString(body));
+    }
+
     @Test
     @DisplayName("有筛选结果 → 返回完整 JSON")
     void test_latest_withResults() throws Exception {
@@ -46,8 +54,8 @@ class NotificationControllerTest {
         payload.put("screenDate", "2026-05-18");
         payload.put("results", results);
 
-        // controller 已改调 getLatestNotificationGrouped(String windows) 重载（windows 缺省为 null）
-        when(screeningService.getLatestNotificationGrouped(isNull())).thenReturn(payload);
+        // controller 返回预渲染响应体（windows 缺省为 null）
+        when(screeningService.getLatestNotificationPayload(isNull())).thenReturn(rendered(payload));
 
         mockMvc.perform(get("/api/notification/latest")
                         .accept(MediaType.APPLICATION_JSON))
@@ -63,7 +71,7 @@ class NotificationControllerTest {
     void test_latest_noResults() throws Exception {
         Map<String, Object> empty = new LinkedHashMap<>();
         empty.put("message", "暂无筛选数据");
-        when(screeningService.getLatestNotificationGrouped(isNull())).thenReturn(empty);
+        when(screeningService.getLatestNotificationPayload(isNull())).thenReturn(rendered(empty));
 
         mockMvc.perform(get("/api/notification/latest")
                         .accept(MediaType.APPLICATION_JSON))
@@ -71,4 +79,26 @@ class NotificationControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.message").value("暂无筛选数据"));
     }
+
+    @Test
+    @DisplayName("预渲染响应体带 ETag；If-None-Match 命中返回 304 且无响应体")
+    void test_latest_etagNotModified() throws Exception {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("batchId", "screen-20260518-abc123");
+        payload.put("screenDate", "2026-05-18");
+        payload.put("results", Map.of());
+        RenderedPayload rendered = rendered(payload);
+        when(screeningService.getLatestNotificationPayload("2d,3d")).thenReturn(rendered);
+
+        mockMvc.perform(get("/api/notification/latest").param("windows", "2d,3d"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + rendered.etag() + "\""))
+                .andExpect(jsonPath("$.data.batchId").value("screen-20260518-abc123"));
+
+        mockMvc.perform(get("/api/notification/latest").param("windows", "2d,3d")
+                        .header("If-None-Match", "\"" + rendered.etag() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(screeningService, times(2)).getLatestNotificationPayload("2d,3d");
+    }
 }
@@ -162,22 +162,24 @@ class FlywayMigrationIT {
     void freshMigrate_allVersionsApplied() throws Exception {
         Flyway flyway = flyway();
         org.flywaydb.core.api.output.MigrateResult result = flyway.migrate();
-        assertEquals(5, result.migrationsExecuted, "V1..V5 must all execute on a fresh schema");
+        assertEquals(13, result.migrationsExecuted, "V1..V13 must all execute on a fresh schema");
 
-        // flyway_schema_history 版本唯一（无复用）：1:baseline? no — baseline-version=0 不入库；1..5
+        // flyway_schema_history 版本唯一（无复用）：1:baseline? no — baseline-version=0 不入库；1..13
         List<String> applied = appliedDescriptions();
-        assertEquals(5, applied.size(), "exactly 5 migration rows: " + applied);
+        assertEquals(13, applied.size(), "exactly 13 migration rows: " + applied);
         Set<String> versions = new HashSet<>();
         for (String row : applied) {
             versions.add(row.split(":")[0]);
         }
-        assertEquals(Set.of("1", "2", "3", "4", "5"), versions, "versions must be unique, no reuse: " + applied);
+        assertEquals(Set.of("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13"), versions, "versions must be unique, no reuse: " + applied);
         assertEquals("create symbol blacklist", applied.get(1).split(":", 2)[1],
                 "V2 must be the restored old create_symbol_blacklist script");
 
-        // 6 张业务表就位
+        // 12 张业务表就位
         for (String t : List.of("data_fill_task", "screening_match", "stock_daily_bar",
-                "stock_data_source_priority", "symbol_blacklist", "trading_calendar")) {
+                "stock_data_source_priority", "symbol_blacklist", "trading_calendar",
+                "backtest_match", "symbol", "screening_payload", "screening_batch",
+                "stock_daily_indicator", "symbol_latest_bar")) {
             assertTrue(tableExists(t), "table " + t + " must exist after migrate");
         }
 
@@ -186,11 +188,16 @@ class FlywayMigrationIT {
         assertTrue(indexExists("screening_match", "idx_screening_match_window_days"), "P3-7 index missing");
         assertTrue(indexExists("screening_match", "idx_screening_match_batch_id_window_days"), "P3-7 index missing");
         assertTrue(indexExists("data_fill_task", "idx_dft_status"), "P3-12 idx_dft_status missing");
+        assertTrue(indexExists("screening_batch", "idx_screening_batch_trade_date_id"), "history keyset index missing");
+        assertTrue(indexExists("symbol_latest_bar", "idx_symbol_latest_bar_close_price"), "latest-bar close index missing");
 
         // data_fill_task 全列（P2-4）就位
         for (String col : List.of("version", "status", "retry_count", "retry_date", "day_count", "last_error")) {
             assertTrue(columnExists("data_fill_task", col), "data_fill_task." + col + " missing");
         }
+        assertTrue(columnExists("stock_daily_bar", "run_length"), "stock_daily_bar.run_length must be added by V11");
+        assertTrue(columnExists("stock_daily_indicator", "state_ema_fast"), "indicator state columns must be added by V13");
+        assertTrue(columnExists("stock_daily_indicator", "state_atr"), "indicator state columns must be added by V13");
 
         // 价格列 DECIMAL(12,4)（V3 回归护栏）
         try (Connection c = conn();
@@ -333,10 +340,10 @@ class FlywayMigrationIT {
         // 继续完整迁移：validate 必须通过（旧 V2 checksum/描述与历史一致），V3/V4 应用
         Flyway full = flyway();
         org.flywaydb.core.api.output.MigrateResult result = full.migrate();
-        assertEquals(3, result.migrationsExecuted, "V3+V4+V5 must apply on top of old-V2 schema");
+        assertEquals(11, result.migrationsExecuted, "V3..V13 must apply on top of old-V2 schema");
 
         List<String> applied = appliedDescriptions();
-        assertEquals(5, applied.size(), "full history after old-V2 upgrade: " + applied);
+        assertEquals(13, applied.size(), "full history after old-V2 upgrade: " + applied);
         assertEquals("create symbol blacklist", applied.get(1).split(":", 2)[1],
                 "V2 description must match the old create_symbol_blacklist script");
 
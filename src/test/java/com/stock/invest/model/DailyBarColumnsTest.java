@@ -0,0 +1,97 @@
+package com.stock.invest.model;
+
+import com.stock.invest.entity.StockDailyBar;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * COL-01 ~ COL-06: DailyBarColumns 列式日 K 测试
+ */
+class DailyBarColumnsTest {
+
+    private static final LocalDate D1 = LocalDate.of(2026, 5, 14);
+    private static final LocalDate D2 = LocalDate.of(2026, 5, 15);
+    private static final LocalDate D3 = LocalDate.of(2026, 5, 18);
+
+    private static DailyBarColumns.Builder add(DailyBarColumns.Builder b, LocalDate d, String close, long volume) {
+        return b.add(d, new BigDecimal("1.00"), null, null, new BigDecimal(close), volume, "tiger");
+    }
+
+    @Test @DisplayName("COL-01: 定点价格往返无损（4 位小数）、缺失字段按 flag 还原为 null")
+    void scaledRoundTrip() {
+        DailyBarColumns c = add(DailyBarColumns.builder("AAA"), D1, "0.0812", 1200L).build(10);
+        assertEquals(812L, c.close(0));
+        assertEquals(10000L, c.open(0));
+        assertFalse(c.has(0, DailyBarColumns.FLAG_HIGH));
+        StockDailyBar bar = c.toDetachedBar(0);
+        assertEquals(0, new BigDecimal("0.0812").compareTo(bar.getClosePrice()));
+        assertNull(bar.getHighPrice());
+        assertEquals(1200L, bar.getVolume());
+        assertEquals("tiger", bar.getSource());
+        assertEquals(D1, bar.getTradeDate());
+    }
+
+    @Test @DisplayName("COL-02: 乱序追加按日期排序，同日后写覆盖先写")
+    void builderSortsAndDedupes() {
+        DailyBarColumns.Builder b = DailyBarColumns.builder("AAA");
+        add(b, D3, "3", 3L);
+        add(b, D1, "1", 1L);
+        add(b, D3, "4", 4L);
+        DailyBarColumns c = b.build(10);
+        assertEquals(2, c.size());
+        assertEquals(D1, c.tradeDate(0));
+        assertEquals(4L, c.volume(1));
+    }
+
+    @Test @DisplayName("COL-03: merge 同日以新数据为准，超出 capacity 丢弃最旧")
+    void mergeNewerWinsAndTrims() {
+        DailyBarColumns old = add(add(DailyBarColumns.builder("AAA"), D1, "1", 1L), D2, "2", 2L).build(10);
+        DailyBarColumns newer = add(add(DailyBarColumns.builder("AAA"), D2, "9", 9L), D3, "3", 3L).build(10);
+        DailyBarColumns merged = old.merge(newer, 2);
+        assertEquals(2, merged.size());
+        assertEquals(D2, merged.tradeDate(0));
+        assertEquals(9L, merged.volume(0));
+        assertEquals(D3, merged.tradeDate(1));
+    }
+
+    @Test @DisplayName("COL-04: 区间定位 lastIndexOnOrBefore / firstIndexOnOrAfter / indexOf")
+    void rangeLookup() {
+        DailyBarColumns c = add(add(DailyBarColumns.builder("AAA"), D1, "1", 1L), D3, "3", 3L).build(10);
+        assertEquals(0, c.lastIndexOnOrBefore(D2.toEpochDay()));
+        assertEquals(1, c.firstIndexOnOrAfter(D2.toEpochDay()));
+        assertEquals(-1, c.lastIndexOnOrBefore(D1.minusDays(1).toEpochDay()));
+        assertEquals(2, c.firstIndexOnOrAfter(D3.plusDays(1).toEpochDay()));
+        assertEquals(-1, c.indexOf(D2));
+        assertEquals(1, c.indexOf(D3));
+    }
+
+    @Test @DisplayName("COL-05: 内存估算随根数线性增长")
+    void memoryGrowsLinearly() {
+        DailyBarColumns one = add(DailyBarColumns.builder("AAA"), D1, "1", 1L).build(10);
+        DailyBarColumns two = add(add(DailyBarColumns.builder("AAA"), D1, "1", 1L), D2, "2", 2L).build(10);
+        DailyBarColumns three = add(add(add(DailyBarColumns.builder("AAA"), D1, "1", 1L), D2, "2", 2L), D3, "3", 3L)
+                .build(10);
+        assertTrue(two.memoryBytes() > one.memoryBytes());
+        assertEquals(two.memoryBytes() - one.memoryBytes(), three.memoryBytes() - two.memoryBytes());
+    }
+
+    @Test @DisplayName("COL-06: 连续开盘日计数 — 未计算为 RUN_UNKNOWN / null，withRunLengths 只改命中日，无变化返回原实例")
+    void runLengths() {
+        DailyBarColumns c = add(add(DailyBarColumns.builder("AAA"), D1, "1", 1L), D2, "2", 2L).build(10);
+        assertEquals(DailyBarColumns.RUN_UNKNOWN, c.runLength(0));
+        assertNull(c.toDetachedBar(0).getRunLength());
+
+        DailyBarColumns updated = c.withRunLengths(
+                new int[]{(int) D2.toEpochDay(), (int) D3.toEpochDay()}, new int[]{4, 5});
+        assertEquals(DailyBarColumns.RUN_UNKNOWN, updated.runLength(0));
+        assertEquals(4, updated.runLength(1));
+        assertEquals(4, updated.toDetachedBar(1).getRunLength());
+        assertEquals(DailyBarColumns.RUN_UNKNOWN, c.runLength(1), "copy-on-write: original untouched");
+        assertSame(updated, updated.withRunLengths(new int[]{(int) D2.toEpochDay()}, new int[]{4}));
+    }
+}
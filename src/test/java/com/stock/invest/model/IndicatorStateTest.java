@@ -0,0 +1,244 @@
+package com.stock.invest.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IND-01 ~ IND-06: IndicatorState 增量指标测试（与逐日全量重算的朴素实现对照）
+ */
+class IndicatorStateTest {
+
+    private static final LocalDate D0 = LocalDate.of(2026, 1, 2);
+    private static final double EPS = 1e-6;
+
+    /** 随机游走日 K：[date, high, low, close, volume] */
+    private static List<Object[]> bars(int n, long seed) {
+        Random random = new Random(seed);
+        List<Object[]> bars = new ArrayList<>(n);
+        double close = 20;
+        for (int i = 0; i < n; i++) {
+            close = Math.max(1, close + random.nextGaussian());
+            double high = close + random.nextDouble();
+            double low = Math.max(0.5, close - random.nextDouble());
+            bars.add(new Object[]{D0.plusDays(i), price(high), price(low), price(close),
+                    (long) (100_000 + random.nextInt(900_000))});
+        }
+        return bars;
+    }
+
+    private static BigDecimal price(double v) {
+        return BigDecimal.valueOf(v).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static IndicatorState.Values push(IndicatorState s, Object[] r) {
+        return s.push((LocalDate) r[0], (BigDecimal) r[1], (BigDecimal) r[2], (BigDecimal) r[3], (Long) r[4]);
+    }
+
+    private static double close(List<Object[]> bars, int i) {
+        return ((BigDecimal) bars.get(i)[3]).doubleValue();
+    }
+
+    private static double sma(List<Object[]> bars, int end, int n, int col) {
+        double sum = 0;
+        for (int i = end - n + 1; i <= end; i++) {
+            sum += ((Number) bars.get(i)[col]).doubleValue();
+        }
+        return sum / n;
+    }
+
+    private static double ema(List<Object[]> bars, int end, int n) {
+        double ema = sma(bars, n - 1, n, 3);
+        for (int i = n; i <= end; i++) {
+            ema += (close(bars, i) - ema) * 2 / (n + 1);
+        }
+        return ema;
+    }
+
+    private static double rsi(List<Object[]> bars, int end, int n) {
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= end; i++) {
+            double change = close(bars, i) - close(bars, i - 1);
+            double g = Math.max(change, 0);
+            double l = Math.max(-change, 0);
+            if (i <= n) {
+                gain += g / n;
+                loss += l / n;
+            } else {
+                gain = (gain * (n - 1) + g) / n;
+                loss = (loss * (n - 1) + l) / n;
+            }
+        }
+        return loss == 0 ? (gain == 0 ? 50 : 100) : 100 - 100 / (1 + gain / loss);
+    }
+
+    private static double atr(List<Object[]> bars, int end, int n) {
+        double atr = 0;
+        for (int i = 0; i <= end; i++) {
+            double h = ((BigDecimal) bars.get(i)[1]).doubleValue();
+            double l = ((BigDecimal) bars.get(i)[2]).doubleValue();
+            double tr = h - l;
+            if (i > 0) {
+                double pc = close(bars, i - 1);
+                tr = Math.max(tr, Math.max(Math.abs(h - pc), Math.abs(l - pc)));
+            }
+            atr = i < n ? atr + tr / n : (atr * (n - 1) + tr) / n;
+        }
+        return atr;
+    }
+
+    @Test @DisplayName("IND-01: 预热期内对应指标为 null，满周期后出现")
+    void warmUp() {
+        List<Object[]> bars = bars(60, 1);
+        IndicatorState s = new IndicatorState();
+        List<IndicatorState.Values> values = new ArrayList<>();
+        for (Object[] r : bars) {
+            values.add(push(s, r));
+        }
+        assertNull(values.get(3).closeSma5());
+        assertNotNull(values.get(4).closeSma5());
+        assertNull(values.get(10).closeEma12());
+        assertNotNull(values.get(11).closeEma12());
+        assertNull(values.get(13).rsi14());
+        assertNotNull(values.get(14).rsi14());
+        assertNull(values.get(12).atr14());
+        assertNotNull(values.get(13).atr14());
+        assertNull(values.get(19).relativeVolume());
+        assertNotNull(values.get(20).relativeVolume());
+        assertNull(values.get(48).closeSma50());
+        assertNotNull(values.get(49).closeSma50());
+        assertEquals(60, s.count());
+        assertEquals(D0.plusDays(59), s.lastDate());
+    }
+
+    @Test @DisplayName("IND-02: 逐根增量结果与全量重算一致")
+    void matchesFullRecompute() {
+        List<Object[]> bars = bars(300, 7);
+        IndicatorState s = new IndicatorState();
+        for (int i = 0; i < bars.size(); i++) {
+            IndicatorState.Values v = push(s, bars.get(i));
+            if (i < 50) {
+                continue;
+            }
+            assertEquals(sma(bars, i, 5, 3), v.closeSma5(), EPS, "sma5@" + i);
+            assertEquals(sma(bars, i, 20, 3), v.closeSma20(), EPS, "sma20@" + i);
+            assertEquals(sma(bars, i, 50, 3), v.closeSma50(), EPS, "sma50@" + i);
+            assertEquals(ema(bars, i, 12), v.closeEma12(), EPS, "ema12@" + i);
+            assertEquals(ema(bars, i, 26), v.closeEma26(), EPS, "ema26@" + i);
+            assertEquals(sma(bars, i, 20, 4), v.volumeSma20(), EPS, "volSma20@" + i);
+            assertEquals(((Long) bars.get(i)[4]) / sma(bars, i - 1, 20, 4), v.relativeVolume(), EPS, "rvol@" + i);
+            assertEquals(rsi(bars, i, 14), v.rsi14(), 1e-4, "rsi@" + i);
+            assertEquals(atr(bars, i, 14), v.atr14(), EPS, "atr@" + i);
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            for (int j = i - 19; j <= i; j++) {
+                high = Math.max(high, ((BigDecimal) bars.get(j)[1]).doubleValue());
+                low = Math.min(low, ((BigDecimal) bars.get(j)[2]).doubleValue());
+            }
+            assertEquals(high, v.high(), EPS, "high20@" + i);
+            assertEquals(low, v.low(), EPS, "low20@" + i);
+        }
+    }
+
+    @Test @DisplayName("IND-03: 由某日指标值 + 最近 50 根 bar 恢复后继续推入，与不间断计算一致")
+    void resumeContinues() {
+        List<Object[]> bars = bars(120, 11);
+        IndicatorState full = new IndicatorState();
+        IndicatorState.Values at80 = null;
+        for (int i = 0; i <= 80; i++) {
+            at80 = push(full, bars.get(i));
+        }
+        IndicatorState resumed = IndicatorState.resume(at80, bars.subList(31, 81));
+        assertNotNull(resumed);
+        assertEquals(81, resumed.count());
+        for (int i = 81; i < bars.size(); i++) {
+            IndicatorState.Values a = push(full, bars.get(i));
+            IndicatorState.Values b = push(resumed, bars.get(i));
+            // 逐位一致（含递推状态），不只是误差范围内
+            assertEquals(a, b, "day " + i);
+        }
+    }
+
+    @Test @DisplayName("IND-04: 不可恢复（预热期内 / bar 数不足 / 末根日期不符）返回 null")
+    void resumeRejectsInconsistentInput() {
+        List<Object[]> bars = bars(70, 3);
+        IndicatorState s = new IndicatorState();
+        IndicatorState.Values at40 = null;
+        IndicatorState.Values at60 = null;
+        for (int i = 0; i <= 60; i++) {
+            IndicatorState.Values v = push(s, bars.get(i));
+            if (i == 40) {
+                at40 = v;
+            }
+            at60 = v;
+        }
+        assertNull(IndicatorState.resume(at40, bars.subList(0, 41)));
+        assertNull(IndicatorState.resume(at60, bars.subList(20, 61).subList(0, 40)));
+        assertNull(IndicatorState.resume(at60, bars.subList(10, 60)));
+        assertNotNull(IndicatorState.resume(at60, bars.subList(11, 61)));
+    }
+
+    @Test @DisplayName("IND-05: 交易日须递增；缺失最高 / 最低价以收盘价代替")
+    void orderingAndMissingRange() {
+        IndicatorState s = new IndicatorState();
+        s.push(D0, null, null, new BigDecimal("10"), 100);
+        assertThrows(IllegalArgumentException.class, () -> s.push(D0, null, null, new BigDecimal("11"), 100));
+        assertThrows(IllegalArgumentException.class, () -> s.push(D0.plusDays(1), null, null, null, 100));
+        IndicatorState.Values v = null;
+        for (int i = 1; i < 20; i++) {
+            v = s.push(D0.plusDays(i), null, null, new BigDecimal(10 + i), 100);
+        }
+        assertEquals(29, v.high(), EPS);
+        assertEquals(10, v.low(), EPS);
+        // 首根 TR = 0，其后每根 TR = 1：第 14 根均值 13/14，之后 Wilder 平滑 6 次
+        assertEquals(1 - Math.pow(13d / 14, 6) / 14, v.atr14(), EPS);
+    }
+
+    @Test @DisplayName("IND-06: 展示列按库精度舍入后，仅凭状态列恢复：任一断点续算与全量重建逐位一致；无状态列不可恢复")
+    void resumeFromPersistedRowMatchesRebuild() {
+        List<Object[]> bars = bars(160, 29);
+        IndicatorState full = new IndicatorState();
+        List<IndicatorState.Values> rebuilt = new ArrayList<>();
+        for (Object[] bar : bars) {
+            rebuilt.add(push(full, bar));
+        }
+        for (int k = IndicatorState.SMA_LONG - 1; k < bars.size() - 1; k++) {
+            IndicatorState resumed = IndicatorState.resume(persisted(rebuilt.get(k)),
+                    bars.subList(k + 1 - IndicatorState.SMA_LONG, k + 1));
+            assertNotNull(resumed, "resume@" + k);
+            for (int i = k + 1; i < bars.size(); i++) {
+                assertEquals(rebuilt.get(i), push(resumed, bars.get(i)), "resume@" + k + " day " + i);
+            }
+        }
+
+        IndicatorState.Values legacy = persisted(rebuilt.get(80));
+        legacy = new IndicatorState.Values(legacy.tradeDate(), legacy.barCount(), legacy.closeSma5(),
+                legacy.closeSma20(), legacy.closeSma50(), legacy.closeEma12(), legacy.closeEma26(),
+                legacy.volumeSma20(), legacy.volumeEma20(), legacy.relativeVolume(), legacy.rsi14(), legacy.atr14(),
+                legacy.high(), legacy.low(), legacy.rsiAvgGain(), legacy.rsiAvgLoss(), null);
+        assertNull(IndicatorState.resume(legacy, bars.subList(31, 81)));
+    }
+
+    /** 模拟落库再读回：展示列按 stock_daily_indicator 列精度舍入，状态列（DOUBLE）原样 */
+    private static IndicatorState.Values persisted(IndicatorState.Values v) {
+        return new IndicatorState.Values(v.tradeDate(), v.barCount(),
+                round(v.closeSma5(), 6), round(v.closeSma20(), 6), round(v.closeSma50(), 6),
+                round(v.closeEma12(), 6), round(v.closeEma26(), 6),
+                round(v.volumeSma20(), 4), round(v.volumeEma20(), 4), round(v.relativeVolume(), 4),
+                round(v.rsi14(), 4), round(v.atr14(), 6), round(v.high(), 6), round(v.low(), 6),
+                round(v.rsiAvgGain(), 6), round(v.rsiAvgLoss(), 6), v.checkpoint());
+    }
+
+    private static Double round(Double value, int scale) {
+        return value == null ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -0,0 +1,81 @@
+package com.stock.invest.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BM-01 ~ BM-04: SymbolBitmap 压缩位图测试
+ */
+class SymbolBitmapTest {
+
+    @Test @DisplayName("BM-01: 乱序、重复构建后升序去重；跨 16 位分桶的 contains / last")
+    void ofSortsAndDedupes() {
+        SymbolBitmap b = SymbolBitmap.of(70_000, 3, 1, 3, 65_536);
+        assertArrayEquals(new int[]{1, 3, 65_536, 70_000}, b.toArray());
+        assertEquals(4, b.cardinality());
+        assertTrue(b.contains(65_536));
+        assertFalse(b.contains(2));
+        assertFalse(b.contains(-1));
+        assertEquals(70_000, b.last());
+        assertEquals(-1, SymbolBitmap.EMPTY.last());
+        assertTrue(SymbolBitmap.of().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> SymbolBitmap.of(-5, 1));
+    }
+
+    @Test @DisplayName("BM-02: 稀疏数组容器的交 / 并")
+    void andOrSparse() {
+        SymbolBitmap a = SymbolBitmap.of(1, 2, 3, 100_000);
+        SymbolBitmap b = SymbolBitmap.of(2, 3, 4, 200_000);
+        assertEquals(SymbolBitmap.of(2, 3), a.and(b));
+        assertEquals(SymbolBitmap.of(1, 2, 3, 4, 100_000, 200_000), a.or(b));
+        assertTrue(a.and(SymbolBitmap.EMPTY).isEmpty());
+        assertSame(a, a.or(SymbolBitmap.EMPTY));
+    }
+
+    @Test @DisplayName("BM-03: 单桶超过数组上限转位图容器；交集回落后内存按数组计")
+    void containerSwitch() {
+        int[] dense = IntStream.range(0, SymbolBitmap.ARRAY_MAX + 1).map(i -> i * 2).toArray();
+        SymbolBitmap big = SymbolBitmap.of(dense);
+        assertEquals(SymbolBitmap.ARRAY_MAX + 1, big.cardinality());
+        assertTrue(big.memoryBytes() >= 8192);
+        assertEquals(dense[dense.length - 1], big.last());
+
+        SymbolBitmap small = big.and(SymbolBitmap.of(0, 1, 2, 8192));
+        assertEquals(SymbolBitmap.of(0, 2, 8192), small);
+        assertTrue(small.memoryBytes() < 100);
+
+        SymbolBitmap odd = SymbolBitmap.of(IntStream.range(0, SymbolBitmap.ARRAY_MAX).map(i -> i * 2 + 1).toArray());
+        assertEquals(2 * SymbolBitmap.ARRAY_MAX + 1, big.or(odd).cardinality());
+        assertTrue(big.and(odd).isEmpty());
+    }
+
+    @Test @DisplayName("BM-04: 随机数据交 / 并与 BitSet 一致")
+    void matchesBitSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int[] x = random.ints(random.nextInt(12_000), 0, 200_000).toArray();
+            int[] y = random.ints(random.nextInt(12_000), 0, 200_000).toArray();
+            BitSet bx = new BitSet();
+            BitSet by = new BitSet();
+            IntStream.of(x).forEach(bx::set);
+            IntStream.of(y).forEach(by::set);
+            BitSet and = (BitSet) bx.clone();
+            and.and(by);
+            BitSet or = (BitSet) bx.clone();
+            or.or(by);
+
+            SymbolBitmap a = SymbolBitmap.of(x);
+            SymbolBitmap b = SymbolBitmap.of(y);
+            assertArrayEquals(and.stream().toArray(), a.and(b).toArray());
+            assertArrayEquals(or.stream().toArray(), a.or(b).toArray());
+            assertEquals(and.cardinality(), a.and(b).cardinality());
+            assertEquals(or.cardinality(), a.or(b).cardinality());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.stock.invest.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SNAP-01 ~ SNAP-08: TradingCalendarSnapshot 内存日历快照测试
+ */
+class TradingCalendarSnapshotTest {
+
+    private static final String MARKET = "US";
+    /** 2026-07-03 (Fri) 独立日观察日休市 */
+    private static final LocalDate HOLIDAY = LocalDate.of(2026, 7, 3);
+
+    /** 2026-06-29 ~ 2026-07-12 两周：周末 + 07-03 休市 */
+    private static TradingCalendarSnapshot twoWeeks() {
+        List<TradingCalendarResult> days = new ArrayList<>();
+        for (LocalDate d = LocalDate.of(2026, 6, 29); !d.isAfter(LocalDate.of(2026, 7, 12)); d = d.plusDays(1)) {
+            boolean weekend = d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (weekend) {
+                days.add(TradingCalendarResult.nonTrading(MARKET, d, "system", "WEEKEND"));
+            } else if (d.equals(HOLIDAY)) {
+                days.add(TradingCalendarResult.nonTrading(MARKET, d, "alpaca", "HOLIDAY"));
+            } else {
+                days.add(TradingCalendarResult.trading(MARKET, d, "alpaca", "TRADING"));
+            }
+        }
+        return TradingCalendarSnapshot.of(MARKET, days);
+    }
+
+    @Test @DisplayName("SNAP-01: isOpen() trading / holiday / weekend / unknown")
+    void isOpen() {
+        TradingCalendarSnapshot s = twoWeeks();
+        assertEquals(Boolean.TRUE, s.isOpen(LocalDate.of(2026, 7, 2)));
+        assertEquals(Boolean.FALSE, s.isOpen(HOLIDAY));
+        assertEquals(Boolean.FALSE, s.isOpen(LocalDate.of(2026, 7, 4)));
+        assertNull(s.isOpen(LocalDate.of(2026, 6, 28)));
+        assertNull(s.isOpen(LocalDate.of(2026, 7, 13)));
+        assertEquals(14, s.size());
+    }
+
+    @Test @DisplayName("SNAP-02: previousOpen() skips holiday and weekend")
+    void previousOpen() {
+        TradingCalendarSnapshot s = twoWeeks();
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 2)), s.previousOpen(LocalDate.of(2026, 7, 6), 14));
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 2)), s.previousOpen(HOLIDAY, 14));
+        assertEquals(Optional.empty(), s.previousOpen(LocalDate.of(2026, 6, 29), 14));
+        // maxDays 限制：07-06 → 07-02 相差 4 天
+        assertEquals(Optional.empty(), s.previousOpen(LocalDate.of(2026, 7, 6), 3));
+    }
+
+    @Test @DisplayName("SNAP-03: nextOpen() skips holiday and weekend")
+    void nextOpen() {
+        TradingCalendarSnapshot s = twoWeeks();
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 6)), s.nextOpen(LocalDate.of(2026, 7, 2), 14));
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 6)), s.nextOpen(HOLIDAY, 14));
+        assertEquals(Optional.empty(), s.nextOpen(LocalDate.of(2026, 7, 10), 14));
+        assertEquals(Optional.empty(), s.nextOpen(LocalDate.of(2026, 7, 2), 3));
+    }
+
+    @Test @DisplayName("SNAP-04: previous/next outside loaded range clamp to edges")
+    void outsideRange() {
+        TradingCalendarSnapshot s = twoWeeks();
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 10)), s.previousOpen(LocalDate.of(2026, 7, 13), 14));
+        assertEquals(Optional.empty(), s.previousOpen(LocalDate.of(2026, 7, 30), 14));
+        assertEquals(Optional.of(LocalDate.of(2026, 6, 29)), s.nextOpen(LocalDate.of(2026, 6, 28), 14));
+        assertEquals(Optional.empty(), s.nextOpen(LocalDate.of(2026, 6, 1), 14));
+    }
+
+    @Test @DisplayName("SNAP-05: openDays() / range() ordered and bounded")
+    void openDaysAndRange() {
+        TradingCalendarSnapshot s = twoWeeks();
+        assertEquals(List.of(LocalDate.of(2026, 7, 1), LocalDate.of(2026, 7, 2), LocalDate.of(2026, 7, 6)),
+                s.openDays(LocalDate.of(2026, 7, 1), LocalDate.of(2026, 7, 6)));
+        List<TradingCalendarResult> range = s.range(LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 30));
+        assertEquals(2, range.size());
+        assertEquals(LocalDate.of(2026, 6, 29), range.get(0).getDate());
+        assertEquals("alpaca", range.get(1).getSource());
+        assertTrue(s.openDays(LocalDate.of(2027, 1, 1), LocalDate.of(2027, 1, 31)).isEmpty());
+    }
+
+    @Test @DisplayName("SNAP-06: with() returns new snapshot, original unchanged")
+    void withIsCopyOnWrite() {
+        TradingCalendarSnapshot s = twoWeeks();
+        TradingCalendarSnapshot updated = s.with(List.of(
+                TradingCalendarResult.trading(MARKET, HOLIDAY, "tiger", "TRADING"),
+                TradingCalendarResult.trading(MARKET, LocalDate.of(2026, 7, 20), "tiger", "TRADING")));
+        assertEquals(Boolean.FALSE, s.isOpen(HOLIDAY));
+        assertEquals(Boolean.TRUE, updated.isOpen(HOLIDAY));
+        assertNull(updated.isOpen(LocalDate.of(2026, 7, 15)));
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 20)), updated.nextOpen(LocalDate.of(2026, 7, 10), 14));
+        assertEquals(15, updated.size());
+    }
+
+    @Test @DisplayName("SNAP-07: knownDaysInYear() counts only that year")
+    void knownDaysInYear() {
+        TradingCalendarSnapshot s = twoWeeks();
+        assertEquals(14, s.knownDaysInYear(2026));
+        assertEquals(0, s.knownDaysInYear(2025));
+        assertEquals(0, s.knownDaysInYear(2027));
+    }
+
+    @Test @DisplayName("SNAP-08: empty snapshot answers unknown / empty")
+    void emptySnapshot() {
+        TradingCalendarSnapshot s = TradingCalendarSnapshot.empty(MARKET);
+        assertNull(s.isOpen(HOLIDAY));
+        assertEquals(Optional.empty(), s.previousOpen(HOLIDAY, 14));
+        assertEquals(Optional.empty(), s.nextOpen(HOLIDAY, 14));
+        assertTrue(s.range(HOLIDAY, HOLIDAY.plusDays(10)).isEmpty());
+        assertEquals(0, s.knownDaysInYear(2026));
+    }
+}
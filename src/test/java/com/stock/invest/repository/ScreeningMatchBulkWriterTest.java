@@ -0,0 +1,149 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.ScreeningMatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ScreeningMatchBulkWriter：mock {@link JdbcTemplate}，校验可用性判定、分片多行 INSERT 与新增 / 已存在计数；不依赖真实 DB。
+ */
+class ScreeningMatchBulkWriterTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+    /** execute(ConnectionCallback) 交给以 productName / productVersion 为库名与版本的连接执行 */
+    @SuppressWarnings("unchecked")
+    private static JdbcTemplate jdbc(String productName, String productVersion) throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn(productName);
+        when(metaData.getDatabaseProductVersion()).thenReturn(productVersion);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(jdbc.execute(any(ConnectionCallback.class)))
+                .thenAnswer(inv -> inv.<ConnectionCallback<Boolean>>getArgument(0).doInConnection(connection));
+        return jdbc;
+    }
+
+    private static ScreeningMatch match(int i) {
+        ScreeningMatch m = new ScreeningMatch();
+        m.setBatchId("b1");
+        m.setDataSource("tiger");
+        m.setSymbol(String.format("S%04d", i));
+        m.setTradeDate(T);
+        m.setLastClose(new BigDecimal("1.2300"));
+        m.setPrice(new BigDecimal("1.2300"));
+        m.setRise(true);
+        m.setWindowDays(2 + i % 6);
+        m.setAlgorithm("increasing_volume");
+        return m;
+    }
+
+    @Test
+    @DisplayName("BW-01: 非 MySQL（H2 测试库）不可用，不查约束")
+    void nonMysql_unavailable() throws Exception {
+        JdbcTemplate jdbc = jdbc("H2", "2.3.232 (2024-08-11)");
+
+        assertFalse(new ScreeningMatchBulkWriter(jdbc).isAvailable());
+        verify(jdbc, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("BW-02: MySQL 约束缺失不可用且每次重查；约束补建后可用并缓存")
+    void mysql_availableOnceConstraintExists() throws Exception {
+        JdbcTemplate jdbc = jdbc("MySQL", "8.0.36");
+        AtomicLong constraints = new AtomicLong(0);
+        doAnswer(inv -> constraints.get())
+                .when(jdbc).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+        ScreeningMatchBulkWriter writer = new ScreeningMatchBulkWriter(jdbc);
+
+        assertFalse(writer.isAvailable());
+        assertFalse(writer.isAvailable());
+        constraints.set(1);
+        assertTrue(writer.isAvailable());
+        assertTrue(writer.isAvailable());
+        verify(jdbc, times(3)).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("BW-03: 每 500 行一条 INSERT ... ON DUPLICATE KEY UPDATE；新增 / 已存在由受影响行数推出")
+    void insertOrCarry_chunksAndCounts() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        List<String> statements = new ArrayList<>();
+        List<Object[]> params = new ArrayList<>();
+        // 三个分片分别有 10 / 0 / 200 行键已存在（MySQL 对更新计 2）
+        int[] existing = {10, 0, 200};
+        doAnswer(inv -> {
+            Object[] args = inv.getArguments();
+            Object[] values = args.length == 2 && args[1] instanceof Object[] arr ? arr
+                    : Arrays.copyOfRange(args, 1, args.length);
+            statements.add(inv.getArgument(0));
+            params.add(values);
+            return values.length / 10 + existing[statements.size() - 1];
+        }).when(jdbc).update(anyString(), any(Object[].class));
+        List<ScreeningMatch> rows = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            rows.add(match(i));
+        }
+
+        ScreeningMatchBulkWriter.Result result = new ScreeningMatchBulkWriter(jdbc).insertOrCarry(rows);
+
+        assertEquals(990, result.inserted());
+        assertEquals(210, result.duplicates());
+        assertEquals(3, statements.size());
+        assertEquals(List.of(5000, 5000, 2000), params.stream().map(p -> p.length).toList());
+        assertTrue(statements.get(0).startsWith("INSERT INTO screening_match "), statements.get(0));
+        assertTrue(statements.get(0).endsWith(" AS new ON DUPLICATE KEY UPDATE batch_id = new.batch_id, "
+                + "data_source = new.data_source, last_close = new.last_close, price = new.price, rise = new.rise"),
+                statements.get(0));
+        assertFalse(statements.get(0).contains("VALUES(batch_id)"));
+        Object[] first = params.get(0);
+        assertEquals("b1", first[0]);
+        assertEquals("S0000", first[6]);
+        assertEquals(Date.valueOf(T), first[7]);
+        assertEquals(2, first[8]);
+        assertEquals("increasing_volume", first[9]);
+    }
+
+    @Test
+    @DisplayName("BW-04: 行别名语法仅 MySQL 8.0.19+ 可用；MariaDB 与低版本 MySQL 不查约束")
+    void rowAlias_requiresMysql8019() throws Exception {
+        assertTrue(RowAliasSupport.supports("MySQL", "8.0.19"));
+        assertTrue(RowAliasSupport.supports("MySQL", "8.4.3-commercial"));
+        assertTrue(RowAliasSupport.supports("MySQL", "9.1.0"));
+        assertFalse(RowAliasSupport.supports("MySQL", "8.0.18"));
+        assertFalse(RowAliasSupport.supports("MySQL", "5.7.44-log"));
+        assertFalse(RowAliasSupport.supports("MySQL", "5.5.5-10.11.6-MariaDB"));
+        assertFalse(RowAliasSupport.supports("MariaDB", "11.4.2"));
+        assertFalse(RowAliasSupport.supports("MySQL", null));
+
+        JdbcTemplate jdbc = jdbc("MySQL", "5.7.44");
+        assertFalse(new ScreeningMatchBulkWriter(jdbc).isAvailable());
+        verify(jdbc, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+    }
+}
@@ -0,0 +1,69 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.StockSymbol;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * StockSymbolUpsertWriter：mock {@link JdbcTemplate}，校验分片多行 upsert 的语句与参数；不依赖真实 DB。
+ */
+class StockSymbolUpsertWriterTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+    @Test
+    @DisplayName("SU-01: 每 500 行一条 INSERT ... AS new ON DUPLICATE KEY UPDATE；name 先于 last_seen 赋值，首末出现日 LEAST / GREATEST")
+    void upsert_chunksWithRowAlias() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        List<String> statements = new ArrayList<>();
+        List<Object[]> params = new ArrayList<>();
+        doAnswer(inv -> {
+            Object[] args = inv.getArguments();
+            Object[] values = args.length == 2 && args[1] instanceof Object[] arr ? arr
+                    : Arrays.copyOfRange(args, 1, args.length);
+            statements.add(inv.getArgument(0));
+            params.add(values);
+            return values.length / 5;
+        }).when(jdbc).update(anyString(), any(Object[].class));
+        List<StockSymbol> rows = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            StockSymbol row = new StockSymbol();
+            row.setSymbol(String.format("S%04d", i));
+            row.setName(i == 0 ? "Alpha" : null);
+            row.setFirstSeen(T.minusDays(3));
+            row.setLastSeen(T);
+            rows.add(row);
+        }
+
+        int affected = new StockSymbolUpsertWriter(jdbc).upsert(rows);
+
+        assertEquals(501, affected);
+        assertEquals(2, statements.size());
+        assertEquals(List.of(2500, 5), params.stream().map(p -> p.length).toList());
+        String sql = statements.get(0);
+        assertTrue(sql.startsWith("INSERT INTO symbol (symbol, name, first_seen, last_seen, active, updated_at) VALUES "), sql);
+        assertTrue(sql.contains(" AS new ON DUPLICATE KEY UPDATE "), sql);
+        assertTrue(sql.contains("first_seen = LEAST(first_seen, new.first_seen)"), sql);
+        assertTrue(sql.contains("last_seen = GREATEST(last_seen, new.last_seen)"), sql);
+        assertTrue(sql.indexOf("name = IF(") < sql.indexOf("last_seen = GREATEST("), sql);
+        Object[] first = params.get(0);
+        assertEquals("S0000", first[0]);
+        assertEquals("Alpha", first[1]);
+        assertEquals(Date.valueOf(T.minusDays(3)), first[2]);
+        assertEquals(Date.valueOf(T), first[3]);
+    }
+}
@@ -0,0 +1,123 @@
+package com.stock.invest.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式查询 fetch size：仓库 {@code Stream<>} 方法的 hint 必须落到 JDBC Statement 上，
+ * 且生产连接串开启 useCursorFetch（否则 MySQL Connector/J 忽略 fetch size、整段缓冲结果集）。
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(StreamFetchSizeTest.FetchSizeRecorder.class)
+@DisplayName("流式查询 fetch size 透传到 JDBC 驱动")
+class StreamFetchSizeTest {
+
+    @Autowired private StockDailyBarRepository stockDailyBarRepository;
+    @Autowired private ScreeningMatchRepository screeningMatchRepository;
+    @Autowired private FetchSizeRecorder recorder;
+
+    @Test
+    @DisplayName("STREAM-01: 每个返回 Stream 的仓库方法执行时 Statement 收到 setFetchSize(STREAM_FETCH_SIZE)")
+    void streamQueries_setFetchSizeOnStatement() throws Exception {
+        int expected = Integer.parseInt(StockDailyBarRepository.STREAM_FETCH_SIZE);
+        List<String> checked = new ArrayList<>();
+        for (Object repository : List.of(stockDailyBarRepository, screeningMatchRepository)) {
+            Class<?> type = repository == stockDailyBarRepository
+                    ? StockDailyBarRepository.class : ScreeningMatchRepository.class;
+            for (Method m : type.getDeclaredMethods()) {
+                if (m.getReturnType() != Stream.class) {
+                    continue;
+                }
+                Object[] args = new Object[m.getParameterCount()];
+                for (int i = 0; i < args.length; i++) {
+                    assertEquals(LocalDate.class, m.getParameterTypes()[i], m.getName() + " parameter");
+                    args[i] = LocalDate.of(2026, 6, 1);
+                }
+                recorder.clear();
+                try (Stream<?> rows = (Stream<?>) m.invoke(repository, args)) {
+                    assertEquals(0L, rows.count(), m.getName());
+                }
+                assertEquals(List.of(expected), recorder.fetchSizes(), m.getName());
+                checked.add(m.getName());
+            }
+        }
+        assertTrue(checked.containsAll(List.of("streamScreeningBars", "streamColumnRowsSince",
+                "streamIndicatorRows", "streamRunLengthRows", "streamHitIds")), "checked " + checked);
+    }
+
+    @Test
+    @DisplayName("STREAM-02: 生产数据源 URL 开启 useCursorFetch=true")
+    void productionUrl_enablesCursorFetch() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        String url = yaml.getObject().getProperty("spring.datasource.url");
+        assertNotNull(url);
+        assertTrue(url.contains("useCursorFetch=true"), url);
+    }
+
+    /** 包装 DataSource → Connection → Statement，记录 setFetchSize 调用 */
+    static class FetchSizeRecorder implements BeanPostProcessor {
+
+        private final List<Integer> fetchSizes = new CopyOnWriteArrayList<>();
+
+        void clear() {
+            fetchSizes.clear();
+        }
+
+        List<Integer> fetchSizes() {
+            return List.copyOf(fetchSizes);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource ds ? wrap(DataSource.class, ds) : bean;
+        }
+
+        private <T> T wrap(Class<T> type, T target) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (target instanceof Statement && "setFetchSize".equals(method.getName())) {
+                    fetchSizes.add((Integer) args[0]);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Connection c && method.getReturnType() == Connection.class) {
+                    return wrap(Connection.class, c);
+                }
+                if (result instanceof PreparedStatement ps && method.getReturnType() == PreparedStatement.class) {
+                    return wrap(PreparedStatement.class, ps);
+                }
+                if (result instanceof Statement st && method.getReturnType() == Statement.class) {
+                    return wrap(Statement.class, st);
+                }
+                return result;
+            }));
+        }
+    }
+}
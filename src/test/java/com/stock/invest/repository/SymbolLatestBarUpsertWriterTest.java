@@ -0,0 +1,72 @@
+package com.stock.invest.repository;
+
+import com.stock.invest.entity.StockDailyBar;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * SymbolLatestBarUpsertWriter：mock {@link JdbcTemplate}，校验分片多行 upsert 的语句与参数；不依赖真实 DB。
+ */
+class SymbolLatestBarUpsertWriterTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+    @Test
+    @DisplayName("LU-01: 每 500 行一条 INSERT ... AS new ON DUPLICATE KEY UPDATE；各列按交易日比较覆盖，trade_date 最后以 GREATEST 赋值")
+    void upsert_chunksWithTradeDateGuard() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        List<String> statements = new ArrayList<>();
+        List<Object[]> params = new ArrayList<>();
+        doAnswer(inv -> {
+            Object[] args = inv.getArguments();
+            Object[] values = args.length == 2 && args[1] instanceof Object[] arr ? arr
+                    : Arrays.copyOfRange(args, 1, args.length);
+            statements.add(inv.getArgument(0));
+            params.add(values);
+            return values.length / 6;
+        }).when(jdbc).update(anyString(), any(Object[].class));
+        List<StockDailyBar> bars = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            StockDailyBar bar = new StockDailyBar();
+            bar.setSymbol(String.format("S%04d", i));
+            bar.setTradeDate(T);
+            bar.setClosePrice(new BigDecimal("1.25"));
+            bar.setVolume(1000L);
+            bar.setSource("alpaca");
+            bars.add(bar);
+        }
+
+        int affected = new SymbolLatestBarUpsertWriter(jdbc).upsert(bars);
+
+        assertEquals(501, affected);
+        assertEquals(2, statements.size());
+        assertEquals(List.of(3000, 6), params.stream().map(p -> p.length).toList());
+        String sql = statements.get(0);
+        assertTrue(sql.startsWith("INSERT INTO symbol_latest_bar (symbol, trade_date, close_price, volume, source, updated_at) VALUES "), sql);
+        assertTrue(sql.contains(" AS new ON DUPLICATE KEY UPDATE "), sql);
+        assertTrue(sql.contains("close_price = IF(new.trade_date >= trade_date, new.close_price, close_price)"), sql);
+        assertTrue(sql.contains("source = IF(new.trade_date >= trade_date, new.source, source)"), sql);
+        assertTrue(sql.endsWith("trade_date = GREATEST(trade_date, new.trade_date)"), sql);
+        Object[] first = params.get(0);
+        assertEquals("S0000", first[0]);
+        assertEquals(Date.valueOf(T), first[1]);
+        assertEquals(new BigDecimal("1.25"), first[2]);
+        assertEquals(1000L, first[3]);
+        assertEquals("alpaca", first[4]);
+    }
+}
@@ -0,0 +1,130 @@
+package com.stock.invest.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.stock.invest.config.ScreeningProperties;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.service.ScreeningService;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IncrementalScreeningScheduler — 增量筛选调度")
+class IncrementalScreeningSchedulerTest {
+
+    private static final LocalDate D1 = LocalDate.of(2026, 5, 15);
+    private static final LocalDate D2 = LocalDate.of(2026, 5, 18);
+
+    @Mock private ScreeningService screeningService;
+
+    private ScreeningProperties properties;
+    private IncrementalScreeningScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ScreeningProperties();
+        properties.getIncremental().setEnabled(true);
+        scheduler = new IncrementalScreeningScheduler(screeningService, properties);
+    }
+
+    private static BarsChangedEvent event(LocalDate date, String... symbols) {
+        Map<LocalDate, Set<String>> byDate = new TreeMap<>();
+        byDate.put(date, new TreeSet<>(List.of(symbols)));
+        return new BarsChangedEvent(byDate);
+    }
+
+    @Test
+    @DisplayName("INC-01: 未开启时不收集事件")
+    void disabled_ignoresEvents() {
+        properties.getIncremental().setEnabled(false);
+
+        scheduler.onBarsChanged(event(D2, "AAPL"));
+        scheduler.flush();
+
+        verify(screeningService, never()).rescreenSymbols(any(), any());
+    }
+
+    @Test
+    @DisplayName("INC-02: 间隔内多次变更按交易日合并，按日期升序各重评一次")
+    void coalescesPerTradeDate() {
+        when(screeningService.rescreenSymbols(any(), any())).thenReturn(Map.of());
+
+        scheduler.onBarsChanged(event(D2, "AAPL"));
+        scheduler.onBarsChanged(event(D2, "MSFT", "AAPL"));
+        scheduler.onBarsChanged(event(D1, "TSLA"));
+        scheduler.flush();
+        scheduler.flush();
+
+        var inOrder = org.mockito.Mockito.inOrder(screeningService);
+        inOrder.verify(screeningService).rescreenSymbols(D1, Set.of("TSLA"));
+        inOrder.verify(screeningService).rescreenSymbols(D2, Set.of("AAPL", "MSFT"));
+        verify(screeningService, times(2)).rescreenSymbols(any(), any());
+    }
+
+    @Test
+    @DisplayName("INC-03: 全量筛选运行中（返回 null）→ 该批及后续日期留待下次")
+    void deferredWhileFullRunInProgress() {
+        when(screeningService.rescreenSymbols(eq(D1), any())).thenReturn(null).thenReturn(Map.of());
+        when(screeningService.rescreenSymbols(eq(D2), any())).thenReturn(Map.of());
+
+        scheduler.onBarsChanged(event(D1, "TSLA"));
+        scheduler.onBarsChanged(event(D2, "AAPL"));
+        scheduler.flush();
+        verify(screeningService, never()).rescreenSymbols(eq(D2), any());
+
+        scheduler.flush();
+        verify(screeningService, times(2)).rescreenSymbols(D1, Set.of("TSLA"));
+        verify(screeningService).rescreenSymbols(D2, Set.of("AAPL"));
+    }
+
+    @Test
+    @DisplayName("INC-04: 重评异常只记日志，不重新入队")
+    void failureIsDropped() {
+        when(screeningService.rescreenSymbols(any(), any())).thenThrow(new IllegalStateException("db down"));
+
+        scheduler.onBarsChanged(event(D2, "AAPL"));
+        scheduler.flush();
+        scheduler.flush();
+
+        verify(screeningService, times(1)).rescreenSymbols(any(), any());
+    }
+
+    @Test
+    @DisplayName("INC-05: 大批变更按上限拆分为多次重评")
+    void largeBatchIsSplit() {
+        when(screeningService.rescreenSymbols(any(), any())).thenReturn(Map.of());
+        int total = IncrementalScreeningScheduler.MAX_SYMBOLS_PER_CALL + 5;
+        String[] symbols = new String[total];
+        for (int i = 0; i < total; i++) {
+            symbols[i] = String.format("S%05d", i);
+        }
+
+        scheduler.onBarsChanged(event(D2, symbols));
+        scheduler.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Set<String>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(screeningService, times(2)).rescreenSymbols(eq(D2), captor.capture());
+        assertEquals(IncrementalScreeningScheduler.MAX_SYMBOLS_PER_CALL, captor.getAllValues().get(0).size());
+        assertEquals(5, captor.getAllValues().get(1).size());
+    }
+}
@@ -12,12 +12,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
- * UT-45 ~ UT-51: AlpacaCalendarService 单元测试
+ * UT-45 ~ UT-52: AlpacaCalendarService 单元测试
  */
 @ExtendWith(MockitoExtension.class)
 class AlpacaCalendarServiceTest {
@@ -98,4 +100,27 @@ class AlpacaCalendarServiceTest {
     void sourceName() {
         assertEquals("alpaca", service.getSourceName());
     }
+
+    @Test @DisplayName("UT-52: 区间查询一次请求展开为逐日结果（EARLY_CLOSE / WEEKEND / HOLIDAY）")
+    void rangeQuery_singleRequest() throws IOException {
+        LocalDate start = LocalDate.of(2026, 11, 25);
+        LocalDate end = LocalDate.of(2026, 11, 29);
+        when(alpacaClient.hasCredentials()).thenReturn(true);
+        when(alpacaClient.getCalendar(start, end)).thenReturn(Map.of(
+                LocalDate.of(2026, 11, 25), "16:00",
+                LocalDate.of(2026, 11, 27), "13:00"));
+
+        List<TradingCalendarResult> days = service.getTradingCalendar("US", start, end);
+
+        assertEquals(5, days.size());
+        assertEquals("TRADING", days.get(0).getType());
+        assertFalse(days.get(1).isTradingDay());
+        assertEquals("HOLIDAY", days.get(1).getType());
+        assertTrue(days.get(2).isTradingDay());
+        assertEquals("EARLY_CLOSE", days.get(2).getType());
+        assertEquals("WEEKEND", days.get(3).getType());
+        verify(alpacaClient, times(1)).getCalendar(start, end);
+        verify(alpacaClient, never()).isTradingDay(any());
+        assertNull(service.getTradingCalendar("HK", start, end));
+    }
 }
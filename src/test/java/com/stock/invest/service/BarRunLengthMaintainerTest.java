@@ -0,0 +1,219 @@
+package com.stock.invest.service;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.BarsWrittenEvent;
+import com.stock.invest.model.TradingCalendarResult;
+import com.stock.invest.model.TradingCalendarSnapshot;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.StockDailyBarRunLengthWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * BarRunLengthMaintainer：按交易日历递推连续开盘日计数、写事务内只回写有变化的行、全量重算
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BarRunLengthMaintainer — 连续开盘日计数维护")
+class BarRunLengthMaintainerTest {
+
+    /** 2026-07-03 (Fri) 独立日观察日休市 */
+    private static final LocalDate HOLIDAY = LocalDate.of(2026, 7, 3);
+    private static final LocalDate JUN29 = LocalDate.of(2026, 6, 29);
+    private static final LocalDate JUN30 = LocalDate.of(2026, 6, 30);
+    private static final LocalDate JUL1 = LocalDate.of(2026, 7, 1);
+    private static final LocalDate JUL2 = LocalDate.of(2026, 7, 2);
+    private static final LocalDate JUL4 = LocalDate.of(2026, 7, 4);
+    private static final LocalDate JUL6 = LocalDate.of(2026, 7, 6);
+
+    @Mock private StockDailyBarRepository repository;
+    @Mock private StockDailyBarRunLengthWriter writer;
+    @Mock private TradingCalendarDbService calendarService;
+    @Mock private DailyBarColumnStore store;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private TradingCalendarSnapshot calendar;
+    private BarRunLengthMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        calendar = twoWeeks();
+        maintainer = new BarRunLengthMaintainer(repository, writer, calendarService, store, transactionManager);
+    }
+
+    /** 2026-06-29 ~ 2026-07-12 两周：周末 + 07-03 休市 */
+    private static TradingCalendarSnapshot twoWeeks() {
+        List<TradingCalendarResult> days = new ArrayList<>();
+        for (LocalDate d = JUN29; !d.isAfter(LocalDate.of(2026, 7, 12)); d = d.plusDays(1)) {
+            boolean weekend = d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY;
+            days.add(weekend || d.equals(HOLIDAY)
+                    ? TradingCalendarResult.nonTrading("US", d, "alpaca", weekend ? "WEEKEND" : "HOLIDAY")
+                    : TradingCalendarResult.trading("US", d, "alpaca", "TRADING"));
+        }
+        return TradingCalendarSnapshot.of("US", days);
+    }
+
+    private static Object[] row(long id, String symbol, LocalDate date, Integer run) {
+        return new Object[]{id, symbol, date, run};
+    }
+
+    private static StockDailyBar bar(String symbol, LocalDate date) {
+        StockDailyBar bar = new StockDailyBar();
+        bar.setSymbol(symbol);
+        bar.setTradeDate(date);
+        return bar;
+    }
+
+    private static BarsWrittenEvent written(StockDailyBar... bars) {
+        return new BarsWrittenEvent(List.of(bars));
+    }
+
+    private static int[] days(LocalDate... dates) {
+        int[] out = new int[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            out[i] = (int) dates[i].toEpochDay();
+        }
+        return out;
+    }
+
+    @Test
+    @DisplayName("RL-01: 递推 — 非开盘日 / 未入库为 0；上一根为前一个开盘日时 +1（跨周末与休市），否则为 1")
+    void nextRun() {
+        assertEquals(1, BarRunLengthMaintainer.nextRun(calendar, null, 0, JUN29));
+        assertEquals(2, BarRunLengthMaintainer.nextRun(calendar, JUN29, 1, JUN30));
+        assertEquals(5, BarRunLengthMaintainer.nextRun(calendar, JUL2, 4, JUL6));
+        assertEquals(1, BarRunLengthMaintainer.nextRun(calendar, JUL1, 3, JUL6));
+        assertEquals(0, BarRunLengthMaintainer.nextRun(calendar, JUL2, 4, JUL4));
+        assertEquals(1, BarRunLengthMaintainer.nextRun(calendar, JUL4, 0, JUL6));
+        assertEquals(0, BarRunLengthMaintainer.nextRun(calendar, null, 0, LocalDate.of(2026, 7, 13)));
+    }
+
+    @Test
+    @DisplayName("RL-02: 写入时自最早变更日起重算，只回写有变化的行、填入写入快照并同步列式缓存；补上缺口后后续计数接续")
+    void onBarsWritten_recomputesFromEarliestChange() {
+        when(calendarService.getSnapshot("US")).thenReturn(calendar);
+        when(repository.findRunLengthRows(eq(List.of("AAA")), any()))
+                .thenReturn(List.of(
+                        row(1, "AAA", JUN29, 1), row(2, "AAA", JUN30, 2),
+                        row(3, "AAA", JUL2, null), row(4, "AAA", JUL6, 3)))
+                .thenReturn(List.of(
+                        row(1, "AAA", JUN29, 1), row(2, "AAA", JUN30, 2), row(5, "AAA", JUL1, null),
+                        row(3, "AAA", JUL2, 1), row(4, "AAA", JUL6, 2)));
+        when(writer.update(anyList(), anyList())).thenReturn(2, 3);
+
+        // 新写入 07-02（07-01 缺失）：07-02 计 1，07-06 由 3 改为 2
+        StockDailyBar jul2 = bar("AAA", JUL2);
+        maintainer.onBarsWritten(written(jul2));
+        verify(repository).findRunLengthRows(List.of("AAA"), JUL2.minusDays(BarRunLengthMaintainer.LOOKBACK_DAYS));
+        verify(writer).update(List.of(3L, 4L), List.of(1, 2));
+        verify(store).applyRunLengths("AAA", days(JUN29, JUN30, JUL2, JUL6), new int[]{1, 2, 1, 2});
+        assertEquals(1, jul2.getRunLength());
+
+        // 补缺 07-01：其后连续段整体接续
+        StockDailyBar jul1 = bar("AAA", JUL1);
+        StockDailyBar jul6 = bar("AAA", JUL6);
+        maintainer.onBarsWritten(written(jul6, jul1));
+        verify(repository).findRunLengthRows(List.of("AAA"), JUL1.minusDays(BarRunLengthMaintainer.LOOKBACK_DAYS));
+        verify(writer).update(List.of(5L, 3L, 4L), List.of(3, 4, 5));
+        assertEquals(3, jul1.getRunLength());
+        assertEquals(5, jul6.getRunLength());
+        assertEquals(0, maintainer.stats().get("pendingSymbols"));
+    }
+
+    @Test
+    @DisplayName("RL-05: 回看窗口内首根尚未计算时不从 1 重新计数 —— 加宽回看直至全部历史再递推；其余 symbol 首轮照常回写")
+    void onBarsWritten_widensLookbackWhenSeedIsUnknown() {
+        when(calendarService.getSnapshot("US")).thenReturn(calendar);
+        List<Object[]> unseeded = List.of(
+                row(1, "AAA", JUN29, null), row(2, "AAA", JUN30, null), row(3, "AAA", JUL1, null),
+                row(4, "AAA", JUL2, null), row(5, "AAA", JUL6, null));
+        List<Object[]> firstPass = new ArrayList<>(unseeded);
+        firstPass.add(row(10, "BBB", JUL2, 4));
+        firstPass.add(row(11, "BBB", JUL6, null));
+        when(repository.findRunLengthRows(eq(List.of("AAA", "BBB")), any())).thenReturn(firstPass);
+        when(repository.findRunLengthRows(eq(List.of("AAA")), any())).thenReturn(unseeded);
+        when(repository.findAllRunLengthRows(List.of("AAA"))).thenReturn(unseeded);
+        when(writer.update(anyList(), anyList())).thenReturn(1, 5);
+
+        maintainer.onBarsWritten(written(bar("AAA", JUL6), bar("BBB", JUL6)));
+
+        verify(repository).findRunLengthRows(List.of("AAA", "BBB"), JUL6.minusDays(BarRunLengthMaintainer.LOOKBACK_DAYS));
+        verify(repository).findRunLengthRows(List.of("AAA"), JUL6.minusDays(
+                (long) BarRunLengthMaintainer.LOOKBACK_DAYS * BarRunLengthMaintainer.LOOKBACK_WIDEN_FACTOR));
+        verify(writer).update(List.of(11L), List.of(5));
+        verify(writer).update(List.of(1L, 2L, 3L, 4L, 5L), List.of(1, 2, 3, 4, 5));
+        verify(writer, times(2)).update(anyList(), anyList());
+        verify(store).applyRunLengths("BBB", days(JUL2, JUL6), new int[]{4, 5});
+        verify(store).applyRunLengths("AAA", days(JUN29, JUN30, JUL1, JUL2, JUL6), new int[]{1, 2, 3, 4, 5});
+    }
+
+    @Test
+    @DisplayName("RL-03: 回写失败直接抛出（日 K 写事务随之回滚），列式缓存不更新")
+    void onBarsWritten_failurePropagates() {
+        when(calendarService.getSnapshot("US")).thenReturn(calendar);
+        when(repository.findRunLengthRows(anyList(), any())).thenReturn(List.<Object[]>of(row(1, "AAA", JUL2, null)));
+        when(writer.update(anyList(), anyList())).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> maintainer.onBarsWritten(written(bar("AAA", JUL2))));
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    @DisplayName("RL-06: 写事务内回写后列式缓存等提交后才更新，回滚则不更新")
+    void onBarsWritten_appliesToStoreAfterCommit() {
+        when(calendarService.getSnapshot("US")).thenReturn(calendar);
+        when(repository.findRunLengthRows(anyList(), any())).thenReturn(List.<Object[]>of(row(1, "AAA", JUL2, null)));
+        when(writer.update(anyList(), anyList())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            maintainer.onBarsWritten(written(bar("AAA", JUL2)));
+            verify(writer).update(List.of(1L), List.of(1));
+            verifyNoInteractions(store);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(store).applyRunLengths("AAA", days(JUL2), new int[]{1});
+    }
+
+    @Test
+    @DisplayName("RL-04: 全量重算一次流式读取，逐 symbol 递推，未变化的行不回写")
+    void rebuild_streamsAllRows() {
+        when(calendarService.getSnapshot("US")).thenReturn(calendar);
+        when(repository.streamRunLengthRows()).thenReturn(Stream.of(
+                row(1, "AAA", JUL2, 1), row(2, "AAA", JUL4, null), row(3, "AAA", JUL6, 2),
+                row(4, "BBB", JUN30, 1), row(5, "BBB", JUL1, 2)));
+        when(writer.update(anyList(), anyList())).thenReturn(2);
+
+        Map<String, Object> summary = maintainer.rebuild();
+
+        verify(writer).update(List.of(2L, 3L), List.of(0, 1));
+        assertEquals(2L, summary.get("symbols"));
+        assertEquals(5L, summary.get("rows"));
+        assertEquals(2, summary.get("updated"));
+        assertFalse(maintainer.isRebuilding());
+        assertSame(summary, maintainer.stats().get("lastRebuild"));
+        verify(store).applyRunLengths("BBB", days(JUN30, JUL1), new int[]{1, 2});
+    }
+}
@@ -111,7 +111,7 @@ class BigDecimalSerializationTest {
                 new BigDecimal("150.5000"), new BigDecimal("155.0000"),
                 new BigDecimal("148.0000"), new BigDecimal("152.5000"),
                 new BigDecimal("1.6700"), null, null,
-                1_000_000L, "yfinance");
+                1_000_000L, "yfinance", 5);
 
         String json = mapper.writeValueAsString(dto);
         assertTrue(json.contains("\"id\":1"), "wire must carry id, got: " + json);
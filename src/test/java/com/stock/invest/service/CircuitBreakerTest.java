@@ -7,6 +7,8 @@ import com.stock.invest.model.KLineData;
 import com.stock.invest.model.KLineIterator;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.impl.DataGapFillerServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -42,6 +44,8 @@ class CircuitBreakerTest {
 
     @Mock private com.stock.invest.service.FieldCapabilityService fieldCapabilityService;
     @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     @Mock private DataFillTaskRepository dataFillTaskRepository;
     @Mock private DataSourceStrategy tigerSource;
     @Mock private DataSourceStrategy yfinanceSource;
@@ -86,7 +90,7 @@ class CircuitBreakerTest {
                 stockDailyBarRepository, dataFillTaskRepository,
                 List.of(tigerSource, yfinanceSource, twelvedataSource, tiingoSource),
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
-                stockDataSourcePriorityService, symbolBlacklistService, transactionManager, fieldCapabilityService);
+                stockDataSourcePriorityService, symbolBlacklistService, transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
     }
 
     private LocalDate nyToday() {
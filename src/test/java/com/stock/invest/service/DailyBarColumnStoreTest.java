@@ -0,0 +1,144 @@
+package com.stock.invest.service;
+
+import com.stock.invest.config.BarStoreProperties;
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.DailyBarColumns;
+import com.stock.invest.repository.StockDailyBarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * DailyBarColumnStore：流式加载 + 写入合并 + 内存上限截断
+ */
+@ExtendWith(MockitoExtension.class)
+class DailyBarColumnStoreTest {
+
+    @Mock private StockDailyBarRepository repository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final BarStoreProperties properties = new BarStoreProperties();
+    private DailyBarColumnStore store;
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneId.of("America/New_York"));
+
+    private static Object[] row(String symbol, LocalDate date, String close, long volume) {
+        return new Object[]{symbol, date, new BigDecimal("1.00"), null, null, new BigDecimal(close), volume, "tiger", null};
+    }
+
+    private static StockDailyBar bar(String symbol, LocalDate date, String close, long volume) {
+        StockDailyBar b = new StockDailyBar();
+        b.setSymbol(symbol);
+        b.setTradeDate(date);
+        b.setOpenPrice(new BigDecimal("1.00"));
+        b.setClosePrice(new BigDecimal(close));
+        b.setVolume(volume);
+        b.setSource("yfinance");
+        return b;
+    }
+
+    @BeforeEach
+    void setUp() {
+        store = new DailyBarColumnStore(repository, properties, transactionManager);
+    }
+
+    private void stubRows() {
+        when(repository.streamColumnRowsSince(any())).thenReturn(Stream.of(
+                row("AAA", TODAY.minusDays(2), "1.10", 100L),
+                row("AAA", TODAY.minusDays(1), "1.20", 200L),
+                row("BBB", TODAY.minusDays(1), "5.00", 300L)));
+    }
+
+    @Test
+    @DisplayName("加载：按 symbol 分组为列式数据，覆盖加载起点之后的区间")
+    void load_buildsColumnsAndCovers() {
+        stubRows();
+        assertFalse(store.covers(TODAY.minusDays(10)), "not ready before load");
+
+        store.load();
+
+        assertEquals(List.of("AAA", "BBB"), store.symbols());
+        DailyBarColumns aaa = store.get("AAA");
+        assertEquals(2, aaa.size());
+        assertEquals(12000L, aaa.close(1));
+        assertTrue(store.covers(TODAY.minusDays(10)));
+        assertFalse(store.covers(TODAY.minusYears(2)));
+        Map<String, Object> stats = store.stats();
+        assertEquals(2, stats.get("symbols"));
+        assertEquals(3L, stats.get("bars"));
+        assertTrue((Long) stats.get("memoryBytes") > 0);
+    }
+
+    @Test
+    @DisplayName("写入合并：同日覆盖、新日追加、新 symbol 收录")
+    void apply_mergesCommittedWrites() {
+        stubRows();
+        store.load();
+
+        store.apply(List.of(
+                bar("AAA", TODAY.minusDays(1), "1.25", 250L),
+                bar("AAA", TODAY, "1.30", 300L),
+                bar("CCC", TODAY, "9.00", 900L)));
+
+        DailyBarColumns aaa = store.get("AAA");
+        assertEquals(3, aaa.size());
+        assertEquals(250L, aaa.volume(1));
+        assertEquals("yfinance", aaa.source(1));
+        assertEquals(TODAY, aaa.tradeDate(2));
+        assertNotNull(store.get("CCC"));
+    }
+
+    @Test
+    @DisplayName("保留根数：每个 symbol 只保留最近 tradingDays 根")
+    void apply_trimsToTradingDays() {
+        properties.setTradingDays(2);
+        store.apply(List.of(
+                bar("AAA", TODAY.minusDays(3), "1", 1L),
+                bar("AAA", TODAY.minusDays(2), "2", 2L),
+                bar("AAA", TODAY.minusDays(1), "3", 3L)));
+        DailyBarColumns aaa = store.get("AAA");
+        assertEquals(2, aaa.size());
+        assertEquals(TODAY.minusDays(2), aaa.tradeDate(0));
+    }
+
+    @Test
+    @DisplayName("内存上限：超限停止收录并标记 truncated，covers=false 回退读库")
+    void memoryLimit_truncatesAndDisablesCoverage() {
+        properties.setMaxMemoryMb(0);
+        stubRows();
+
+        store.load();
+
+        assertTrue(store.symbols().isEmpty());
+        assertEquals(Boolean.TRUE, store.stats().get("truncated"));
+        assertFalse(store.covers(TODAY.minusDays(10)));
+        store.apply(List.of(bar("CCC", TODAY, "9.00", 900L)));
+        assertNull(store.get("CCC"));
+    }
+
+    @Test
+    @DisplayName("关闭：写入忽略，covers 始终为 false")
+    void disabled_ignoresWrites() {
+        properties.setEnabled(false);
+        store.onApplicationReady();
+        store.apply(List.of(bar("AAA", TODAY, "1", 1L)));
+        assertNull(store.get("AAA"));
+        assertFalse(store.covers(TODAY));
+        verifyNoInteractions(repository);
+    }
+}
@@ -6,6 +6,8 @@ import com.stock.invest.model.KLineData;
 import com.stock.invest.model.KLineIterator;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.impl.DataGapFillerServiceImpl;
 import com.stock.invest.service.impl.TigerOpenStockServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,6 +44,8 @@ class DataGapFillerAfterHoursTest {
 
     @Mock private com.stock.invest.service.FieldCapabilityService fieldCapabilityService;
     @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     @Mock private DataFillTaskRepository dataFillTaskRepository;
     @Mock private TigerOpenStockServiceImpl tigerOpenSource;
     @Mock private GapFillProperties gapFillProperties;
@@ -79,7 +83,7 @@ class DataGapFillerAfterHoursTest {
                 stockDailyBarRepository, dataFillTaskRepository, dataSources,
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
                 stockDataSourcePriorityService, symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
         lenient().when(stockDataSourcePriorityService.getPriorityList(anyString()))
                 .thenReturn(java.util.List.of("tigeropen", "yfinance"));
     }
@@ -149,7 +153,7 @@ class DataGapFillerAfterHoursTest {
                 stockDailyBarRepository, dataFillTaskRepository, dataSources,
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
                 stockDataSourcePriorityService, symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
 
         LocalDate today = nyToday();
         LocalDate stopDate = today.minusDays(5);
@@ -3,6 +3,8 @@ package com.stock.invest.service;
 import com.stock.invest.config.GapFillProperties;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.impl.DataGapFillerServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -33,6 +35,8 @@ class DataGapFillerConcurrencyTest {
 
     @Mock private com.stock.invest.service.FieldCapabilityService fieldCapabilityService;
     @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     @Mock private DataFillTaskRepository dataFillTaskRepository;
     @Mock private DataSourceStrategy tigerSource;
     @Mock private GapFillProperties gapFillProperties;
@@ -56,7 +60,7 @@ class DataGapFillerConcurrencyTest {
         service = new DataGapFillerServiceImpl(
                 stockDailyBarRepository, dataFillTaskRepository, List.of(tigerSource),
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
-                stockDataSourcePriorityService, symbolBlacklistService, transactionManager, fieldCapabilityService);
+                stockDataSourcePriorityService, symbolBlacklistService, transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
     }
 
     /** 让 findAllSymbols 在调用时阻塞，用于把线程 A 卡在 fillGaps 内部。 */
@@ -132,7 +136,13 @@ class DataGapFillerConcurrencyTest {
                         stockDailyBarRepository,
                         mock(com.stock.invest.repository.ScreeningMatchRepository.class),
                         mock(PatternEvaluateService.class),
-                        mock(TradingCalendarDbService.class));
+                        mock(TradingCalendarDbService.class),
+                        new com.stock.invest.config.ScreeningProperties(),
+                        mock(DailyBarColumnStore.class),
+                        mock(com.stock.invest.repository.ScreeningMatchBulkWriter.class),
+                        mock(SymbolDictionary.class),
+                        mock(ScreeningPayloadStore.class), mock(ScreeningBatchStore.class),
+                        mock(ScreeningHitIndex.class), symbolLatestBarRepository);
 
         java.time.LocalDate tradeDate = java.time.LocalDate.of(2026, 5, 18);
         CountDownLatch entered = new CountDownLatch(1);
@@ -140,9 +150,9 @@ class DataGapFillerConcurrencyTest {
         doAnswer(inv -> {
             entered.countDown();
             release.await(5, TimeUnit.SECONDS);
-            return List.of();
+            return null;
         }).when(stockDailyBarRepository)
-                .findByTradeDateBetweenOrderByTradeDateDesc(any(java.time.LocalDate.class), any(java.time.LocalDate.class));
+                .findMaxTradeDateBetween(any(java.time.LocalDate.class), any(java.time.LocalDate.class));
 
         Thread a = new Thread(() -> screeningService.runScreening(tradeDate), "screenA");
         a.start();
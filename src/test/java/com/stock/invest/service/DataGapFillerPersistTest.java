@@ -7,6 +7,8 @@ import com.stock.invest.model.KLineData;
 import com.stock.invest.model.KLineIterator;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.impl.DataGapFillerServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -43,6 +45,8 @@ class DataGapFillerPersistTest {
 
     @Mock private com.stock.invest.service.FieldCapabilityService fieldCapabilityService;
     @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     @Mock private DataFillTaskRepository dataFillTaskRepository;
     @Mock private DataSourceStrategy tigerDataSource;
     @Mock private DataSourceStrategy yfinanceDataSource;
@@ -80,7 +84,7 @@ class DataGapFillerPersistTest {
                 stockDailyBarRepository, dataFillTaskRepository, dataSources,
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
                 stockDataSourcePriorityService, symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
     }
 
     private LocalDate nyToday() {
@@ -29,6 +29,8 @@ import com.stock.invest.config.GapFillProperties;
 import com.stock.invest.entity.DataFillTask;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.impl.DataGapFillerServiceImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +42,10 @@ class DataGapFillerServiceTest {
     @Mock
     private StockDailyBarRepository stockDailyBarRepository;
     @Mock
+    private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock
+    private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
+    @Mock
     private DataFillTaskRepository dataFillTaskRepository;
     @Mock
     private DataSourceStrategy tigerDataSource;
@@ -96,7 +102,7 @@ class DataGapFillerServiceTest {
                 tradingCalendarDbService,
                 stockDataSourcePriorityService,
                 symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
 
         // Priority service returns fallback chain order
         lenient().when(stockDataSourcePriorityService.getPriorityList(anyString()))
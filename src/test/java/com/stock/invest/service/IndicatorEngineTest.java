@@ -0,0 +1,252 @@
+package com.stock.invest.service;
+
+import com.stock.invest.config.IndicatorProperties;
+import com.stock.invest.entity.StockDailyIndicator;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.model.IndicatorState;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.StockDailyIndicatorRepository;
+import com.stock.invest.repository.StockDailyIndicatorWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * IndicatorEngine：事件合并、追加新交易日走内存状态、改写历史日恢复后重算、失败丢弃状态与全量重建、
+ * 重启后由表中状态列恢复的增量结果与全量重建一致
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndicatorEngine — 技术指标增量维护")
+class IndicatorEngineTest {
+
+    private static final LocalDate D1 = LocalDate.of(2026, 5, 14);
+    private static final LocalDate D2 = LocalDate.of(2026, 5, 15);
+    private static final LocalDate D3 = LocalDate.of(2026, 5, 18);
+    private static final LocalDate D4 = LocalDate.of(2026, 5, 19);
+
+    @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private StockDailyIndicatorRepository indicatorRepository;
+    @Mock private StockDailyIndicatorWriter indicatorWriter;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private IndicatorProperties properties;
+    private IndicatorEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IndicatorProperties();
+        engine = new IndicatorEngine(stockDailyBarRepository, indicatorRepository, indicatorWriter,
+                properties, transactionManager);
+    }
+
+    private static Object[] bar(LocalDate date, String close) {
+        return new Object[]{date, null, null, new BigDecimal(close), 1000L};
+    }
+
+    private static BarsChangedEvent changed(LocalDate date, String... symbols) {
+        return new BarsChangedEvent(Map.of(date, Set.of(symbols)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<IndicatorState.Values> written(String symbol, LocalDate after) {
+        ArgumentCaptor<List<IndicatorState.Values>> captor = ArgumentCaptor.forClass(List.class);
+        verify(indicatorWriter).replaceAfter(eq(symbol), after == null ? isNull() : eq(after), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    @DisplayName("IE-01: 无状态且表中无行 → 从头回放整段替换；再追加新交易日只读新 bar，不再恢复")
+    void firstChangeReplaysThenAppends() {
+        when(indicatorRepository.findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc("AAA", D3))
+                .thenReturn(Optional.empty());
+        when(stockDailyBarRepository.findIndicatorRowsAfter("AAA", null))
+                .thenReturn(List.of(bar(D1, "10"), bar(D2, "11"), bar(D3, "12")));
+        when(stockDailyBarRepository.findIndicatorRowsAfter("AAA", D3))
+                .thenReturn(List.<Object[]>of(bar(D4, "13")));
+
+        engine.onBarsChanged(changed(D3, "AAA"));
+        engine.flush();
+        List<IndicatorState.Values> replayed = written("AAA", null);
+        assertEquals(List.of(D1, D2, D3), replayed.stream().map(IndicatorState.Values::tradeDate).toList());
+
+        engine.onBarsChanged(changed(D4, "AAA"));
+        engine.flush();
+        List<IndicatorState.Values> appended = written("AAA", D3);
+        assertEquals(1, appended.size());
+        assertEquals(4, appended.get(0).barCount());
+        verify(indicatorRepository, times(1)).findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc(any(), any());
+    }
+
+    @Test
+    @DisplayName("IE-02: 同一 symbol 多个交易日的变更合并为最早日；改写历史日且不可恢复时从头重算")
+    void historicalChangeRecomputes() {
+        when(indicatorRepository.findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc("AAA", D2))
+                .thenReturn(Optional.empty());
+        when(stockDailyBarRepository.findIndicatorRowsAfter("AAA", null))
+                .thenReturn(List.of(bar(D1, "10"), bar(D2, "11"), bar(D3, "12")));
+
+        engine.onBarsChanged(new BarsChangedEvent(Map.of(D3, Set.of("AAA"), D2, Set.of("AAA"))));
+        engine.flush();
+
+        assertEquals(3, written("AAA", null).size());
+        assertEquals(0, engine.stats().get("pendingSymbols"));
+        assertEquals(1, engine.stats().get("trackedSymbols"));
+    }
+
+    @Test
+    @DisplayName("IE-03: 写入失败丢弃内存状态，下次变更从表恢复")
+    void failureDropsState() {
+        when(indicatorRepository.findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc(eq("AAA"), any()))
+                .thenReturn(Optional.empty());
+        when(stockDailyBarRepository.findIndicatorRowsAfter("AAA", null))
+                .thenReturn(List.<Object[]>of(bar(D1, "10")));
+        when(indicatorWriter.replaceAfter(eq("AAA"), isNull(), anyList()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(0);
+
+        engine.onBarsChanged(changed(D1, "AAA"));
+        assertDoesNotThrow(() -> engine.flush());
+        assertEquals(0, engine.stats().get("trackedSymbols"));
+
+        engine.onBarsChanged(changed(D1, "AAA"));
+        engine.flush();
+        assertEquals(1, engine.stats().get("trackedSymbols"));
+        verify(indicatorRepository, times(2)).findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc(any(), any());
+    }
+
+    @Test
+    @DisplayName("IE-04: 全量重建一次流式读取，逐 symbol 整段替换；未启用时忽略变更事件")
+    void rebuildStreamsAllSymbols() {
+        when(stockDailyBarRepository.streamIndicatorRows()).thenReturn(Stream.of(
+                new Object[]{"AAA", D1, null, null, new BigDecimal("10"), 100L},
+                new Object[]{"AAA", D2, null, null, new BigDecimal("11"), 100L},
+                new Object[]{"BBB", D1, null, null, new BigDecimal("5"), 100L}));
+
+        Map<String, Object> summary = engine.rebuild();
+
+        assertEquals(2L, summary.get("symbols"));
+        assertEquals(3L, summary.get("rows"));
+        assertEquals(0L, summary.get("failed"));
+        assertEquals(2, written("AAA", null).size());
+        assertEquals(1, written("BBB", null).size());
+        assertFalse(engine.isRebuilding());
+        assertSame(summary, engine.stats().get("lastRebuild"));
+
+        properties.setEnabled(false);
+        engine.onBarsChanged(changed(D3, "AAA"));
+        assertEquals(0, engine.stats().get("pendingSymbols"));
+    }
+
+    @Test
+    @DisplayName("IE-05: 重启后由落库行（状态列）+ 最近 50 根恢复，增量结果与全量重建逐位一致；旧行无状态列时从头回放")
+    void restoredIncrementalEqualsRebuild() {
+        Random random = new Random(7);
+        List<Object[]> bars = new ArrayList<>();
+        double close = 30;
+        for (int i = 0; i < 100; i++) {
+            close = Math.max(1, close + random.nextGaussian());
+            bars.add(new Object[]{D1.plusDays(i), price(close + random.nextDouble()),
+                    price(Math.max(0.5, close - random.nextDouble())), price(close),
+                    (long) (50_000 + random.nextInt(500_000))});
+        }
+        List<Object[]> streamed = new ArrayList<>();
+        for (Object[] b : bars) {
+            streamed.add(new Object[]{"AAA", b[0], b[1], b[2], b[3], b[4]});
+        }
+        when(stockDailyBarRepository.streamIndicatorRows()).thenReturn(streamed.stream());
+        engine.rebuild();
+        List<IndicatorState.Values> rebuilt = written("AAA", null);
+        assertEquals(100, rebuilt.size());
+
+        // 模拟重启：新引擎无内存状态，第 80 根起的 bar 被改写（值不变）后重算
+        IndicatorEngine restarted = new IndicatorEngine(stockDailyBarRepository, indicatorRepository, indicatorWriter,
+                properties, transactionManager);
+        LocalDate last = (LocalDate) bars.get(79)[0];
+        LocalDate from = (LocalDate) bars.get(80)[0];
+        when(indicatorRepository.findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc("AAA", from))
+                .thenReturn(Optional.of(persisted("AAA", rebuilt.get(79))));
+        List<Object[]> recent = new ArrayList<>(bars.subList(30, 80));
+        Collections.reverse(recent);
+        when(stockDailyBarRepository.findIndicatorRowsUpTo("AAA", last, PageRequest.of(0, IndicatorState.SMA_LONG)))
+                .thenReturn(recent);
+        when(stockDailyBarRepository.findIndicatorRowsAfter("AAA", last)).thenReturn(bars.subList(80, 100));
+
+        restarted.onBarsChanged(changed(from, "AAA"));
+        restarted.flush();
+        assertEquals(rebuilt.subList(80, 100), written("AAA", last));
+
+        // V13 之前的旧行（状态列为空）：不从舍入后的展示值恢复，从头回放
+        StockDailyIndicator legacy = persisted("AAA", rebuilt.get(79));
+        legacy.setStateEmaFast(null);
+        when(indicatorRepository.findTopBySymbolAndTradeDateBeforeOrderByTradeDateDesc("AAA", from))
+                .thenReturn(Optional.of(legacy));
+        when(stockDailyBarRepository.findIndicatorRowsAfter("AAA", null)).thenReturn(bars);
+        IndicatorEngine legacyEngine = new IndicatorEngine(stockDailyBarRepository, indicatorRepository,
+                indicatorWriter, properties, transactionManager);
+        legacyEngine.onBarsChanged(changed(from, "AAA"));
+        legacyEngine.flush();
+        verify(indicatorWriter, times(2)).replaceAfter(eq("AAA"), isNull(), anyList());
+    }
+
+    private static BigDecimal price(double v) {
+        return BigDecimal.valueOf(v).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    /** 按 StockDailyIndicatorWriter 的列精度落库后读回的行 */
+    private static StockDailyIndicator persisted(String symbol, IndicatorState.Values v) {
+        StockDailyIndicator row = new StockDailyIndicator();
+        row.setSymbol(symbol);
+        row.setTradeDate(v.tradeDate());
+        row.setBarCount(v.barCount());
+        row.setCloseSma5(decimal(v.closeSma5(), 6));
+        row.setCloseSma20(decimal(v.closeSma20(), 6));
+        row.setCloseSma50(decimal(v.closeSma50(), 6));
+        row.setCloseEma12(decimal(v.closeEma12(), 6));
+        row.setCloseEma26(decimal(v.closeEma26(), 6));
+        row.setVolumeSma20(decimal(v.volumeSma20(), 4));
+        row.setVolumeEma20(decimal(v.volumeEma20(), 4));
+        row.setRelativeVolume(decimal(v.relativeVolume(), 4));
+        row.setRsi14(decimal(v.rsi14(), 4));
+        row.setAtr14(decimal(v.atr14(), 6));
+        row.setHigh20(decimal(v.high(), 6));
+        row.setLow20(decimal(v.low(), 6));
+        row.setRsiAvgGain(decimal(v.rsiAvgGain(), 6));
+        row.setRsiAvgLoss(decimal(v.rsiAvgLoss(), 6));
+        row.setStateEmaFast(v.checkpoint().emaFast());
+        row.setStateEmaSlow(v.checkpoint().emaSlow());
+        row.setStateVolumeEma(v.checkpoint().volumeEma());
+        row.setStateAvgGain(v.checkpoint().avgGain());
+        row.setStateAvgLoss(v.checkpoint().avgLoss());
+        row.setStateAtr(v.checkpoint().atr());
+        return row;
+    }
+
+    private static BigDecimal decimal(Double value, int scale) {
+        return value == null ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,100 @@
+package com.stock.invest.service;
+
+import com.stock.invest.model.TradingCalendarResult;
+import com.stock.invest.service.impl.NyseHolidayCalendarService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UT-60 ~ UT-67: NyseHolidayCalendarService 离线规则日历测试（对照 NYSE 公布日历）
+ */
+class NyseHolidayCalendarServiceTest {
+
+    private final NyseHolidayCalendarService service = new NyseHolidayCalendarService();
+
+    private static Set<LocalDate> dates(String... isoDates) {
+        Set<LocalDate> set = new TreeSet<>();
+        for (String d : isoDates) {
+            set.add(LocalDate.parse(d));
+        }
+        return set;
+    }
+
+    @Test @DisplayName("UT-60: 2025 休市日（含卡特国丧日）")
+    void holidays2025() {
+        assertEquals(dates("2025-01-01", "2025-01-09", "2025-01-20", "2025-02-17", "2025-04-18",
+                        "2025-05-26", "2025-06-19", "2025-07-04", "2025-09-01", "2025-11-27", "2025-12-25"),
+                new TreeSet<>(service.holidays(2025).keySet()));
+    }
+
+    @Test @DisplayName("UT-61: 2026 休市日（独立日逢周六提前到周五）")
+    void holidays2026() {
+        assertEquals(dates("2026-01-01", "2026-01-19", "2026-02-16", "2026-04-03", "2026-05-25",
+                        "2026-06-19", "2026-07-03", "2026-09-07", "2026-11-26", "2026-12-25"),
+                new TreeSet<>(service.holidays(2026).keySet()));
+    }
+
+    @Test @DisplayName("UT-62: 元旦逢周六不提前到上年 12-31；圣诞逢周六提前到 12-24")
+    void observedShifts() {
+        assertTrue(service.isTradingDay("US", LocalDate.of(2021, 12, 31)).isTradingDay());
+        assertFalse(service.holidays(2022).containsKey(LocalDate.of(2022, 1, 1)));
+        TradingCalendarResult xmasObserved = service.isTradingDay("US", LocalDate.of(2021, 12, 24));
+        assertFalse(xmasObserved.isTradingDay());
+        assertEquals("Christmas Day (observed)", xmasObserved.getDetail());
+        assertTrue(service.holidays(2022).containsKey(LocalDate.of(2022, 6, 20)));   // Juneteenth 周日 → 周一
+        assertFalse(service.holidays(2021).containsKey(LocalDate.of(2021, 6, 18)));  // 2022 前无 Juneteenth
+    }
+
+    @Test @DisplayName("UT-63: 提前收盘 07-03 / 感恩节次日 / 平安夜")
+    void earlyCloses() {
+        assertEquals(dates("2024-07-03", "2024-11-29", "2024-12-24"),
+                new TreeSet<>(service.earlyCloses(2024).keySet()));
+        assertEquals(dates("2026-11-27", "2026-12-24"), new TreeSet<>(service.earlyCloses(2026).keySet()));
+        TradingCalendarResult r = service.isTradingDay("US", LocalDate.of(2026, 11, 27));
+        assertTrue(r.isTradingDay());
+        assertEquals("EARLY_CLOSE", r.getType());
+    }
+
+    @Test @DisplayName("UT-64: 复活节推算（耶稣受难日）")
+    void easter() {
+        assertEquals(LocalDate.of(2024, 3, 29), service.holidays(2024).keySet().stream()
+                .filter(d -> "Good Friday".equals(service.holidays(2024).get(d))).findFirst().orElseThrow());
+        assertEquals(LocalDate.of(2027, 3, 26), service.holidays(2027).keySet().stream()
+                .filter(d -> "Good Friday".equals(service.holidays(2027).get(d))).findFirst().orElseThrow());
+    }
+
+    @Test @DisplayName("UT-65: 整年区间查询 2026 = 251 个交易日")
+    void fullYearRange() {
+        List<TradingCalendarResult> year = service.getTradingCalendar("US",
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31));
+        assertEquals(365, year.size());
+        assertEquals(251, year.stream().filter(TradingCalendarResult::isTradingDay).count());
+        assertEquals("WEEKEND", year.get(2).getType());   // 2026-01-03 周六
+    }
+
+    @Test @DisplayName("UT-67: 内置临时休市日：9·11 连续四天、里根 / 福特国丧日")
+    void specialClosures() {
+        for (String d : List.of("2001-09-11", "2001-09-12", "2001-09-13", "2001-09-14", "2004-06-11", "2007-01-02")) {
+            TradingCalendarResult r = service.isTradingDay("US", LocalDate.parse(d));
+            assertFalse(r.isTradingDay(), d);
+            assertEquals("HOLIDAY", r.getType(), d);
+        }
+        assertTrue(service.isTradingDay("US", LocalDate.of(2001, 9, 17)).isTradingDay());
+        assertTrue(service.holidays(2007).containsKey(LocalDate.of(2007, 1, 1)));
+    }
+
+    @Test @DisplayName("UT-66: 非 US 市场返回 null；始终可用")
+    void nonUsMarket() {
+        assertTrue(service.isAvailable());
+        assertEquals("rules", service.getSourceName());
+        assertNull(service.isTradingDay("HK", LocalDate.of(2026, 6, 1)));
+        assertNull(service.getTradingCalendar("CN", LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 30)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.stock.invest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stock.invest.entity.ScreeningBatch;
+import com.stock.invest.repository.ScreeningBatchRepository;
+import com.stock.invest.repository.ScreeningMatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * ScreeningBatchStore：按交易日重算批次计数（含重跑归并后的旧批次）、运行耗时记录与键集分页
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScreeningBatchStore — 筛选批次摘要")
+class ScreeningBatchStoreTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+    @Mock private ScreeningBatchRepository screeningBatchRepository;
+    @Mock private ScreeningMatchRepository screeningMatchRepository;
+
+    private ScreeningBatchStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ScreeningBatchStore(screeningBatchRepository, screeningMatchRepository, new ObjectMapper());
+    }
+
+    private static ScreeningBatch row(long id, String batchId, LocalDate tradeDate, int matchCount) {
+        ScreeningBatch b = new ScreeningBatch();
+        b.setId(id);
+        b.setBatchId(batchId);
+        b.setTradeDate(tradeDate);
+        b.setMatchCount(matchCount);
+        b.setWindowCounts("{}");
+        b.setAlgorithmCounts("{}");
+        return b;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ScreeningBatch> saved() {
+        ArgumentCaptor<List<ScreeningBatch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(screeningBatchRepository).saveAll(captor.capture());
+        return captor.getValue().stream().collect(Collectors.toMap(ScreeningBatch::getBatchId, Function.identity()));
+    }
+
+    @Test
+    @DisplayName("BS-01: 全量运行 → 本批次写入计数与耗时；被归并走全部行的旧批次计数归零但保留")
+    void recordRun_countsAndRecountsOlderBatches() {
+        ScreeningBatch old = row(1, "old", T, 3);
+        old.setStartedAt(Instant.parse("2026-05-18T20:00:00Z"));
+        when(screeningBatchRepository.findByTradeDate(T)).thenReturn(new ArrayList<>(List.of(old)));
+        when(screeningMatchRepository.countByTradeDateGroupByBatch(T)).thenReturn(List.of(
+                new Object[]{"new", 2, "increasing_volume", 4L},
+                new Object[]{"new", 3, "increasing_volume", 2L},
+                new Object[]{"new", 3, "volume_spike", 1L}));
+        Instant startedAt = Instant.now().minusSeconds(5);
+
+        store.recordRun("new", T, startedAt);
+
+        Map<String, ScreeningBatch> saved = saved();
+        ScreeningBatch run = saved.get("new");
+        assertEquals(T, run.getTradeDate());
+        assertEquals(7, run.getMatchCount());
+        assertEquals("{\"2\":4,\"3\":3}", run.getWindowCounts());
+        assertEquals("{\"increasing_volume\":6,\"volume_spike\":1}", run.getAlgorithmCounts());
+        assertEquals(startedAt, run.getStartedAt());
+        assertTrue(run.getDurationMs() >= 5000, "duration " + run.getDurationMs());
+        assertNotNull(run.getUpdatedAt());
+        assertEquals(0, saved.get("old").getMatchCount());
+        assertEquals("{}", saved.get("old").getWindowCounts());
+        verify(screeningBatchRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    @DisplayName("BS-02: 增量重评 → 新批次入表（无运行时间）；命中全部删除的非运行批次移除")
+    @SuppressWarnings("unchecked")
+    void refreshTradeDates_insertsAndDropsPhantomBatches() {
+        ScreeningBatch phantom = row(5, "phantom", T, 2);
+        when(screeningBatchRepository.findByTradeDate(T)).thenReturn(new ArrayList<>(List.of(phantom)));
+        when(screeningMatchRepository.countByTradeDateGroupByBatch(T)).thenReturn(List.<Object[]>of(
+                new Object[]{"rescreen", 4, "increasing_volume", 1L}));
+
+        store.refreshTradeDates(List.of(T));
+
+        Map<String, ScreeningBatch> saved = saved();
+        assertEquals(1, saved.size());
+        assertEquals(1, saved.get("rescreen").getMatchCount());
+        assertNull(saved.get("rescreen").getStartedAt());
+        ArgumentCaptor<Collection<ScreeningBatch>> dropped = ArgumentCaptor.forClass(Collection.class);
+        verify(screeningBatchRepository).deleteAllInBatch(dropped.capture());
+        assertEquals(List.of(phantom), List.copyOf(dropped.getValue()));
+    }
+
+    @Test
+    @DisplayName("BS-03: 首页无游标；末项 cursor 作为下一页游标按 (tradeDate, id) 续读；limit 限制在 [1, 500]")
+    void history_keysetPaging() {
+        ScreeningBatch newest = row(12, "b12", T, 7);
+        newest.setWindowCounts("{\"2\":7}");
+        newest.setAlgorithmCounts("{\"increasing_volume\":7}");
+        newest.setDurationMs(1234L);
+        when(screeningBatchRepository.findLatest(PageRequest.of(0, 500))).thenReturn(List.of(newest));
+        when(screeningBatchRepository.findBefore(T, 12L, PageRequest.of(0, 1)))
+                .thenReturn(List.of(row(3, "b3", T.minusDays(1), 0)));
+
+        List<Map<String, Object>> first = store.history(10_000, null);
+
+        assertEquals(1, first.size());
+        Map<String, Object> item = first.get(0);
+        assertEquals("b12", item.get("batchId"));
+        assertEquals(7, item.get("matchCount"));
+        assertEquals("2026-05-18", item.get("lastTradeDate"));
+        assertEquals(Map.of("2", 7L), item.get("windowCounts"));
+        assertEquals(Map.of("increasing_volume", 7L), item.get("algorithmCounts"));
+        assertEquals(1234L, item.get("durationMs"));
+        assertEquals("2026-05-18_12", item.get("cursor"));
+
+        List<Map<String, Object>> second = store.history(0, (String) item.get("cursor"));
+        assertEquals("b3", second.get(0).get("batchId"));
+        assertEquals("2026-05-17_3", second.get(0).get("cursor"));
+    }
+
+    @Test
+    @DisplayName("BS-04: 非法游标 → IllegalArgumentException，不查库")
+    void history_invalidCursor() {
+        for (String cursor : List.of("abc", "2026-05-18", "2026-13-01_4", "2026-05-18_x", "_4")) {
+            assertThrows(IllegalArgumentException.class, () -> store.history(10, cursor), cursor);
+        }
+        verifyNoInteractions(screeningBatchRepository);
+    }
+}
@@ -0,0 +1,158 @@
+package com.stock.invest.service;
+
+import com.stock.invest.repository.ScreeningMatchRepository;
+import com.stock.invest.service.ScreeningHitIndex.Term;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * ScreeningHitIndex：流式加载、单日 AND / OR、跨日至少 N 天命中与按交易日整日刷新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScreeningHitIndex — 筛选命中位图索引")
+class ScreeningHitIndexTest {
+
+    private static final LocalDate D1 = LocalDate.of(2026, 5, 14);
+    private static final LocalDate D2 = LocalDate.of(2026, 5, 15);
+    private static final LocalDate D3 = LocalDate.of(2026, 5, 18);
+
+    private static final Map<Integer, String> SYMBOLS = Map.of(1, "AAA", 2, "BBB", 3, "CCC", 4, "DDD");
+
+    @Mock private ScreeningMatchRepository repository;
+    @Mock private SymbolDictionary symbolDictionary;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ScreeningHitIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ScreeningHitIndex(repository, symbolDictionary, transactionManager);
+    }
+
+    private static Object[] hit(LocalDate date, String algorithm, int windowDays, int id) {
+        return new Object[]{date, algorithm, windowDays, id};
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubSymbols() {
+        when(symbolDictionary.symbolsOf(anyCollection())).thenAnswer(inv -> {
+            Map<Integer, String> out = new HashMap<>();
+            for (Integer id : (Collection<Integer>) inv.getArgument(0)) {
+                out.put(id, SYMBOLS.get(id));
+            }
+            return out;
+        });
+    }
+
+    /** D1: AAA/BBB 放量；D2: AAA 放量 + 突增, CCC 突增；D3: AAA/CCC 放量 */
+    private void load() {
+        when(repository.streamHitIds()).thenReturn(Stream.of(
+                hit(D1, "increasing_volume", 2, 1),
+                hit(D1, "increasing_volume", 3, 2),
+                hit(D2, "increasing_volume", 2, 1),
+                hit(D2, "volume_spike", 2, 1),
+                hit(D2, "volume_spike", 4, 3),
+                hit(D3, "increasing_volume", 5, 3),
+                hit(D3, "increasing_volume", 2, 1)));
+        index.load();
+    }
+
+    private List<String> query(String terms, boolean matchAll, LocalDate endDate, int days, int minDays) {
+        return index.query(Term.parseAll(terms), matchAll, endDate, days, minDays).symbols();
+    }
+
+    @Test
+    @DisplayName("HI-01: 加载后就绪；单日 AND / OR，未指定窗口的查询项合并该算法全部窗口")
+    void load_singleDayAndOr() {
+        stubSymbols();
+        assertFalse(index.isReady());
+        load();
+        assertTrue(index.isReady());
+
+        assertEquals(List.of("AAA"), query("increasing_volume,volume_spike", true, D2, 1, 1));
+        assertEquals(List.of("AAA", "CCC"), query("increasing_volume,volume_spike", false, D2, 1, 1));
+        assertEquals(List.of("CCC"), query("volume_spike:4d", true, D2, 1, 1));
+        assertEquals(List.of("AAA", "CCC"), query("increasing_volume", true, null, 1, 1));
+        assertEquals(List.of(), query("increasing_volume:7d", true, null, 1, 1));
+        assertTrue(index.memoryBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("HI-02: 跨日统计 — 回看最近 N 个筛选日，取命中天数不少于 minDays 的 symbol")
+    void query_minDaysOverRange() {
+        stubSymbols();
+        load();
+
+        ScreeningHitIndex.Result all = index.query(Term.parseAll("increasing_volume"), true, null, 5, 3);
+        assertEquals(List.of(D1, D2, D3), all.dates());
+        assertEquals(List.of("AAA"), all.symbols());
+        assertEquals(List.of("AAA", "CCC"), query("increasing_volume,volume_spike", false, null, 2, 2));
+        assertEquals(List.of("AAA", "BBB", "CCC"), query("increasing_volume,volume_spike", false, null, 3, 1));
+        assertEquals(List.of("AAA", "CCC"), query("increasing_volume,volume_spike", false, null, 3, 2));
+        assertEquals(List.of(), query("increasing_volume,volume_spike", true, null, 3, 2));
+        assertEquals(List.of("AAA", "BBB"), query("increasing_volume", true, D1, 3, 1));
+    }
+
+    @Test
+    @DisplayName("HI-03: 按交易日刷新 — 有命中整日替换，无命中移除")
+    void refreshTradeDates_replacesAndRemoves() {
+        stubSymbols();
+        load();
+        when(repository.findHitIdsByTradeDateIn(anyCollection())).thenReturn(List.<Object[]>of(
+                hit(D3, "volume_spike", 3, 4)));
+
+        index.refreshTradeDates(Set.of(D2, D3));
+
+        ScreeningHitIndex.Result latest = index.query(Term.parseAll("volume_spike"), true, null, 2, 1);
+        assertEquals(List.of(D1, D3), latest.dates());
+        assertEquals(List.of("DDD"), latest.symbols());
+        assertEquals(List.of(), query("increasing_volume", true, null, 1, 1));
+    }
+
+    @Test
+    @DisplayName("HI-04: 刷新读库失败只记日志，原位图保留")
+    void refreshTradeDates_failureKeepsIndex() {
+        stubSymbols();
+        load();
+        when(repository.findHitIdsByTradeDateIn(anyCollection())).thenThrow(new IllegalStateException("db down"));
+
+        assertDoesNotThrow(() -> index.refreshTradeDates(Set.of(D3)));
+        assertEquals(List.of("AAA", "CCC"), query("increasing_volume", true, D3, 1, 1));
+    }
+
+    @Test
+    @DisplayName("HI-05: 查询项解析与参数校验")
+    void parseAndBounds() {
+        assertEquals(List.of(new Term("volume_spike", 3), new Term("increasing_volume", null)),
+                Term.parseAll(" Volume_Spike:3d , increasing_volume,"));
+        assertEquals("volume_spike:3d", new Term("volume_spike", 3).toString());
+        for (String bad : List.of("", " , ", "volume-spike", "volume_spike:9d", "volume_spike:1",
+                "a,b,c,d,e,f,g,h,i,j,k,l,m")) {
+            assertThrows(IllegalArgumentException.class, () -> Term.parseAll(bad), bad);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Term.parseAll(null));
+
+        List<Term> terms = Term.parseAll("volume_spike");
+        assertThrows(IllegalArgumentException.class, () -> index.query(terms, true, null, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.query(terms, true, null, ScreeningHitIndex.MAX_DAYS + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.query(terms, true, null, 3, 4));
+        assertThrows(IllegalArgumentException.class, () -> index.query(terms, true, null, 3, 0));
+    }
+}
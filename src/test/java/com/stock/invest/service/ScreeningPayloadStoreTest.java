@@ -0,0 +1,140 @@
+package com.stock.invest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stock.invest.entity.ScreeningPayload;
+import com.stock.invest.model.RenderedPayload;
+import com.stock.invest.repository.ScreeningPayloadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * ScreeningPayloadStore：进程内缓存 → 表 → 渲染 的两级查找、按交易日失效与失效期间渲染不回写
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScreeningPayloadStore — 预渲染响应体存储")
+class ScreeningPayloadStoreTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+    @Mock private ScreeningPayloadRepository repository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ScreeningPayloadStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ScreeningPayloadStore(repository, new ObjectMapper(), transactionManager);
+    }
+
+    private static ScreeningPayload row(String json, String etag) {
+        ScreeningPayload p = new ScreeningPayload();
+        p.setBatchId("b1");
+        p.setViewKey("screening");
+        p.setTradeDate(T);
+        p.setPayload(json);
+        p.setEtag(etag);
+        return p;
+    }
+
+    @Test
+    @DisplayName("PS-01: 两级未命中渲染一次并写表；再次读取命中内存，不访问表也不再渲染")
+    void render_persistsThenMemoryHit() {
+        when(repository.findByBatchIdAndViewKey("b1", "screening")).thenReturn(Optional.empty());
+        AtomicInteger renders = new AtomicInteger();
+
+        RenderedPayload first = store.get("b1", T, "screening", () -> {
+            renders.incrementAndGet();
+            return Map.of("batchId", "b1");
+        });
+        RenderedPayload second = store.get("b1", T, "screening", () -> fail("should not render"));
+
+        assertSame(first, second);
+        assertEquals("{\"batchId\":\"b1\"}", first.json());
+        assertEquals(1, renders.get());
+        ArgumentCaptor<ScreeningPayload> saved = ArgumentCaptor.forClass(ScreeningPayload.class);
+        verify(repository, times(1)).save(saved.capture());
+        assertEquals("b1", saved.getValue().getBatchId());
+        assertEquals("screening", saved.getValue().getViewKey());
+        assertEquals(T, saved.getValue().getTradeDate());
+        assertEquals(first.etag(), saved.getValue().getEtag());
+        assertEquals(first.json(), saved.getValue().getPayload());
+        verify(repository, times(1)).findByBatchIdAndViewKey(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("PS-02: 内存未命中、表命中 → 原样返回表中字节与 ETag，不渲染不写表")
+    void storedRow_servedWithoutRender() {
+        when(repository.findByBatchIdAndViewKey("b1", "screening"))
+                .thenReturn(Optional.of(row("{\"stored\":true}", "etag-1")));
+
+        RenderedPayload payload = store.get("b1", T, "screening", () -> fail("should not render"));
+
+        assertEquals("{\"stored\":true}", payload.json());
+        assertEquals("etag-1", payload.etag());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("PS-03: 按交易日失效 → 删除表中行并清空内存，下次读取重新渲染")
+    void evictTradeDates_clearsBothLevels() {
+        when(repository.findByBatchIdAndViewKey("b1", "screening")).thenReturn(Optional.empty());
+        AtomicInteger renders = new AtomicInteger();
+        store.get("b1", T, "screening", () -> Map.of("n", renders.incrementAndGet()));
+
+        store.evictTradeDates(List.of(T));
+        RenderedPayload after = store.get("b1", T, "screening", () -> Map.of("n", renders.incrementAndGet()));
+
+        assertEquals(2, renders.get());
+        assertEquals("{\"n\":2}", after.json());
+
+        store.evictTradeDates(List.of());
+        verify(repository, times(1)).deleteByTradeDateIn(any());
+        verify(repository).deleteByTradeDateIn(List.of(T));
+    }
+
+    @Test
+    @DisplayName("PS-04: 渲染期间发生失效 → 结果照常返回但不回写内存与表")
+    void evictDuringRender_notWrittenBack() {
+        when(repository.findByBatchIdAndViewKey("b1", "screening")).thenReturn(Optional.empty());
+
+        RenderedPayload stale = store.get("b1", T, "screening", () -> {
+            store.evictTradeDates(List.of(T));
+            return Map.of("n", 1);
+        });
+        RenderedPayload fresh = store.get("b1", T, "screening", () -> Map.of("n", 2));
+
+        assertEquals("{\"n\":1}", stale.json());
+        assertEquals("{\"n\":2}", fresh.json());
+        verify(repository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("PS-05: 并发写入同一视图唯一键冲突 → 只记日志，仍返回渲染结果并进内存")
+    void persistConflict_swallowed() {
+        when(repository.findByBatchIdAndViewKey("b1", "screening")).thenReturn(Optional.empty());
+        when(repository.save(any())).thenThrow(new DataIntegrityViolationException("uk_screening_payload_batch_view"));
+
+        RenderedPayload payload = assertDoesNotThrow(() -> store.get("b1", T, "screening", () -> Map.of("n", 1)));
+        RenderedPayload again = store.get("b1", T, "screening", () -> fail("should not render"));
+
+        assertSame(payload, again);
+    }
+}
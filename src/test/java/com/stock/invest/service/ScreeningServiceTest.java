@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -12,17 +13,25 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -37,12 +46,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.stock.invest.config.ScannerProperties;
+import com.stock.invest.config.ScreeningProperties;
 import com.stock.invest.entity.ScreeningMatch;
 import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.DailyBarColumns;
+import com.stock.invest.model.RenderedPayload;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.ScreeningMatchBulkWriter;
 import com.stock.invest.repository.ScreeningMatchRepository;
+import com.stock.invest.repository.ScreeningPayloadRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
 import com.stock.invest.service.impl.ScreeningServiceImpl;
 
 @ActiveProfiles("test")
@@ -55,6 +74,22 @@ class ScreeningServiceTest {
     @Mock private PatternEvaluateService patternEvaluateService;
     @Mock private ScannerProperties scannerProperties;
     @Mock private TradingCalendarDbService tradingCalendarDbService;
+    /** 未打桩：parallelism=0（CPU 核数）、threshold=0 → 多 symbol 用例均走并行路径 */
+    @Mock private ScreeningProperties screeningProperties;
+    /** 未打桩：covers()=false → 默认走读库路径 */
+    @Mock private DailyBarColumnStore dailyBarColumnStore;
+    /** 未打桩：isAvailable()=false → 默认走应用层查重 + saveAll */
+    @Mock private ScreeningMatchBulkWriter screeningMatchBulkWriter;
+    /** 未打桩：namesOf() 返回空 map → 匹配项 name 为空串 */
+    @Mock private SymbolDictionary symbolDictionary;
+    /** 未打桩：失效 / 预热为空操作 */
+    @Mock private ScreeningPayloadStore screeningPayloadStore;
+    /** 未打桩：批次摘要写入为空操作 */
+    @Mock private ScreeningBatchStore screeningBatchStore;
+    /** 未打桩：命中位图刷新为空操作 */
+    @Mock private ScreeningHitIndex screeningHitIndex;
+    /** 未打桩：findMaxTradeDate()=null（快照为空）→ 读库路径按区间取最新交易日、读全部 symbol */
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
 
     @InjectMocks
     private ScreeningServiceImpl screeningService;
@@ -70,12 +105,26 @@ class ScreeningServiceTest {
         return b;
     }
 
+    /**
+     * 打桩投影流：最新交易日取 bars 中最大日期；每次调用返回新流，按 (symbol, tradeDate) 升序（同 SQL ORDER BY）。
+     */
+    private void stubBars(LocalDate tradeDate, List<StockDailyBar> bars) {
+        when(stockDailyBarRepository.findMaxTradeDateBetween(any(LocalDate.class), eq(tradeDate)))
+                .thenReturn(bars.stream().map(StockDailyBar::getTradeDate).max(Comparator.naturalOrder()).orElse(null));
+        lenient().when(stockDailyBarRepository.streamScreeningBars(any(LocalDate.class), eq(tradeDate)))
+                .thenAnswer(inv -> bars.stream()
+                        .sorted(Comparator.comparing(StockDailyBar::getSymbol).thenComparing(StockDailyBar::getTradeDate))
+                        .map(ScreeningBar::of));
+    }
+
     @Nested
     @DisplayName("runScreening — 筛选流程")
     class RunScreeningTest {
 
         @BeforeEach
         void setUp() {
+            // 多窗口评估走接口默认实现 → 逐窗口委托给下方各用例打桩的单窗口方法
+            lenient().when(patternEvaluateService.evaluateWindows(anyList(), anyInt())).thenCallRealMethod();
             // Mock trading calendar: all weekdays are open trading days
             lenient().when(tradingCalendarDbService.getRange(any(), any(), any())).thenAnswer(inv -> {
                 LocalDate first = inv.getArgument(1);
@@ -113,8 +162,7 @@ class ScreeningServiceTest {
                     .thenReturn(true);
             // bars 是 oldest-first（循环从 i=13 到 i=0），但查询返回 newest-first
             java.util.Collections.reverse(bars);
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(bars);
+            stubBars(tradeDate, bars);
             when(screeningMatchRepository.saveAll(anyList()))
                     .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -124,6 +172,30 @@ class ScreeningServiceTest {
             verify(screeningMatchRepository, times(1)).saveAll(anyList());
         }
 
+        @Test
+        @DisplayName("最新 bar 快照可用：基准日取快照最新交易日，只流式读取参评 symbol，不再按区间聚合")
+        void test_screening_latestBarSnapshot() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (int i = 13; i >= 0; i--) {
+                LocalDate d = tradeDate.minusDays(i);
+                if (d.getDayOfWeek().getValue() <= 5) {
+                    bars.add(bar("TEST", d, 0.08, 0.09, 10000L + i * 500L, "tiger"));
+                }
+            }
+            when(symbolLatestBarRepository.findMaxTradeDate()).thenReturn(tradeDate);
+            when(stockDailyBarRepository.streamScreeningBarsOfLatest(any(LocalDate.class), eq(tradeDate), eq(tradeDate)))
+                    .thenAnswer(inv -> bars.stream().map(ScreeningBar::of));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            assertNotNull(screeningService.runScreening(tradeDate));
+
+            verify(stockDailyBarRepository, never()).findMaxTradeDateBetween(any(), any());
+            verify(stockDailyBarRepository, never()).streamScreeningBars(any(), any());
+            verify(screeningMatchRepository, times(1)).saveAll(anyList());
+        }
+
         @Test
         @DisplayName("数据不足7天跳过")
         void test_screening_insufficientData() {
@@ -135,8 +207,7 @@ class ScreeningServiceTest {
             bars.add(bar(symbol, tradeDate.minusDays(1), 0.10, 0.11, 5000L, "tiger"));
             bars.add(bar(symbol, tradeDate, 0.11, 0.12, 6000L, "tiger"));
 
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(bars);
+            stubBars(tradeDate, bars);
 
             screeningService.runScreening(tradeDate);
 
@@ -150,14 +221,268 @@ class ScreeningServiceTest {
         void test_noData() {
             LocalDate tradeDate = LocalDate.of(2026, 5, 18);
 
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(List.of());
+            stubBars(tradeDate, List.of());
 
             String batchId = screeningService.runScreening(tradeDate);
             assertNotNull(batchId);
             verify(screeningMatchRepository, never()).saveAll(anyList());
         }
 
+        @Test
+        @DisplayName("并行评估：合并结果顺序与串行逐行一致，limit 截断按 symbol 升序；多次运行复用同一个 ForkJoinPool")
+        void parallelEvaluation_deterministicMergeAndLimit() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (LocalDate d = tradeDate; !d.isBefore(tradeDate.minusDays(9)); d = d.minusDays(1)) {
+                if (d.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+                for (int i = 0; i < 60; i++) {
+                    bars.add(bar(String.format("S%02d", i), d, 1.0, 1.1, 1000L, "tiger"));
+                }
+            }
+            stubBars(tradeDate, bars);
+            // 偶数号 symbol 命中递增量能，奇数号命中放量
+            Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenAnswer(inv -> {
+                if (Thread.currentThread() instanceof ForkJoinWorkerThread worker) {
+                    pools.add(worker.getPool());
+                }
+                List<StockDailyBar> w = inv.getArgument(0);
+                return Integer.parseInt(w.get(0).getSymbol().substring(1)) % 2 == 0;
+            });
+            when(patternEvaluateService.matchesVolumeSpikePattern(anyList(), anyInt())).thenAnswer(inv -> {
+                List<StockDailyBar> w = inv.getArgument(0);
+                return Integer.parseInt(w.get(0).getSymbol().substring(1)) % 2 == 1;
+            });
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+
+            when(screeningProperties.getParallelism()).thenReturn(1);
+            screeningService.runScreening(tradeDate, null, 40);
+            when(screeningProperties.getParallelism()).thenReturn(8);
+            screeningService.runScreening(tradeDate, null, 40);
+            screeningService.runScreening(tradeDate, null, 40);
+
+            assertEquals(1, pools.size(), "evaluation pool reused across runs");
+            verify(screeningMatchRepository, times(3)).saveAll(captor.capture());
+            List<String> serial = captor.getAllValues().get(0).stream()
+                    .map(m -> m.getSymbol() + "|" + m.getWindowDays() + "|" + m.getAlgorithm()).toList();
+            List<String> parallel = captor.getAllValues().get(1).stream()
+                    .map(m -> m.getSymbol() + "|" + m.getWindowDays() + "|" + m.getAlgorithm()).toList();
+            assertEquals(serial, parallel);
+            assertEquals(40 * 5, parallel.size());   // 40 个 symbol × 5 个窗口（9 天区间 6 个开盘日）× 1 算法
+            assertEquals("S00|2|increasing_volume", parallel.get(0));
+            assertEquals("S39|6|volume_spike", parallel.get(parallel.size() - 1));
+        }
+
+        @Test
+        @DisplayName("多 symbol 只查一次日历；中间缺一天的 symbol 只保留缺口之后的窗口")
+        void test_calendarResolvedOncePerRun() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);   // Mon
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (LocalDate d = tradeDate; !d.isBefore(tradeDate.minusDays(9)); d = d.minusDays(1)) {
+                if (d.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+                bars.add(bar("FULL", d, 1.0, 1.1, 1000L, "tiger"));
+                // GAP 缺 05-14（Thu）：末尾连续 = 05-15, 05-18 两根
+                if (!d.equals(LocalDate.of(2026, 5, 14))) {
+                    bars.add(bar("GAP", d, 1.0, 1.1, 1000L, "tiger"));
+                }
+            }
+            stubBars(tradeDate, bars);
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            screeningService.runScreening(tradeDate);
+
+            verify(tradingCalendarDbService, times(1)).getRange(eq("US"), any(), eq(tradeDate));
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(captor.capture());
+            Set<Integer> gapWindows = captor.getValue().stream()
+                    .filter(m -> "GAP".equals(m.getSymbol()))
+                    .map(ScreeningMatch::getWindowDays)
+                    .collect(Collectors.toSet());
+            Set<Integer> fullWindows = captor.getValue().stream()
+                    .filter(m -> "FULL".equals(m.getSymbol()))
+                    .map(ScreeningMatch::getWindowDays)
+                    .collect(Collectors.toSet());
+            assertEquals(Set.of(2), gapWindows);
+            assertEquals(Set.of(2, 3, 4, 5, 6), fullWindows);   // 9 天区间内只有 6 个开盘日
+        }
+
+        @Test
+        @DisplayName("最新一根已有 run_length 时截到区间内根数直接使用；尚未计算（NULL）时按日历逐根比对")
+        void runLength_usedWhenPresent_calendarWhenNull() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);   // Mon
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (LocalDate d = tradeDate.minusDays(9); !d.isAfter(tradeDate); d = d.plusDays(1)) {
+                if (d.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+                bars.add(bar("STORED", d, 1.0, 1.1, 1000L, "tiger"));
+                bars.add(bar("LONG", d, 1.0, 1.1, 1000L, "tiger"));
+                bars.add(bar("UNSET", d, 1.0, 1.1, 1000L, "tiger"));
+            }
+            // STORED 库内计数 4（与区间内日历逐根结果不同，以库内为准）；LONG 远超区间，截到 6 根；UNSET 未计算
+            bars.stream().filter(b -> b.getTradeDate().equals(tradeDate)).forEach(b -> {
+                if ("STORED".equals(b.getSymbol())) {
+                    b.setRunLength(4);
+                } else if ("LONG".equals(b.getSymbol())) {
+                    b.setRunLength(250);
+                }
+            });
+            stubBars(tradeDate, bars);
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            screeningService.runScreening(tradeDate);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(captor.capture());
+            Map<String, Set<Integer>> windows = captor.getValue().stream().collect(Collectors.groupingBy(
+                    ScreeningMatch::getSymbol, Collectors.mapping(ScreeningMatch::getWindowDays, Collectors.toSet())));
+            assertEquals(Set.of(2, 3, 4), windows.get("STORED"));
+            assertEquals(Set.of(2, 3, 4, 5, 6), windows.get("LONG"));
+            assertEquals(Set.of(2, 3, 4, 5, 6), windows.get("UNSET"));
+        }
+
+        @Test
+        @DisplayName("列式缓存覆盖筛选区间：不访问 stock_daily_bar，结果与读库路径一致")
+        void screeningFromColumnStore_noDbAccess() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            DailyBarColumns.Builder fresh = DailyBarColumns.builder("FRESH");
+            DailyBarColumns.Builder stale = DailyBarColumns.builder("STALE");
+            for (StockDailyBar b : barsFor("FRESH", tradeDate)) {
+                fresh.add(b);
+            }
+            for (StockDailyBar b : barsFor("STALE", tradeDate.minusDays(3))) {
+                stale.add(b);
+            }
+            when(dailyBarColumnStore.covers(any(LocalDate.class))).thenReturn(true);
+            when(dailyBarColumnStore.symbols()).thenReturn(List.of("FRESH", "STALE"));
+            when(dailyBarColumnStore.get("FRESH")).thenReturn(fresh.build(260));
+            when(dailyBarColumnStore.get("STALE")).thenReturn(stale.build(260));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            screeningService.runScreening(tradeDate);
+
+            verifyNoInteractions(stockDailyBarRepository);
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(captor.capture());
+            assertEquals(Set.of("FRESH"), captor.getValue().stream()
+                    .map(ScreeningMatch::getSymbol).collect(Collectors.toSet()));
+            ScreeningMatch m = captor.getValue().get(0);
+            assertEquals("tiger", m.getDataSource());
+            assertEquals(0, java.math.BigDecimal.valueOf(0.09).compareTo(m.getLastClose()));
+            // 窗口区间 05-09~05-18 内 6 个开盘日 → 2~6 天窗口
+            assertEquals(Set.of(2, 3, 4, 5, 6), captor.getValue().stream()
+                    .map(ScreeningMatch::getWindowDays).collect(Collectors.toSet()));
+        }
+
+        @Test
+        @DisplayName("每个 symbol 只做一次多窗口评估：位图为数据够且连续的窗口，命中位还原为行")
+        void singleMultiWindowEvaluationPerSymbol() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            stubBars(tradeDate, barsFor("TEST", tradeDate));
+            int expectedMask = 0;
+            for (int w = 2; w <= 6; w++) {
+                expectedMask |= PatternEvaluateService.windowBit(w);
+            }
+            when(patternEvaluateService.evaluateWindows(anyList(), eq(expectedMask)))
+                    .thenReturn(PatternEvaluateService.windowBit(3) | PatternEvaluateService.spikeBit(5));
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            screeningService.runScreening(tradeDate);
+
+            verify(patternEvaluateService, times(1)).evaluateWindows(anyList(), anyInt());
+            verify(patternEvaluateService, never()).matchesIncreasingVolumePattern(anyList(), anyInt());
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(captor.capture());
+            assertEquals(List.of("3|increasing_volume", "5|volume_spike"), captor.getValue().stream()
+                    .map(m -> m.getWindowDays() + "|" + m.getAlgorithm()).toList());
+        }
+
+        @Test
+        @DisplayName("观察名单：仅名单内 symbol 生成决策明细，名单外不调用 traceWindows")
+        void diagnosticTraceOnlyForWatchedSymbols() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            List<StockDailyBar> bars = new ArrayList<>(barsFor("AAA", tradeDate));
+            bars.addAll(barsFor("WATCH", tradeDate));
+            stubBars(tradeDate, bars);
+            when(screeningProperties.getDiagnosticSymbols()).thenReturn(List.of(" watch "));
+            when(patternEvaluateService.traceWindows(anyList(), anyInt())).thenReturn(List.of("len=2: traced"));
+
+            screeningService.runScreening(tradeDate);
+
+            verify(patternEvaluateService, times(2)).evaluateWindows(anyList(), anyInt());
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<StockDailyBar>> traced = ArgumentCaptor.forClass(List.class);
+            verify(patternEvaluateService, times(1)).traceWindows(traced.capture(), anyInt());
+            assertEquals("WATCH", traced.getValue().get(0).getSymbol());
+        }
+
+        @Test
+        @DisplayName("横截面内核：开启 vector-kernel 后结果与逐 symbol 评估逐行一致")
+        void vectorKernel_matchesPerSymbolEvaluation() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            java.util.Random random = new java.util.Random(20261018L);
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (int s = 0; s < 300; s++) {
+                String symbol = String.format("K%03d", s);
+                for (int i = 13; i >= 0; i--) {
+                    LocalDate d = tradeDate.minusDays(i);
+                    // 偶发缺失一天 → 部分窗口连续性不足
+                    if (d.getDayOfWeek().getValue() > 5 || random.nextInt(30) == 0) {
+                        continue;
+                    }
+                    long volume = switch (s % 4) {
+                        case 0 -> 1_000L + (13 - i) * 3_000L;                               // 递增
+                        case 1 -> i == 0 ? 90_000L : 1_000L + random.nextInt(9_000);        // 末日放量
+                        case 2 -> random.nextInt(8) == 0 ? 0L : 1_000L + random.nextInt(20_000);
+                        default -> 1_000L + random.nextInt(20_000);
+                    };
+                    bars.add(bar(symbol, d, 1.0, 1.1, volume, "tiger"));
+                }
+            }
+            stubBars(tradeDate, bars);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            PatternEvaluateService realEvaluator = new com.stock.invest.service.impl.PatternEvaluateServiceImpl();
+            ScreeningProperties perSymbol = new ScreeningProperties();
+            perSymbol.setParallelism(1);
+            ScreeningProperties withKernel = new ScreeningProperties();
+            withKernel.setParallelism(1);
+            withKernel.setVectorKernel(true);
+            new ScreeningServiceImpl(stockDailyBarRepository, screeningMatchRepository, realEvaluator,
+                    tradingCalendarDbService, perSymbol, dailyBarColumnStore, screeningMatchBulkWriter,
+                    symbolDictionary, screeningPayloadStore, screeningBatchStore,
+                    screeningHitIndex, symbolLatestBarRepository)
+                    .runScreening(tradeDate);
+            new ScreeningServiceImpl(stockDailyBarRepository, screeningMatchRepository, realEvaluator,
+                    tradingCalendarDbService, withKernel, dailyBarColumnStore, screeningMatchBulkWriter,
+                    symbolDictionary, screeningPayloadStore, screeningBatchStore,
+                    screeningHitIndex, symbolLatestBarRepository)
+                    .runScreening(tradeDate);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository, times(2)).saveAll(captor.capture());
+            List<String> expected = captor.getAllValues().get(0).stream()
+                    .map(m -> m.getSymbol() + "|" + m.getWindowDays() + "|" + m.getAlgorithm()).toList();
+            List<String> actual = captor.getAllValues().get(1).stream()
+                    .map(m -> m.getSymbol() + "|" + m.getWindowDays() + "|" + m.getAlgorithm()).toList();
+            assertTrue(expected.size() > 100, "too few matches to be meaningful: " + expected.size());
+            assertEquals(expected, actual);
+        }
+
         @Test
         @DisplayName("模式不匹配时跳过")
         void test_patternNotMatch() {
@@ -172,8 +497,7 @@ class ScreeningServiceTest {
                 }
             }
 
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(bars);
+            stubBars(tradeDate, bars);
 
             screeningService.runScreening(tradeDate);
 
@@ -199,8 +523,7 @@ class ScreeningServiceTest {
         @DisplayName("P1-7: windowDays=3 只评估 3 天窗口")
         void windowDays_limitsWindows() {
             LocalDate tradeDate = LocalDate.of(2026, 5, 18);
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(barsFor("TEST", tradeDate));
+            stubBars(tradeDate, barsFor("TEST", tradeDate));
 
             screeningService.runScreening(tradeDate, 3, null);
 
@@ -216,8 +539,7 @@ class ScreeningServiceTest {
         @DisplayName("P1-7: windowDays=null 评估全部窗口 2~7 天（等于旧 runScreening(date)）")
         void nullParams_defaultAllWindows() {
             LocalDate tradeDate = LocalDate.of(2026, 5, 18);
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(barsFor("TEST", tradeDate));
+            stubBars(tradeDate, barsFor("TEST", tradeDate));
 
             screeningService.runScreening(tradeDate, null, null);
 
@@ -233,8 +555,7 @@ class ScreeningServiceTest {
         @DisplayName("P1-7: windowDays=1（小于最小窗口）回退全部窗口")
         void invalidWindowOne_clampsToAllWindows() {
             LocalDate tradeDate = LocalDate.of(2026, 5, 18);
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(barsFor("TEST", tradeDate));
+            stubBars(tradeDate, barsFor("TEST", tradeDate));
 
             screeningService.runScreening(tradeDate, 1, null);
 
@@ -254,8 +575,7 @@ class ScreeningServiceTest {
             for (int s = 0; s < 10; s++) {
                 allBars.addAll(barsFor("SYM" + s, tradeDate));
             }
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(allBars);
+            stubBars(tradeDate, allBars);
 
             screeningService.runScreening(tradeDate, null, 5);
 
@@ -279,8 +599,7 @@ class ScreeningServiceTest {
             for (int s = 0; s < 3; s++) {
                 allBars.addAll(barsFor("SYM" + s, tradeDate));
             }
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(allBars);
+            stubBars(tradeDate, allBars);
 
             screeningService.runScreening(tradeDate, null, 1);
 
@@ -304,8 +623,7 @@ class ScreeningServiceTest {
             for (int s = 0; s < 4; s++) {
                 allBars.addAll(barsFor("SYM" + s, tradeDate));
             }
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(allBars);
+            stubBars(tradeDate, allBars);
 
             screeningService.runScreening(tradeDate, null, null);
 
@@ -325,8 +643,7 @@ class ScreeningServiceTest {
         @DisplayName("R2 P1-3: windowDays=7 显式传参 → 只评估 7 天窗口（与默认全窗口可区分）")
         void windowDays7_defaultNoLongerApplied() {
             LocalDate tradeDate = LocalDate.of(2026, 5, 18);
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(barsFor("TEST", tradeDate));
+            stubBars(tradeDate, barsFor("TEST", tradeDate));
 
             screeningService.runScreening(tradeDate, 7, null);
 
@@ -345,8 +662,7 @@ class ScreeningServiceTest {
         @DisplayName("R2 P1-5: 同日已存在的键在 saveAll 前被滤除（应用层查重纵深防御）")
         void duplicateSameDayRowsFiltered() {
             LocalDate tradeDate = LocalDate.of(2026, 5, 18);
-            when(stockDailyBarRepository.findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), eq(tradeDate)))
-                    .thenReturn(barsFor("AAPL", tradeDate));
+            stubBars(tradeDate, barsFor("AAPL", tradeDate));
             // 两个算法都命中 → 每窗口 2 行（6 窗口 × 2 算法 = 12 行）
             when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
             when(patternEvaluateService.matchesVolumeSpikePattern(anyList(), anyInt())).thenReturn(true);
@@ -387,9 +703,9 @@ class ScreeningServiceTest {
             doAnswer(inv -> {
                 entered.countDown();
                 release.await(5, TimeUnit.SECONDS);
-                return List.of();
+                return null;
             }).when(stockDailyBarRepository)
-                    .findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), any(LocalDate.class));
+                    .findMaxTradeDateBetween(any(LocalDate.class), any(LocalDate.class));
 
             AtomicReference<String> firstResult = new AtomicReference<>();
             Thread a = new Thread(() -> firstResult.set(screeningService.runScreening(tradeDate)), "screenA");
@@ -403,12 +719,323 @@ class ScreeningServiceTest {
             assertNull(second, "second concurrent call must be rejected with null");
             assertTrue(elapsedMs < 1000, "rejected call must return immediately, elapsed=" + elapsedMs);
             verify(stockDailyBarRepository, times(1))
-                    .findByTradeDateBetweenOrderByTradeDateDesc(any(LocalDate.class), any(LocalDate.class));
+                    .findMaxTradeDateBetween(any(LocalDate.class), any(LocalDate.class));
 
             release.countDown();
             a.join(5000);
             assertFalse(a.isAlive(), "thread A should finish after release");
             assertNotNull(firstResult.get(), "first call should complete with a batchId");
         }
+
+        // ---------- 增量筛选 ----------
+
+        private ScreeningMatch existingMatch(long id, String batchId, String symbol, LocalDate tradeDate,
+                                             int windowDays, String algorithm, double price) {
+            ScreeningMatch m = new ScreeningMatch();
+            m.setId(id);
+            m.setBatchId(batchId);
+            m.setDataSource("tiger");
+            m.setSymbol(symbol);
+            m.setTradeDate(tradeDate);
+            m.setLastClose(java.math.BigDecimal.valueOf(price));
+            m.setPrice(java.math.BigDecimal.valueOf(price));
+            m.setRise(true);
+            m.setWindowDays(windowDays);
+            m.setAlgorithm(algorithm);
+            return m;
+        }
+
+        private List<ScreeningBar> projection(List<StockDailyBar> bars) {
+            return bars.stream()
+                    .sorted(Comparator.comparing(StockDailyBar::getSymbol).thenComparing(StockDailyBar::getTradeDate))
+                    .map(ScreeningBar::of)
+                    .toList();
+        }
+
+        @Test
+        @DisplayName("增量筛选：只重评变更 symbol —— 新命中插入并归入当日最新批次、已有命中刷新价格、不再命中的行删除")
+        void rescreenSymbols_upsertsChangedSymbolsOnly() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            ScreeningMatch kept = existingMatch(1L, "batch-1", "AAPL", tradeDate, 2, "increasing_volume", 0.05);
+            ScreeningMatch stale = existingMatch(2L, "batch-1", "MSFT", tradeDate, 3, "volume_spike", 0.09);
+            when(screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc()).thenReturn(java.util.Optional.of(stale));
+            when(screeningMatchRepository.findDistinctTradeDatesBetween(tradeDate, tradeDate.plusDays(9)))
+                    .thenReturn(List.of(tradeDate));
+            when(screeningMatchRepository.findByTradeDateAndSymbolIn(eq(tradeDate), any()))
+                    .thenReturn(List.of(kept, stale));
+            when(screeningMatchRepository.findTopByTradeDateOrderByIdDesc(tradeDate)).thenReturn(java.util.Optional.of(stale));
+            when(stockDailyBarRepository.findMaxTradeDateBetween(any(LocalDate.class), eq(tradeDate))).thenReturn(tradeDate);
+            List<StockDailyBar> bars = new ArrayList<>(barsFor("AAPL", tradeDate));
+            bars.addAll(barsFor("MSFT", tradeDate));
+            when(stockDailyBarRepository.findScreeningBars(any(), any(LocalDate.class), eq(tradeDate)))
+                    .thenReturn(projection(bars));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenAnswer(inv ->
+                    "AAPL".equals(((StockDailyBar) ((List<?>) inv.getArgument(0)).get(0)).getSymbol()));
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            java.util.Map<String, Object> summary = screeningService.rescreenSymbols(tradeDate, Set.of("MSFT", "AAPL"));
+
+            assertNotNull(summary);
+            assertEquals(List.of(tradeDate.toString()), summary.get("tradeDates"));
+            // 窗口区间 05-09~05-18 内 6 个开盘日 → AAPL 命中 2~6 天窗口：2 天为已有行（刷新），3~6 天新增
+            assertEquals(4, summary.get("inserted"));
+            assertEquals(1, summary.get("updated"));
+            assertEquals(1, summary.get("deleted"));
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> saveCaptor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(saveCaptor.capture());
+            List<ScreeningMatch> saved = saveCaptor.getValue();
+            assertEquals(5, saved.size());
+            assertTrue(saved.contains(kept), "existing hit must be updated in place, not re-inserted");
+            assertEquals(0, java.math.BigDecimal.valueOf(0.09).compareTo(kept.getPrice()));
+            assertEquals("batch-1", kept.getBatchId());
+            assertTrue(saved.stream().allMatch(m -> "batch-1".equals(m.getBatchId())),
+                    "new rows must join the latest batch of the trade date");
+            assertTrue(saved.stream().allMatch(m -> "AAPL".equals(m.getSymbol())));
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<java.util.Collection<ScreeningMatch>> deleteCaptor =
+                    ArgumentCaptor.forClass(java.util.Collection.class);
+            verify(screeningMatchRepository).deleteAllInBatch(deleteCaptor.capture());
+            assertEquals(List.of(stale), List.copyOf(deleteCaptor.getValue()));
+            verify(screeningBatchStore).refreshTradeDates(Set.of(tradeDate));
+            verify(screeningMatchRepository, never()).findByTradeDate(any());
+            verify(stockDailyBarRepository, never()).streamScreeningBars(any(), any());
+        }
+
+        @Test
+        @DisplayName("增量筛选：bar 日期晚于全部已有结果 → 只筛该日，新建批次")
+        void rescreenSymbols_newTradeDateStartsNewBatch() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            ScreeningMatch previous = existingMatch(9L, "batch-0", "AAPL", tradeDate.minusDays(3), 2,
+                    "increasing_volume", 0.05);
+            when(screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc()).thenReturn(java.util.Optional.of(previous));
+            when(screeningMatchRepository.findByTradeDateAndSymbolIn(eq(tradeDate), any())).thenReturn(List.of());
+            when(screeningMatchRepository.findTopByTradeDateOrderByIdDesc(tradeDate)).thenReturn(java.util.Optional.empty());
+            when(stockDailyBarRepository.findMaxTradeDateBetween(any(LocalDate.class), eq(tradeDate))).thenReturn(tradeDate);
+            when(stockDailyBarRepository.findScreeningBars(any(), any(LocalDate.class), eq(tradeDate)))
+                    .thenReturn(projection(barsFor("AAPL", tradeDate)));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            java.util.Map<String, Object> summary = screeningService.rescreenSymbols(tradeDate, Set.of("AAPL"));
+
+            assertEquals(List.of(tradeDate.toString()), summary.get("tradeDates"));
+            verify(screeningMatchRepository, never()).findDistinctTradeDatesBetween(any(), any());
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> saveCaptor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(saveCaptor.capture());
+            Set<String> batches = saveCaptor.getValue().stream().map(ScreeningMatch::getBatchId).collect(Collectors.toSet());
+            assertEquals(1, batches.size());
+            assertFalse(batches.contains("batch-0"));
+            verify(screeningMatchRepository, never()).deleteAllInBatch(any());
+        }
+
+        @Test
+        @DisplayName("增量筛选：全量筛选运行中返回 null，不读写 screening_match")
+        void rescreenSymbols_defersWhileFullRunInProgress() throws Exception {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            doAnswer(inv -> {
+                entered.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }).when(stockDailyBarRepository)
+                    .findMaxTradeDateBetween(any(LocalDate.class), any(LocalDate.class));
+
+            Thread a = new Thread(() -> screeningService.runScreening(tradeDate), "screenFull");
+            a.start();
+            assertTrue(entered.await(5, TimeUnit.SECONDS), "full run should be in progress");
+
+            assertNull(screeningService.rescreenSymbols(tradeDate, Set.of("AAPL")));
+            verifyNoInteractions(screeningMatchRepository);
+
+            release.countDown();
+            a.join(5000);
+            assertFalse(a.isAlive());
+        }
+
+        @Test
+        @DisplayName("全量重跑：跳过的已存在行（如增量先行写入）改归新批次")
+        void fullRun_carriesExistingRowsIntoNewBatch() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            stubBars(tradeDate, barsFor("AAPL", tradeDate));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            ScreeningMatch early = existingMatch(42L, "incremental", "AAPL", tradeDate, 2, "increasing_volume", 0.09);
+            when(screeningMatchRepository.findByTradeDate(tradeDate)).thenReturn(List.of(early));
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            String batchId = screeningService.runScreening(tradeDate);
+
+            verify(screeningMatchRepository).updateBatchIdByIdIn(batchId, List.of(42L));
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> saveCaptor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchRepository).saveAll(saveCaptor.capture());
+            assertEquals(4, saveCaptor.getValue().size(), "2~6d windows minus the carried 2d row");
+        }
+
+        @Test
+        @DisplayName("集合式写入可用：不整日读出已有行查重，全部命中一次交给 bulk writer（判重与改归批次由唯一约束完成）")
+        void fullRun_bulkWriterSkipsLookup() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            stubBars(tradeDate, barsFor("AAPL", tradeDate));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchBulkWriter.isAvailable()).thenReturn(true);
+            when(screeningMatchBulkWriter.insertOrCarry(anyList())).thenReturn(new ScreeningMatchBulkWriter.Result(4, 1));
+
+            String batchId = screeningService.runScreening(tradeDate);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ScreeningMatch>> captor = ArgumentCaptor.forClass(List.class);
+            verify(screeningMatchBulkWriter).insertOrCarry(captor.capture());
+            assertEquals(5, captor.getValue().size(), "2~6d windows");
+            assertTrue(captor.getValue().stream().allMatch(m -> batchId.equals(m.getBatchId())));
+            verify(screeningMatchRepository, never()).findByTradeDate(any());
+            verify(screeningMatchRepository, never()).saveAll(anyList());
+            verify(screeningMatchRepository, never()).updateBatchIdByIdIn(any(), any());
+        }
+
+        @Test
+        @DisplayName("筛选完成：失效当日预渲染结果并预热新批次")
+        void fullRun_evictsAndWarmsPayloads() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            stubBars(tradeDate, barsFor("AAPL", tradeDate));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            screeningService.runScreening(tradeDate);
+
+            verify(screeningPayloadStore).evictTradeDates(Set.of(tradeDate));
+            verify(screeningPayloadStore).warm(any());
+            verify(screeningHitIndex).refreshTradeDates(Set.of(tradeDate));
+        }
+
+        @Test
+        @DisplayName("筛选完成：写入本批次摘要（同事务），历史列表读摘要表")
+        void fullRun_recordsBatchSummary() {
+            LocalDate tradeDate = LocalDate.of(2026, 5, 18);
+            stubBars(tradeDate, barsFor("AAPL", tradeDate));
+            when(patternEvaluateService.matchesIncreasingVolumePattern(anyList(), anyInt())).thenReturn(true);
+            when(screeningMatchRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+            String batchId = screeningService.runScreening(tradeDate);
+
+            verify(screeningBatchStore).recordRun(eq(batchId), eq(tradeDate), any());
+            verify(screeningBatchStore, never()).refreshTradeDates(any());
+
+            screeningService.getScreeningHistory(20);
+            verify(screeningBatchStore).history(20, null);
+        }
+    }
+
+    @Nested
+    @DisplayName("预渲染响应体 — 批次指针与视图缓存")
+    class PayloadTest {
+
+        private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+        private ScreeningPayloadRepository payloadRepository;
+        private ScreeningServiceImpl service;
+
+        @BeforeEach
+        void setUp() {
+            payloadRepository = mock(ScreeningPayloadRepository.class);
+            lenient().when(payloadRepository.findByBatchIdAndViewKey(any(), any())).thenReturn(Optional.empty());
+            ScreeningPayloadStore store = new ScreeningPayloadStore(payloadRepository, new ObjectMapper(),
+                    mock(PlatformTransactionManager.class));
+            service = new ScreeningServiceImpl(stockDailyBarRepository, screeningMatchRepository,
+                    patternEvaluateService, tradingCalendarDbService, screeningProperties, dailyBarColumnStore,
+                    screeningMatchBulkWriter, symbolDictionary, store, screeningBatchStore, screeningHitIndex,
+                    symbolLatestBarRepository);
+        }
+
+        private ScreeningMatch match(long id, String symbol, int windowDays, String algorithm) {
+            ScreeningMatch m = new ScreeningMatch();
+            m.setId(id);
+            m.setBatchId("b1");
+            m.setSymbol(symbol);
+            m.setTradeDate(T);
+            m.setLastClose(new java.math.BigDecimal("1.2300"));
+            m.setRise(true);
+            m.setWindowDays(windowDays);
+            m.setAlgorithm(algorithm);
+            return m;
+        }
+
+        @Test
+        @DisplayName("最新结果：批次指针与响应体各解析一次，之后读请求不访问 screening_match")
+        void latest_renderedOncePerBatch() {
+            when(screeningMatchRepository.findTopByOrderByTradeDateDescIdDesc())
+                    .thenReturn(Optional.of(match(2L, "MSFT", 3, "volume_spike")));
+            when(screeningMatchRepository.findByBatchIdOrderByIdAsc("b1"))
+                    .thenReturn(List.of(match(1L, "AAPL", 2, "increasing_volume"), match(2L, "MSFT", 3, "volume_spike")));
+            when(symbolDictionary.namesOf(any())).thenReturn(java.util.Map.of("AAPL", "Apple"));
+
+            RenderedPayload first = service.getLatestScreeningPayload();
+            RenderedPayload second = service.getLatestScreeningPayload();
+
+            assertSame(first, second);
+            assertTrue(first.json().startsWith("{\"batchId\":\"b1\",\"tradeDate\":\"2026-05-18\",\"totalMatches\":2,"),
+                    first.json());
+            assertTrue(first.json().contains("\"name\":\"Apple\",\"lastClose\":1.23"), first.json());
+            verify(screeningMatchRepository, times(1)).findTopByOrderByTradeDateDescIdDesc();
+            verify(screeningMatchRepository, times(1)).findByBatchIdOrderByIdAsc("b1");
+            verify(payloadRepository, times(1)).save(any());
+            // Map 视图与预渲染内容一致
+            assertEquals(2, service.getLatestScreening().get("totalMatches"));
+        }
+
+        @Test
+        @DisplayName("通知分组：等价窗口写法共用一份渲染；无批次的交易日不缓存空结果")
+        void notification_windowsNormalized() {
+            when(screeningMatchRepository.findTopByTradeDateOrderByIdDesc(T))
+                    .thenReturn(Optional.of(match(2L, "MSFT", 3, "volume_spike")));
+            when(screeningMatchRepository.findByBatchIdOrderByIdAsc("b1"))
+                    .thenReturn(List.of(match(1L, "AAPL", 2, "increasing_volume"), match(2L, "MSFT", 3, "volume_spike")));
+
+            RenderedPayload a = service.getNotificationByDatePayload("2026-05-18", "3d, 2d");
+            RenderedPayload b = service.getNotificationByDatePayload("2026-05-18", "2d,3d,2d,9d");
+            RenderedPayload only3 = service.getNotificationByDatePayload("2026-05-18", "3d");
+
+            assertSame(a, b);
+            assertTrue(a.json().contains("\"increasing_volume\":{\"2d\":{\"count\":1"), a.json());
+            assertFalse(only3.json().contains("increasing_volume"), only3.json());
+            verify(screeningMatchRepository, times(1)).findTopByTradeDateOrderByIdDesc(T);
+            verify(screeningMatchRepository, times(2)).findByBatchIdOrderByIdAsc("b1");
+            verify(payloadRepository).findByBatchIdAndViewKey("b1", "notification:2d,3d");
+
+            when(screeningMatchRepository.findTopByTradeDateOrderByIdDesc(T.plusDays(1))).thenReturn(Optional.empty());
+            RenderedPayload empty = service.getNotificationByDatePayload("2026-05-19", null);
+            assertTrue(empty.json().contains("\"batchId\":null"), empty.json());
+            verify(payloadRepository, times(2)).save(any());
+        }
+
+        @Test
+        @DisplayName("通知分组：lastClose 按主键批量取最新 bar 快照（字段增补修正值）；快照交易日晚于筛选日或缺失时沿用筛选时的值")
+        void notification_lastCloseFromLatestBarSnapshot() {
+            when(screeningMatchRepository.findTopByTradeDateOrderByIdDesc(T))
+                    .thenReturn(Optional.of(match(3L, "NVDA", 2, "increasing_volume")));
+            when(screeningMatchRepository.findByBatchIdOrderByIdAsc("b1")).thenReturn(List.of(
+                    match(1L, "AAPL", 2, "increasing_volume"), match(2L, "MSFT", 2, "increasing_volume"),
+                    match(3L, "NVDA", 2, "increasing_volume")));
+            com.stock.invest.entity.SymbolLatestBar aapl = new com.stock.invest.entity.SymbolLatestBar();
+            aapl.setSymbol("AAPL");
+            aapl.setTradeDate(T);
+            aapl.setClosePrice(new java.math.BigDecimal("1.4500"));
+            com.stock.invest.entity.SymbolLatestBar msft = new com.stock.invest.entity.SymbolLatestBar();
+            msft.setSymbol("MSFT");
+            msft.setTradeDate(T.plusDays(1));
+            msft.setClosePrice(new java.math.BigDecimal("9.9900"));
+            when(symbolLatestBarRepository.findAllById(List.of("AAPL", "MSFT", "NVDA"))).thenReturn(List.of(aapl, msft));
+
+            String json = service.getNotificationByDatePayload("2026-05-18", null).json();
+
+            assertTrue(json.contains("{\"symbol\":\"AAPL\",\"lastClose\":1.45,"), json);
+            assertTrue(json.contains("{\"symbol\":\"MSFT\",\"lastClose\":1.23,"), json);
+            assertTrue(json.contains("{\"symbol\":\"NVDA\",\"lastClose\":1.23,"), json);
+            verify(symbolLatestBarRepository, times(1)).findAllById(any());
+        }
     }
 }
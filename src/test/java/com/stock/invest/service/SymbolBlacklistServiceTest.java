@@ -25,6 +25,9 @@ class SymbolBlacklistServiceTest {
     @Mock
     private SymbolBlacklistRepository repository;
 
+    @Mock
+    private SymbolDictionary symbolDictionary;
+
     @InjectMocks
     private SymbolBlacklistService service;
 
@@ -43,6 +46,7 @@ class SymbolBlacklistServiceTest {
         assertEquals("active", saved.getStatus());
         assertNotNull(saved.getSourceErrors());
         assertTrue(saved.getSourceErrors().contains("yfinance"));
+        verify(symbolDictionary).setActive("AAPL", false);
     }
 
     @Test
@@ -133,6 +137,7 @@ class SymbolBlacklistServiceTest {
         ArgumentCaptor<SymbolBlacklist> captor = ArgumentCaptor.forClass(SymbolBlacklist.class);
         verify(repository).save(captor.capture());
         assertEquals("cleared", captor.getValue().getStatus());
+        verify(symbolDictionary).setActive("AAPL", true);
     }
 
     @Test
@@ -0,0 +1,197 @@
+package com.stock.invest.service;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.StockSymbol;
+import com.stock.invest.repository.StockSymbolRepository;
+import com.stock.invest.repository.StockSymbolUpsertWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * SymbolDictionary：整表加载 + 未命中按需补读 + 写事务内合并（首末出现日 / 最新名称，MySQL upsert 或 JPA 回退）
+ * + 提交后更新缓存 + 活跃标记
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SymbolDictionary — symbol 字典缓存")
+class SymbolDictionaryTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 18);
+
+    @Mock private StockSymbolRepository repository;
+    @Mock private StockSymbolUpsertWriter upsertWriter;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SymbolDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new SymbolDictionary(repository, upsertWriter, transactionManager);
+    }
+
+    private static StockSymbol row(int id, String symbol, String name, LocalDate first, LocalDate last) {
+        StockSymbol s = new StockSymbol();
+        s.setId(id);
+        s.setSymbol(symbol);
+        s.setName(name);
+        s.setFirstSeen(first);
+        s.setLastSeen(last);
+        s.setActive(true);
+        return s;
+    }
+
+    private static StockDailyBar bar(String symbol, LocalDate date, String name) {
+        StockDailyBar b = new StockDailyBar();
+        b.setSymbol(symbol);
+        b.setTradeDate(date);
+        b.setName(name);
+        return b;
+    }
+
+    /** saveAll 为新行分配 id（模拟 IDENTITY），原样返回 */
+    @SuppressWarnings("unchecked")
+    private void stubSaveAll(AtomicInteger nextId) {
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<StockSymbol> rows = inv.getArgument(0);
+            rows.forEach(r -> {
+                if (r.getId() == null) {
+                    r.setId(nextId.incrementAndGet());
+                }
+            });
+            return rows;
+        });
+    }
+
+    @Test
+    @DisplayName("SD-01: 就绪加载后名称查缓存不读库；未命中按需补读一次后缓存")
+    void namesOf_loadedAndOnDemand() {
+        when(repository.findAll()).thenReturn(List.of(
+                row(1, "AAA", "Alpha", T.minusDays(30), T),
+                row(2, "BBB", null, T.minusDays(30), T)));
+        when(repository.findBySymbolIn(anyCollection())).thenReturn(List.of(row(3, "CCC", "Gamma", T, T)));
+        dictionary.onApplicationReady();
+
+        assertEquals(Map.of("AAA", "Alpha"), dictionary.namesOf(List.of("AAA", "BBB")));
+        verify(repository, never()).findBySymbolIn(anyCollection());
+
+        assertEquals(Map.of("AAA", "Alpha", "CCC", "Gamma"), dictionary.namesOf(List.of("AAA", "CCC", "ZZZ")));
+        assertEquals(Map.of("CCC", "Gamma"), dictionary.namesOf(List.of("CCC")));
+        verify(repository, times(1)).findBySymbolIn(List.of("CCC", "ZZZ"));
+        assertEquals(3, dictionary.idOf("CCC"));
+        assertEquals("AAA", dictionary.symbolOf(1));
+    }
+
+    @Test
+    @DisplayName("SD-02: JPA 回退合并 — 新代码插入、末次出现日扩展、名称以较新交易日为准；缓存已覆盖的写入不访问库")
+    void record_mergesAndSkipsCovered() {
+        StockSymbol aaa = row(1, "AAA", "Alpha", T.minusDays(30), T.minusDays(1));
+        when(repository.findAll()).thenReturn(List.of(aaa));
+        when(repository.findBySymbolIn(anyCollection())).thenReturn(List.of(aaa));
+        AtomicInteger nextId = new AtomicInteger(10);
+        stubSaveAll(nextId);
+        dictionary.onApplicationReady();
+
+        dictionary.record(List.of(
+                bar("AAA", T, "Alpha Inc"),
+                bar("AAA", T.minusDays(40), "Old Alpha"),
+                bar("NEW", T.minusDays(2), null),
+                bar("NEW", T, "Newco")));
+
+        SymbolDictionary.Entry a = dictionary.get("AAA");
+        assertEquals("Alpha Inc", a.name());
+        assertEquals(T.minusDays(40), a.firstSeen());
+        assertEquals(T, a.lastSeen());
+        SymbolDictionary.Entry n = dictionary.get("NEW");
+        assertEquals(11, n.id());
+        assertEquals("Newco", n.name());
+        assertEquals(T.minusDays(2), n.firstSeen());
+        assertTrue(n.active());
+
+        // 历史日期的旧名称不覆盖；区间与名称均已覆盖 → 不再访问库
+        dictionary.record(List.of(bar("AAA", T.minusDays(5), "Old Alpha"), bar("NEW", T, "Newco")));
+        assertEquals("Alpha Inc", dictionary.get("AAA").name());
+        verify(repository, times(1)).saveAll(anyList());
+        verify(repository, times(1)).findBySymbolIn(anyCollection());
+        verify(upsertWriter, never()).upsert(anyList());
+    }
+
+    @Test
+    @DisplayName("SD-03: MySQL 路径 — 事务内单条 upsert + JDBC 读回，不先读后写；缓存在提交后才更新；失败抛出使写事务回滚")
+    @SuppressWarnings("unchecked")
+    void record_upsertsInTransactionAndCachesAfterCommit() {
+        when(upsertWriter.isAvailable()).thenReturn(true);
+        when(upsertWriter.findBySymbols(anyCollection())).thenReturn(List.of(row(7, "NEW", "Newco", T.minusDays(3), T)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dictionary.record(List.of(bar("NEW", T, "Newco"), bar("NEW", T.minusDays(3), null)));
+
+            ArgumentCaptor<List<StockSymbol>> captor = ArgumentCaptor.forClass(List.class);
+            verify(upsertWriter).upsert(captor.capture());
+            StockSymbol sent = captor.getValue().get(0);
+            assertEquals("Newco", sent.getName());
+            assertEquals(T.minusDays(3), sent.getFirstSeen());
+            assertEquals(T, sent.getLastSeen());
+            verify(repository, never()).findBySymbolIn(anyCollection());
+            verify(repository, never()).saveAll(anyList());
+            assertEquals(0, dictionary.size());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, dictionary.size());
+            assertEquals(7, dictionary.get("NEW").id());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        doThrow(new DataAccessResourceFailureException("db down")).when(upsertWriter).upsert(anyList());
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> dictionary.record(List.of(bar("OTHER", T, null))));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("SD-04: 活跃标记变化才写库并刷新缓存；不在字典中的代码忽略")
+    void setActive_updatesRowAndCache() {
+        StockSymbol aaa = row(1, "AAA", "Alpha", T, T);
+        when(repository.findBySymbol("AAA")).thenReturn(Optional.of(aaa));
+        when(repository.findBySymbol("ZZZ")).thenReturn(Optional.empty());
+        when(repository.save(aaa)).thenReturn(aaa);
+
+        dictionary.setActive("AAA", false);
+        dictionary.setActive("AAA", false);
+        dictionary.setActive("ZZZ", false);
+
+        verify(repository, times(1)).save(aaa);
+        assertFalse(dictionary.get("AAA").active());
+    }
+
+    @Test
+    @DisplayName("SD-05: id → 代码批量反查先查缓存，未命中按主键补读一次后缓存；不存在的 id 不返回")
+    void symbolsOf_cachedAndOnDemand() {
+        when(repository.findAll()).thenReturn(List.of(row(1, "AAA", "Alpha", T, T)));
+        when(repository.findAllById(anyList())).thenReturn(List.of(row(4, "DDD", null, T, T)));
+        dictionary.onApplicationReady();
+
+        assertEquals(Map.of(1, "AAA", 4, "DDD"), dictionary.symbolsOf(List.of(1, 4, 99)));
+        assertEquals(Map.of(4, "DDD"), dictionary.symbolsOf(List.of(4)));
+        verify(repository, times(1)).findAllById(List.of(4, 99));
+    }
+}
@@ -0,0 +1,142 @@
+package com.stock.invest.service;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.SymbolLatestBar;
+import com.stock.invest.model.BarsWrittenEvent;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * SymbolLatestBarMaintainer：日 K 写事务内合并最新 bar 快照（MySQL upsert / JPA 先读后写）、失败随写事务回滚、整表重建
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SymbolLatestBarMaintainer — 最新日 K 快照维护")
+class SymbolLatestBarMaintainerTest {
+
+    private static final LocalDate JUL1 = LocalDate.of(2026, 7, 1);
+    private static final LocalDate JUL2 = LocalDate.of(2026, 7, 2);
+    private static final LocalDate JUL6 = LocalDate.of(2026, 7, 6);
+
+    @Mock private SymbolLatestBarRepository repository;
+    @Mock private SymbolLatestBarUpsertWriter upsertWriter;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SymbolLatestBarMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        maintainer = new SymbolLatestBarMaintainer(repository, upsertWriter, transactionManager);
+    }
+
+    private static StockDailyBar bar(String symbol, LocalDate date, String close) {
+        StockDailyBar bar = new StockDailyBar();
+        bar.setSymbol(symbol);
+        bar.setTradeDate(date);
+        bar.setClosePrice(new BigDecimal(close));
+        bar.setVolume(1000L);
+        bar.setSource("alpaca");
+        return bar;
+    }
+
+    private static SymbolLatestBar row(String symbol, LocalDate date, String close) {
+        SymbolLatestBar row = new SymbolLatestBar();
+        row.setSymbol(symbol);
+        row.setTradeDate(date);
+        row.setClosePrice(new BigDecimal(close));
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SymbolLatestBar> savedRows() {
+        ArgumentCaptor<List<SymbolLatestBar>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    @DisplayName("SLB-01: 无行别名 upsert 时 JPA 合并 —— 每个 symbol 取本次写入交易日最大的一根；更新交易日覆盖、同日覆盖、更早交易日不改快照、新代码插入")
+    void record_mergesLatestPerSymbol() {
+        when(repository.findAllById(anyList())).thenReturn(List.of(
+                row("AAA", JUL2, "10"), row("BBB", JUL6, "20"), row("CCC", JUL2, "30")));
+
+        maintainer.record(List.of(
+                bar("AAA", JUL6, "11"), bar("AAA", JUL1, "9"),
+                bar("BBB", JUL2, "19"),
+                bar("CCC", JUL2, "31"),
+                bar("DDD", JUL1, "5")));
+
+        Map<String, SymbolLatestBar> saved = new HashMap<>();
+        savedRows().forEach(r -> saved.put(r.getSymbol(), r));
+        assertEquals(3, saved.size());
+        assertEquals(JUL6, saved.get("AAA").getTradeDate());
+        assertEquals(new BigDecimal("11"), saved.get("AAA").getClosePrice());
+        assertFalse(saved.containsKey("BBB"));
+        assertEquals(new BigDecimal("31"), saved.get("CCC").getClosePrice());
+        assertEquals(JUL1, saved.get("DDD").getTradeDate());
+        assertEquals("alpaca", saved.get("DDD").getSource());
+        verify(upsertWriter, never()).upsert(anyList());
+    }
+
+    @Test
+    @DisplayName("SLB-02: MySQL 上写事务内一条 upsert（每 symbol 一行、同日后写为准），不先读后写；失败直接抛出使日 K 写入回滚")
+    @SuppressWarnings("unchecked")
+    void onBarsWritten_upsertsInTransaction() {
+        when(upsertWriter.isAvailable()).thenReturn(true);
+        StockDailyBar sameDayLater = bar("AAA", JUL6, "12");
+
+        maintainer.onBarsWritten(new BarsWrittenEvent(List.of(
+                bar("AAA", JUL6, "11"), bar("AAA", JUL1, "9"), sameDayLater, bar("BBB", JUL2, "19"))));
+
+        ArgumentCaptor<List<StockDailyBar>> captor = ArgumentCaptor.forClass(List.class);
+        verify(upsertWriter).upsert(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertSame(sameDayLater, captor.getValue().get(0));
+        assertEquals("BBB", captor.getValue().get(1).getSymbol());
+        verifyNoInteractions(repository, transactionManager);
+
+        when(upsertWriter.upsert(anyList())).thenThrow(new DataAccessResourceFailureException("db down"));
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> maintainer.onBarsWritten(new BarsWrittenEvent(List.of(bar("AAA", JUL6, "11")))));
+    }
+
+    @Test
+    @DisplayName("SLB-03: 超过 LOOKUP_CHUNK 个 symbol 时分批读取现有快照；整表重建先删后插")
+    void record_chunksLookupAndRebuild() {
+        List<StockDailyBar> bars = new ArrayList<>();
+        for (int i = 0; i < SymbolLatestBarMaintainer.LOOKUP_CHUNK + 1; i++) {
+            bars.add(bar("S" + i, JUL2, "1"));
+        }
+        when(repository.findAllById(anyList())).thenReturn(List.of());
+
+        maintainer.record(bars);
+        verify(repository, times(2)).findAllById(anyList());
+        assertEquals(SymbolLatestBarMaintainer.LOOKUP_CHUNK + 1, savedRows().size());
+
+        when(repository.insertFromDailyBars()).thenReturn(42);
+        Map<String, Object> summary = maintainer.rebuild();
+        var order = inOrder(repository);
+        order.verify(repository).deleteAllRows();
+        order.verify(repository).insertFromDailyBars();
+        assertEquals(42, summary.get("symbols"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.stock.invest.service;
+
+import com.stock.invest.entity.TradingCalendarEntity;
+import com.stock.invest.model.TradingCalendarResult;
+import com.stock.invest.repository.TradingCalendarRepository;
+import com.stock.invest.service.impl.TradingCalendarFallback;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * TradingCalendarDbService：启动加载内存快照 + 快照命中零 DB 调用 + 入库后快照替换 + 整年区间同步
+ */
+@ExtendWith(MockitoExtension.class)
+class TradingCalendarDbServiceTest {
+
+    @Mock private TradingCalendarRepository repository;
+    @Mock private TradingCalendarFallback fallback;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private TradingCalendarDbService service;
+
+    private static TradingCalendarEntity row(LocalDate date, boolean open) {
+        TradingCalendarEntity e = new TradingCalendarEntity();
+        e.setMarket("US");
+        e.setTradeDate(date);
+        e.setIsOpen(open);
+        e.setSource("alpaca");
+        e.setType(open ? "TRADING" : "HOLIDAY");
+        return e;
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAll()).thenReturn(List.of(
+                row(LocalDate.of(2026, 7, 2), true),
+                row(LocalDate.of(2026, 7, 3), false),
+                row(LocalDate.of(2026, 7, 4), false),
+                row(LocalDate.of(2026, 7, 5), false),
+                row(LocalDate.of(2026, 7, 6), true)));
+        service = new TradingCalendarDbService(repository, fallback, transactionManager);
+        service.load();
+    }
+
+    @Test
+    @DisplayName("快照命中：isTradingDay / 前后交易日 / 区间均不访问 DB 与 fallback")
+    void snapshotHit_noDbCalls() {
+        assertEquals(Boolean.FALSE, service.isTradingDay("US", LocalDate.of(2026, 7, 3)));
+        assertEquals(Boolean.TRUE, service.isTradingDay("US", LocalDate.of(2026, 7, 6)));
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 2)),
+                service.findPreviousTradingDay("US", LocalDate.of(2026, 7, 6), 14));
+        assertEquals(Optional.of(LocalDate.of(2026, 7, 6)),
+                service.findNextTradingDay("US", LocalDate.of(2026, 7, 2), 14));
+        List<TradingCalendarEntity> range = service.getRange("US", LocalDate.of(2026, 7, 1), LocalDate.of(2026, 7, 31));
+        assertEquals(5, range.size());
+        assertEquals(LocalDate.of(2026, 7, 2), range.get(0).getTradeDate());
+
+        verify(repository, times(1)).findAll();
+        verifyNoMoreInteractions(repository);
+        verifyNoInteractions(fallback);
+    }
+
+    @Test
+    @DisplayName("快照未命中：fallback 查询 → upsert 入库 → 快照替换，再查不再走 fallback")
+    void snapshotMiss_fallbackUpsertAndPublish() {
+        LocalDate date = LocalDate.of(2026, 7, 7);
+        when(fallback.isTradingDay("US", date))
+                .thenReturn(TradingCalendarResult.trading("US", date, "tiger", "TRADING"));
+
+        assertEquals(Boolean.TRUE, service.isTradingDay("US", date));
+        assertEquals(Boolean.TRUE, service.isTradingDay("US", date));
+
+        verify(fallback, times(1)).isTradingDay("US", date);
+        verify(repository, times(1)).upsert(eq("US"), eq(date), eq(true), eq("tiger"), eq("TRADING"), any());
+        assertEquals(Optional.of(date), service.findNextTradingDay("US", LocalDate.of(2026, 7, 6), 14));
+    }
+
+    @Test
+    @DisplayName("数据源不可用：返回 null 且不入库、不污染快照")
+    void allSourcesDown_returnsNull() {
+        LocalDate date = LocalDate.of(2026, 8, 3);
+        when(fallback.isTradingDay("US", date)).thenReturn(null);
+
+        assertNull(service.isTradingDay("US", date));
+        verify(repository, never()).upsert(anyString(), any(), anyBoolean(), any(), any(), any());
+        assertNull(service.getSnapshot("US").isOpen(date));
+    }
+
+    @Test
+    @DisplayName("未加载市场：空快照，getYearCalendar 为空、isYearCompleteInDb=false")
+    void unknownMarket_emptySnapshot() {
+        assertTrue(service.getYearCalendar("HK", 2026).isEmpty());
+        assertFalse(service.isYearCompleteInDb("HK", 2026));
+        assertEquals(Optional.empty(), service.findPreviousTradingDay("HK", LocalDate.of(2026, 7, 6), 14));
+    }
+
+    @Test
+    @DisplayName("整年同步：区间源一次返回 → 单次批量 upsert，不逐日查询")
+    void fetchFullYear_rangeSourceSingleBatch() {
+        LocalDate start = LocalDate.of(2027, 1, 1);
+        LocalDate end = LocalDate.of(2027, 12, 31);
+        List<TradingCalendarResult> year = TradingCalendarResult.fromOpenDays(
+                "US", start, end, Map.of(LocalDate.of(2027, 1, 4), "TRADING"), "alpaca");
+        when(fallback.getTradingCalendar("US", start, end)).thenReturn(year);
+        when(repository.upsertAll("US", year)).thenReturn(365);
+
+        assertEquals(365, service.fetchAndStoreFullYear("US", 2027));
+
+        verify(repository, times(1)).upsertAll("US", year);
+        verify(fallback, never()).isTradingDay(anyString(), any());
+        assertTrue(service.isYearCompleteInDb("US", 2027));
+        assertEquals(Boolean.TRUE, service.isTradingDay("US", LocalDate.of(2027, 1, 4)));
+    }
+
+    @Test
+    @DisplayName("整年同步：无区间源 → 退回逐日 fallback")
+    void fetchFullYear_noRangeSource_perDay() {
+        when(fallback.getTradingCalendar(anyString(), any(), any())).thenReturn(null);
+        when(fallback.isTradingDay(eq("US"), any())).thenAnswer(inv ->
+                TradingCalendarResult.trading("US", inv.getArgument(1), "tigeropen", "TRADING"));
+        when(repository.upsert(anyString(), any(), anyBoolean(), any(), any(), any())).thenReturn(1);
+
+        assertEquals(365, service.fetchAndStoreFullYear("US", 2027));
+        verify(repository, never()).upsertAll(anyString(), any());
+    }
+}
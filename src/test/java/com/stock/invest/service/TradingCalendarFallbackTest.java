@@ -3,6 +3,7 @@ package com.stock.invest.service;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.stock.invest.model.TradingCalendarResult;
 import com.stock.invest.service.impl.AlpacaCalendarService;
+import com.stock.invest.service.impl.NyseHolidayCalendarService;
 import com.stock.invest.service.impl.TigerOpenCalendarService;
 import com.stock.invest.service.impl.TradingCalendarFallback;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +14,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,12 +24,14 @@ import static org.mockito.Mockito.*;
  * TradingCalendarFallback 编排 + 缓存测试。
  *
  * 2026-08-14：Tiger Java 数据源已删除，fallback 链 = TigerOpen -> Alpaca -> DEFAULT。
+ * 离线规则源（链末位）在既有用例中以 mock 不可用代入，保持"全源不可用"语义；FT-24 起覆盖真实规则源。
  */
 @ExtendWith(MockitoExtension.class)
 class TradingCalendarFallbackTest {
 
     @Mock private TigerOpenCalendarService tigerOpen;
     @Mock private AlpacaCalendarService alpaca;
+    @Mock private NyseHolidayCalendarService rules;
 
     private TradingCalendarFallback fallback;
     private static final LocalDate DATE = LocalDate.of(2026, 6, 1);
@@ -36,7 +41,7 @@ class TradingCalendarFallbackTest {
     void setUp() {
         lenient().when(tigerOpen.getSourceName()).thenReturn("tigeropen");
         lenient().when(alpaca.getSourceName()).thenReturn("alpaca");
-        fallback = new TradingCalendarFallback(tigerOpen, alpaca);
+        fallback = new TradingCalendarFallback(tigerOpen, alpaca, rules);
     }
 
     // ======= 正常 Fallback 链 =======
@@ -213,4 +218,136 @@ class TradingCalendarFallbackTest {
     void getSourceName() {
         assertEquals("fallback", fallback.getSourceName());
     }
+
+    @Test @DisplayName("FT-22: 区间查询 TigerOpen 不支持 -> Alpaca 整段返回，周末归一为 system 并逐日入缓存")
+    void rangeQuery_fallsBackToAlpacaAndCaches() {
+        LocalDate start = LocalDate.of(2026, 5, 29);   // Fri
+        LocalDate end = LocalDate.of(2026, 6, 1);      // Mon
+        when(tigerOpen.isAvailable()).thenReturn(true);
+        when(tigerOpen.getTradingCalendar("US", start, end)).thenReturn(null);
+        when(alpaca.isAvailable()).thenReturn(true);
+        when(alpaca.getTradingCalendar("US", start, end)).thenReturn(TradingCalendarResult.fromOpenDays(
+                "US", start, end, Map.of(start, "TRADING", end, "TRADING"), "alpaca"));
+
+        List<TradingCalendarResult> days = fallback.getTradingCalendar("US", start, end);
+
+        assertEquals(4, days.size());
+        assertEquals("system", days.get(1).getSource());
+        assertEquals("WEEKEND", days.get(1).getType());
+        assertEquals("alpaca", days.get(3).getSource());
+        // 逐日查询命中缓存，不再打源
+        assertTrue(fallback.isTradingDay("US", end).isTradingDay());
+        verify(alpaca, never()).isTradingDay(any(), any());
+        verify(tigerOpen, never()).isTradingDay(any(), any());
+    }
+
+    @Test @DisplayName("FT-23: 区间查询全部源不支持 -> null")
+    void rangeQuery_noSource_returnsNull() {
+        when(tigerOpen.isAvailable()).thenReturn(false);
+        when(alpaca.isAvailable()).thenReturn(true);
+        when(alpaca.getTradingCalendar(any(), any(), any())).thenReturn(null);
+        assertNull(fallback.getTradingCalendar("US", DATE, DATE2));
+    }
+
+    @Test @DisplayName("FT-24: 供应商全挂 -> 离线规则兜底（US 节假日可判定）")
+    void vendorsDown_rulesAnswer() {
+        TradingCalendarFallback withRules =
+                new TradingCalendarFallback(tigerOpen, alpaca, new NyseHolidayCalendarService());
+        when(tigerOpen.isAvailable()).thenReturn(false);
+        when(alpaca.isAvailable()).thenReturn(false);
+
+        TradingCalendarResult goodFriday = withRules.isTradingDay("US", LocalDate.of(2026, 4, 3));
+        assertFalse(goodFriday.isTradingDay());
+        assertEquals("rules", goodFriday.getSource());
+        assertTrue(withRules.isTradingDay("US", DATE).isTradingDay());
+        assertNull(withRules.isTradingDay("HK", DATE));
+        assertEquals(365, withRules.getTradingCalendar("US", LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31)).size());
+    }
+
+    @Test @DisplayName("FT-25: 供应商与规则不一致 -> 以供应商为准（仅告警）")
+    void vendorDisagreesWithRules_vendorWins() {
+        TradingCalendarFallback withRules =
+                new TradingCalendarFallback(tigerOpen, alpaca, new NyseHolidayCalendarService());
+        LocalDate july3 = LocalDate.of(2026, 7, 3);   // 规则：独立日观察日休市
+        when(tigerOpen.isAvailable()).thenReturn(true);
+        when(tigerOpen.isTradingDay("US", july3))
+                .thenReturn(TradingCalendarResult.trading("US", july3, "tigeropen", "TRADING"));
+
+        TradingCalendarResult r = withRules.isTradingDay("US", july3);
+        assertTrue(r.isTradingDay());
+        assertEquals("tigeropen", r.getSource());
+    }
+
+    /** 2026 全年按规则推算的开盘日（供应商桩数据的基准） */
+    private static Map<LocalDate, String> ruleOpenDays(LocalDate start, LocalDate end) {
+        Map<LocalDate, String> open = new java.util.LinkedHashMap<>();
+        for (TradingCalendarResult r : new NyseHolidayCalendarService().getTradingCalendar("US", start, end)) {
+            if (r.isTradingDay()) {
+                open.put(r.getDate(), r.getType());
+            }
+        }
+        return open;
+    }
+
+    @Test @DisplayName("FT-26: 区间内有工作日但供应商无开盘日（未发布年份）-> fromOpenDays 返回 null，不展开成 HOLIDAY")
+    void fromOpenDays_emptyResponse_isUnavailable() {
+        LocalDate start = LocalDate.of(2027, 1, 1);
+        LocalDate end = LocalDate.of(2027, 12, 31);
+        assertNull(TradingCalendarResult.fromOpenDays("US", start, end, Map.of(), "alpaca"));
+        // 纯周末区间无开盘日属正常
+        LocalDate sat = LocalDate.of(2026, 5, 30);
+        assertEquals(2, TradingCalendarResult.fromOpenDays("US", sat, sat.plusDays(1), Map.of(), "alpaca").size());
+    }
+
+    @Test @DisplayName("FT-27: 供应商区间截断（最后开盘日早于规则）-> 拒绝并 fallback 到下一源")
+    void rangeQuery_truncatedVendor_fallsThrough() {
+        TradingCalendarFallback withRules =
+                new TradingCalendarFallback(tigerOpen, alpaca, new NyseHolidayCalendarService());
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        LocalDate end = LocalDate.of(2026, 12, 31);
+        Map<LocalDate, String> firstHalf = new java.util.LinkedHashMap<>(ruleOpenDays(start, end));
+        firstHalf.keySet().removeIf(d -> d.isAfter(LocalDate.of(2026, 6, 30)));
+        when(tigerOpen.isAvailable()).thenReturn(true);
+        when(tigerOpen.getTradingCalendar("US", start, end))
+                .thenReturn(TradingCalendarResult.fromOpenDays("US", start, end, firstHalf, "tigeropen"));
+        when(alpaca.isAvailable()).thenReturn(true);
+        when(alpaca.getTradingCalendar("US", start, end))
+                .thenReturn(TradingCalendarResult.fromOpenDays("US", start, end, ruleOpenDays(start, end), "alpaca"));
+
+        List<TradingCalendarResult> days = withRules.getTradingCalendar("US", start, end);
+
+        assertEquals(365, days.size());
+        TradingCalendarResult dec1 = days.get(LocalDate.of(2026, 12, 1).getDayOfYear() - 1);
+        assertTrue(dec1.isTradingDay());
+        assertEquals("alpaca", dec1.getSource());
+    }
+
+    @Test @DisplayName("FT-28: 与规则不一致的工作日 ≤2 天以供应商为准；超过则拒绝，由规则兜底")
+    void rangeQuery_ruleDisagreement() {
+        TradingCalendarFallback withRules =
+                new TradingCalendarFallback(tigerOpen, alpaca, new NyseHolidayCalendarService());
+        LocalDate start = LocalDate.of(2026, 7, 1);
+        LocalDate end = LocalDate.of(2026, 7, 31);
+        Map<LocalDate, String> oneOff = new java.util.LinkedHashMap<>(ruleOpenDays(start, end));
+        oneOff.put(LocalDate.of(2026, 7, 3), "TRADING");            // 规则：独立日观察日休市
+        when(alpaca.isAvailable()).thenReturn(true);
+        when(alpaca.getTradingCalendar("US", start, end))
+                .thenReturn(TradingCalendarResult.fromOpenDays("US", start, end, oneOff, "alpaca"));
+
+        List<TradingCalendarResult> days = withRules.getTradingCalendar("US", start, end);
+        assertTrue(days.get(2).isTradingDay());
+        assertEquals("alpaca", days.get(2).getSource());
+
+        Map<LocalDate, String> manyOff = new java.util.LinkedHashMap<>(ruleOpenDays(start, end));
+        manyOff.remove(LocalDate.of(2026, 7, 7));
+        manyOff.remove(LocalDate.of(2026, 7, 8));
+        manyOff.remove(LocalDate.of(2026, 7, 9));
+        LocalDate start2 = start.plusDays(1);
+        when(alpaca.getTradingCalendar("US", start2, end))
+                .thenReturn(TradingCalendarResult.fromOpenDays("US", start2, end, manyOff, "alpaca"));
+
+        days = withRules.getTradingCalendar("US", start2, end);
+        assertTrue(days.get(5).isTradingDay());                    // 07-07 按规则开盘
+        assertEquals("rules", days.get(5).getSource());
+    }
 }
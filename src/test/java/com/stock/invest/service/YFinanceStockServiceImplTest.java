@@ -2,6 +2,15 @@ package com.stock.invest.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +19,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stock.invest.model.KLineData;
 import com.stock.invest.model.StockInfo;
 import com.stock.invest.service.impl.YFinanceStockServiceImpl;
@@ -38,4 +48,26 @@ class YFinanceStockServiceImplTest {
         info.setVolume(3_500_000_000L);
         assertEquals(3_500_000_000L, info.getVolume());
     }
+
+    @Test
+    @DisplayName("getAfterHoursKLineDataByDates: one script call resolves every requested date")
+    void afterHoursByDates_singleScriptCall() throws Exception {
+        YFinanceStockServiceImpl yf = new YFinanceStockServiceImpl(new ObjectMapper(), pythonScriptExecutor);
+        when(pythonScriptExecutor.executeScript(eq("stock_info_yfinance.py"), eq("get_after_hours_prices"),
+                eq("JSPR"), eq("2026-08-12,2026-08-13")))
+                .thenReturn("{\"symbol\":\"JSPR\",\"items\":["
+                        + "{\"date\":\"2026-08-12\",\"afterHours\":0.81,\"afterHoursChangePercent\":null},"
+                        + "{\"date\":\"2026-08-13\",\"afterHours\":0.87,\"afterHoursChangePercent\":1.25}]}");
+
+        KLineData data = yf.getAfterHoursKLineDataByDates("JSPR",
+                List.of(LocalDate.of(2026, 8, 13), LocalDate.of(2026, 8, 12)));
+
+        assertEquals(2, data.getItems().size());
+        assertEquals("2026-08-12", data.getItems().get(0).getTimeString());
+        assertEquals(0, new BigDecimal("0.81").compareTo(data.getItems().get(0).getClose()));
+        assertNull(data.getItems().get(0).getAfterHoursChangePercent());
+        assertEquals(0, new BigDecimal("1.25").compareTo(data.getItems().get(1).getAfterHoursChangePercent()));
+        verify(pythonScriptExecutor, times(1)).executeScript(eq("stock_info_yfinance.py"),
+                eq("get_after_hours_prices"), eq("JSPR"), eq("2026-08-12,2026-08-13"));
+    }
 }
@@ -0,0 +1,224 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.config.ScreeningProperties;
+import com.stock.invest.entity.TradingCalendarEntity;
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.BacktestMatchRepository;
+import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.service.TradingCalendarDbService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BacktestServiceImpl — 历史回测")
+class BacktestServiceImplTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 5, 13);
+    private static final LocalDate TO = LocalDate.of(2026, 5, 15);
+
+    @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private BacktestMatchRepository backtestMatchRepository;
+    @Mock private TradingCalendarDbService tradingCalendarDbService;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private BacktestServiceImpl service;
+
+    /** 捕获的 INSERT 参数，每行 9 列 */
+    private final List<Object> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new BacktestServiceImpl(stockDailyBarRepository, backtestMatchRepository,
+                tradingCalendarDbService, jdbcTemplate, new ScreeningProperties(), transactionManager);
+        // 工作日全部开盘
+        lenient().when(tradingCalendarDbService.getRange(eq("US"), any(), any())).thenAnswer(inv -> {
+            List<TradingCalendarEntity> entries = new ArrayList<>();
+            for (LocalDate d = inv.getArgument(1); !d.isAfter(inv.getArgument(2)); d = d.plusDays(1)) {
+                TradingCalendarEntity e = new TradingCalendarEntity();
+                e.setTradeDate(d);
+                e.setIsOpen(d.getDayOfWeek().getValue() <= 5);
+                entries.add(e);
+            }
+            return entries;
+        });
+        lenient().when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenAnswer(inv -> {
+            Object[] args = inv.getArguments();
+            inserted.addAll(Arrays.asList(args).subList(1, args.length));
+            return (args.length - 1) / 9;
+        });
+    }
+
+    /** 2026-05-04 起的工作日 bar，成交量按给定序列 */
+    private static List<ScreeningBar> weekdayBars(String symbol, long... volumes) {
+        List<ScreeningBar> bars = new ArrayList<>();
+        LocalDate d = LocalDate.of(2026, 5, 4);
+        for (long v : volumes) {
+            while (d.getDayOfWeek().getValue() > 5) {
+                d = d.plusDays(1);
+            }
+            bars.add(new ScreeningBar(symbol, d, "tiger", new BigDecimal("10.00"), new BigDecimal("11.00"), v));
+            d = d.plusDays(1);
+        }
+        return bars;
+    }
+
+    @Test
+    @DisplayName("BT-01: 参数校验 — 缺日期 / 起点晚于终点 / 超出最大区间 / 窗口越界均拒绝")
+    void validate_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> service.validate(null, TO, null));
+        assertThrows(IllegalArgumentException.class, () -> service.validate(TO, FROM, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.validate(TO.minusDays(BacktestServiceImpl.MAX_RANGE_DAYS), TO, null));
+        assertThrows(IllegalArgumentException.class, () -> service.validate(FROM, TO, 8));
+        assertThrows(IllegalArgumentException.class, () -> service.runBacktest("bt", FROM, TO, 1));
+        service.validate(TO.minusDays(BacktestServiceImpl.MAX_RANGE_DAYS - 1), TO, 7);
+    }
+
+    @Test
+    @DisplayName("BT-02: 单遍滑动 — 只输出区间内筛选日的命中，区间前的 bar 仅作回看；收盘价缺失的筛选日跳过")
+    void run_emitsMatchesWithinRange() {
+        List<ScreeningBar> rows = new ArrayList<>(weekdayBars("AAA",
+                1000, 2000, 3000, 4000, 5000, 6000, 7000, 8000, 9000, 10000));
+        List<ScreeningBar> flat = weekdayBars("BBB", 5, 5, 5, 5, 5, 5, 5, 5, 5, 5);
+        rows.addAll(flat);
+        List<ScreeningBar> noClose = weekdayBars("CCC", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        ScreeningBar last = noClose.get(noClose.size() - 1);
+        noClose.set(noClose.size() - 1,
+                new ScreeningBar("CCC", last.tradeDate(), "tiger", null, null, last.volume()));
+        rows.addAll(noClose);
+        when(stockDailyBarRepository.findAllSymbols()).thenReturn(List.of("AAA", "BBB", "CCC"));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), eq(FROM.minusDays(9)), eq(TO))).thenReturn(rows);
+
+        Map<String, Object> summary = service.runBacktest("bt-1", FROM, TO, null);
+
+        // AAA: 5/13~5/15 各 6 个窗口递增；CCC: 5/13、5/14 各 6 个，5/15 无收盘价跳过；BBB 平量无命中
+        assertEquals(30L, summary.get("matches"));
+        assertEquals(30 * 9, inserted.size());
+        Map<String, Integer> perSymbolDate = new TreeMap<>();
+        for (int i = 0; i < inserted.size(); i += 9) {
+            assertEquals("bt-1", inserted.get(i));
+            assertEquals("increasing_volume", inserted.get(i + 4));
+            assertEquals(true, inserted.get(i + 7));
+            perSymbolDate.merge(inserted.get(i + 2) + "@" + inserted.get(i + 1), 1, Integer::sum);
+        }
+        assertEquals(Map.of(
+                "AAA@" + Date.valueOf("2026-05-13"), 6,
+                "AAA@" + Date.valueOf("2026-05-14"), 6,
+                "AAA@" + Date.valueOf("2026-05-15"), 6,
+                "CCC@" + Date.valueOf("2026-05-13"), 6,
+                "CCC@" + Date.valueOf("2026-05-14"), 6), perSymbolDate);
+        assertFalse(service.isRunning());
+    }
+
+    @Test
+    @DisplayName("BT-03: 指定窗口只输出该窗口；运行期间再次触发返回 null")
+    void run_singleWindowAndMutualExclusion() {
+        when(stockDailyBarRepository.findAllSymbols()).thenAnswer(inv -> {
+            assertNull(service.runBacktest("bt-concurrent", FROM, TO, null));
+            return List.of("AAA");
+        });
+        when(stockDailyBarRepository.findScreeningBars(anyList(), any(), any()))
+                .thenReturn(weekdayBars("AAA", 1000, 2000, 3000, 4000, 5000, 6000, 7000, 8000, 9000, 10000));
+
+        Map<String, Object> summary = service.runBacktest("bt-3", FROM, TO, 3);
+
+        assertEquals(3L, summary.get("matches"));
+        for (int i = 0; i < inserted.size(); i += 9) {
+            assertEquals(3, inserted.get(i + 3));
+        }
+    }
+
+    @Test
+    @DisplayName("BT-04: 运行失败删除本回测已写入的行并抛出")
+    void run_failureRemovesPartialRows() {
+        when(stockDailyBarRepository.findAllSymbols()).thenReturn(List.of("AAA"));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), any(), any()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> service.runBacktest("bt-4", FROM, TO, null));
+
+        verify(jdbcTemplate).update("DELETE FROM backtest_match WHERE backtest_id = ?", "bt-4");
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+        assertFalse(service.isRunning());
+    }
+
+    @Test
+    @DisplayName("BT-05: 参数扫描 — 一次读取按组合计数，命中数与同阈值回测一致；区间后的 bar 只用于前瞻收益")
+    @SuppressWarnings("unchecked")
+    void sweep_countsPerCombinationWithForwardReturns() {
+        List<ScreeningBar> rows = new ArrayList<>(weekdayBars("AAA",
+                1000, 2000, 3000, 4000, 5000, 6000, 7000, 8000, 9000, 10000));
+        // 区间后一根：5/15 命中的 t+1 收益 +10%；成交量极小，即使参与扫描也不会命中
+        rows.add(new ScreeningBar("AAA", LocalDate.of(2026, 5, 18), "tiger",
+                new BigDecimal("11.00"), new BigDecimal("12.10"), 1L));
+        when(stockDailyBarRepository.findAllSymbols()).thenReturn(List.of("AAA"));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), eq(FROM.minusDays(9)),
+                eq(TO.plusDays(ForwardReturnServiceImpl.FORWARD_CALENDAR_DAYS)))).thenReturn(rows);
+
+        // 相邻窗口均量之比最小 8000 / 7500 ≈ 1.067：步进 0.1 时全部落空
+        Map<String, Object> result = service.runSweep("sw-1", FROM, TO, null,
+                List.of(PatternParams.DEFAULT, new PatternParams(5.0, 0.1)));
+
+        assertEquals("DONE", result.get("status"));
+        assertEquals(result, service.getSweep("sw-1"));
+        List<Map<String, Object>> combinations = (List<Map<String, Object>>) result.get("combinations");
+        assertEquals(2, combinations.size());
+        // 与 BT-02 的 AAA 一致：5/13~5/15 各 6 个窗口递增
+        assertEquals(18L, combinations.get(0).get("matches"));
+        assertEquals(0L, combinations.get(1).get("matches"));
+        assertEquals(0.1, combinations.get(1).get("increasingMinStep"));
+
+        List<Map<String, Object>> groups = (List<Map<String, Object>>) combinations.get(0).get("results");
+        assertEquals(6, groups.size());
+        Map<String, Object> t1 = (Map<String, Object>) ((Map<String, Object>) groups.get(0).get("returns")).get("t+1");
+        assertEquals(3L, t1.get("samples"));
+        assertEquals(0.033333, (double) t1.get("avgReturn"), 1e-9);   // (0 + 0 + 10%) / 3
+        Map<String, Object> t5 = (Map<String, Object>) ((Map<String, Object>) groups.get(0).get("returns")).get("t+5");
+        assertEquals(3L, t5.get("pending"));
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+        assertFalse(service.isRunning());
+    }
+
+    @Test
+    @DisplayName("BT-06: 参数扫描校验 — 组合为空或超过上限拒绝；未知 sweepId 返回 null")
+    void sweep_validation() {
+        assertThrows(IllegalArgumentException.class, () -> service.validateGrid(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> service.validateGrid(
+                Collections.nCopies(BacktestServiceImpl.MAX_SWEEP_COMBINATIONS + 1, PatternParams.DEFAULT)));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.runSweep("sw-2", TO, FROM, null, List.of(PatternParams.DEFAULT)));
+        service.validateGrid(Collections.nCopies(BacktestServiceImpl.MAX_SWEEP_COMBINATIONS, PatternParams.DEFAULT));
+        assertNull(service.getSweep("unknown"));
+    }
+}
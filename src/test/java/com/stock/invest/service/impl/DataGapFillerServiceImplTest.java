@@ -6,6 +6,8 @@ import com.stock.invest.entity.StockDailyBar;
 import com.stock.invest.exception.StockDataException;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.DataFillProgressService;
 import com.stock.invest.service.DataSourceStrategy;
 import org.junit.jupiter.api.BeforeEach;
@@ -38,6 +40,10 @@ class DataGapFillerServiceImplTest {
     @Mock
     private StockDailyBarRepository stockDailyBarRepository;
     @Mock
+    private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock
+    private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
+    @Mock
     private DataFillTaskRepository dataFillTaskRepository;
     @Mock
     private DataSourceStrategy tigerDataSource;
@@ -116,7 +122,7 @@ class DataGapFillerServiceImplTest {
                 tradingCalendarDbService,
                 stockDataSourcePriorityService,
                 symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
     }
 
     private LocalDate nyToday() {
@@ -983,4 +989,31 @@ class DataGapFillerServiceImplTest {
         assertDoesNotThrow(() -> service.fillGaps());
         verify(stockDailyBarRepository, times(2)).findAllSymbols();
     }
+
+    @Test
+    @DisplayName("最新 bar 快照（MySQL 事务内 upsert）：候选 symbol 由快照按 min-price-threshold 一次筛出，不再取全部 symbol 逐个判断")
+    void candidatesFromLatestBarSnapshot() {
+        java.math.BigDecimal threshold = java.math.BigDecimal.valueOf(1.0);
+        when(symbolLatestBarUpsertWriter.isAvailable()).thenReturn(true);
+        when(gapFillProperties.getMinPriceThreshold()).thenReturn(threshold);
+        when(symbolLatestBarRepository.findSymbolsWithCloseAtMost(threshold)).thenReturn(List.of("PENNY"));
+        when(stockDailyBarRepository.findBySymbolOrderByTradeDateDesc(eq("PENNY"), any())).thenReturn(List.of());
+
+        service.fillGaps();
+
+        verify(stockDailyBarRepository, never()).findAllSymbols();
+        verify(stockDailyBarRepository).findBySymbolOrderByTradeDateDesc(eq("PENNY"), any());
+    }
+
+    @Test
+    @DisplayName("非 MySQL 库（快照走 JPA 合并）：候选回退 stock_daily_bar 全部 symbol，不查快照")
+    void candidatesFallBackToAllSymbolsWithoutUpsert() {
+        when(symbolLatestBarUpsertWriter.isAvailable()).thenReturn(false);
+        when(stockDailyBarRepository.findAllSymbols()).thenReturn(List.of());
+
+        service.fillGaps();
+
+        verify(stockDailyBarRepository).findAllSymbols();
+        verifyNoInteractions(symbolLatestBarRepository);
+    }
 }
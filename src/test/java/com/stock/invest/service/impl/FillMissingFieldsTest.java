@@ -7,6 +7,8 @@ import com.stock.invest.model.KLineData;
 import com.stock.invest.model.KLineIterator;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.DataFillProgressService;
 import com.stock.invest.service.DataSourceStrategy;
 import com.stock.invest.service.FieldCapabilityService;
@@ -42,6 +44,8 @@ class FillMissingFieldsTest {
     private static final LocalDate TRADE_DATE = LocalDate.of(2026, 8, 13);
 
     @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     @Mock private DataFillTaskRepository dataFillTaskRepository;
     @Mock private GapFillProperties gapFillProperties;
     @Mock private DataFillProgressService dataFillProgressService;
@@ -61,10 +65,12 @@ class FillMissingFieldsTest {
                 stockDailyBarRepository, dataFillTaskRepository, List.of(yfinanceSource),
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
                 stockDataSourcePriorityService, symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
 
         lenient().when(yfinanceSource.getSourceName()).thenReturn("yfinance");
         lenient().when(yfinanceSource.isAvailable()).thenReturn(true);
+        lenient().when(yfinanceSource.supportsDailyKLineBatch()).thenReturn(true);
+        lenient().when(yfinanceSource.supportsAfterHoursKLineBatch()).thenReturn(true);
         // yfinance 支持盘后（supportsAfterHoursMerge）
         lenient().when(fieldCapabilityService.isMarkable(anyString(), anyString())).thenReturn(false);
         lenient().when(fieldCapabilityService.isMarkable("yfinance", "after_hours")).thenReturn(true);
@@ -87,6 +93,36 @@ class FillMissingFieldsTest {
         return b;
     }
 
+    /** 按 (symbol, source) 聚簇桩住增补阶段的两步查询 */
+    private void stubPending(StockDailyBar... bars) {
+        java.util.Map<List<String>, List<StockDailyBar>> clusters = new java.util.LinkedHashMap<>();
+        for (StockDailyBar b : bars) {
+            clusters.computeIfAbsent(List.of(b.getSymbol(), b.getSource()), k -> new ArrayList<>()).add(b);
+        }
+        List<Object[]> rows = new ArrayList<>();
+        clusters.forEach((key, list) -> {
+            rows.add(new Object[]{key.get(0), key.get(1), list.get(list.size() - 1).getTradeDate(), (long) list.size()});
+            lenient().when(stockDailyBarRepository.findBySymbolAndSourceAndFieldFillStatusOrderByTradeDateAsc(
+                    key.get(0), key.get(1), DataGapFillerServiceImpl.STATUS_PENDING)).thenReturn(list);
+        });
+        when(stockDailyBarRepository.findFieldFillClusters(DataGapFillerServiceImpl.STATUS_PENDING)).thenReturn(rows);
+    }
+
+    private static KLineData dailyData(String symbol, List<LocalDate> dates, double close) {
+        KLineData kd = new KLineData();
+        kd.setSymbol(symbol);
+        List<KLineIterator> items = new ArrayList<>();
+        for (LocalDate date : dates) {
+            KLineIterator item = new KLineIterator(symbol, date.atStartOfDay(java.time.ZoneId.of("America/New_York")).toInstant().toEpochMilli(),
+                    BigDecimal.valueOf(0.8), BigDecimal.valueOf(0.9), BigDecimal.valueOf(0.7), BigDecimal.valueOf(close),
+                    1000, 0, null, null, null);
+            item.setTimeString(date.toString());
+            items.add(item);
+        }
+        kd.setItems(items);
+        return kd;
+    }
+
     private static KLineData ahData(String symbol, LocalDate date, double close) {
         return ahData(symbol, date, close, null);
     }
@@ -173,8 +209,7 @@ class FillMissingFieldsTest {
     @DisplayName("FF-01: 盘后增补成功 → 写入 + 清标记 + CONFIRMED")
     void fillAfterHours_success() {
         StockDailyBar bar = pendingBar("after_hours,after_hours_change_percent");
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenReturn(ahData("JSPR", TRADE_DATE, 0.87));
 
@@ -192,8 +227,7 @@ class FillMissingFieldsTest {
     @DisplayName("FF-01b: 脚本直取盘后涨跌幅 → 直接使用源值（不兜底计算）")
     void fillAfterHours_sourceDirectChangePercent() {
         StockDailyBar bar = pendingBar("after_hours,after_hours_change_percent");
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         // 脚本返回 afterHoursChangePercent=5.5（源直取优先）
         when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenReturn(ahData("JSPR", TRADE_DATE, 0.87, new BigDecimal("5.5000")));
@@ -212,8 +246,7 @@ class FillMissingFieldsTest {
     @DisplayName("FF-02: 源确认无盘后（null）→ 清标记 + CONFIRMED（防死循环）")
     void fillAfterHours_confirmedNone() {
         StockDailyBar bar = pendingBar("after_hours,after_hours_change_percent");
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenReturn(new KLineData());
 
@@ -229,8 +262,7 @@ class FillMissingFieldsTest {
     @DisplayName("FF-03: 瞬态失败 → 保留 PENDING + 缺失标记（下次再试）")
     void fillAfterHours_transientFailure_keepsPending() {
         StockDailyBar bar = pendingBar("after_hours,after_hours_change_percent");
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenThrow(new RuntimeException("API timeout"));
 
@@ -248,8 +280,7 @@ class FillMissingFieldsTest {
     void fillChangePercent_recalc() {
         StockDailyBar bar = pendingBar("change_percent");
         bar.setChangePercent(null);
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.getDailyKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenReturn(dailyData("JSPR", TRADE_DATE, 0.86));
         // 前一日 close=0.8239 → (0.86-0.8239)/0.8239*100 = 4.3816
@@ -273,8 +304,7 @@ class FillMissingFieldsTest {
     void fillKline_confirmedNotFound() {
         StockDailyBar bar = pendingBar("close_price");
         bar.setClosePrice(null);
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.getDailyKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenThrow(new StockDataException("JSPR", "yfinance", "symbol not found",
                         StockDataException.ErrorCategory.CONFIRMED_NOT_FOUND));
@@ -290,8 +320,7 @@ class FillMissingFieldsTest {
     @DisplayName("FF-06: 全部源不可用 → 保持 PENDING（下次再试）")
     void fill_noSource_keepsPending() {
         StockDailyBar bar = pendingBar("after_hours,after_hours_change_percent");
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.isAvailable()).thenReturn(false);
 
         int completed = service.fillMissingFields();
@@ -305,8 +334,7 @@ class FillMissingFieldsTest {
     void fill_snapSource_fallbackToAvailableSource() {
         StockDailyBar bar = pendingBar("after_hours,after_hours_change_percent");
         bar.setSource("tiger_snap");   // 截图源无对应 bean → fallback yfinance
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(List.of(bar));
+        stubPending(bar);
         when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
                 .thenReturn(ahData("JSPR", TRADE_DATE, 0.87));
 
@@ -323,7 +351,7 @@ class FillMissingFieldsTest {
     @Test
     @DisplayName("FF-07: CONFIRMED 记录不被增补阶段处理（防死循环）")
     void confirmedRecordsSkipped() {
-        when(stockDailyBarRepository.findByFieldFillStatus(eq(DataGapFillerServiceImpl.STATUS_PENDING), any(org.springframework.data.domain.Pageable.class)))
+        when(stockDailyBarRepository.findFieldFillClusters(DataGapFillerServiceImpl.STATUS_PENDING))
                 .thenReturn(new ArrayList<>());
 
         int completed = service.fillMissingFields();
@@ -332,4 +360,193 @@ class FillMissingFieldsTest {
         verify(yfinanceSource, never()).getAfterHoursKLineDataByDateRange(anyString(), any());
         verify(yfinanceSource, never()).getDailyKLineDataByDateRange(anyString(), any());
     }
+
+    // ============ 聚簇 + 预算 ============
+
+    @Test
+    @DisplayName("FF-08: 同 symbol 相邻日期 PENDING → 日K 按簇一次拉取，复用到簇内全部记录")
+    void fillKline_clusteredFetchOnce() {
+        StockDailyBar d1 = pendingBar("close_price");
+        d1.setClosePrice(null);
+        StockDailyBar d2 = pendingBar("close_price");
+        d2.setTradeDate(TRADE_DATE.minusDays(1));
+        d2.setClosePrice(null);
+        stubPending(d2, d1);
+        when(yfinanceSource.getDailyKLineDataByDates(eq("JSPR"), anyCollection()))
+                .thenReturn(dailyData("JSPR", List.of(TRADE_DATE.minusDays(1), TRADE_DATE), 0.86));
+
+        int completed = service.fillMissingFields();
+
+        assertEquals(2, completed);
+        assertEquals(0, new BigDecimal("0.86").compareTo(d1.getClosePrice()));
+        assertEquals(0, new BigDecimal("0.86").compareTo(d2.getClosePrice()));
+        verify(yfinanceSource, times(1)).getDailyKLineDataByDates(eq("JSPR"), anyCollection());
+        verify(yfinanceSource, never()).getDailyKLineDataByDateRange(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("FF-09: 簇批量拉取瞬态失败 → 回退逐条单日查询")
+    void fillKline_clusterFailure_fallsBackPerDate() {
+        StockDailyBar d1 = pendingBar("close_price");
+        d1.setClosePrice(null);
+        StockDailyBar d2 = pendingBar("close_price");
+        d2.setTradeDate(TRADE_DATE.minusDays(1));
+        d2.setClosePrice(null);
+        stubPending(d2, d1);
+        when(yfinanceSource.getDailyKLineDataByDates(eq("JSPR"), anyCollection()))
+                .thenThrow(new StockDataException("JSPR", "yfinance", "timeout"));
+        when(yfinanceSource.getDailyKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
+                .thenReturn(dailyData("JSPR", TRADE_DATE, 0.86));
+        when(yfinanceSource.getDailyKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE.minusDays(1))))
+                .thenReturn(dailyData("JSPR", TRADE_DATE.minusDays(1), 0.82));
+
+        int completed = service.fillMissingFields();
+
+        assertEquals(2, completed);
+        assertEquals(0, new BigDecimal("0.82").compareTo(d2.getClosePrice()));
+        assertEquals(0, new BigDecimal("0.86").compareTo(d1.getClosePrice()));
+    }
+
+    @Test
+    @DisplayName("FF-10: 调用配额耗尽 → 停止领取新簇，剩余簇保持 PENDING")
+    void fill_budgetExhausted_defersClusters() {
+        when(gapFillProperties.getFieldFillMaxSourceCalls()).thenReturn(1);
+        StockDailyBar a = pendingBar("after_hours,after_hours_change_percent");
+        StockDailyBar b = pendingBar("after_hours,after_hours_change_percent");
+        b.setSymbol("OTHER");
+        stubPending(a, b);
+        when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
+                .thenReturn(ahData("JSPR", TRADE_DATE, 0.87));
+
+        int completed = service.fillMissingFields();
+
+        assertEquals(1, completed);
+        assertEquals(DataGapFillerServiceImpl.STATUS_PENDING, b.getFieldFillStatus());
+        verify(stockDailyBarRepository, never()).findBySymbolAndSourceAndFieldFillStatusOrderByTradeDateAsc(
+                eq("OTHER"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("FF-12: 单个大簇批量失败回退逐日时同样扣减配额，耗尽即中止，剩余记录保持 PENDING")
+    void fill_budgetExhaustedInsideCluster_stopsPerDateFallback() {
+        when(gapFillProperties.getFieldFillMaxSourceCalls()).thenReturn(2);
+        StockDailyBar d1 = pendingBar("close_price");
+        d1.setTradeDate(TRADE_DATE.minusDays(2));
+        d1.setClosePrice(null);
+        StockDailyBar d2 = pendingBar("close_price");
+        d2.setTradeDate(TRADE_DATE.minusDays(1));
+        d2.setClosePrice(null);
+        StockDailyBar d3 = pendingBar("close_price");
+        d3.setClosePrice(null);
+        stubPending(d1, d2, d3);
+        when(yfinanceSource.getDailyKLineDataByDates(eq("JSPR"), anyCollection()))
+                .thenThrow(new StockDataException("JSPR", "yfinance", "timeout"));
+        when(yfinanceSource.getDailyKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE.minusDays(2))))
+                .thenReturn(dailyData("JSPR", TRADE_DATE.minusDays(2), 0.82));
+
+        int completed = service.fillMissingFields();
+
+        // 批量 1 次 + 逐日 1 次 = 配额 2，第二条记录调用前中止
+        assertEquals(1, completed);
+        verify(yfinanceSource, times(1)).getDailyKLineDataByDateRange(anyString(), any());
+        assertEquals(DataGapFillerServiceImpl.STATUS_PENDING, d2.getFieldFillStatus());
+        assertEquals(DataGapFillerServiceImpl.STATUS_PENDING, d3.getFieldFillStatus());
+        assertEquals("close_price", d3.getMissingFields());
+    }
+
+    @Test
+    @DisplayName("FF-14: 数据源未覆盖批量方法（默认逐日循环）→ 不走簇批量，逐日请求各扣一次配额，耗尽即中止")
+    void fill_perDateSource_chargesBudgetPerCall() {
+        when(gapFillProperties.getFieldFillMaxSourceCalls()).thenReturn(2);
+        List<LocalDate> requested = new ArrayList<>();
+        DataSourceStrategy perDateSource = new DataSourceStrategy() {
+            @Override
+            public String getSourceName() {
+                return "yfinance";
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public KLineData getDailyKLineDataByDateRange(String symbol, LocalDate tradeDate) {
+                requested.add(tradeDate);
+                return dailyData(symbol, tradeDate, 0.82);
+            }
+
+            @Override
+            public KLineData getDailyKLineDataAsObject(String symbol) {
+                throw new AssertionError("unexpected full-history request");
+            }
+        };
+        DataGapFillerServiceImpl perDateService = new DataGapFillerServiceImpl(
+                stockDailyBarRepository, dataFillTaskRepository, List.of(perDateSource),
+                gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
+                stockDataSourcePriorityService, symbolBlacklistService,
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
+        StockDailyBar d1 = pendingBar("close_price");
+        d1.setTradeDate(TRADE_DATE.minusDays(2));
+        d1.setClosePrice(null);
+        StockDailyBar d2 = pendingBar("close_price");
+        d2.setTradeDate(TRADE_DATE.minusDays(1));
+        d2.setClosePrice(null);
+        StockDailyBar d3 = pendingBar("close_price");
+        d3.setClosePrice(null);
+        stubPending(d1, d2, d3);
+
+        int completed = perDateService.fillMissingFields();
+
+        // 外部请求次数不超过配额：前两条逐日各 1 次，第三条调用前中止
+        assertEquals(2, completed);
+        assertEquals(List.of(TRADE_DATE.minusDays(2), TRADE_DATE.minusDays(1)), requested);
+        assertEquals(DataGapFillerServiceImpl.STATUS_CONFIRMED, d2.getFieldFillStatus());
+        assertEquals(DataGapFillerServiceImpl.STATUS_PENDING, d3.getFieldFillStatus());
+        assertEquals("close_price", d3.getMissingFields());
+    }
+
+    @Test
+    @DisplayName("FF-13: 预算耗尽后下次运行从被推迟的簇开始轮转，较早的簇不会持续饿死")
+    void fill_deferredClusterRunsFirstNextTime() {
+        when(gapFillProperties.getFieldFillMaxSourceCalls()).thenReturn(1);
+        StockDailyBar a = pendingBar("after_hours,after_hours_change_percent");
+        StockDailyBar b = pendingBar("after_hours,after_hours_change_percent");
+        b.setSymbol("OTHER");
+        b.setTradeDate(TRADE_DATE.minusDays(1));
+        stubPending(a, b);
+        when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("JSPR"), eq(TRADE_DATE)))
+                .thenReturn(ahData("JSPR", TRADE_DATE, 0.87));
+        when(yfinanceSource.getAfterHoursKLineDataByDateRange(eq("OTHER"), eq(TRADE_DATE.minusDays(1))))
+                .thenReturn(ahData("OTHER", TRADE_DATE.minusDays(1), 0.5));
+
+        assertEquals(1, service.fillMissingFields());
+        assertEquals(DataGapFillerServiceImpl.STATUS_PENDING, b.getFieldFillStatus());
+
+        // 第二次运行：簇查询仍按最新日期排序（JSPR 在前），但从上次推迟的 OTHER 开始
+        assertEquals(1, service.fillMissingFields());
+        assertEquals(DataGapFillerServiceImpl.STATUS_CONFIRMED, b.getFieldFillStatus());
+        verify(yfinanceSource, times(1)).getAfterHoursKLineDataByDateRange(eq("JSPR"), any());
+    }
+
+    @Test
+    @DisplayName("FF-11: 同 symbol 多日缺盘后 → 盘后按簇一次批量拉取，逐日回填")
+    void fillAfterHours_clusteredFetchOnce() {
+        StockDailyBar d1 = pendingBar("after_hours,after_hours_change_percent");
+        StockDailyBar d2 = pendingBar("after_hours,after_hours_change_percent");
+        d2.setTradeDate(TRADE_DATE.minusDays(1));
+        stubPending(d2, d1);
+        KLineData batch = new KLineData();
+        batch.setItems(List.of(ahData("JSPR", TRADE_DATE.minusDays(1), 0.85).getItems().get(0),
+                ahData("JSPR", TRADE_DATE, 0.87).getItems().get(0)));
+        when(yfinanceSource.getAfterHoursKLineDataByDates(eq("JSPR"), anyCollection())).thenReturn(batch);
+
+        int completed = service.fillMissingFields();
+
+        assertEquals(2, completed);
+        assertEquals(0, new BigDecimal("0.85").compareTo(d2.getAfterHours()));
+        assertEquals(0, new BigDecimal("0.87").compareTo(d1.getAfterHours()));
+        verify(yfinanceSource, times(1)).getAfterHoursKLineDataByDates(eq("JSPR"), anyCollection());
+        verify(yfinanceSource, never()).getAfterHoursKLineDataByDateRange(anyString(), any());
+    }
 }
@@ -0,0 +1,192 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.entity.ScreeningMatch;
+import com.stock.invest.model.BarsChangedEvent;
+import com.stock.invest.model.ScreeningBar;
+import com.stock.invest.repository.ScreeningMatchRepository;
+import com.stock.invest.repository.StockDailyBarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ForwardReturnServiceImpl — 前瞻收益分析")
+class ForwardReturnServiceImplTest {
+
+    private static final LocalDate T = LocalDate.of(2026, 5, 4);
+
+    @Mock private ScreeningMatchRepository screeningMatchRepository;
+    @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ForwardReturnServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ForwardReturnServiceImpl(screeningMatchRepository, stockDailyBarRepository, transactionManager);
+    }
+
+    private static ScreeningMatch match(long id, String batchId, String symbol, LocalDate tradeDate,
+                                        int windowDays, String algorithm) {
+        ScreeningMatch m = new ScreeningMatch();
+        m.setId(id);
+        m.setBatchId(batchId);
+        m.setSymbol(symbol);
+        m.setTradeDate(tradeDate);
+        m.setWindowDays(windowDays);
+        m.setAlgorithm(algorithm);
+        return m;
+    }
+
+    /** 从 T 起连续 count 个工作日的 bar，收盘价依次取 closes */
+    private static List<ScreeningBar> bars(String symbol, double... closes) {
+        List<ScreeningBar> bars = new ArrayList<>();
+        LocalDate d = T;
+        for (double close : closes) {
+            while (d.getDayOfWeek().getValue() > 5) {
+                d = d.plusDays(1);
+            }
+            bars.add(new ScreeningBar(symbol, d, "tiger", null, BigDecimal.valueOf(close), 1000L));
+            d = d.plusDays(1);
+        }
+        return bars;
+    }
+
+    private static Object[] fingerprint(String batchId, LocalDate tradeDate, long count, long maxId) {
+        return new Object[]{batchId, tradeDate, count, maxId};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> returns(Map<String, Object> result, int index, String horizon) {
+        List<Map<String, Object>> results = (List<Map<String, Object>>) result.get("results");
+        return (Map<String, Object>) ((Map<String, Object>) results.get(index).get("returns")).get(horizon);
+    }
+
+    @Test
+    @DisplayName("FR-01: t+1 / t+5 按后续第 N 根 bar 收盘计收益与胜率；后续 bar 不足记 pending")
+    void batch_computesForwardReturns() {
+        when(screeningMatchRepository.findBatchFingerprints("b1"))
+                .thenReturn(List.<Object[]>of(fingerprint("b1", T, 2, 2)));
+        when(screeningMatchRepository.findByBatchIdIn(anyCollection())).thenReturn(new ArrayList<>(List.of(
+                match(1, "b1", "AAA", T, 3, "increasing_volume"),
+                match(2, "b1", "BBB", T, 3, "increasing_volume"))));
+        List<ScreeningBar> rows = new ArrayList<>(bars("AAA", 10, 11, 11, 11, 11, 12));
+        rows.addAll(bars("BBB", 20, 19));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), any(), any())).thenReturn(rows);
+
+        Map<String, Object> result = service.analyzeBatch("b1");
+
+        assertEquals(2L, result.get("matches"));
+        Map<String, Object> t1 = returns(result, 0, "t+1");
+        assertEquals(2L, t1.get("samples"));
+        assertEquals(0.025, (double) t1.get("avgReturn"), 1e-9);   // (+10% + -5%) / 2
+        assertEquals(0.5, (double) t1.get("hitRate"), 1e-9);
+        Map<String, Object> t5 = returns(result, 0, "t+5");
+        assertEquals(1L, t5.get("samples"));
+        assertEquals(1L, t5.get("pending"));
+        assertEquals(0.2, (double) t5.get("avgReturn"), 1e-9);
+        Map<String, Object> t20 = returns(result, 0, "t+20");
+        assertEquals(2L, t20.get("pending"));
+        assertNull(t20.get("avgReturn"));
+    }
+
+    @Test
+    @DisplayName("FR-02: 批次指纹不变命中缓存，不再读库；指纹变化（增量重评）重算")
+    void batch_cachedUntilFingerprintChanges() {
+        when(screeningMatchRepository.findBatchFingerprints("b1"))
+                .thenReturn(List.<Object[]>of(fingerprint("b1", T, 1, 1)))
+                .thenReturn(List.<Object[]>of(fingerprint("b1", T, 1, 1)))
+                .thenReturn(List.<Object[]>of(fingerprint("b1", T, 1, 5)));
+        when(screeningMatchRepository.findByBatchIdIn(anyCollection()))
+                .thenAnswer(inv -> new ArrayList<>(List.of(match(1, "b1", "AAA", T, 2, "volume_spike"))));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), any(), any())).thenReturn(bars("AAA", 10, 11));
+
+        service.analyzeBatch("b1");
+        Map<String, Object> second = service.analyzeBatch("b1");
+        assertEquals(1, second.get("cachedBatches"));
+        verify(stockDailyBarRepository, times(1)).findScreeningBars(anyList(), any(), any());
+
+        Map<String, Object> third = service.analyzeBatch("b1");
+        assertEquals(0, third.get("cachedBatches"));
+        verify(stockDailyBarRepository, times(2)).findScreeningBars(anyList(), any(), any());
+    }
+
+    @Test
+    @DisplayName("FR-03: 前瞻区间内日 K 变更剔除缓存；区间外的变更不影响")
+    void barsChanged_evictsAffectedBatches() {
+        when(screeningMatchRepository.findBatchFingerprints("b1"))
+                .thenReturn(List.<Object[]>of(fingerprint("b1", T, 1, 1)));
+        when(screeningMatchRepository.findByBatchIdIn(anyCollection()))
+                .thenAnswer(inv -> new ArrayList<>(List.of(match(1, "b1", "AAA", T, 2, "volume_spike"))));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), any(), any())).thenReturn(bars("AAA", 10, 11));
+
+        service.analyzeBatch("b1");
+        service.onBarsChanged(new BarsChangedEvent(Map.of(
+                T.plusDays(ForwardReturnServiceImpl.FORWARD_CALENDAR_DAYS + 1), Set.of("AAA"))));
+        assertEquals(1, service.analyzeBatch("b1").get("cachedBatches"));
+
+        service.onBarsChanged(new BarsChangedEvent(Map.of(T.plusDays(7), Set.of("AAA"))));
+        assertEquals(0, service.analyzeBatch("b1").get("cachedBatches"));
+    }
+
+    @Test
+    @DisplayName("FR-04: 区间分析每个交易日只取最新批次（最大 id），多批次一次读 bar 合并统计")
+    void range_usesLatestBatchPerTradeDate() {
+        LocalDate t2 = T.plusDays(1);
+        when(screeningMatchRepository.findBatchFingerprintsBetween(T, t2)).thenReturn(List.of(
+                fingerprint("old", T, 1, 1),
+                fingerprint("new", T, 1, 3),
+                fingerprint("b2", t2, 1, 4)));
+        when(screeningMatchRepository.findByBatchIdIn(anyCollection())).thenReturn(new ArrayList<>(List.of(
+                match(3, "new", "AAA", T, 2, "increasing_volume"),
+                match(4, "b2", "AAA", t2, 2, "increasing_volume"))));
+        when(stockDailyBarRepository.findScreeningBars(anyList(), any(), any()))
+                .thenReturn(bars("AAA", 10, 20, 10));
+
+        Map<String, Object> result = service.analyzeRange(T, t2);
+
+        assertEquals(2, result.get("tradeDates"));
+        assertEquals(2L, result.get("matches"));
+        verify(screeningMatchRepository).findByBatchIdIn(List.of("new", "b2"));
+        verify(stockDailyBarRepository, times(1)).findScreeningBars(anyList(), any(), any());
+        // T: 10 → 20 (+100%)；T+1: 20 → 10 (-50%)
+        Map<String, Object> t1 = returns(result, 0, "t+1");
+        assertEquals(0.25, (double) t1.get("avgReturn"), 1e-9);
+        assertEquals(0.5, (double) t1.get("hitRate"), 1e-9);
+    }
+
+    @Test
+    @DisplayName("FR-05: 区间参数校验；区间内无批次时不读库")
+    void range_validation() {
+        assertThrows(IllegalArgumentException.class, () -> service.analyzeRange(T.plusDays(1), T));
+        assertThrows(IllegalArgumentException.class, () -> service.analyzeRange(null, T));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.analyzeRange(T.minusDays(ForwardReturnServiceImpl.MAX_RANGE_DAYS), T));
+
+        when(screeningMatchRepository.findBatchFingerprintsBetween(T, T)).thenReturn(List.of());
+        assertEquals(0L, service.analyzeRange(T, T).get("matches"));
+        verify(screeningMatchRepository, never()).findByBatchIdIn(anyCollection());
+    }
+}
@@ -4,6 +4,8 @@ import com.stock.invest.config.GapFillProperties;
 import com.stock.invest.entity.StockDailyBar;
 import com.stock.invest.repository.DataFillTaskRepository;
 import com.stock.invest.repository.StockDailyBarRepository;
+import com.stock.invest.repository.SymbolLatestBarRepository;
+import com.stock.invest.repository.SymbolLatestBarUpsertWriter;
 import com.stock.invest.service.DataFillProgressService;
 import com.stock.invest.service.FieldCapabilityService;
 import com.stock.invest.service.RetryProgressService;
@@ -33,6 +35,8 @@ import static org.mockito.Mockito.lenient;
 class MissingFieldsMarkTest {
 
     @Mock private StockDailyBarRepository stockDailyBarRepository;
+    @Mock private SymbolLatestBarRepository symbolLatestBarRepository;
+    @Mock private SymbolLatestBarUpsertWriter symbolLatestBarUpsertWriter;
     @Mock private DataFillTaskRepository dataFillTaskRepository;
     @Mock private GapFillProperties gapFillProperties;
     @Mock private DataFillProgressService dataFillProgressService;
@@ -51,7 +55,7 @@ class MissingFieldsMarkTest {
                 stockDailyBarRepository, dataFillTaskRepository, java.util.List.of(),
                 gapFillProperties, dataFillProgressService, retryProgressService, tradingCalendarDbService,
                 stockDataSourcePriorityService, symbolBlacklistService,
-                transactionManager, fieldCapabilityService);
+                transactionManager, fieldCapabilityService, symbolLatestBarRepository, symbolLatestBarUpsertWriter);
 
         // 能力矩阵 stub：yfinance 支持盘后；tiingo 不支持
         lenient().when(fieldCapabilityService.isMarkable(anyString(), anyString())).thenReturn(false);
@@ -162,4 +162,156 @@ class PatternEvaluateServiceImplTest {
         assertTrue(service.matchesVolumeSpikePattern(bars, 5));
     }
 
+    private static List<com.stock.invest.entity.StockDailyBar> volumeBars(Long... volumes) {
+        List<com.stock.invest.entity.StockDailyBar> bars = new ArrayList<>();
+        for (Long v : volumes) {
+            com.stock.invest.entity.StockDailyBar bar = new com.stock.invest.entity.StockDailyBar();
+            bar.setVolume(v);
+            bars.add(bar);
+        }
+        return bars;
+    }
+
+    /** 逐窗口调用单窗口方法得到的位图（多窗口评估的参照结果） */
+    private int perWindowMask(List<com.stock.invest.entity.StockDailyBar> bars, int windowMask) {
+        int mask = 0;
+        for (int w = 2; w <= 7; w++) {
+            if ((windowMask & com.stock.invest.service.PatternEvaluateService.windowBit(w)) == 0 || bars.size() < w) {
+                continue;
+            }
+            List<com.stock.invest.entity.StockDailyBar> slice = bars.subList(bars.size() - w, bars.size());
+            if (service.matchesIncreasingVolumePattern(slice, w)) {
+                mask |= com.stock.invest.service.PatternEvaluateService.windowBit(w);
+            }
+            if (service.matchesVolumeSpikePattern(slice, w)) {
+                mask |= com.stock.invest.service.PatternEvaluateService.spikeBit(w);
+            }
+        }
+        return mask;
+    }
+
+    @Test
+    @DisplayName("PE-013: 多窗口单遍评估 — 递增 / 放量命中位与单窗口方法一致")
+    void test_evaluateWindows_knownSeries() {
+        int all = 0;
+        for (int w = 2; w <= 7; w++) {
+            all |= com.stock.invest.service.PatternEvaluateService.windowBit(w);
+        }
+        // 严格递增：全部窗口递增命中；末根 60000 对前 4 根均值 10000 为 6 倍 → 5 天窗口放量命中
+        int inc = service.evaluateWindows(volumeBars(1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7000L), all);
+        assertEquals(perWindowMask(volumeBars(1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7000L), all), inc);
+        assertNotEquals(0, inc & com.stock.invest.service.PatternEvaluateService.windowBit(7));
+        int spike = service.evaluateWindows(volumeBars(10000L, 10000L, 10000L, 10000L, 60000L), all);
+        assertNotEquals(0, spike & com.stock.invest.service.PatternEvaluateService.spikeBit(5));
+        // 0 / null 成交量：包含该根的窗口不命中，更短窗口不受影响
+        int withZero = service.evaluateWindows(volumeBars(1000L, 0L, 3000L, 4000L), all);
+        assertEquals(com.stock.invest.service.PatternEvaluateService.windowBit(2), withZero);
+        assertEquals(0, service.evaluateWindows(volumeBars(1000L, 2000L, null), all));
+        assertEquals(0, service.evaluateWindows(null, all));
+    }
+
+    @Test
+    @DisplayName("PE-014: 多窗口单遍评估 — 随机序列 × 随机窗口位图与单窗口方法逐位一致")
+    void test_evaluateWindows_randomEquivalence() {
+        java.util.Random random = new java.util.Random(20261018L);
+        for (int round = 0; round < 20000; round++) {
+            int n = random.nextInt(9);
+            Long[] vols = new Long[n];
+            for (int i = 0; i < n; i++) {
+                int kind = random.nextInt(20);
+                vols[i] = kind == 0 ? null : kind == 1 ? 0L
+                        : kind < 5 ? (long) random.nextInt(4) + 1
+                        : (long) Math.exp(random.nextDouble() * 18);
+            }
+            List<com.stock.invest.entity.StockDailyBar> bars = volumeBars(vols);
+            int windowMask = random.nextInt(1 << 9) & ~3;
+            assertEquals(perWindowMask(bars, windowMask), service.evaluateWindows(bars, windowMask),
+                    "volumes=" + java.util.Arrays.toString(vols) + ", windowMask=" + windowMask);
+        }
+    }
+
+    @Test
+    @DisplayName("PE-015: 决策明细 — 每个窗口长度一行，结论与 evaluateWindows 一致")
+    void test_traceWindows() {
+        int all = 0;
+        for (int w = 2; w <= 7; w++) {
+            all |= com.stock.invest.service.PatternEvaluateService.windowBit(w);
+        }
+        List<String> trace = service.traceWindows(volumeBars(10000L, 10000L, 10000L, 10000L, 60000L), all);
+        assertEquals(5, trace.size());
+        assertEquals("len=1: lastVol=60000", trace.get(0));
+        assertTrue(trace.get(4).startsWith("len=5:"), trace.get(4));
+        assertTrue(trace.get(4).contains("spike=true"), trace.get(4));
+
+        List<String> withZero = service.traceWindows(volumeBars(1000L, 0L, 3000L, 4000L), all);
+        assertTrue(withZero.get(withZero.size() - 1).contains("missing/zero volume"), withZero.toString());
+    }
+
+    @Test
+    @DisplayName("PE-017: 阈值可配置 — 放量倍数 / 递增最小步进改变命中，默认配置与无参构造一致")
+    void test_configurableThresholds() {
+        int all = 0;
+        for (int w = 2; w <= 7; w++) {
+            all |= com.stock.invest.service.PatternEvaluateService.windowBit(w);
+        }
+        List<com.stock.invest.entity.StockDailyBar> spikeBars = volumeBars(10000L, 10000L, 10000L, 10000L, 60000L);
+        int spike5 = com.stock.invest.service.PatternEvaluateService.spikeBit(5);
+        // 末根为前 4 根均量的 6 倍
+        assertNotEquals(0, new PatternEvaluateServiceImpl(new com.stock.invest.model.PatternParams(5.5, 0.0))
+                .evaluateWindows(spikeBars, all) & spike5);
+        PatternEvaluateServiceImpl strictSpike =
+                new PatternEvaluateServiceImpl(new com.stock.invest.model.PatternParams(7.0, 0.0));
+        assertEquals(0, strictSpike.evaluateWindows(spikeBars, all) & spike5);
+        assertFalse(strictSpike.matchesVolumeSpikePattern(spikeBars, 5));
+        assertTrue(strictSpike.traceWindows(spikeBars, all).get(4).contains("spike=false"));
+
+        // 1000..7000：相邻窗口均量之比最小为 7000 / 6500 ≈ 1.077
+        List<com.stock.invest.entity.StockDailyBar> rising =
+                volumeBars(1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7000L);
+        assertEquals(all, new PatternEvaluateServiceImpl(new com.stock.invest.model.PatternParams(5.0, 0.05))
+                .evaluateWindows(rising, all) & all);
+        PatternEvaluateServiceImpl strictStep =
+                new PatternEvaluateServiceImpl(new com.stock.invest.model.PatternParams(5.0, 0.1));
+        assertEquals(0, strictStep.evaluateWindows(rising, all) & all);
+        assertFalse(strictStep.matchesIncreasingVolumePattern(rising, 2));
+
+        com.stock.invest.config.ScreeningProperties defaults = new com.stock.invest.config.ScreeningProperties();
+        assertEquals(com.stock.invest.model.PatternParams.DEFAULT, new PatternEvaluateServiceImpl(defaults).params());
+        assertThrows(IllegalArgumentException.class, () -> new com.stock.invest.model.PatternParams(0.0, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new com.stock.invest.model.PatternParams(5.0, -0.1));
+    }
+
+    @Test
+    @DisplayName("PE-016: 热路径零分配 — 预热后十万次多窗口 / 单窗口评估线程分配字节≈0")
+    void test_evaluate_allocationFree() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        org.junit.jupiter.api.Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean,
+                "thread allocation counter not available");
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        org.junit.jupiter.api.Assumptions.assumeTrue(mx.isThreadAllocatedMemorySupported());
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        List<com.stock.invest.entity.StockDailyBar> bars =
+                volumeBars(1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 70000L);
+        int all = 0;
+        for (int w = 2; w <= 7; w++) {
+            all |= com.stock.invest.service.PatternEvaluateService.windowBit(w);
+        }
+        long sink = 0;
+        for (int i = 0; i < 200_000; i++) {
+            sink += service.evaluateWindows(bars, all);
+            sink += service.matchesVolumeSpikePattern(bars, 5) ? 1 : 0;
+        }
+        long tid = Thread.currentThread().threadId();
+        long before = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 100_000; i++) {
+            sink += service.evaluateWindows(bars, all);
+            sink += service.matchesIncreasingVolumePattern(bars, 7) ? 1 : 0;
+            sink += service.matchesVolumeSpikePattern(bars, 5) ? 1 : 0;
+        }
+        long allocated = mx.getThreadAllocatedBytes(tid) - before;
+        assertNotEquals(0, sink);
+        // 30 万次调用；旧实现每次至少一个 long[] + 前缀和数组（≥ 100 字节/次），此处只容许计数器自身的零星开销
+        assertTrue(allocated < 64 * 1024, "allocated bytes=" + allocated);
+    }
 }
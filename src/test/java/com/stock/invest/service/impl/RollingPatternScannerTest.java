@@ -0,0 +1,200 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.entity.TradingCalendarEntity;
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.service.PatternEvaluateService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("RollingPatternScanner — 回测单遍滑动扫描")
+class RollingPatternScannerTest {
+
+    /** 全部窗口 2~7 */
+    private static final int ALL_WINDOWS = 0b1111_1100;
+
+    private final PatternEvaluateServiceImpl reference = new PatternEvaluateServiceImpl();
+
+    private static TradingCalendarEntity day(LocalDate date, boolean open) {
+        TradingCalendarEntity e = new TradingCalendarEntity();
+        e.setTradeDate(date);
+        e.setIsOpen(open);
+        return e;
+    }
+
+    private static StockDailyBar bar(LocalDate date, Long volume) {
+        StockDailyBar bar = new StockDailyBar();
+        bar.setTradeDate(date);
+        bar.setVolume(volume);
+        return bar;
+    }
+
+    private static int[] scan(List<StockDailyBar> bars, OpenDayIndex openDays, int windowMask) {
+        return scanGrid(bars, openDays, windowMask, PatternParams.DEFAULT)[0];
+    }
+
+    private static int[][] scanGrid(List<StockDailyBar> bars, OpenDayIndex openDays, int windowMask,
+                                    PatternParams... grid) {
+        int n = bars.size();
+        long[] epochDays = new long[n];
+        long[] volumes = new long[n];
+        for (int i = 0; i < n; i++) {
+            epochDays[i] = bars.get(i).getTradeDate().toEpochDay();
+            Long v = bars.get(i).getVolume();
+            volumes[i] = v == null ? 0L : v;
+        }
+        int[][] hits = new int[grid.length][n];
+        if (grid.length == 1) {
+            RollingPatternScanner.scan(epochDays, volumes, n, openDays, windowMask, grid[0], new long[n + 1], hits[0]);
+        } else {
+            RollingPatternScanner.scanGrid(epochDays, volumes, n, openDays, windowMask, grid, new long[n + 1], hits);
+        }
+        return hits;
+    }
+
+    /**
+     * 单日筛选的参照结果：以第 i 根为筛选日，取 [t - 回看, t] 的 bar 与同区间日历，
+     * 按全量筛选的可评估窗口规则（根数 ≥ w 且末尾连续开盘日 ≥ w）调用 evaluateWindows。
+     */
+    private int singleDay(List<StockDailyBar> bars, List<TradingCalendarEntity> calendar, int i, int windowMask) {
+        return singleDay(bars, calendar, i, windowMask, reference);
+    }
+
+    private static int singleDay(List<StockDailyBar> bars, List<TradingCalendarEntity> calendar, int i,
+                                 int windowMask, PatternEvaluateServiceImpl evaluator) {
+        LocalDate t = bars.get(i).getTradeDate();
+        LocalDate s = t.minusDays(RollingPatternScanner.LOOKBACK_DAYS);
+        List<StockDailyBar> range = new ArrayList<>();
+        for (int j = 0; j <= i; j++) {
+            if (!bars.get(j).getTradeDate().isBefore(s)) {
+                range.add(bars.get(j));
+            }
+        }
+        List<TradingCalendarEntity> sub = new ArrayList<>();
+        for (TradingCalendarEntity e : calendar) {
+            if (!e.getTradeDate().isBefore(s) && !e.getTradeDate().isAfter(t)) {
+                sub.add(e);
+            }
+        }
+        int consecutive = OpenDayIndex.of(sub).trailingConsecutive(range);
+        int mask = 0;
+        for (int w = 2; w <= 7; w++) {
+            if ((windowMask & PatternEvaluateService.windowBit(w)) != 0 && range.size() >= w && consecutive >= w) {
+                mask |= PatternEvaluateService.windowBit(w);
+            }
+        }
+        return mask == 0 ? 0 : evaluator.evaluateWindows(range, mask);
+    }
+
+    @Test
+    @DisplayName("RS-01: 随机历史（休市 / 缺根 / 休市日 bar / null / 0 / 2^53 成交量）逐日与单日筛选逐位一致")
+    void randomHistory_equivalentToSingleDayScreening() {
+        Random random = new Random(20261018L);
+        int nonZero = 0;
+        for (int round = 0; round < 300; round++) {
+            LocalDate start = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(300));
+            int days = 30 + random.nextInt(120);
+            List<TradingCalendarEntity> calendar = new ArrayList<>();
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (int d = 0; d < days; d++) {
+                LocalDate date = start.plusDays(d);
+                boolean open = date.getDayOfWeek().getValue() <= 5 && random.nextDouble() > 0.04;
+                calendar.add(day(date, open));
+                if ((!open && random.nextDouble() > 0.02) || (open && random.nextDouble() < 0.05)) {
+                    continue;
+                }
+                double p = random.nextDouble();
+                long v = p < 0.03 ? 0L
+                        : p < 0.05 ? (1L << 53) - random.nextInt(1000)
+                        : p < 0.4 ? 1000 + random.nextInt(10)
+                        : (long) (1000 * Math.exp(2 * random.nextGaussian()));
+                bars.add(bar(date, random.nextDouble() < 0.01 ? null : v));
+            }
+            int windowMask = random.nextBoolean() ? ALL_WINDOWS : PatternEvaluateService.windowBit(2 + random.nextInt(6));
+            int[] hits = scan(bars, OpenDayIndex.of(calendar), windowMask);
+            for (int i = 0; i < bars.size(); i++) {
+                int expected = singleDay(bars, calendar, i, windowMask);
+                assertEquals(expected, hits[i], "round=" + round + " i=" + i);
+                if (expected != 0) {
+                    nonZero++;
+                }
+            }
+        }
+        assertTrue(nonZero > 0, "random histories should produce hits");
+    }
+
+    @Test
+    @DisplayName("RS-03: 参数网格同遍扫描 — 每组阈值的结果与该阈值下逐日单日筛选逐位一致")
+    void grid_equivalentToSingleDayScreeningPerParams() {
+        Random random = new Random(20261019L);
+        PatternParams[] grid = {
+                PatternParams.DEFAULT,
+                new PatternParams(2.0, 0.0),
+                new PatternParams(3.5, 0.05),
+                new PatternParams(8.0, 0.2)};
+        PatternEvaluateServiceImpl[] evaluators = new PatternEvaluateServiceImpl[grid.length];
+        for (int c = 0; c < grid.length; c++) {
+            evaluators[c] = new PatternEvaluateServiceImpl(grid[c]);
+        }
+        for (int round = 0; round < 100; round++) {
+            LocalDate start = LocalDate.of(2021, 1, 1).plusDays(random.nextInt(300));
+            List<TradingCalendarEntity> calendar = new ArrayList<>();
+            List<StockDailyBar> bars = new ArrayList<>();
+            for (int d = 0; d < 60; d++) {
+                LocalDate date = start.plusDays(d);
+                boolean open = date.getDayOfWeek().getValue() <= 5;
+                calendar.add(day(date, open));
+                if (open && random.nextDouble() > 0.03) {
+                    long v = random.nextDouble() < 0.02 ? 0L : (long) (1000 * Math.exp(2 * random.nextGaussian()));
+                    bars.add(bar(date, v));
+                }
+            }
+            int[][] hits = scanGrid(bars, OpenDayIndex.of(calendar), ALL_WINDOWS, grid);
+            for (int c = 0; c < grid.length; c++) {
+                for (int i = 0; i < bars.size(); i++) {
+                    assertEquals(singleDay(bars, calendar, i, ALL_WINDOWS, evaluators[c]), hits[c][i],
+                            "round=" + round + " params=" + grid[c] + " i=" + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("RS-02: 已知序列 — 递增量能随天数扩展窗口，休市缺口后重新计数")
+    void knownSeries_holidayResetsRun() {
+        LocalDate monday = LocalDate.of(2026, 5, 4);
+        List<TradingCalendarEntity> calendar = new ArrayList<>();
+        List<StockDailyBar> bars = new ArrayList<>();
+        long volume = 1000L;
+        for (int d = 0; d < 12; d++) {
+            LocalDate date = monday.plusDays(d);
+            boolean weekday = date.getDayOfWeek().getValue() <= 5;
+            calendar.add(day(date, weekday));
+            if (weekday) {
+                bars.add(bar(date, volume));
+                volume += 1000L;
+            }
+        }
+        // 5/4~5/8、5/11~5/15 各五根，周末休市不打断连续性
+        int[] hits = scan(bars, OpenDayIndex.of(calendar), ALL_WINDOWS);
+        assertEquals(0, hits[0]);
+        assertEquals(PatternEvaluateService.windowBit(2), hits[1] & ALL_WINDOWS);
+        assertEquals(0b0000_1100, hits[2] & ALL_WINDOWS);
+        assertEquals(ALL_WINDOWS, hits[6] & ALL_WINDOWS);
+
+        // 5/11 改为休市：5/12 起末尾连续开盘日从 1 重新计数
+        calendar.set(7, day(monday.plusDays(7), false));
+        int[] broken = scan(bars, OpenDayIndex.of(calendar), ALL_WINDOWS);
+        assertEquals(0, broken[5]);
+        assertEquals(0, broken[6]);
+        assertEquals(PatternEvaluateService.windowBit(2), broken[7] & ALL_WINDOWS);
+    }
+}
@@ -0,0 +1,147 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.entity.StockDailyBar;
+import com.stock.invest.model.PatternParams;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DisplayName("VolumePatternKernel — 横截面成交量模式内核")
+class VolumePatternKernelTest {
+
+    /** 全部窗口 2~7 */
+    private static final int ALL_WINDOWS = 0b1111_1100;
+
+    private final PatternEvaluateServiceImpl reference = new PatternEvaluateServiceImpl();
+
+    /** 随机 universe：每个 symbol 0~8 根，含 null / 0 / 极小值 / 2^53 附近（double 舍入边界）/ 长尾成交量 */
+    private static List<List<StockDailyBar>> randomUniverse(Random random, int symbols) {
+        List<List<StockDailyBar>> universe = new ArrayList<>(symbols);
+        for (int s = 0; s < symbols; s++) {
+            int size = random.nextInt(9);
+            List<StockDailyBar> bars = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int kind = random.nextInt(20);
+                StockDailyBar bar = new StockDailyBar();
+                bar.setVolume(kind == 0 ? null
+                        : kind == 1 ? 0L
+                        : kind < 5 ? (long) random.nextInt(4) + 1
+                        : kind < 7 ? (1L << 53) + random.nextInt(7)
+                        : (long) Math.exp(random.nextDouble() * 18));
+                bars.add(bar);
+            }
+            universe.add(bars);
+        }
+        return universe;
+    }
+
+    /** 按滞后期分行：byLag[k][s] = 倒数第 k+1 根，缺失 / null 记 0 */
+    private static long[][] byLag(List<List<StockDailyBar>> universe) {
+        long[][] byLag = new long[VolumePatternKernel.DEPTH][universe.size()];
+        for (int s = 0; s < universe.size(); s++) {
+            List<StockDailyBar> bars = universe.get(s);
+            for (int k = 0; k < Math.min(VolumePatternKernel.DEPTH, bars.size()); k++) {
+                Long v = bars.get(bars.size() - 1 - k).getVolume();
+                byLag[k][s] = v == null ? 0L : v;
+            }
+        }
+        return byLag;
+    }
+
+    private int[] expected(List<List<StockDailyBar>> universe) {
+        return expected(universe, reference);
+    }
+
+    private static int[] expected(List<List<StockDailyBar>> universe, PatternEvaluateServiceImpl evaluator) {
+        int[] hits = new int[universe.size()];
+        for (int s = 0; s < universe.size(); s++) {
+            hits[s] = evaluator.evaluateWindows(universe.get(s), ALL_WINDOWS);
+        }
+        return hits;
+    }
+
+    private void assertEquivalent(VolumePatternKernel kernel) {
+        Random random = new Random(20261018L);
+        for (int round = 0; round < 2000; round++) {
+            // symbol 数不必是向量宽度的整数倍：覆盖尾部标量路径
+            List<List<StockDailyBar>> universe = randomUniverse(random, random.nextInt(70));
+            int[] hits = new int[universe.size()];
+            kernel.evaluate(byLag(universe), universe.size(), hits);
+            assertArrayEquals(expected(universe), hits, kernel.name() + " round=" + round);
+        }
+    }
+
+    /** 随机阈值：放量倍数 1~8、递增步进 0~0.3，与同阈值的 PatternEvaluateServiceImpl 逐位一致 */
+    private static void assertEquivalentWithParams(VolumePatternKernel kernel) {
+        Random random = new Random(20261019L);
+        for (int round = 0; round < 500; round++) {
+            PatternParams params = new PatternParams(1.0 + random.nextDouble() * 7, random.nextDouble() * 0.3);
+            List<List<StockDailyBar>> universe = randomUniverse(random, random.nextInt(70));
+            int[] hits = new int[universe.size()];
+            kernel.evaluate(byLag(universe), universe.size(), hits, params);
+            assertArrayEquals(expected(universe, new PatternEvaluateServiceImpl(params)), hits,
+                    kernel.name() + " round=" + round + " params=" + params);
+        }
+    }
+
+    @Test
+    @DisplayName("VK-01: 标量内核与 PatternEvaluateServiceImpl.evaluateWindows 逐位一致")
+    void scalarKernel_equivalentToEvaluateWindows() {
+        assertEquivalent(VolumePatternKernels.scalar());
+    }
+
+    @Test
+    @DisplayName("VK-02: SIMD 内核与 PatternEvaluateServiceImpl.evaluateWindows 逐位一致")
+    void vectorKernel_equivalentToEvaluateWindows() {
+        VolumePatternKernel vector = VolumePatternKernels.vector();
+        Assumptions.assumeTrue(vector != null, "jdk.incubator.vector not enabled");
+        assertEquivalent(vector);
+    }
+
+    @Test
+    @DisplayName("VK-03: 已知序列 — 递增全部窗口命中、末日放量、0 成交量截断；空 universe 无输出")
+    void knownSeries() {
+        List<List<StockDailyBar>> universe = new ArrayList<>();
+        universe.add(bars(1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7000L));
+        universe.add(bars(10000L, 10000L, 10000L, 10000L, 60000L));
+        universe.add(bars(1000L, 0L, 3000L, 4000L));
+        universe.add(bars());
+        VolumePatternKernel kernel = VolumePatternKernels.preferred();
+        assertNotNull(kernel);
+        int[] hits = new int[universe.size()];
+        kernel.evaluate(byLag(universe), universe.size(), hits);
+        assertArrayEquals(expected(universe), hits);
+        assertEquals(ALL_WINDOWS, hits[0] & ALL_WINDOWS);
+        assertEquals(0, hits[3]);
+
+        kernel.evaluate(new long[VolumePatternKernel.DEPTH][0], 0, new int[0]);
+    }
+
+    @Test
+    @DisplayName("VK-04: 自定义阈值 — 标量 / SIMD 内核与同阈值的 evaluateWindows 逐位一致")
+    void kernels_equivalentWithCustomParams() {
+        assertEquivalentWithParams(VolumePatternKernels.scalar());
+        VolumePatternKernel vector = VolumePatternKernels.vector();
+        if (vector != null) {
+            assertEquivalentWithParams(vector);
+        }
+    }
+
+    private static List<StockDailyBar> bars(Long... volumes) {
+        List<StockDailyBar> bars = new ArrayList<>();
+        for (Long v : volumes) {
+            StockDailyBar bar = new StockDailyBar();
+            bar.setVolume(v);
+            bars.add(bar);
+        }
+        return bars;
+    }
+}
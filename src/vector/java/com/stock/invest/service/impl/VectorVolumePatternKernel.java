@@ -0,0 +1,76 @@
+package com.stock.invest.service.impl;
+
+import com.stock.invest.model.PatternParams;
+import com.stock.invest.service.PatternEvaluateService;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD 内核（{@code jdk.incubator.vector}）：每次取一个向量宽度的 symbol，
+ * 后缀和用 long 通道累加，均值比较在同宽 double 通道上进行。
+ * <p>long→double 转换、除法、乘法均为 IEEE 单步运算（无 FMA 合并），与标量实现逐位一致；
+ * 0 成交量以 alive 掩码表达标量的"遇 0 即停"。</p>
+ * <p>只经 {@link VolumePatternKernels} 反射加载：运行时未 {@code --add-modules jdk.incubator.vector}
+ * 时本类不会被解析，调用方退回 {@link ScalarVolumePatternKernel}。</p>
+ */
+final class VectorVolumePatternKernel implements VolumePatternKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorVolumePatternKernel() {
+        if (LONGS.length() != DOUBLES.length()) {
+            throw new IllegalStateException("long/double lane count mismatch: " + LONGS + " vs " + DOUBLES);
+        }
+    }
+
+    @Override
+    public void evaluate(long[][] byLag, int symbols, int[] hits, PatternParams params) {
+        double factor = params.increasingFactor();
+        double multiplier = params.spikeMultiplier();
+        int lanes = LONGS.length();
+        int bound = LONGS.loopBound(symbols);
+        long[] bits = new long[lanes];
+        int s = 0;
+        for (; s < bound; s += lanes) {
+            LongVector last = LongVector.fromArray(LONGS, byLag[0], s);
+            DoubleVector lastD = (DoubleVector) last.convert(VectorOperators.L2D, 0);
+            VectorMask<Long> alive = last.compare(VectorOperators.NE, 0L);
+            VectorMask<Long> increasing = alive;
+            LongVector suffix = last;
+            // avg(末 len-1 根)：len=2 时即末根本身
+            DoubleVector shorterAvg = lastD;
+            LongVector result = LongVector.zero(LONGS);
+            for (int len = 2; len <= DEPTH; len++) {
+                LongVector v = LongVector.fromArray(LONGS, byLag[len - 1], s);
+                alive = alive.and(v.compare(VectorOperators.NE, 0L));
+                suffix = suffix.add(v);
+                DoubleVector longerAvg = ((DoubleVector) suffix.convert(VectorOperators.L2D, 0)).div(len);
+                increasing = increasing.and(longerAvg.mul(factor).compare(VectorOperators.LT, shorterAvg).cast(LONGS));
+                result = result.lanewise(VectorOperators.OR, PatternEvaluateService.windowBit(len),
+                        increasing.and(alive));
+                DoubleVector avgBeforeLast = ((DoubleVector) suffix.sub(last).convert(VectorOperators.L2D, 0))
+                        .div(len - 1);
+                VectorMask<Long> spike = avgBeforeLast.mul(multiplier).compare(VectorOperators.LT, lastD).cast(LONGS);
+                result = result.lanewise(VectorOperators.OR, PatternEvaluateService.spikeBit(len),
+                        spike.and(alive));
+                shorterAvg = longerAvg;
+            }
+            result.intoArray(bits, 0);
+            for (int k = 0; k < lanes; k++) {
+                hits[s + k] = (int) bits[k];
+            }
+        }
+        for (; s < symbols; s++) {
+            hits[s] = ScalarVolumePatternKernel.evaluate(byLag, s, params);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + LONGS.vectorBitSize() + "-bit x" + LONGS.length() + ")";
+    }
+}
@@ -1,5 +1,5 @@
 """
-PY-TO-001~004: 测试 tigeropen_channel._cmd_bars 和 _cmd_afterhours_bars (Mock 模式)
+PY-TO-001~005: 测试 tigeropen_channel._cmd_bars、_cmd_afterhours_bars、_cmd_calendar_range (Mock 模式)
 """
 import sys
 import json
@@ -9,7 +9,7 @@ import pandas as pd
 import numpy as np
 
 sys.path.insert(0, "src/main/resources/python")
-from tigeropen_channel import _cmd_bars, _cmd_afterhours_bars
+from tigeropen_channel import _cmd_bars, _cmd_afterhours_bars, _cmd_calendar_range
 
 
 # ---------- helpers ----------
@@ -130,3 +130,32 @@ def test_py_to_004_afterhours_bars_no_data(mock_trading_session):
 
     assert result["symbol"] == "TSLA"
     assert len(result["items"]) == 0
+
+
+# ===================================================================
+# PY-TO-005: _cmd_calendar_range 一次调用返回区间内开盘日
+# ===================================================================
+@patch("tigeropen.common.consts.Market")
+def test_py_to_005_calendar_range_single_call(mock_market):
+    """PY-TO-005: _cmd_calendar_range 单次 API 调用，只保留区间内开盘日并升序"""
+    mock_market.US = "US_mock"
+
+    mock_client = MagicMock()
+    mock_client.get_trading_calendar.return_value = [
+        {"date": "2026-01-05", "type": "TRADING"},
+        {"date": "2026-01-02", "type": "TRADING"},
+        {"date": "2026-11-27", "type": "EARLY_CLOSE"},
+        {"date": "2027-01-04", "type": "TRADING"},  # 越界，丢弃
+    ]
+
+    with patch("builtins.print") as mock_print:
+        _cmd_calendar_range(mock_client, "US", "2026-01-01", "2026-12-31")
+
+    mock_client.get_trading_calendar.assert_called_once()
+    kwargs = mock_client.get_trading_calendar.call_args[1]
+    assert kwargs["begin_date"] == "2026-01-01"
+    assert kwargs["end_date"] == "2027-01-01"
+
+    result = json.loads(mock_print.call_args[0][0])
+    assert [d["date"] for d in result["days"]] == ["2026-01-02", "2026-01-05", "2026-11-27"]
+    assert result["days"][2]["type"] == "EARLY_CLOSE"
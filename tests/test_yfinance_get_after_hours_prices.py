@@ -0,0 +1,54 @@
+"""
+PY-YF-AH-001~002: 测试 stock_info_yfinance.get_after_hours_prices() (Mock 模式)
+"""
+import sys
+import json
+from datetime import datetime, timedelta
+from unittest.mock import patch, MagicMock
+import pandas as pd
+import pytz
+
+sys.path.insert(0, "src/main/resources/python")
+import stock_info_yfinance as yf_module
+
+
+def _minute_history(days):
+    """Build 1m prepost history for the given dates: regular close 10.0, after-hours close 10.5."""
+    ny = pytz.timezone("America/New_York")
+    stamps, closes = [], []
+    for d in days:
+        for hh, mm, close in ((15, 59, 10.0), (16, 30, 10.2), (19, 59, 10.5)):
+            stamps.append(ny.localize(datetime(d.year, d.month, d.day, hh, mm)))
+            closes.append(close)
+    idx = pd.DatetimeIndex(stamps).tz_convert("UTC")
+    return pd.DataFrame({"Close": closes}, index=idx)
+
+
+@patch("stock_info_yfinance.yf.Ticker")
+def test_py_yf_ah_001_multiple_dates_single_download(mock_ticker_cls):
+    """PY-YF-AH-001: 相邻多日只下载一次 1m 数据，逐日返回盘后 close 与涨跌幅"""
+    today = datetime.now(pytz.timezone("America/New_York")).date()
+    d1, d2 = today - timedelta(days=3), today - timedelta(days=2)
+    mock_ticker = MagicMock()
+    mock_ticker_cls.return_value = mock_ticker
+    mock_ticker.history.return_value = _minute_history([d1, d2])
+
+    data = json.loads(yf_module.get_after_hours_prices("AAPL", f"{d2},{d1}"))
+
+    assert "error" not in data
+    assert [it["date"] for it in data["items"]] == [str(d1), str(d2)]
+    assert data["items"][0]["afterHours"] == 10.5
+    assert abs(data["items"][0]["afterHoursChangePercent"] - 5.0) < 1e-9
+    assert mock_ticker.history.call_count == 1
+
+
+@patch("stock_info_yfinance.yf.Ticker")
+def test_py_yf_ah_002_outside_retention_skipped(mock_ticker_cls):
+    """PY-YF-AH-002: 超出全部分钟数据保留期的日期不发请求、不返回 item"""
+    mock_ticker = MagicMock()
+    mock_ticker_cls.return_value = mock_ticker
+
+    data = json.loads(yf_module.get_after_hours_prices("AAPL", "2000-01-03,2000-01-04"))
+
+    assert data["items"] == []
+    mock_ticker.history.assert_not_called()